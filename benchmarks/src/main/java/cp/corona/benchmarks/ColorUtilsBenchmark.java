@@ -0,0 +1,56 @@
+package cp.corona.benchmarks;
+
+import cp.corona.utils.ColorUtils;
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Color translation for the message shapes found in the bundled configs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorUtilsBenchmark {
+
+    private static final Map<String, String> INPUTS = Map.of(
+            "legacy", "&8[&6C&cP&8] &r&7Player &e{player} &7has been &cbanned &7for &f{reason}",
+            "hex", "&#ff801aCrown &#b0b0b0» &#ffffffPunishment &#ffea00#A1B2C3 &#ffffffapplied.",
+            "gradient", "<gradient:#ff416c:#ff4b2b><bold>You have been banned from the server.</bold></gradient> <color:#b0b0b0>Reason: <color:#ffffff>Cheating</color></color>",
+            "centered", "<center><gradient:#f7971e:#ffd200><bold>CROWN COMMANDS:</bold></gradient>");
+
+    @Param({"legacy", "hex", "gradient", "centered"})
+    public String input;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        message = INPUTS.get(input);
+    }
+
+    @Benchmark
+    public String translateRGBColors() {
+        return ColorUtils.translateRGBColors(message);
+    }
+
+    @Benchmark
+    public Component parseComponent() {
+        return ColorUtils.parseComponent(message);
+    }
+}
@@ -0,0 +1,49 @@
+package cp.corona.benchmarks;
+
+import cp.corona.crown.Crown;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Starts a MockBukkit server and enables the real Crown plugin on it. The bundled plugin.yml is
+ * used as is, minus the hard PlaceholderAPI dependency, which the plugin treats as optional anyway.
+ */
+public final class CrownBootstrap {
+
+    private CrownBootstrap() {
+    }
+
+    public static ServerMock mockServer() {
+        return MockBukkit.mock();
+    }
+
+    public static Crown loadPlugin() {
+        return MockBukkit.loadWith(Crown.class, description());
+    }
+
+    public static void shutdown() {
+        MockBukkit.unmock();
+    }
+
+    private static PluginDescriptionFile description() {
+        try (InputStream in = Crown.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) {
+                throw new IllegalStateException("plugin.yml not found on the classpath");
+            }
+            String yaml = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.startsWith("depend:"))
+                    .collect(Collectors.joining("\n"));
+            return new PluginDescriptionFile(new StringReader(yaml));
+        } catch (IOException | InvalidDescriptionException e) {
+            throw new IllegalStateException("Could not read Crown's plugin.yml", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package cp.corona.benchmarks;
+
+import cp.corona.utils.InventorySerializer;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of a full player inventory (36 storage + 4 armor + off hand) through the
+ * Base64 format used for lockers, confiscations and crash recovery.
+ * ItemStack serialization needs a server, so a MockBukkit server is started for the trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventorySerializerBenchmark {
+
+    private static final int PLAYER_INVENTORY_SIZE = 41;
+
+    private ItemStack[] contents;
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MockBukkit.mock();
+        contents = buildInventory();
+        encoded = InventorySerializer.itemStackArrayToBase64(contents);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public String serialize() {
+        return InventorySerializer.itemStackArrayToBase64(contents);
+    }
+
+    @Benchmark
+    public ItemStack[] deserialize() {
+        return InventorySerializer.itemStackArrayFromBase64(encoded);
+    }
+
+    @Benchmark
+    public ItemStack[] roundTrip() {
+        return InventorySerializer.itemStackArrayFromBase64(InventorySerializer.itemStackArrayToBase64(contents));
+    }
+
+    private static ItemStack[] buildInventory() {
+        Material[] blocks = {Material.STONE, Material.OAK_LOG, Material.COBBLESTONE, Material.DIRT,
+                Material.GLASS, Material.TORCH, Material.COOKED_BEEF, Material.ARROW};
+        ItemStack[] items = new ItemStack[PLAYER_INVENTORY_SIZE];
+
+        items[0] = named(new ItemStack(Material.DIAMOND_SWORD), "Excalibur", Enchantment.SHARPNESS, 5);
+        items[1] = named(new ItemStack(Material.BOW), "Longbow", Enchantment.POWER, 4);
+        items[2] = named(new ItemStack(Material.DIAMOND_PICKAXE), "Digger", Enchantment.EFFICIENCY, 5);
+        for (int i = 3; i < 36; i++) {
+            // Leave a few gaps like a real inventory.
+            if (i % 7 == 0) continue;
+            items[i] = new ItemStack(blocks[i % blocks.length], 1 + (i * 3) % 64);
+        }
+        items[36] = named(new ItemStack(Material.DIAMOND_BOOTS), "Boots", Enchantment.PROTECTION, 4);
+        items[37] = named(new ItemStack(Material.DIAMOND_LEGGINGS), "Leggings", Enchantment.PROTECTION, 4);
+        items[38] = named(new ItemStack(Material.DIAMOND_CHESTPLATE), "Chestplate", Enchantment.PROTECTION, 4);
+        items[39] = named(new ItemStack(Material.DIAMOND_HELMET), "Helmet", Enchantment.PROTECTION, 4);
+        items[40] = new ItemStack(Material.SHIELD);
+        return items;
+    }
+
+    private static ItemStack named(ItemStack item, String name, Enchantment enchantment, int level) {
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName(name);
+        meta.setLore(List.of("Owned by a benchmark", "Level " + level));
+        item.setItemMeta(meta);
+        item.addUnsafeEnchantment(enchantment, level);
+        return item;
+    }
+}
@@ -0,0 +1,59 @@
+package cp.corona.benchmarks;
+
+import cp.corona.config.MainConfigManager;
+import cp.corona.utils.MessageUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config-driven message building: a chat notification with replacements and a full ban screen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+
+    private MainConfigManager configManager;
+    private List<String> banScreen;
+    private Date expiration;
+
+    @Setup
+    public void setup() {
+        configManager = StubConfig.create();
+        banScreen = configManager.getBanScreen();
+        expiration = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(7));
+    }
+
+    @Benchmark
+    public String getMessageWithReplacements() {
+        return configManager.getMessage("messages.you_are_muted",
+                "{time}", "7d", "{reason}", "Spamming in chat", "{punishment_id}", "A1B2C3");
+    }
+
+    @Benchmark
+    public String getMessagePunishmentType() {
+        // {punishment_type} goes through the display-form lookup as well.
+        return configManager.getMessage("messages.direct_punishment_confirmed", "{punishment_type}", "ban",
+                "{target}", "Notch", "{punishment_id}", "A1B2C3", "{time}", "7d", "{reason}", "Cheating");
+    }
+
+    @Benchmark
+    public String getKickMessage() {
+        return MessageUtils.getKickMessage(banScreen, "Cheating (killaura)", "7d", "A1B2C3", expiration, configManager);
+    }
+}
@@ -0,0 +1,66 @@
+package cp.corona.benchmarks;
+
+import cp.corona.config.CustomConfig;
+import cp.corona.config.MainConfigManager;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.objenesis.ObjenesisStd;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a MainConfigManager backed by the plugin's bundled YAML files without a server or
+ * plugin instance. The constructor is skipped and only the config fields the benchmarked
+ * paths read are filled in.
+ */
+final class StubConfig {
+
+    private static final ObjenesisStd OBJENESIS = new ObjenesisStd();
+
+    private StubConfig() {
+    }
+
+    static MainConfigManager create() {
+        MainConfigManager configManager = OBJENESIS.newInstance(MainConfigManager.class);
+        setField(configManager, "messagesConfig", load("messages.yml"));
+        setField(configManager, "pluginConfig", load("config.yml"));
+        setField(configManager, "punishInfoConfig", load("punishments/punish_info.yml"));
+
+        Map<String, CustomConfig> punishmentConfigs = new HashMap<>();
+        for (String type : new String[]{"ban", "mute", "kick", "warn", "softban", "freeze"}) {
+            punishmentConfigs.put(type, load("punishments/" + type + ".yml"));
+        }
+        setField(configManager, "punishmentConfigs", punishmentConfigs);
+        setField(configManager, "defaultTimeUnit", configManager.getTimeUnit("default"));
+        return configManager;
+    }
+
+    private static CustomConfig load(String resource) {
+        CustomConfig config = OBJENESIS.newInstance(CustomConfig.class);
+        try (InputStream in = StubConfig.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Bundled resource not found: " + resource);
+            }
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+            setField(config, "fileConfiguration", yaml);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("Could not read " + resource, e);
+        }
+        return config;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Stub config is out of date with " + target.getClass().getSimpleName()
+                    + " (field '" + name + "')", e);
+        }
+    }
+}
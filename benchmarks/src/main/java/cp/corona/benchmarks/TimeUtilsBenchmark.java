@@ -0,0 +1,49 @@
+package cp.corona.benchmarks;
+
+import cp.corona.config.MainConfigManager;
+import cp.corona.utils.TimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeUtilsBenchmark {
+
+    @Param({"30m", "7d", "1y 2M 3d 4h 5m 6s"})
+    public String duration;
+
+    @Param({"45", "93784", "36993906"})
+    public int seconds;
+
+    private MainConfigManager configManager;
+
+    @Setup
+    public void setup() {
+        configManager = StubConfig.create();
+    }
+
+    @Benchmark
+    public int parseTime() {
+        return TimeUtils.parseTime(duration, configManager);
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return TimeUtils.formatTime(seconds, configManager);
+    }
+}
@@ -0,0 +1,332 @@
+package cp.corona.benchmarks.db;
+
+import cp.corona.benchmarks.CrownBootstrap;
+import cp.corona.crown.Crown;
+import cp.corona.database.DatabaseManager;
+import cp.corona.report.ReportStatus;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load harness for the plugin's database layer. Boots Crown on a MockBukkit server, points a
+ * fresh {@link DatabaseManager} at a local SQLite file (or H2 in MySQL mode), seeds it with
+ * millions of rows and then replays a weighted operation mix from several worker threads through
+ * the same methods the plugin calls in production.
+ * <p>
+ * Reports throughput and p50/p99/p99.9 latency per operation. Example:
+ * <pre>
+ * java -cp crown-benchmarks.jar cp.corona.benchmarks.db.DatabaseLoadHarness \
+ *     --backend sqlite --players 100000 --punishments 2000000 --workers 8 --duration 60
+ * </pre>
+ */
+public final class DatabaseLoadHarness {
+
+    enum Operation {
+        LOGIN("login", 40),
+        CHAT("chat", 30),
+        PUNISH("punish", 4),
+        UNPUNISH("unpunish", 3),
+        HISTORY("history", 12),
+        REPORTS("reports", 10),
+        EXPIRY("expiry", 1);
+
+        final String key;
+        final int defaultWeight;
+
+        Operation(String key, int defaultWeight) {
+            this.key = key;
+            this.defaultWeight = defaultWeight;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final EnumMap<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<String> issuedIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextSeededId = new AtomicLong();
+    private DatabaseManager databaseManager;
+    private int players;
+    private long punishments;
+
+    private DatabaseLoadHarness(Map<String, String> options) {
+        this.options = options;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArguments(args);
+        if (options.containsKey("help")) {
+            printUsage();
+            return;
+        }
+        CrownBootstrap.mockServer();
+        try {
+            new DatabaseLoadHarness(options).run();
+        } finally {
+            CrownBootstrap.shutdown();
+        }
+    }
+
+    private void run() throws Exception {
+        String backend = option("backend", "sqlite").toLowerCase(Locale.ROOT);
+        String dbName = option("db-name", "crown-load");
+        players = Integer.parseInt(option("players", "100000"));
+        punishments = Long.parseLong(option("punishments", "1000000"));
+        long chatRows = Long.parseLong(option("chat", "2000000"));
+        long reportRows = Long.parseLong(option("reports", "200000"));
+        int workers = Integer.parseInt(option("workers", "8"));
+        long warmupSeconds = Long.parseLong(option("warmup", "10"));
+        long durationSeconds = Long.parseLong(option("duration", "60"));
+        long seed = Long.parseLong(option("seed", "42"));
+        EnumMap<Operation, Integer> weights = parseMix(option("mix", ""));
+
+        Crown plugin = CrownBootstrap.loadPlugin();
+        FileConfiguration config = plugin.getConfigManager().getPluginConfig().getConfig();
+        config.set("database.name", dbName);
+        switch (backend) {
+            case "sqlite" -> config.set("database.type", "sqlite");
+            case "h2" -> {
+                File h2File = new File(plugin.getDataFolder(), dbName);
+                config.set("database.type", "mysql");
+                config.set("database.jdbc-url", "jdbc:h2:file:" + h2File.getAbsolutePath()
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=TIMESTAMP");
+            }
+            default -> throw new IllegalArgumentException("Unknown backend '" + backend + "', expected sqlite or h2");
+        }
+
+        System.out.printf(Locale.ROOT, "Backend %s in %s%n", backend, plugin.getDataFolder().getAbsolutePath());
+        databaseManager = new DatabaseManager(plugin);
+        try {
+            awaitSchema();
+
+            DatasetSeeder seeder = new DatasetSeeder(databaseManager, players, seed);
+            if (!options.containsKey("no-seed") && !seeder.isSeeded()) {
+                long started = System.nanoTime();
+                System.out.println("Seeding...");
+                seeder.seedPunishments(punishments);
+                seeder.seedChat(chatRows);
+                seeder.seedReports(reportRows);
+                System.out.printf(Locale.ROOT, "Seeded in %.1f s%n", (System.nanoTime() - started) / 1e9);
+            }
+
+            if (warmupSeconds > 0) {
+                System.out.printf(Locale.ROOT, "Warming up for %d s...%n", warmupSeconds);
+                runWorkers(workers, weights, warmupSeconds, seed + 1);
+                histograms.replaceAll((operation, histogram) -> new LatencyHistogram());
+            }
+
+            System.out.printf(Locale.ROOT, "Measuring %d workers for %d s...%n", workers, durationSeconds);
+            long started = System.nanoTime();
+            runWorkers(workers, weights, durationSeconds, seed + 2);
+            printReport(System.nanoTime() - started);
+        } finally {
+            databaseManager.close();
+        }
+    }
+
+    private void runWorkers(int workers, EnumMap<Operation, Integer> weights, long seconds, long seed)
+            throws InterruptedException {
+        Operation[] wheel = buildWheel(weights);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(workers);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < workers; i++) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + i);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = wheel[random.nextInt(wheel.length)];
+                        LatencyHistogram histogram = histograms.get(operation);
+                        long start = System.nanoTime();
+                        try {
+                            execute(operation, random);
+                            histogram.record(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            histogram.recordError();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "Crown-Load-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        done.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void execute(Operation operation, SplittableRandom random) throws SQLException {
+        int player = random.nextInt(players);
+        switch (operation) {
+            case LOGIN -> databaseManager.getAllActivePunishments(DatasetSeeder.playerUUID(player),
+                    DatasetSeeder.playerIp(player));
+            case CHAT -> insertChat(player, random);
+            case PUNISH -> {
+                boolean mute = random.nextBoolean();
+                String id = databaseManager.executePunishmentAsync(DatasetSeeder.playerUUID(player),
+                        mute ? "mute" : "ban", "Load test", "LoadHarness",
+                        System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1), "1h", false, List.of()).join();
+                if (id != null) {
+                    issuedIds.add(id);
+                }
+            }
+            case UNPUNISH -> {
+                String id = issuedIds.poll();
+                if (id == null) {
+                    id = DatasetSeeder.punishmentId(nextSeededId.getAndIncrement() % Math.max(1, punishments));
+                }
+                databaseManager.updatePunishmentAsRemoved(id, "LoadHarness", "Load test");
+            }
+            case HISTORY -> databaseManager.getPunishmentHistory(DatasetSeeder.playerUUID(player),
+                    1 + random.nextInt(3), 10);
+            case REPORTS -> {
+                ReportStatus status = random.nextBoolean() ? ReportStatus.PENDING : null;
+                String name = random.nextInt(3) == 0 ? DatasetSeeder.playerName(player) : null;
+                databaseManager.getReports(1, 28, status, name, false, null, null).join();
+            }
+            case EXPIRY -> databaseManager.runExpirySweep();
+        }
+    }
+
+    /** Same statement PlayerChatListener runs for every chat message. */
+    private void insertChat(int player, SplittableRandom random) throws SQLException {
+        String sql = "INSERT INTO player_chat_history (player_uuid, message) VALUES (?, ?)";
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, DatasetSeeder.playerUUID(player).toString());
+            ps.setString(2, DatasetSeeder.chatLine(random));
+            ps.executeUpdate();
+        }
+    }
+
+    /** Schema creation runs asynchronously in the DatabaseManager constructor; wait for the last table. */
+    private void awaitSchema() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try (Connection connection = databaseManager.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT 1 FROM inventory_snapshots WHERE 1 = 0").close();
+                return;
+            } catch (SQLException e) {
+                Thread.sleep(100L);
+            }
+        }
+        throw new IllegalStateException("Database schema was not created within 60 seconds");
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long totalOps = 0;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "ops", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histograms.get(operation);
+            if (histogram.count() == 0 && histogram.errors() == 0) continue;
+            totalOps += histogram.count();
+            System.out.printf(Locale.ROOT, "%-10s %,10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    operation.key, histogram.count(), histogram.errors(), histogram.count() / seconds,
+                    millis(histogram.percentile(0.50)), millis(histogram.percentile(0.99)),
+                    millis(histogram.percentile(0.999)), millis(histogram.max()));
+        }
+        System.out.printf(Locale.ROOT, "%-10s %,10d %8s %10.1f%n", "total", totalOps, "", totalOps / seconds);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Operation[] buildWheel(EnumMap<Operation, Integer> weights) {
+        List<Operation> wheel = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        if (wheel.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no positive weights");
+        }
+        return wheel.toArray(new Operation[0]);
+    }
+
+    /** "login=40,chat=30" overrides the default weights of the listed operations only. */
+    private static EnumMap<Operation, Integer> parseMix(String mix) {
+        EnumMap<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, operation.defaultWeight);
+        }
+        if (mix.isBlank()) return weights;
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=", 2);
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (candidate.key.equalsIgnoreCase(pair[0])) {
+                    operation = candidate;
+                }
+            }
+            if (operation == null || pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "'");
+            }
+            weights.put(operation, Math.max(0, Integer.parseInt(pair[1].trim())));
+        }
+        return weights;
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        return options;
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    private static void printUsage() {
+        System.out.println("""
+                Options:
+                  --backend sqlite|h2     database to run against (default sqlite)
+                  --db-name NAME          database file name in the plugin data folder (default crown-load)
+                  --players N             distinct players (default 100000)
+                  --punishments N         seeded punishment_history/player_info rows (default 1000000)
+                  --chat N                seeded player_chat_history rows (default 2000000)
+                  --reports N             seeded reports rows (default 200000)
+                  --no-seed               reuse an existing database as is
+                  --workers N             concurrent worker threads (default 8)
+                  --warmup SECONDS        unmeasured warm-up (default 10)
+                  --duration SECONDS      measured run (default 60)
+                  --mix op=weight,...     login, chat, punish, unpunish, history, reports, expiry
+                  --seed N                random seed (default 42)""");
+    }
+}
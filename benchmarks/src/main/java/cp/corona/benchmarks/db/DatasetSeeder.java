@@ -0,0 +1,234 @@
+package cp.corona.benchmarks.db;
+
+import cp.corona.database.DatabaseManager;
+import cp.corona.report.ReportStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the plugin's own tables with a synthetic but realistically shaped data set: most
+ * punishments are old and inactive, a few are IP bans shared by several accounts, and chat and
+ * report volume is skewed towards a small set of busy players.
+ * <p>
+ * Players, IPs and IDs are derived from indexes, so the load phase can pick valid keys without
+ * reading them back.
+ */
+final class DatasetSeeder {
+
+    private static final int BATCH_SIZE = 5_000;
+    private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final String[] TYPES = {"ban", "mute", "kick", "warn", "softban"};
+    private static final String[] CATEGORIES = {"Cheating", "Chat abuse", "Griefing", "Other"};
+    private static final ReportStatus[] STATUSES = ReportStatus.values();
+
+    private final DatabaseManager databaseManager;
+    private final int players;
+    private final long seed;
+
+    DatasetSeeder(DatabaseManager databaseManager, int players, long seed) {
+        this.databaseManager = databaseManager;
+        this.players = players;
+        this.seed = seed;
+    }
+
+    static UUID playerUUID(int index) {
+        return new UUID(0x43524F574EL, index);
+    }
+
+    static String playerName(int index) {
+        return "Player" + index;
+    }
+
+    /** Roughly one in eight addresses is shared by several accounts. */
+    static String playerIp(int index) {
+        int address = index % 8 == 0 ? index / 64 : index;
+        return "10." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    /** Seeded IDs use a '~' prefix, which the plugin's generator never produces. */
+    static String punishmentId(long index) {
+        return "~" + pad(Long.toString(index, 36), 7);
+    }
+
+    static String reportId(long index) {
+        return "~R" + pad(Long.toString(index, 36), 8);
+    }
+
+    boolean isSeeded() throws SQLException {
+        try (Connection connection = databaseManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM punishment_history")) {
+            return rs.next() && rs.getLong(1) > 0;
+        }
+    }
+
+    void seedPunishments(long count) throws SQLException {
+        String historySql = "INSERT INTO punishment_history (punishment_id, player_uuid, punishment_type, reason, timestamp, punisher_name, punishment_time, duration_string, active, by_ip, warn_level) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String infoSql = "INSERT INTO player_info (punishment_id, ip, location, gamemode, health, hunger, exp_level, playtime, ping, first_joined, last_joined, potion_effects) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        SplittableRandom random = new SplittableRandom(seed);
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement history = connection.prepareStatement(historySql);
+                 PreparedStatement info = connection.prepareStatement(infoSql)) {
+                for (long i = 0; i < count; i++) {
+                    int player = skewedPlayer(random);
+                    String id = punishmentId(i);
+                    String type = TYPES[random.nextInt(TYPES.length)];
+                    long issuedAt = now - random.nextLong(YEAR_MILLIS);
+                    int shape = random.nextInt(100);
+                    // 80% expired or removed, 15% running with an end time, 5% permanent
+                    boolean active = shape >= 80;
+                    long endTime = shape >= 95 ? Long.MAX_VALUE
+                            : active ? now + random.nextLong(TimeUnit.DAYS.toMillis(30)) + 1
+                            : issuedAt + TimeUnit.DAYS.toMillis(1);
+
+                    history.setString(1, id);
+                    history.setString(2, playerUUID(player).toString());
+                    history.setString(3, type);
+                    history.setString(4, "Seeded " + type);
+                    history.setTimestamp(5, new Timestamp(issuedAt));
+                    history.setString(6, "Moderator" + random.nextInt(50));
+                    history.setLong(7, endTime);
+                    history.setString(8, endTime == Long.MAX_VALUE ? "permanent" : "1d");
+                    history.setBoolean(9, active);
+                    history.setBoolean(10, "ban".equals(type) && random.nextInt(20) == 0);
+                    history.setInt(11, "warn".equals(type) ? 1 + random.nextInt(3) : 0);
+                    history.addBatch();
+
+                    info.setString(1, id);
+                    info.setString(2, playerIp(player));
+                    info.setString(3, "world," + random.nextInt(2000) + ",64," + random.nextInt(2000));
+                    info.setString(4, "SURVIVAL");
+                    info.setDouble(5, 20.0);
+                    info.setInt(6, 20);
+                    info.setInt(7, random.nextInt(60));
+                    info.setLong(8, random.nextLong(TimeUnit.DAYS.toMillis(40)));
+                    info.setInt(9, 20 + random.nextInt(200));
+                    info.setLong(10, issuedAt - YEAR_MILLIS);
+                    info.setLong(11, issuedAt);
+                    info.setString(12, "");
+                    info.addBatch();
+
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        history.executeBatch();
+                        info.executeBatch();
+                        connection.commit();
+                        progress("punishment_history", i + 1, count);
+                    }
+                }
+                history.executeBatch();
+                info.executeBatch();
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    void seedChat(long count) throws SQLException {
+        String sql = "INSERT INTO player_chat_history (player_uuid, message, timestamp) VALUES (?, ?, ?)";
+        SplittableRandom random = new SplittableRandom(seed ^ 0x636861L);
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (long i = 0; i < count; i++) {
+                    ps.setString(1, playerUUID(skewedPlayer(random)).toString());
+                    ps.setString(2, chatLine(random));
+                    ps.setTimestamp(3, new Timestamp(now - random.nextLong(YEAR_MILLIS)));
+                    ps.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                        connection.commit();
+                        progress("player_chat_history", i + 1, count);
+                    }
+                }
+                ps.executeBatch();
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    void seedReports(long count) throws SQLException {
+        String sql = "INSERT INTO reports (report_id, requester_uuid, target_uuid, target_name, report_type, category, reason, details, status, timestamp, moderator_uuid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        SplittableRandom random = new SplittableRandom(seed ^ 0x726570L);
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (long i = 0; i < count; i++) {
+                    int target = skewedPlayer(random);
+                    ReportStatus status = STATUSES[random.nextInt(STATUSES.length)];
+                    String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                    ps.setString(1, reportId(i));
+                    ps.setString(2, playerUUID(random.nextInt(players)).toString());
+                    ps.setString(3, playerUUID(target).toString());
+                    ps.setString(4, playerName(target));
+                    ps.setString(5, "PLAYER");
+                    ps.setString(6, category);
+                    ps.setString(7, category + " report");
+                    ps.setString(8, "Seeded report " + i);
+                    ps.setString(9, status.name());
+                    ps.setTimestamp(10, new Timestamp(now - random.nextLong(YEAR_MILLIS)));
+                    ps.setString(11, status == ReportStatus.PENDING ? null : playerUUID(random.nextInt(50)).toString());
+                    ps.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                        connection.commit();
+                        progress("reports", i + 1, count);
+                    }
+                }
+                ps.executeBatch();
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** A quarter of the rows belong to the busiest 1% of players. */
+    int skewedPlayer(SplittableRandom random) {
+        int busy = Math.max(1, players / 100);
+        return random.nextInt(4) == 0 ? random.nextInt(busy) : random.nextInt(players);
+    }
+
+    static String chatLine(SplittableRandom random) {
+        String[] words = {"hello", "anyone", "trade", "diamonds", "spawn", "base", "lag", "gg", "help", "where", "is", "the", "shop"};
+        StringBuilder line = new StringBuilder();
+        int length = 2 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) line.append(' ');
+            line.append(words[random.nextInt(words.length)]);
+        }
+        return line.toString();
+    }
+
+    private static void progress(String table, long done, long total) {
+        if (done % (BATCH_SIZE * 40L) == 0 || done == total) {
+            System.out.printf(Locale.ROOT, "  %-20s %,d / %,d%n", table, done, total);
+        }
+    }
+
+    private static String pad(String value, int length) {
+        StringBuilder padded = new StringBuilder(length);
+        for (int i = value.length(); i < length; i++) {
+            padded.append('0');
+        }
+        return padded.append(value.toUpperCase(Locale.ROOT)).toString();
+    }
+}
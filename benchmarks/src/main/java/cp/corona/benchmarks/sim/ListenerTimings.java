@@ -0,0 +1,105 @@
+package cp.corona.benchmarks.sim;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Re-registers every listener of a plugin behind a timing executor and attributes the main-thread
+ * time spent in each handler to the listener's class. Time is accumulated per tick; call
+ * {@link #endTick()} after each simulated tick to close the sample.
+ * <p>
+ * Handlers fired off the main thread (async chat, pre-login) are passed through untimed.
+ */
+final class ListenerTimings {
+
+    private final Map<String, Long> currentTick = new HashMap<>();
+    private final Map<String, List<Long>> ticks = new TreeMap<>();
+    private int tickCount;
+
+    void install(Plugin plugin) {
+        for (HandlerList handlerList : HandlerList.getHandlerLists()) {
+            for (RegisteredListener registered : handlerList.getRegisteredListeners()) {
+                if (registered.getPlugin() != plugin) continue;
+                handlerList.unregister(registered);
+                handlerList.register(new RegisteredListener(registered.getListener(), timed(registered),
+                        registered.getPriority(), plugin, registered.isIgnoringCancelled()));
+            }
+        }
+    }
+
+    /** Adds time spent outside event handlers, e.g. a scheduled task, to the current tick. */
+    void record(String name, long nanos) {
+        currentTick.merge(name, nanos, Long::sum);
+    }
+
+    /** Time booked so far in the tick that is still open. */
+    long currentTickTotal() {
+        long total = 0;
+        for (long nanos : currentTick.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    /** Drops everything measured so far, e.g. after warm-up. */
+    void reset() {
+        currentTick.clear();
+        ticks.clear();
+        tickCount = 0;
+    }
+
+    void endTick() {
+        for (String name : currentTick.keySet()) {
+            ticks.computeIfAbsent(name, k -> zeroFilled(tickCount));
+        }
+        for (Map.Entry<String, List<Long>> entry : ticks.entrySet()) {
+            entry.getValue().add(currentTick.getOrDefault(entry.getKey(), 0L));
+        }
+        currentTick.clear();
+        tickCount++;
+    }
+
+    /** Per-tick nanoseconds for each source, one entry per simulated tick. */
+    Map<String, List<Long>> getTicks() {
+        return ticks;
+    }
+
+    int getTickCount() {
+        return tickCount;
+    }
+
+    private EventExecutor timed(RegisteredListener registered) {
+        String name = registered.getListener().getClass().getSimpleName();
+        return (Listener listener, Event event) -> {
+            if (!Bukkit.isPrimaryThread()) {
+                registered.callEvent(event);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                registered.callEvent(event);
+            } finally {
+                record(name, System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static List<Long> zeroFilled(int size) {
+        List<Long> list = new ArrayList<>(size + 1024);
+        for (int i = 0; i < size; i++) {
+            list.add(0L);
+        }
+        return list;
+    }
+}
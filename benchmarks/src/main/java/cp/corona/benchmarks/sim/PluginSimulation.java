@@ -0,0 +1,306 @@
+package cp.corona.benchmarks.sim;
+
+import cp.corona.benchmarks.CrownBootstrap;
+import cp.corona.crown.Crown;
+import cp.corona.moderator.ModeratorStateUpdateTask;
+import org.bukkit.Location;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.scheduler.BukkitTask;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible whole-plugin simulation. Boots Crown on a MockBukkit server (no network, no real
+ * server), joins a few hundred simulated players and a handful of moderators in mod mode, and
+ * drives a fixed tick loop of movement, chat, commands, menus, punishments, freezes and reports.
+ * <p>
+ * Main-thread time is attributed per tick to each Crown listener class, to
+ * ModeratorStateUpdateTask, to Crown's other scheduled tasks and to command execution. The run
+ * fails (exit code 1) when any source exceeds its budget in simulation-budgets.properties, or in
+ * the file given with {@code --budgets}. {@code --report FILE} writes the measured values in the
+ * same format, so a run on a known-good build can serve as the next baseline.
+ * <pre>
+ * java -cp crown-benchmarks.jar cp.corona.benchmarks.sim.PluginSimulation --players 300 --ticks 6000
+ * </pre>
+ */
+public final class PluginSimulation {
+
+    private static final String STATE_TASK = "ModeratorStateUpdateTask";
+    private static final String SCHEDULER = "scheduler";
+    private static final String COMMANDS = "commands";
+    private static final String TOTAL = "total";
+    private static final String[] CHAT_LINES = {"hello", "anyone want to trade?", "where is spawn", "lag", "gg",
+            "selling diamonds", "can a mod help me", "brb", "lol", "who griefed my base"};
+    private static final String[] TIMED_TYPES = {"mute", "ban", "softban"};
+    private static final String[] DURATIONS = {"10m", "1h", "1d"};
+    private static final String[] MENU_COMMANDS = {"punish", "history", "profile"};
+
+    private final Map<String, String> options;
+    private final ListenerTimings timings = new ListenerTimings();
+    private final SplittableRandom random;
+    private final List<PlayerMock> players = new ArrayList<>();
+    private final List<PlayerMock> moderators = new ArrayList<>();
+    private final Map<PlayerMock, Integer> frozenUntil = new HashMap<>();
+    private ServerMock server;
+    private Crown plugin;
+    private ModeratorStateUpdateTask stateUpdateTask;
+    private int nextPlayerIndex;
+
+    private PluginSimulation(Map<String, String> options) {
+        this.options = options;
+        this.random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArguments(args);
+        boolean passed;
+        try {
+            passed = new PluginSimulation(options).run();
+        } finally {
+            CrownBootstrap.shutdown();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        int playerCount = Integer.parseInt(options.getOrDefault("players", "300"));
+        int moderatorCount = Integer.parseInt(options.getOrDefault("moderators", "6"));
+        int warmupTicks = Integer.parseInt(options.getOrDefault("warmup", "400"));
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "6000"));
+        TickBudgets budgets = TickBudgets.load(options.get("budgets"));
+
+        server = CrownBootstrap.mockServer();
+        plugin = CrownBootstrap.loadPlugin();
+        replaceStateUpdateTask();
+        timings.install(plugin);
+
+        for (int i = 0; i < moderatorCount; i++) {
+            PlayerMock moderator = server.addPlayer("Mod" + i);
+            moderator.setOp(true);
+            moderators.add(moderator);
+            command(moderator, "mod");
+        }
+
+        // Players trickle in during warm-up; everything is measured from then on.
+        int joinsPerTick = Math.max(1, (playerCount + warmupTicks - 1) / Math.max(1, warmupTicks));
+        for (int tick = 0; tick < warmupTicks || players.size() < playerCount; tick++) {
+            for (int i = 0; i < joinsPerTick && players.size() < playerCount; i++) {
+                join();
+            }
+            tick(tick, playerCount);
+        }
+        timings.reset();
+
+        System.out.printf(Locale.ROOT, "Simulating %d ticks with %d players and %d moderators...%n",
+                ticks, players.size(), moderators.size());
+        for (int tick = 0; tick < ticks; tick++) {
+            tick(warmupTicks + tick, playerCount);
+        }
+
+        return report(budgets);
+    }
+
+    private void tick(int tick, int playerCount) {
+        // Movement: every player moves every tick, frozen players included.
+        for (PlayerMock player : players) {
+            Location to = player.getLocation().add(random.nextDouble() - 0.5, 0, random.nextDouble() - 0.5);
+            player.simulatePlayerMove(to);
+        }
+
+        // Chat: about one message per player every 30 seconds.
+        for (PlayerMock player : new ArrayList<>(players)) {
+            if (random.nextInt(600) == 0) {
+                player.chat(CHAT_LINES[random.nextInt(CHAT_LINES.length)]);
+            }
+        }
+
+        // Players report each other every few seconds.
+        if (random.nextInt(60) == 0 && players.size() > 1) {
+            PlayerMock reporter = randomPlayer();
+            command(reporter, "report " + randomPlayer().getName());
+            reporter.closeInventory();
+        }
+
+        // Moderators browse menus and click around.
+        for (PlayerMock moderator : moderators) {
+            if (random.nextInt(100) == 0 && !players.isEmpty()) {
+                command(moderator, MENU_COMMANDS[random.nextInt(MENU_COMMANDS.length)] + " " + randomPlayer().getName());
+                for (int click = 0; click < 3; click++) {
+                    if (moderator.getOpenInventory().getTopInventory().getSize() > 0) {
+                        moderator.simulateInventoryClick(random.nextInt(moderator.getOpenInventory().getTopInventory().getSize()));
+                    }
+                }
+                moderator.closeInventory();
+            }
+        }
+
+        // Console punishments: one every two seconds on average.
+        if (random.nextInt(40) == 0 && !players.isEmpty()) {
+            punish(tick);
+        }
+        releaseFrozen(tick);
+
+        // Keep the population steady after kicks and bans.
+        while (players.size() < playerCount && random.nextInt(4) == 0) {
+            join();
+        }
+
+        if (tick % 20 == 0) {
+            long start = System.nanoTime();
+            stateUpdateTask.run();
+            timings.record(STATE_TASK, System.nanoTime() - start);
+        }
+
+        long listenersBefore = timings.currentTickTotal();
+        long start = System.nanoTime();
+        server.getScheduler().performOneTick();
+        long elapsed = System.nanoTime() - start;
+        timings.record(SCHEDULER, Math.max(0L, elapsed - (timings.currentTickTotal() - listenersBefore)));
+
+        players.removeIf(player -> !player.isOnline());
+        frozenUntil.keySet().removeIf(player -> !player.isOnline());
+        timings.endTick();
+    }
+
+    private void punish(int tick) {
+        PlayerMock target = randomPlayer();
+        ConsoleCommandSender console = server.getConsoleSender();
+        int roll = random.nextInt(100);
+        if (roll < 35) {
+            String type = TIMED_TYPES[random.nextInt(TIMED_TYPES.length)];
+            command(console, type + " " + target.getName() + " " + DURATIONS[random.nextInt(DURATIONS.length)] + " Simulated");
+        } else if (roll < 60) {
+            command(console, "warn " + target.getName() + " Simulated");
+        } else if (roll < 75) {
+            command(console, "kick " + target.getName() + " Simulated");
+        } else if (!frozenUntil.containsKey(target)) {
+            command(console, "freeze " + target.getName() + " Simulated");
+            frozenUntil.put(target, tick + 200 + random.nextInt(400));
+        }
+    }
+
+    private void releaseFrozen(int tick) {
+        List<PlayerMock> released = new ArrayList<>();
+        frozenUntil.forEach((player, until) -> {
+            if (until <= tick) released.add(player);
+        });
+        for (PlayerMock player : released) {
+            frozenUntil.remove(player);
+            command(server.getConsoleSender(), "unfreeze " + player.getName() + " Simulated");
+        }
+    }
+
+    private void join() {
+        players.add(server.addPlayer("Sim" + nextPlayerIndex++));
+    }
+
+    private PlayerMock randomPlayer() {
+        return players.get(random.nextInt(players.size()));
+    }
+
+    /** Runs a command and books its main-thread time, minus any listener time it triggered, to "commands". */
+    private void command(CommandSender sender, String commandLine) {
+        long listenersBefore = timings.currentTickTotal();
+        long start = System.nanoTime();
+        server.dispatchCommand(sender, commandLine);
+        long elapsed = System.nanoTime() - start;
+        timings.record(COMMANDS, Math.max(0L, elapsed - (timings.currentTickTotal() - listenersBefore)));
+    }
+
+    /** Cancels the plugin's own ModeratorStateUpdateTask and runs an identical one from the tick loop, timed. */
+    private void replaceStateUpdateTask() throws ReflectiveOperationException {
+        Field field = Crown.class.getDeclaredField("moderatorStateUpdateTask");
+        field.setAccessible(true);
+        BukkitTask task = (BukkitTask) field.get(plugin);
+        if (task != null) {
+            task.cancel();
+        }
+        stateUpdateTask = new ModeratorStateUpdateTask(plugin);
+    }
+
+    private boolean report(TickBudgets budgets) throws IOException {
+        Map<String, List<Long>> ticks = timings.getTicks();
+        List<Long> totals = new ArrayList<>(Collections.nCopies(timings.getTickCount(), 0L));
+        for (List<Long> samples : ticks.values()) {
+            for (int i = 0; i < samples.size(); i++) {
+                totals.set(i, totals.get(i) + samples.get(i));
+            }
+        }
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        ticks.forEach((source, samples) -> results.put(source, summarize(samples)));
+        results.put(TOTAL, summarize(totals));
+
+        List<String> violations = new ArrayList<>();
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-28s %12s %12s %12s%n", "source (us/tick)", "mean", "p99", "max");
+        for (Map.Entry<String, double[]> entry : results.entrySet()) {
+            double[] summary = entry.getValue();
+            System.out.printf(Locale.ROOT, "%-28s %12.1f %12.1f %12.1f%n", entry.getKey(), summary[0], summary[1], summary[2]);
+            violations.addAll(budgets.check(entry.getKey(), summary[0], summary[1]));
+        }
+
+        String reportPath = options.get("report");
+        if (reportPath != null) {
+            try (Writer writer = Files.newBufferedWriter(Path.of(reportPath), StandardCharsets.UTF_8)) {
+                writer.write("# Crown simulation, " + timings.getTickCount() + " ticks, microseconds per tick\n");
+                for (Map.Entry<String, double[]> entry : results.entrySet()) {
+                    writer.write(String.format(Locale.ROOT, "%s.mean=%.1f%n%s.p99=%.1f%n",
+                            entry.getKey(), entry.getValue()[0], entry.getKey(), entry.getValue()[1]));
+                }
+            }
+        }
+
+        System.out.println();
+        if (violations.isEmpty()) {
+            System.out.println("All tick budgets met.");
+            return true;
+        }
+        violations.forEach(violation -> System.out.println("BUDGET EXCEEDED: " + violation));
+        return false;
+    }
+
+    /** Mean, p99 and max of per-tick nanoseconds, in microseconds. */
+    private static double[] summarize(List<Long> samples) {
+        if (samples.isEmpty()) return new double[]{0, 0, 0};
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        long sum = 0;
+        for (long sample : sorted) {
+            sum += sample;
+        }
+        int p99Index = Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1);
+        return new double[]{
+                sum / (double) sorted.size() / 1_000.0,
+                sorted.get(Math.max(0, p99Index)) / 1_000.0,
+                sorted.getLast() / 1_000.0};
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'");
+            }
+            String key = args[i].substring(2);
+            options.put(key, i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,56 @@
+package cp.corona.benchmarks.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Per-tick main-thread budgets, in microseconds, keyed as {@code <source>.mean} and
+ * {@code <source>.p99}. A source is a listener class name, a task name or {@code total}.
+ */
+final class TickBudgets {
+
+    private final Properties budgets = new Properties();
+
+    static TickBudgets load(String path) throws IOException {
+        TickBudgets tickBudgets = new TickBudgets();
+        if (path == null) {
+            try (InputStream in = TickBudgets.class.getClassLoader().getResourceAsStream("simulation-budgets.properties")) {
+                if (in == null) {
+                    throw new IllegalStateException("simulation-budgets.properties not found on the classpath");
+                }
+                tickBudgets.budgets.load(in);
+            }
+        } else {
+            try (Reader reader = Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8)) {
+                tickBudgets.budgets.load(reader);
+            }
+        }
+        return tickBudgets;
+    }
+
+    /** Returns one line per exceeded budget; empty when every measured source is within budget. */
+    List<String> check(String source, double meanMicros, double p99Micros) {
+        List<String> violations = new ArrayList<>();
+        compare(violations, source, "mean", meanMicros);
+        compare(violations, source, "p99", p99Micros);
+        return violations;
+    }
+
+    private void compare(List<String> violations, String source, String statistic, double measured) {
+        String budget = budgets.getProperty(source + "." + statistic);
+        if (budget == null) return;
+        double limit = Double.parseDouble(budget.trim());
+        if (measured > limit) {
+            violations.add(String.format(Locale.ROOT, "%s %s %.1f us exceeds budget %.1f us",
+                    source, statistic, measured, limit));
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package cp.corona.commands;
 
+import com.zaxxer.hikari.metrics.PoolStats;
 import cp.corona.config.WarnLevel;
 import cp.corona.crown.Crown;
 import cp.corona.database.ActiveWarningEntry;
 import cp.corona.database.DatabaseManager;
+import cp.corona.database.DatabaseTransfer;
+import cp.corona.database.IdAllocator;
+import cp.corona.database.ImportSource;
+import cp.corona.database.MainThreadGuard;
+import cp.corona.database.PlayerSnapshot;
+import cp.corona.database.PunishmentImporter;
+import cp.corona.database.QueryMetrics;
 import cp.corona.listeners.FreezeListener;
 import cp.corona.listeners.MenuListener;
 import cp.corona.menus.mod.LockerMenu;
+import cp.corona.menus.punish.EvidenceInventoryMenu;
 import cp.corona.menus.punish.HistoryMenu;
 import cp.corona.menus.profile.ProfileMenu;
 import cp.corona.menus.profile.AuditLogBook;
 import cp.corona.menus.punish.PunishDetailsMenu;
 import cp.corona.menus.punish.PunishMenu;
+import cp.corona.utils.HandlerTimings;
+import cp.corona.utils.InventorySnapshotCodec;
 import cp.corona.utils.MessageUtils;
+import cp.corona.utils.PunishmentTracer;
+import cp.corona.utils.SessionIndex;
+import cp.corona.utils.TimingWheel;
 import cp.corona.utils.TimeUtils;
 import cp.corona.menus.report.ReportDetailsMenu;
 import cp.corona.menus.report.ReportsMenu;
@@ -33,6 +47,8 @@ import org.bukkit.util.StringUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
@@ -60,6 +76,11 @@ public class MainCommand implements CommandExecutor, TabCompleter {
     private static final String REPORT_INTERNAL_SUBCOMMAND = "report_internal";
     private static final String PROFILE_COMMAND_ALIAS = "profile";
     private static final String LOCKER_SUBCOMMAND = "locker";
+    private static final String STATS_SUBCOMMAND = "stats";
+    private static final String TIMINGS_SUBCOMMAND = "timings";
+    private static final String BULK_SUBCOMMAND = "bulk";
+    private static final String CHATSEARCH_SUBCOMMAND = "chatsearch";
+    private static final String DB_SUBCOMMAND = "db";
 
     // Added constants for unpunish aliases and check alias
     private static final String SOFTBAN_COMMAND_ALIAS = "softban";
@@ -99,18 +120,32 @@ public class MainCommand implements CommandExecutor, TabCompleter {
     private static final String MOD_CHAT_PERMISSION = "crown.fchat";
     private static final String PROFILE_EDIT_INVENTORY_PERMISSION = "crown.profile.editinventory";
     private static final String LOCKER_ADMIN_PERMISSION = "crown.locker.admin";
+    private static final String BULK_PERMISSION = "crown.bulk";
+    private static final String CHATSEARCH_PERMISSION = "crown.chatsearch";
 
     private static final List<String> PUNISHMENT_TYPES = Arrays.asList("ban", "mute", "softban", "kick", "warn",
             "freeze");
     private static final List<String> UNPUNISHMENT_TYPES = Arrays.asList("ban", "mute", "softban", "warn", "freeze");
+    // Warn levels depend on each target's history, so warns stay one at a time.
+    private static final List<String> BULK_PUNISHMENT_TYPES = Arrays.asList("ban", "mute", "softban", "kick", "freeze");
+    private static final List<String> BULK_UNPUNISHMENT_TYPES = Arrays.asList("ban", "mute", "softban");
+    private static final List<String> BULK_MODES = Arrays.asList(PUNISH_SUBCOMMAND, UNPUNISH_SUBCOMMAND);
+    private static final List<String> CHATSEARCH_FLAGS = Arrays.asList("-p", "-t", "-a");
+    private static final int CHATSEARCH_PAGE_SIZE = 10;
 
     // Added constants for tab completion
     private static final List<String> UNPUNISH_ALIASES = Arrays.asList(
             UNBAN_COMMAND_ALIAS, UNMUTE_COMMAND_ALIAS, UNWARN_COMMAND_ALIAS,
             UNSOFTBAN_COMMAND_ALIAS, UNFREEZE_COMMAND_ALIAS);
     private static final List<String> IP_FLAGS = Arrays.asList("-ip", "-i", "-local", "-l");
-    private static final List<String> CHECK_ACTIONS = Arrays.asList("info", "repunish", "unpunish");
-    private static final List<String> ID_SUGGESTION = Collections.singletonList("<ID: XXXXXX>");
+    private static final List<String> CHECK_ACTIONS = Arrays.asList("info", "repunish", "unpunish", "inventory",
+            "enderchest");
+    private static final List<String> STATS_SECTIONS = Arrays.asList("timers", "sessions", "db", "blocking", "traces");
+    private static final List<String> DB_ACTIONS = Arrays.asList("export", "import", "migrate");
+    private static final List<String> TIMINGS_SECTIONS = Arrays.asList("handlers", "actions", "reset", "export");
+    private static final List<String> ID_SUGGESTION = Collections.singletonList("<ID: XXXXXXX>");
+    // Cap for completions answered from the CompletionIndex; the client only shows a screenful anyway.
+    private static final int MAX_INDEXED_COMPLETIONS = 50;
     private static final List<String> REASON_SUGGESTION = Collections.singletonList("<reason>");
 
     public MainCommand(Crown plugin) {
@@ -206,6 +241,16 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                 return handleLogCommand(sender, subArgs);
             case LOCKER_SUBCOMMAND:
                 return handleLockerCommand(sender, subArgs);
+            case STATS_SUBCOMMAND:
+                return handleStatsCommand(sender, subArgs);
+            case TIMINGS_SUBCOMMAND:
+                return handleTimingsCommand(sender, subArgs);
+            case BULK_SUBCOMMAND:
+                return handleBulkCommand(sender, subArgs);
+            case CHATSEARCH_SUBCOMMAND:
+                return handleChatSearchCommand(sender, subArgs);
+            case DB_SUBCOMMAND:
+                return handleDbCommand(sender, subArgs);
             case REPORT_INTERNAL_SUBCOMMAND:
                 if (sender instanceof Player) {
                     plugin.getReportBookManager().handleBookCommand((Player) sender, subArgs);
@@ -363,6 +408,596 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleStatsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(ADMIN_PERMISSION)) {
+            sendConfigMessage(sender, "messages.no_permission");
+            return true;
+        }
+        if (args.length == 0) {
+            sendConfigMessage(sender, "messages.stats_usage");
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "timers" -> {
+                TimingWheel timingWheel = plugin.getTimingWheel();
+                sendConfigMessage(sender, "messages.stats_timers_header",
+                        "{count}", String.valueOf(timingWheel.getActiveCount()),
+                        "{owners}", String.valueOf(timingWheel.getOwnerCount()));
+                timingWheel.getCountsByKey().forEach((key, count) -> sendConfigMessage(sender,
+                        "messages.stats_timers_entry", "{key}", key, "{count}", String.valueOf(count)));
+            }
+            case "sessions" -> {
+                SessionIndex sessionIndex = plugin.getSessionIndex();
+                Map<String, Integer> shared = sessionIndex.getSharedAddresses(2);
+                sendConfigMessage(sender, "messages.stats_sessions_header",
+                        "{addresses}", String.valueOf(sessionIndex.getIndexedAddressCount()),
+                        "{shared}", String.valueOf(shared.size()));
+                shared.entrySet().stream()
+                        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                        .limit(10)
+                        .forEach(entry -> sendConfigMessage(sender, "messages.stats_sessions_entry",
+                                "{ip}", entry.getKey(), "{count}", String.valueOf(entry.getValue())));
+            }
+            case "db" -> {
+                QueryMetrics queryMetrics = plugin.getSoftBanDatabaseManager().getQueryMetrics();
+                if (!queryMetrics.isEnabled()) {
+                    sendConfigMessage(sender, "messages.stats_db_disabled");
+                    return true;
+                }
+                int limit = 10;
+                if (args.length > 1) {
+                    try {
+                        limit = Math.max(1, Math.min(50, Integer.parseInt(args[1])));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+                PoolStats poolStats = queryMetrics.getPoolStats();
+                sendConfigMessage(sender, "messages.stats_db_header",
+                        "{queries}", String.valueOf(queryMetrics.getQueryCount()),
+                        "{active}", poolStats != null ? String.valueOf(poolStats.getActiveConnections()) : "0",
+                        "{total}", poolStats != null ? String.valueOf(poolStats.getTotalConnections()) : "0",
+                        "{pending}", poolStats != null ? String.valueOf(poolStats.getPendingThreads()) : "0",
+                        "{pool_wait}", formatMillis(queryMetrics.getPoolWait().getPercentileNanos(0.99)),
+                        "{timeouts}", String.valueOf(queryMetrics.getConnectionTimeouts()));
+                for (QueryMetrics.QueryStats stats : queryMetrics.getSlowest(limit)) {
+                    sendConfigMessage(sender, "messages.stats_db_entry",
+                            "{query}", stats.getName(),
+                            "{p99}", formatMillis(stats.getPercentileNanos(0.99)),
+                            "{avg}", formatMillis(stats.getAverageNanos()),
+                            "{max}", formatMillis(stats.getMaxNanos()),
+                            "{count}", String.valueOf(stats.getCount()),
+                            "{rows}", String.valueOf(stats.getRows()),
+                            "{errors}", String.valueOf(stats.getErrors()),
+                            "{busy}", String.valueOf(stats.getBusy() + stats.getRetries()));
+                }
+            }
+            case "blocking" -> {
+                MainThreadGuard guard = plugin.getSoftBanDatabaseManager().getMainThreadGuard();
+                List<MainThreadGuard.CallSite> callSites = guard.getCallSites();
+                sendConfigMessage(sender, "messages.stats_blocking_header",
+                        "{sites}", String.valueOf(callSites.size()),
+                        "{mode}", guard.getMode().name().toLowerCase(Locale.ROOT));
+                callSites.stream().limit(10).forEach(site -> sendConfigMessage(sender, "messages.stats_blocking_entry",
+                        "{site}", site.getKey(),
+                        "{count}", String.valueOf(site.getCount()),
+                        "{total}", formatMillis(site.getTotalNanos()),
+                        "{max}", formatMillis(site.getMaxNanos())));
+            }
+            case "traces" -> {
+                PunishmentTracer tracer = plugin.getPunishmentTracer();
+                List<PunishmentTracer.Trace> traces = tracer.getRecent();
+                long slowNanos = TimeUnit.MILLISECONDS.toNanos(tracer.getSlowMillis());
+                sendConfigMessage(sender, "messages.stats_traces_header",
+                        "{count}", String.valueOf(traces.size()),
+                        "{slow}", String.valueOf(slowNanos > 0 ? traces.stream().filter(trace -> trace.getTotalNanos() >= slowNanos).count() : 0),
+                        "{threshold}", String.valueOf(tracer.getSlowMillis()));
+                traces.stream().limit(10).forEach(trace -> sendConfigMessage(sender, "messages.stats_traces_entry",
+                        "{id}", trace.getId(),
+                        "{type}", trace.getPunishmentType(),
+                        "{target}", String.valueOf(trace.getTarget()),
+                        "{source}", trace.getSource(),
+                        "{outcome}", trace.getOutcome(),
+                        "{total}", formatMillis(trace.getTotalNanos()),
+                        "{stages}", trace.describeStages()));
+            }
+            default -> sendConfigMessage(sender, "messages.stats_usage");
+        }
+        return true;
+    }
+
+    private boolean handleTimingsCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(ADMIN_PERMISSION)) {
+            sendConfigMessage(sender, "messages.no_permission");
+            return true;
+        }
+        HandlerTimings timings = plugin.getHandlerTimings();
+        if (!timings.isEnabled()) {
+            sendConfigMessage(sender, "messages.timings_disabled");
+            return true;
+        }
+
+        String section = args.length > 0 ? args[0].toLowerCase() : "handlers";
+        switch (section) {
+            case "handlers", "actions" -> {
+                int limit = 10;
+                if (args.length > 1) {
+                    try {
+                        limit = Math.max(1, Math.min(50, Integer.parseInt(args[1])));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+                List<HandlerTimings.Histogram> entries = section.equals("handlers") ? timings.getHandlers() : timings.getActions();
+                sendConfigMessage(sender, "messages.timings_header",
+                        "{section}", section,
+                        "{entries}", String.valueOf(entries.size()),
+                        "{since}", TimeUtils.formatTime((int) ((System.currentTimeMillis() - timings.getSince()) / 1000L), plugin.getConfigManager()));
+                entries.stream().limit(limit).forEach(histogram -> sendConfigMessage(sender, "messages.timings_entry",
+                        "{name}", histogram.getName(),
+                        "{count}", String.valueOf(histogram.getCount()),
+                        "{avg}", formatMillis(histogram.getAverageNanos()),
+                        "{p99}", formatMillis(histogram.getPercentileNanos(0.99)),
+                        "{max}", formatMillis(histogram.getMaxNanos()),
+                        "{total}", formatMillis(histogram.getTotalNanos())));
+            }
+            case "reset" -> {
+                timings.reset();
+                sendConfigMessage(sender, "messages.timings_reset");
+            }
+            case "export" -> CompletableFuture.runAsync(() -> {
+                try {
+                    File file = timings.export();
+                    Bukkit.getScheduler().runTask(plugin, () ->
+                            sendConfigMessage(sender, "messages.timings_exported", "{file}", file.getPath()));
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not export handler timings", e);
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.timings_export_failed"));
+                }
+            });
+            default -> sendConfigMessage(sender, "messages.timings_usage");
+        }
+        return true;
+    }
+
+    /**
+     * /crown db export | /crown db import &lt;file&gt; [replace] | /crown db migrate &lt;plugin&gt; [dry-run]
+     * <p>
+     * Runs in the background and reports progress to the sender. Import refuses to touch a database
+     * that already has punishments unless {@code replace} is given, which empties it first. Migrate
+     * adds another plugin's punishments to the existing ones.
+     */
+    private boolean handleDbCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(ADMIN_PERMISSION)) {
+            sendConfigMessage(sender, "messages.no_permission");
+            return true;
+        }
+        String action = args.length > 0 ? args[0].toLowerCase() : "";
+        if (action.equals("migrate") && args.length > 1) {
+            return handleDbMigrate(sender, args[1], args.length > 2 && args[2].equalsIgnoreCase("dry-run"));
+        }
+        if (!action.equals("export") && !(action.equals("import") && args.length > 1)) {
+            sendConfigMessage(sender, "messages.db_usage");
+            return true;
+        }
+
+        DatabaseTransfer transfer = plugin.getSoftBanDatabaseManager().getTransfer();
+        if (transfer.isRunning()) {
+            sendConfigMessage(sender, "messages.db_transfer_running");
+            return true;
+        }
+        DatabaseTransfer.ProgressListener progress = (table, rows, expected) -> Bukkit.getScheduler().runTask(plugin, () ->
+                sendConfigMessage(sender, "messages.db_progress",
+                        "{table}", table, "{rows}", String.valueOf(rows), "{expected}", String.valueOf(expected)));
+
+        if (action.equals("export")) {
+            sendConfigMessage(sender, "messages.db_export_started");
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    DatabaseTransfer.Result result = transfer.export(progress);
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_export_done",
+                            "{rows}", String.valueOf(result.rows()), "{tables}", String.valueOf(result.tables()),
+                            "{file}", result.file().getName(), "{seconds}", String.valueOf(result.millis() / 1000L)));
+                } catch (IllegalStateException e) {
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_transfer_running"));
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Database export failed", e);
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_export_failed"));
+                }
+            });
+            return true;
+        }
+
+        File file = transfer.resolveExport(args[1]);
+        if (file == null) {
+            sendConfigMessage(sender, "messages.db_import_not_found", "{file}", args[1]);
+            return true;
+        }
+        boolean replace = args.length > 2 && args[2].equalsIgnoreCase("replace");
+        sendConfigMessage(sender, "messages.db_import_started", "{file}", file.getName());
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                String populated = replace ? null : transfer.findPopulatedTable();
+                if (populated != null) {
+                    Bukkit.getScheduler().runTask(plugin, () ->
+                            sendConfigMessage(sender, "messages.db_import_not_empty", "{table}", populated));
+                    return;
+                }
+                DatabaseTransfer.Result result = transfer.importFrom(file, replace, progress);
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    sendConfigMessage(sender, "messages.db_import_done",
+                            "{rows}", String.valueOf(result.rows()), "{tables}", String.valueOf(result.tables()),
+                            "{seconds}", String.valueOf(result.millis() / 1000L));
+                    if (result.backup() != null) {
+                        sendConfigMessage(sender, "messages.db_import_backup", "{file}", result.backup().getName());
+                    }
+                });
+            } catch (IllegalStateException e) {
+                Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_transfer_running"));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Database import from " + file.getName() + " failed", e);
+                Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_import_failed"));
+            }
+        });
+        return true;
+    }
+
+    private boolean handleDbMigrate(CommandSender sender, String sourceName, boolean dryRun) {
+        PunishmentImporter importer = plugin.getSoftBanDatabaseManager().getImporter();
+        ImportSource source = importer.getSource(sourceName);
+        if (source == null) {
+            sendConfigMessage(sender, "messages.db_migrate_unknown", "{sources}", String.join(", ", PunishmentImporter.SOURCES));
+            return true;
+        }
+        if (importer.isRunning()) {
+            sendConfigMessage(sender, "messages.db_transfer_running");
+            return true;
+        }
+        sendConfigMessage(sender, dryRun ? "messages.db_migrate_dry_run_started" : "messages.db_migrate_started",
+                "{source}", source.getName());
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                PunishmentImporter.Report report = importer.run(source, dryRun, (partition, rows) ->
+                        Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_migrate_progress",
+                                "{partition}", partition, "{rows}", String.valueOf(rows))));
+                Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender,
+                        report.dryRun() ? "messages.db_migrate_dry_run_done" : "messages.db_migrate_done",
+                        "{source}", report.source(),
+                        "{read}", String.valueOf(report.read()),
+                        "{imported}", String.valueOf(report.imported()),
+                        "{skipped}", String.valueOf(report.skipped()),
+                        "{types}", report.byType().toString(),
+                        "{rate}", String.valueOf(report.rowsPerSecond()),
+                        "{seconds}", String.valueOf(report.millis() / 1000L)));
+            } catch (IllegalStateException e) {
+                Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_transfer_running"));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Migration from " + source.getName() + " failed", e);
+                Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.db_migrate_failed"));
+            }
+        });
+        return true;
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * /crown bulk &lt;punish|unpunish&gt; &lt;type&gt; &lt;name,name,...|ip:address&gt; [time] [reason]
+     * <p>
+     * Punishes or unpunishes every listed account in one database transaction, then applies bans,
+     * kicks and cache updates in a single pass on the main thread. An {@code ip:} entry expands to
+     * every account known on that address.
+     */
+    private boolean handleBulkCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(BULK_PERMISSION)) {
+            sendConfigMessage(sender, "messages.no_permission");
+            return true;
+        }
+        if (args.length < 3 || !BULK_MODES.contains(args[0].toLowerCase())) {
+            sendConfigMessage(sender, "messages.bulk_usage");
+            return true;
+        }
+
+        boolean unpunish = args[0].equalsIgnoreCase(UNPUNISH_SUBCOMMAND);
+        String punishType = args[1].toLowerCase();
+        List<String> supportedTypes = unpunish ? BULK_UNPUNISHMENT_TYPES : BULK_PUNISHMENT_TYPES;
+        if (!supportedTypes.contains(punishType)) {
+            sendConfigMessage(sender, "messages.bulk_unsupported_type", "{types}", String.join(", ", supportedTypes));
+            return true;
+        }
+        if (unpunish && lacksUnpunishPermission(sender, punishType)) {
+            sendNoPermissionUnpunishMessage(sender, punishType);
+            return true;
+        }
+        if (!unpunish && !checkPunishCommandPermission(sender, punishType)) {
+            sendNoPermissionCommandMessage(sender, punishType);
+            return true;
+        }
+
+        if (!plugin.getConfigManager().isPunishmentInternal(punishType)) {
+            String commandTemplate = unpunish ? plugin.getConfigManager().getUnpunishCommand(punishType)
+                    : plugin.getConfigManager().getPunishmentCommand(punishType);
+            if (commandTemplate != null && !commandTemplate.isEmpty()) {
+                String baseCommand = commandTemplate.split(" ")[0].toLowerCase();
+                if (plugin.getRegisteredCommands().contains(baseCommand)) {
+                    sendConfigMessage(sender, "messages.command_loop_error", "{command}", baseCommand);
+                    return true;
+                }
+            }
+        }
+
+        List<String> argsList = new ArrayList<>(Arrays.asList(args).subList(3, args.length));
+        String time = "permanent";
+        if (!unpunish && (punishType.equals("ban") || punishType.equals("mute") || punishType.equals("softban"))
+                && !argsList.isEmpty() && TimeUtils.isValidTimeFormat(argsList.getFirst(), plugin.getConfigManager())) {
+            time = argsList.removeFirst();
+        }
+        String reason = !argsList.isEmpty() ? String.join(" ", argsList)
+                : unpunish ? plugin.getConfigManager().getDefaultUnpunishmentReason(punishType)
+                        : plugin.getConfigManager().getDefaultPunishmentReason(punishType);
+
+        List<String> names = new ArrayList<>();
+        List<String> ips = new ArrayList<>();
+        for (String entry : args[2].split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+            if (trimmed.regionMatches(true, 0, "ip:", 0, 3)) {
+                ips.add(trimmed.substring(3));
+            } else {
+                names.add(trimmed);
+            }
+        }
+
+        final String finalTime = time;
+        if (ips.isEmpty()) {
+            executeBulk(sender, unpunish, punishType, names, finalTime, reason);
+            return true;
+        }
+
+        // IP clusters are looked up in the database, off the main thread.
+        CompletableFuture.supplyAsync(() -> {
+            List<String> resolved = new ArrayList<>(names);
+            for (String ip : ips) {
+                for (String name : plugin.getSoftBanDatabaseManager().getPlayersByIp(ip)) {
+                    if (!resolved.contains(name)) {
+                        resolved.add(name);
+                    }
+                }
+            }
+            return resolved;
+        }).thenAccept(resolved -> Bukkit.getScheduler().runTask(plugin,
+                () -> executeBulk(sender, unpunish, punishType, resolved, finalTime, reason)));
+        return true;
+    }
+
+    /**
+     * /crown chatsearch [-p player] [-t time] [-a id] [phrase...]
+     * <p>
+     * Lists matching chat lines newest first, one page at a time. {@code -t} limits the search to the
+     * last period (e.g. 3d) and {@code -a} continues after a previous page; players get a clickable
+     * link for the next page. Lines are sent as they are read from the database.
+     */
+    private boolean handleChatSearchCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission(CHATSEARCH_PERMISSION)) {
+            sendConfigMessage(sender, "messages.no_permission");
+            return true;
+        }
+
+        OfflinePlayer target = null;
+        String timeInput = null;
+        long sinceMillis = 0L;
+        long beforeId = 0L;
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if (arg.equalsIgnoreCase("-p") && hasValue) {
+                String name = args[++i];
+                target = Bukkit.getOfflinePlayer(name);
+                if (!target.hasPlayedBefore() && !target.isOnline()) {
+                    sendConfigMessage(sender, "messages.never_played", "{input}", name);
+                    return true;
+                }
+            } else if (arg.equalsIgnoreCase("-t") && hasValue) {
+                timeInput = args[++i];
+                if (!TimeUtils.isValidTimeFormat(timeInput, plugin.getConfigManager())) {
+                    sendConfigMessage(sender, "messages.chatsearch_usage");
+                    return true;
+                }
+                sinceMillis = System.currentTimeMillis()
+                        - TimeUtils.parseTime(timeInput, plugin.getConfigManager()) * 1000L;
+            } else if (arg.equalsIgnoreCase("-a") && hasValue) {
+                try {
+                    beforeId = Long.parseLong(args[++i]);
+                } catch (NumberFormatException e) {
+                    sendConfigMessage(sender, "messages.chatsearch_usage");
+                    return true;
+                }
+            } else {
+                words.add(arg);
+            }
+        }
+
+        String phrase = String.join(" ", words);
+        if (phrase.isEmpty() && target == null) {
+            sendConfigMessage(sender, "messages.chatsearch_usage");
+            return true;
+        }
+
+        String displayPhrase = phrase.isEmpty() ? "*" : phrase;
+        String displayPlayer = target != null ? target.getName() : "*";
+        sendConfigMessage(sender, "messages.chatsearch_header", "{phrase}", displayPhrase, "{player}", displayPlayer);
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        String flags = (target != null ? " -p " + target.getName() : "")
+                + (timeInput != null ? " -t " + timeInput : "");
+        plugin.getSoftBanDatabaseManager()
+                .searchChatAsync(target != null ? target.getUniqueId() : null, sinceMillis, phrase, beforeId,
+                        CHATSEARCH_PAGE_SIZE, entry -> Bukkit.getScheduler().runTask(plugin, () -> {
+                            String name = Bukkit.getOfflinePlayer(entry.getPlayerUUID()).getName();
+                            sendConfigMessage(sender, "messages.chatsearch_entry",
+                                    "{id}", String.valueOf(entry.getId()),
+                                    "{date}", dateFormat.format(entry.getTimestamp()),
+                                    "{player}", name != null ? name : entry.getPlayerUUID().toString(),
+                                    "{message}", entry.getMessage());
+                        }))
+                .thenAccept(nextCursor -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (nextCursor == 0) {
+                        sendConfigMessage(sender, "messages.chatsearch_end");
+                        return;
+                    }
+                    String nextCommand = "/crown chatsearch" + flags + " -a " + nextCursor
+                            + (phrase.isEmpty() ? "" : " " + phrase);
+                    Component more = MessageUtils.getColorComponent(plugin.getConfigManager()
+                            .getMessage("messages.chatsearch_more", "{command}", nextCommand));
+                    if (sender instanceof Player) {
+                        more = more.clickEvent(ClickEvent.runCommand(nextCommand));
+                    }
+                    sender.sendMessage(more);
+                }))
+                .exceptionally(throwable -> {
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.chatsearch_failed"));
+                    return null;
+                });
+        return true;
+    }
+
+    private void executeBulk(CommandSender sender, boolean unpunish, String punishType, List<String> names,
+            String time, String reason) {
+        Map<UUID, OfflinePlayer> targets = new LinkedHashMap<>();
+        int skipped = 0;
+        for (String name : names) {
+            if (name.length() < 3 || name.length() > 16) {
+                skipped++;
+                continue;
+            }
+            OfflinePlayer target = Bukkit.getOfflinePlayer(name);
+            if (!target.hasPlayedBefore() && !target.isOnline()) {
+                skipped++;
+                continue;
+            }
+            Player onlineTarget = target.getPlayer();
+            if (!unpunish && (onlineTarget == null ? punishType.equals("kick")
+                    : onlineTarget.hasPermission("crown.bypass." + punishType))) {
+                skipped++;
+                continue;
+            }
+            targets.putIfAbsent(target.getUniqueId(), target);
+        }
+
+        if (targets.isEmpty()) {
+            sendConfigMessage(sender, "messages.bulk_no_targets");
+            return;
+        }
+        sendConfigMessage(sender, "messages.bulk_started", "{count}", String.valueOf(targets.size()),
+                "{punishment_type}", punishType);
+
+        if (unpunish) {
+            executeBulkUnpunishment(sender, punishType, targets, reason, skipped);
+        } else {
+            executeBulkPunishment(sender, punishType, targets, time, reason, skipped);
+        }
+    }
+
+    private void executeBulkPunishment(CommandSender sender, String punishType, Map<UUID, OfflinePlayer> targets,
+            String time, String reason, int skipped) {
+        boolean useInternal = plugin.getConfigManager().isPunishmentInternal(punishType);
+        String commandTemplate = plugin.getConfigManager().getPunishmentCommand(punishType);
+        String permanentDisplay = plugin.getConfigManager().getMessage("placeholders.permanent_time_display");
+
+        long punishmentEndTime = Long.MAX_VALUE;
+        String durationForLog = permanentDisplay;
+        if (punishType.equals("kick") && useInternal) {
+            punishmentEndTime = 0L;
+            durationForLog = "N/A";
+        } else if (!time.equalsIgnoreCase("permanent") && !time.equalsIgnoreCase(permanentDisplay)) {
+            punishmentEndTime = TimeUtils.parseTime(time, plugin.getConfigManager()) * 1000L
+                    + System.currentTimeMillis();
+            durationForLog = time;
+        }
+
+        List<PlayerSnapshot> snapshots = new ArrayList<>(targets.size());
+        Map<UUID, InventorySnapshotCodec.Contents> inventoryCopies = new HashMap<>();
+        boolean copyInventories = plugin.getConfigManager().isInventorySnapshotEnabled(punishType);
+        for (OfflinePlayer target : targets.values()) {
+            snapshots.add(PlayerSnapshot.capture(target));
+            if (copyInventories) {
+                InventorySnapshotCodec.Contents contents = InventorySnapshotCodec.Contents.copyOf(target);
+                if (contents != null) {
+                    inventoryCopies.put(target.getUniqueId(), contents);
+                }
+            }
+        }
+
+        final long finalPunishmentEndTime = punishmentEndTime;
+        final String finalDurationForLog = durationForLog;
+        plugin.getSoftBanDatabaseManager()
+                .executeBulkPunishmentAsync(snapshots, punishType, reason, sender.getName(), finalPunishmentEndTime,
+                        finalDurationForLog, false)
+                .thenAccept(punishmentIds -> {
+                    inventoryCopies.forEach((uuid, contents) -> plugin.getSoftBanDatabaseManager()
+                            .saveInventorySnapshotAsync(punishmentIds.get(uuid), uuid, contents));
+
+                    Bukkit.getScheduler().runTask(plugin, () -> {
+                        MenuListener menuListener = plugin.getMenuListener();
+                        punishmentIds.forEach((uuid, punishmentId) -> {
+                            OfflinePlayer target = targets.get(uuid);
+                            if (useInternal) {
+                                handleInternalPunishmentPostAction(sender, target, punishType, reason, null, time,
+                                        punishmentId, finalPunishmentEndTime);
+                            } else {
+                                executePunishmentCommand(sender, commandTemplate, target, time, reason);
+                            }
+                            if (menuListener != null) {
+                                menuListener.executeHookActions(sender, target, punishType, finalDurationForLog,
+                                        reason, false, Collections.emptyList());
+                            }
+                        });
+                        sendConfigMessage(sender, "messages.bulk_done", "{count}",
+                                String.valueOf(punishmentIds.size()), "{punishment_type}", punishType,
+                                "{skipped}", String.valueOf(skipped));
+                    });
+                })
+                .exceptionally(throwable -> {
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.bulk_failed"));
+                    return null;
+                });
+    }
+
+    private void executeBulkUnpunishment(CommandSender sender, String punishType, Map<UUID, OfflinePlayer> targets,
+            String reason, int skipped) {
+        boolean useInternal = plugin.getConfigManager().isPunishmentInternal(punishType);
+        String commandTemplate = plugin.getConfigManager().getUnpunishCommand(punishType);
+
+        plugin.getSoftBanDatabaseManager()
+                .executeBulkUnpunishmentAsync(new ArrayList<>(targets.keySet()), punishType, sender.getName(), reason)
+                .thenAccept(removedIds -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    MenuListener menuListener = plugin.getMenuListener();
+                    removedIds.forEach((uuid, removed) -> {
+                        OfflinePlayer target = targets.get(uuid);
+                        if (useInternal) {
+                            // The IP came back with the bulk call; only the ban lists are touched here.
+                            handleInternalUnpunishmentPostAction(sender, target, punishType, removed.byIp(),
+                                    removed.ip());
+                        } else {
+                            executePunishmentCommand(sender, commandTemplate, target, "N/A", reason);
+                        }
+                        if (menuListener != null) {
+                            menuListener.executeHookActions(sender, target, punishType, "N/A", reason, true,
+                                    Collections.emptyList());
+                        }
+                    });
+                    sendConfigMessage(sender, "messages.bulk_done", "{count}", String.valueOf(removedIds.size()),
+                            "{punishment_type}", punishType,
+                            "{skipped}", String.valueOf(skipped + targets.size() - removedIds.size()));
+                }))
+                .exceptionally(throwable -> {
+                    Bukkit.getScheduler().runTask(plugin, () -> sendConfigMessage(sender, "messages.bulk_failed"));
+                    return null;
+                });
+    }
+
     private boolean handleHistoryCommand(CommandSender sender, String[] args) {
         if (!sender.hasPermission(HISTORY_PERMISSION)) {
             sendConfigMessage(sender, "messages.no_permission_command");
@@ -456,6 +1091,11 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         if (punishmentId.startsWith("#")) {
             punishmentId = punishmentId.substring(1);
         }
+        punishmentId = punishmentId.toUpperCase(Locale.ROOT);
+        if (IdAllocator.isMistyped(punishmentId)) {
+            sendConfigMessage(sender, "messages.punishment_id_mistyped", "{id}", punishmentId);
+            return true;
+        }
         DatabaseManager.PunishmentEntry entry = plugin.getSoftBanDatabaseManager().getPunishmentById(punishmentId);
 
         if (entry == null) {
@@ -725,6 +1365,15 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                             .append(separator)
                             .append(unpunishButton);
 
+                    String inventoryButtonText = plugin.getConfigManager().getPunishInfoMessage("info.inventory_button");
+                    if (plugin.getConfigManager().isInventorySnapshotEnabled(type) && !inventoryButtonText.isEmpty()) {
+                        Component inventoryButton = MessageUtils.getColorComponent(inventoryButtonText)
+                                .clickEvent(ClickEvent.runCommand("/check " + punishmentId + " inventory"))
+                                .hoverEvent(HoverEvent.showText(MessageUtils.getColorComponent(
+                                        plugin.getConfigManager().getPunishInfoMessage("info.inventory_hover"))));
+                        actionMessage = actionMessage.append(separator).append(inventoryButton);
+                    }
+
                     sender.sendMessage(actionMessage);
                 }
 
@@ -761,6 +1410,14 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                             entry.getPunishmentId());
                 }
                 break;
+            case "inventory":
+            case "enderchest":
+                if (!(sender instanceof Player viewer)) {
+                    sendConfigMessage(sender, "messages.player_only");
+                    break;
+                }
+                openInventoryEvidence(viewer, entry.getPunishmentId(), action.equals("enderchest"));
+                break;
             default:
                 sendConfigMessage(sender, "messages.check_usage");
                 break;
@@ -769,6 +1426,20 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private void openInventoryEvidence(Player viewer, String punishmentId, boolean enderChest) {
+        CompletableFuture.supplyAsync(() -> plugin.getSoftBanDatabaseManager().getInventorySnapshot(punishmentId))
+                .thenAccept(snapshot -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (!viewer.isOnline()) {
+                        return;
+                    }
+                    if (snapshot == null) {
+                        sendConfigMessage(viewer, "messages.inventory_snapshot_not_found", "{id}", punishmentId);
+                        return;
+                    }
+                    new EvidenceInventoryMenu(plugin, punishmentId, snapshot, enderChest).open(viewer);
+                }));
+    }
+
     /**
      * Parses JSON potion effects string and returns formatted display string.
      * Format: "Speed 2 (1m 30s), Strength 1 (2m)"
@@ -1017,7 +1688,16 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
     private void executePunishmentCommand(CommandSender sender, String commandTemplate, OfflinePlayer target,
             String time, String reason) {
+        executePunishmentCommand(sender, commandTemplate, target, time, reason, null);
+    }
+
+    /**
+     * @param trace optional punishment trace; finished once the command has been dispatched
+     */
+    private void executePunishmentCommand(CommandSender sender, String commandTemplate, OfflinePlayer target,
+            String time, String reason, PunishmentTracer.Trace trace) {
         if (commandTemplate == null || commandTemplate.isEmpty()) {
+            if (trace != null) trace.finish();
             return;
         }
 
@@ -1027,6 +1707,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                 .replace("{reason}", reason);
 
         Bukkit.getScheduler().runTask(plugin, () -> {
+            if (trace != null) trace.mark("dispatch_hop");
             try {
                 boolean success = Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
                 if (!success) {
@@ -1037,6 +1718,10 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                         e);
                 sendConfigMessage(sender, "messages.command_dispatch_error", "{command}", processedCommand);
             }
+            if (trace != null) {
+                trace.mark("dispatch");
+                trace.finish();
+            }
         });
     }
 
@@ -1155,31 +1840,46 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
         final long finalPunishmentEndTime = punishmentEndTime;
         final String finalDurationForLog = durationForLog;
+        PunishmentTracer.Trace trace = plugin.getPunishmentTracer().start("command", punishType, target.getName());
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target, finalIpAddress);
+        InventorySnapshotCodec.Contents inventoryCopy = plugin.getConfigManager().isInventorySnapshotEnabled(punishType)
+                ? InventorySnapshotCodec.Contents.copyOf(target) : null;
+        trace.mark("snapshot");
         CompletableFuture<String> punishmentFuture = plugin.getSoftBanDatabaseManager()
                 .executePunishmentAsync(target.getUniqueId(), punishType, reason, sender.getName(),
-                        finalPunishmentEndTime, finalDurationForLog, byIp, null);
+                        finalPunishmentEndTime, finalDurationForLog, byIp, null, 0, trace);
 
         punishmentFuture.thenAccept(punishmentId -> {
             if (punishmentId == null) {
                 // Error already logged by DatabaseManager
+                trace.fail("no_id");
                 return;
             }
+            trace.mark("callback");
 
             // Log player info immediately after getting the punishment ID
-            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, finalIpAddress);
+            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
+            if (inventoryCopy != null) {
+                plugin.getSoftBanDatabaseManager().saveInventorySnapshotAsync(punishmentId, target.getUniqueId(),
+                        inventoryCopy);
+            }
+            trace.mark("evidence_queued");
 
             // All Bukkit API calls must be in a sync task
             Bukkit.getScheduler().runTask(plugin, () -> {
+                trace.mark("main_thread");
                 if (useInternal) {
                     handleInternalPunishmentPostAction(sender, target, punishType, reason, finalIpAddress, time,
                             punishmentId, finalPunishmentEndTime);
+                    trace.mark("apply");
                 } else {
-                    executePunishmentCommand(sender, commandTemplate, target, time, reason);
+                    executePunishmentCommand(sender, commandTemplate, target, time, reason, trace);
                 }
 
                 if (byIp) {
                     applyIpPunishmentToOnlinePlayers(punishType, finalIpAddress, finalPunishmentEndTime, reason,
                             finalDurationForLog, punishmentId, target.getUniqueId());
+                    trace.mark("ip_targets");
                 }
 
                 String messageKey = byIp ? "messages.direct_punishment_confirmed_ip"
@@ -1191,9 +1891,13 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                 if (menuListener != null) {
                     menuListener.executeHookActions(sender, target, punishType, finalDurationForLog, reason, false,
                             Collections.emptyList());
+                    trace.mark("hooks");
                 } else {
                     plugin.getLogger().warning("MenuListener instance is null, cannot execute punishment hooks.");
                 }
+                if (useInternal) {
+                    trace.finish();
+                }
             });
         });
     }
@@ -1202,47 +1906,43 @@ public class MainCommand implements CommandExecutor, TabCompleter {
             String durationForLog, String punishmentId, UUID originalTargetUUID) {
         String lowerCasePunishType = punishmentType.toLowerCase();
 
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
+        for (Player onlinePlayer : plugin.getSessionIndex().getPlayers(ipAddress)) {
             if (onlinePlayer.getUniqueId().equals(originalTargetUUID)) {
                 continue; // Skip the original target, they are already handled
             }
 
-            InetSocketAddress playerAddress = onlinePlayer.getAddress();
-            if (playerAddress != null && playerAddress.getAddress() != null
-                    && playerAddress.getAddress().getHostAddress().equals(ipAddress)) {
-                plugin.getSoftBanDatabaseManager().updatePlayerLastState(onlinePlayer);
-
-                switch (lowerCasePunishType) {
-                    case "ban", "kick" -> {
-                        Date expiration = (endTime == Long.MAX_VALUE || lowerCasePunishType.equals("kick")) ? null
-                                : new Date(endTime);
-                        List<String> screenLines = lowerCasePunishType.equals("ban")
-                                ? plugin.getConfigManager().getBanScreen()
-                                : plugin.getConfigManager().getKickScreen();
-                        String kickMessage = MessageUtils.getKickMessage(screenLines, reason, durationForLog,
-                                punishmentId, expiration, plugin.getConfigManager());
-                        onlinePlayer.kick(MessageUtils.getColorComponent(kickMessage));
-                    }
-                    case "mute" -> {
-                        plugin.getMutedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
-                        String muteMessage = plugin.getConfigManager().getMessage("messages.you_are_muted", "{time}",
-                                durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
-                        onlinePlayer.sendMessage(MessageUtils.getColorMessage(muteMessage));
-                    }
-                    case "softban" -> {
-                        plugin.getSoftBannedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
-                        plugin.getSoftbannedCommandsCache().put(onlinePlayer.getUniqueId(),
-                                plugin.getConfigManager().getBlockedCommands());
-                        String softbanMessage = plugin.getConfigManager().getMessage("messages.you_are_softbanned",
-                                "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
-                        onlinePlayer.sendMessage(MessageUtils.getColorMessage(softbanMessage));
-                    }
-                    case "freeze" -> {
-                        plugin.getPluginFrozenPlayers().put(onlinePlayer.getUniqueId(), true);
-                        plugin.getFreezeListener().startFreezeActionsTask(onlinePlayer);
-                        onlinePlayer.sendMessage(MessageUtils
-                                .getColorMessage(plugin.getConfigManager().getMessage("messages.you_are_frozen")));
-                    }
+            plugin.getSoftBanDatabaseManager().updatePlayerLastState(onlinePlayer);
+
+            switch (lowerCasePunishType) {
+                case "ban", "kick" -> {
+                    Date expiration = (endTime == Long.MAX_VALUE || lowerCasePunishType.equals("kick")) ? null
+                            : new Date(endTime);
+                    List<String> screenLines = lowerCasePunishType.equals("ban")
+                            ? plugin.getConfigManager().getBanScreen()
+                            : plugin.getConfigManager().getKickScreen();
+                    String kickMessage = MessageUtils.getKickMessage(screenLines, reason, durationForLog,
+                            punishmentId, expiration, plugin.getConfigManager());
+                    onlinePlayer.kick(MessageUtils.getColorComponent(kickMessage));
+                }
+                case "mute" -> {
+                    plugin.getMutedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
+                    String muteMessage = plugin.getConfigManager().getMessage("messages.you_are_muted", "{time}",
+                            durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
+                    onlinePlayer.sendMessage(MessageUtils.getColorMessage(muteMessage));
+                }
+                case "softban" -> {
+                    plugin.getSoftBannedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
+                    plugin.getSoftbannedCommandsCache().put(onlinePlayer.getUniqueId(),
+                            plugin.getConfigManager().getBlockedCommands());
+                    String softbanMessage = plugin.getConfigManager().getMessage("messages.you_are_softbanned",
+                            "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
+                    onlinePlayer.sendMessage(MessageUtils.getColorMessage(softbanMessage));
+                }
+                case "freeze" -> {
+                    plugin.getPluginFrozenPlayers().put(onlinePlayer.getUniqueId(), true);
+                    plugin.getFreezeListener().startFreezeActionsTask(onlinePlayer);
+                    onlinePlayer.sendMessage(MessageUtils
+                            .getColorMessage(plugin.getConfigManager().getMessage("messages.you_are_frozen")));
                 }
             }
         }
@@ -1322,6 +2022,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
     }
 
     private void handleInternalWarn(CommandSender sender, OfflinePlayer target, String reason) {
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target);
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
             DatabaseManager dbManager = plugin.getSoftBanDatabaseManager();
             ActiveWarningEntry latestWarning = dbManager.getLatestActiveWarning(target.getUniqueId());
@@ -1344,7 +2045,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                     endTime, durationForLog, false, nextWarnLevel);
 
             if (punishmentId != null) {
-                dbManager.logPlayerInfoAsync(punishmentId, target, null);
+                dbManager.logPlayerInfoAsync(punishmentId, snapshot);
             }
 
             dbManager.addActiveWarning(target.getUniqueId(), punishmentId, nextWarnLevel, endTime).thenRun(() -> {
@@ -1439,29 +2140,25 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
     private void applyIpUnpunishmentToOnlinePlayers(String punishmentType, String ipAddress, UUID originalTargetUUID) { // MODIFIED
         String lowerCaseType = punishmentType.toLowerCase();
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
+        for (Player onlinePlayer : plugin.getSessionIndex().getPlayers(ipAddress)) {
             if (onlinePlayer.getUniqueId().equals(originalTargetUUID)) { // MODIFIED
                 continue; // MODIFIED
             }
-            InetSocketAddress playerAddress = onlinePlayer.getAddress();
-            if (playerAddress != null && playerAddress.getAddress() != null
-                    && playerAddress.getAddress().getHostAddress().equals(ipAddress)) {
-                switch (lowerCaseType) {
-                    case "mute" -> {
-                        plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
-                        sendConfigMessage(onlinePlayer, "messages.unmute_notification");
-                    }
-                    case "softban" -> {
-                        plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
-                        plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
-                        sendConfigMessage(onlinePlayer, "messages.unsoftban_notification");
-                    }
-                    case "freeze" -> {
-                        if (plugin.getPluginFrozenPlayers().remove(onlinePlayer.getUniqueId()) != null) {
-                            plugin.getFreezeListener().stopFreezeActionsTask(onlinePlayer.getUniqueId());
-                            plugin.getFreezeListener().endFreezeChatSession(onlinePlayer.getUniqueId());
-                            sendConfigMessage(onlinePlayer, "messages.you_are_unfrozen");
-                        }
+            switch (lowerCaseType) {
+                case "mute" -> {
+                    plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
+                    sendConfigMessage(onlinePlayer, "messages.unmute_notification");
+                }
+                case "softban" -> {
+                    plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
+                    plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
+                    sendConfigMessage(onlinePlayer, "messages.unsoftban_notification");
+                }
+                case "freeze" -> {
+                    if (plugin.getPluginFrozenPlayers().remove(onlinePlayer.getUniqueId()) != null) {
+                        plugin.getFreezeListener().stopFreezeActionsTask(onlinePlayer.getUniqueId());
+                        plugin.getFreezeListener().endFreezeChatSession(onlinePlayer.getUniqueId());
+                        sendConfigMessage(onlinePlayer, "messages.you_are_unfrozen");
                     }
                 }
             }
@@ -1470,29 +2167,36 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
     private void handleInternalUnpunishmentPostAction(CommandSender sender, OfflinePlayer target, String punishType,
             String punishmentId) {
+        boolean wasByIp = false;
+        String ip = null;
+        if (punishType.equalsIgnoreCase("ban")) {
+            DatabaseManager.PunishmentEntry entry = plugin.getSoftBanDatabaseManager().getPunishmentById(punishmentId);
+            wasByIp = entry != null && entry.wasByIp();
+            if (wasByIp) {
+                DatabaseManager.PlayerInfo playerInfo = plugin.getSoftBanDatabaseManager().getPlayerInfo(punishmentId);
+                ip = playerInfo != null ? playerInfo.getIp() : null;
+            }
+        }
+        handleInternalUnpunishmentPostAction(sender, target, punishType, wasByIp, ip);
+    }
+
+    private void handleInternalUnpunishmentPostAction(CommandSender sender, OfflinePlayer target, String punishType,
+            boolean wasByIp, String ip) {
         String lowerCasePunishType = punishType.toLowerCase();
 
         switch (lowerCasePunishType) {
             case "ban":
-                DatabaseManager.PunishmentEntry entry = plugin.getSoftBanDatabaseManager()
-                        .getPunishmentById(punishmentId);
-                boolean wasByIp = entry != null && entry.wasByIp();
                 boolean pardoned = false;
 
-                if (wasByIp) {
-                    DatabaseManager.PlayerInfo playerInfo = plugin.getSoftBanDatabaseManager()
-                            .getPlayerInfo(punishmentId);
-                    if (playerInfo != null && playerInfo.getIp() != null) {
-                        String ip = playerInfo.getIp();
-                        try {
-                            InetAddress addr = InetAddress.getByName(ip);
-                            if (Bukkit.getBanList(BanListType.IP).isBanned(addr)) {
-                                Bukkit.getBanList(BanListType.IP).pardon(addr);
-                                pardoned = true;
-                            }
-                        } catch (UnknownHostException e) {
-                            // ignore
+                if (wasByIp && ip != null) {
+                    try {
+                        InetAddress addr = InetAddress.getByName(ip);
+                        if (Bukkit.getBanList(BanListType.IP).isBanned(addr)) {
+                            Bukkit.getBanList(BanListType.IP).pardon(addr);
+                            pardoned = true;
                         }
+                    } catch (UnknownHostException e) {
+                        // ignore
                     }
                 }
 
@@ -1646,7 +2350,8 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                 StringUtil.copyPartialMatches(args[0],
                         Arrays.asList(PUNISH_SUBCOMMAND, UNPUNISH_SUBCOMMAND, CHECK_SUBCOMMAND, HISTORY_SUBCOMMAND,
                                 PROFILE_SUBCOMMAND, LOG_SUBCOMMAND, HELP_SUBCOMMAND, RELOAD_SUBCOMMAND,
-                                LOCKER_SUBCOMMAND),
+                                LOCKER_SUBCOMMAND, STATS_SUBCOMMAND, TIMINGS_SUBCOMMAND, BULK_SUBCOMMAND,
+                                CHATSEARCH_SUBCOMMAND, DB_SUBCOMMAND),
                         completions);
             } else if (args.length > 1) {
                 String subcommand = args[0].toLowerCase();
@@ -1659,7 +2364,61 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                     case CHECK_SUBCOMMAND -> handleCheckTab(subArgs, completions);
                     case HISTORY_SUBCOMMAND, PROFILE_SUBCOMMAND, LOG_SUBCOMMAND -> {
                         if (subArgs.length == 1) {
-                            StringUtil.copyPartialMatches(subArgs[0], playerNames, completions);
+                            completeKnownNames(subArgs[0], playerNames, completions);
+                        }
+                    }
+                    case STATS_SUBCOMMAND -> {
+                        if (subArgs.length == 1 && sender.hasPermission(ADMIN_PERMISSION)) {
+                            StringUtil.copyPartialMatches(subArgs[0], STATS_SECTIONS, completions);
+                        }
+                    }
+                    case TIMINGS_SUBCOMMAND -> {
+                        if (subArgs.length == 1 && sender.hasPermission(ADMIN_PERMISSION)) {
+                            StringUtil.copyPartialMatches(subArgs[0], TIMINGS_SECTIONS, completions);
+                        }
+                    }
+                    case DB_SUBCOMMAND -> {
+                        if (!sender.hasPermission(ADMIN_PERMISSION)) break;
+                        if (subArgs.length == 1) {
+                            StringUtil.copyPartialMatches(subArgs[0], DB_ACTIONS, completions);
+                        } else if (subArgs.length == 2 && subArgs[0].equalsIgnoreCase("import")) {
+                            StringUtil.copyPartialMatches(subArgs[1],
+                                    plugin.getSoftBanDatabaseManager().getTransfer().listExports(), completions);
+                        } else if (subArgs.length == 3 && subArgs[0].equalsIgnoreCase("import")) {
+                            StringUtil.copyPartialMatches(subArgs[2], List.of("replace"), completions);
+                        } else if (subArgs.length == 2 && subArgs[0].equalsIgnoreCase("migrate")) {
+                            StringUtil.copyPartialMatches(subArgs[1], PunishmentImporter.SOURCES, completions);
+                        } else if (subArgs.length == 3 && subArgs[0].equalsIgnoreCase("migrate")) {
+                            StringUtil.copyPartialMatches(subArgs[2], List.of("dry-run"), completions);
+                        }
+                    }
+                    case CHATSEARCH_SUBCOMMAND -> {
+                        if (!sender.hasPermission(CHATSEARCH_PERMISSION)) break;
+                        String last = subArgs[subArgs.length - 1];
+                        if (subArgs.length > 1 && subArgs[subArgs.length - 2].equalsIgnoreCase("-p")) {
+                            StringUtil.copyPartialMatches(last, playerNames, completions);
+                        } else if (last.startsWith("-")) {
+                            StringUtil.copyPartialMatches(last, CHATSEARCH_FLAGS, completions);
+                        }
+                    }
+                    case BULK_SUBCOMMAND -> {
+                        if (!sender.hasPermission(BULK_PERMISSION)) break;
+                        if (subArgs.length == 1) {
+                            StringUtil.copyPartialMatches(subArgs[0], BULK_MODES, completions);
+                        } else if (subArgs.length == 2) {
+                            StringUtil.copyPartialMatches(subArgs[1],
+                                    subArgs[0].equalsIgnoreCase(UNPUNISH_SUBCOMMAND) ? BULK_UNPUNISHMENT_TYPES
+                                            : BULK_PUNISHMENT_TYPES, completions);
+                        } else if (subArgs.length == 3) {
+                            // Complete the last name of the comma-separated list.
+                            String list = subArgs[2];
+                            String prefix = list.substring(0, list.lastIndexOf(',') + 1);
+                            String last = list.substring(prefix.length());
+                            for (String name : playerNames) {
+                                if (StringUtil.startsWithIgnoreCase(name, last)) {
+                                    completions.add(prefix + name);
+                                }
+                            }
                         }
                     }
                     case LOCKER_SUBCOMMAND -> {
@@ -1699,7 +2458,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
             handleCheckTab(args, completions);
         } else if (commandLabel.equals(HISTORY_SUBCOMMAND) || commandLabel.equals(PROFILE_COMMAND_ALIAS)) {
             if (args.length == 1) {
-                StringUtil.copyPartialMatches(args[0], playerNames, completions);
+                completeKnownNames(args[0], playerNames, completions);
             }
         } else if (commandLabel.equals(REPORT_COMMAND)) {
             if (args.length == 1) {
@@ -1745,7 +2504,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
         if (commandLabel.equals("punish")) {
             if (currentArgs.size() == 1) {
-                StringUtil.copyPartialMatches(currentArg, playerNames, completions);
+                completeKnownNames(currentArg, playerNames, completions);
                 return;
             }
             if (currentArgs.size() == 2) {
@@ -1795,7 +2554,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                     || commandLabel.equals("softban");
 
             if (currentArgs.size() == 1) {
-                StringUtil.copyPartialMatches(currentArg, playerNames, completions);
+                completeKnownNames(currentArg, playerNames, completions);
                 return;
             }
 
@@ -1839,14 +2598,25 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    /**
+     * Completes a player name from every name this server knows, so offline players can be
+     * targeted. An empty argument only lists online players, as listing everyone is noise.
+     */
+    private void completeKnownNames(String currentArg, List<String> playerNames, List<String> completions) {
+        if (currentArg.isEmpty()) {
+            completions.addAll(playerNames);
+        } else {
+            completions.addAll(plugin.getCompletionIndex().completeNames(currentArg, MAX_INDEXED_COMPLETIONS));
+        }
+    }
+
     private void handleCheckTab(String[] args, List<String> completions) {
         if (args.length == 1) {
             String currentArg = args[0];
             if (currentArg.isEmpty()) {
                 completions.addAll(ID_SUGGESTION);
             } else if (currentArg.startsWith("#")) {
-                List<String> recentPunishmentIds = plugin.getSoftBanDatabaseManager().getRecentPunishmentIds(20);
-                StringUtil.copyPartialMatches(currentArg, recentPunishmentIds, completions);
+                completions.addAll(plugin.getCompletionIndex().completeIds(currentArg, MAX_INDEXED_COMPLETIONS));
             } else {
                 if ("#".startsWith(currentArg.toLowerCase())) {
                     completions.add("#");
@@ -1893,10 +2663,9 @@ public class MainCommand implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             if (currentArg.startsWith("#")) {
-                List<String> recentPunishmentIds = plugin.getSoftBanDatabaseManager().getRecentPunishmentIds(20);
-                StringUtil.copyPartialMatches(currentArg, recentPunishmentIds, completions);
+                completions.addAll(plugin.getCompletionIndex().completeIds(currentArg, MAX_INDEXED_COMPLETIONS));
             } else {
-                StringUtil.copyPartialMatches(currentArg, playerNames, completions);
+                completeKnownNames(currentArg, playerNames, completions);
                 if ("#".startsWith(currentArg.toLowerCase())) {
                     completions.add("#");
                 }
@@ -2167,6 +2936,16 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         List<HelpEntry> adminCmds = categories.get("admin");
         if (sender.hasPermission(ADMIN_PERMISSION)) {
             adminCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_reload"), "/crown reload"));
+            adminCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_stats"), "/crown stats"));
+            adminCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_timings"), "/crown timings"));
+            adminCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_db"), "/crown db"));
+        }
+        if (sender.hasPermission(CHATSEARCH_PERMISSION)) {
+            utilityCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_chatsearch"),
+                    "/crown chatsearch"));
+        }
+        if (sender.hasPermission(BULK_PERMISSION)) {
+            adminCmds.add(new HelpEntry(plugin.getConfigManager().getMessage("messages.help_bulk"), "/crown bulk"));
         }
 
         categories.entrySet().removeIf(entry -> entry.getValue().isEmpty());
@@ -3,6 +3,7 @@ package cp.corona.config;
 import cp.corona.crown.Crown;
 import cp.corona.database.ActiveWarningEntry;
 import cp.corona.database.DatabaseManager;
+import cp.corona.database.PlayerSnapshot;
 import cp.corona.menus.punish.PunishDetailsMenu;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.menus.items.MenuItem.ClickActionData;
@@ -13,7 +14,6 @@ import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.Statistic;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -52,6 +52,9 @@ public class MainConfigManager {
     private boolean debugEnabled;
     private boolean placeholderAPIEnabled;
     private CrownPlaceholders placeholders;
+    // processPlaceholders runs once per title and lore line, so a menu render reuses one snapshot per target.
+    private final Map<UUID, PlayerSnapshot> tickSnapshots = new HashMap<>();
+    private int tickSnapshotsTick = -1;
 
     private final Map<Integer, WarnLevel> warnLevels = new HashMap<>();
     private String warnExpirationMode;
@@ -60,6 +63,9 @@ public class MainConfigManager {
     private boolean rateLimitEnabled;
     private int rateLimitAmount;
     private int rateLimitPeriod;
+    private boolean ipRateLimitEnabled;
+    private int ipRateLimitAmount;
+    private int ipRateLimitPeriod;
     private boolean reportRequiresPermission;
 
     public record ReportOption(String text, String hover, String action) {
@@ -155,6 +161,9 @@ public class MainConfigManager {
         this.rateLimitEnabled = pluginConfig.getConfig().getBoolean("report-system.rate-limit.enabled", true);
         this.rateLimitAmount = pluginConfig.getConfig().getInt("report-system.rate-limit.amount", 5);
         this.rateLimitPeriod = pluginConfig.getConfig().getInt("report-system.rate-limit.period", 300);
+        this.ipRateLimitEnabled = pluginConfig.getConfig().getBoolean("report-system.ip-rate-limit.enabled", true);
+        this.ipRateLimitAmount = pluginConfig.getConfig().getInt("report-system.ip-rate-limit.amount", 10);
+        this.ipRateLimitPeriod = pluginConfig.getConfig().getInt("report-system.ip-rate-limit.period", 300);
         this.reportRequiresPermission = pluginConfig.getConfig().getBoolean("report-system.require-permission", false);
 
         if (isDebugEnabled()) {
@@ -176,6 +185,17 @@ public class MainConfigManager {
         return pluginConfig.getConfig().getBoolean("commands." + commandName, true);
     }
 
+    public boolean isInventorySnapshotEnabled(String punishmentType) {
+        FileConfiguration config = pluginConfig.getConfig();
+        if (!config.getBoolean("evidence.inventory-snapshots.enabled", true)) {
+            return false;
+        }
+        List<String> types = config.isSet("evidence.inventory-snapshots.punishment-types")
+                ? config.getStringList("evidence.inventory-snapshots.punishment-types")
+                : List.of("ban", "mute");
+        return types.stream().anyMatch(type -> type.equalsIgnoreCase(punishmentType));
+    }
+
     public CustomConfig getLockerMenuConfig() {
         return lockerMenuConfig;
     }
@@ -220,6 +240,18 @@ public class MainConfigManager {
         return rateLimitPeriod;
     }
 
+    public boolean isReportIpRateLimitEnabled() {
+        return ipRateLimitEnabled;
+    }
+
+    public int getReportIpRateLimitAmount() {
+        return ipRateLimitAmount;
+    }
+
+    public int getReportIpRateLimitPeriod() {
+        return ipRateLimitPeriod;
+    }
+
     public String getReportBookTitle() {
         return reportsConfig.getConfig().getString("report-menu.book-title", "&c&lCreate a Report");
     }
@@ -847,22 +879,18 @@ public class MainConfigManager {
                 .replace("{support_link}", getSupportLink());
 
         if (onlineTarget != null) {
+            PlayerSnapshot snapshot = getTickSnapshot(onlineTarget);
             text = text
-                    .replace("{target_ip}",
-                            onlineTarget.getAddress() != null ? onlineTarget.getAddress().getHostString() : "-")
-                    .replace("{target_coords}", String.format("%d %d %d",
-                            onlineTarget.getLocation().getBlockX(),
-                            onlineTarget.getLocation().getBlockY(),
-                            onlineTarget.getLocation().getBlockZ()))
-                    .replace("{target_world}", onlineTarget.getWorld().getName())
-                    .replace("{xp_level}", String.valueOf(onlineTarget.getLevel()))
-                    .replace("{play_time}",
-                            TimeUtils.formatTime(onlineTarget.getStatistic(Statistic.PLAY_ONE_MINUTE) / 20, this))
-                    .replace("{health}",
-                            String.format("%.1f/%.1f", onlineTarget.getHealth(), onlineTarget.getMaxHealth()))
-                    .replace("{food_level}", String.valueOf(onlineTarget.getFoodLevel()))
-                    .replace("{player_kills}", String.valueOf(onlineTarget.getStatistic(Statistic.PLAYER_KILLS)))
-                    .replace("{deaths}", String.valueOf(onlineTarget.getStatistic(Statistic.DEATHS)));
+                    .replace("{target_ip}", snapshot.ip() != null ? snapshot.ip() : "-")
+                    .replace("{target_coords}", snapshot.blockX() + " " + snapshot.blockY() + " " + snapshot.blockZ())
+                    .replace("{target_world}", snapshot.world() != null ? snapshot.world() : "-")
+                    .replace("{xp_level}", String.valueOf(snapshot.expLevel()))
+                    .replace("{play_time}", TimeUtils.formatTime((int) (snapshot.playTimeTicks() / 20), this))
+                    .replace("{health}", PlayerSnapshot.oneDecimal(snapshot.health()) + "/"
+                            + PlayerSnapshot.oneDecimal(snapshot.maxHealth()))
+                    .replace("{food_level}", String.valueOf(snapshot.foodLevel()))
+                    .replace("{player_kills}", String.valueOf(snapshot.kills()))
+                    .replace("{deaths}", String.valueOf(snapshot.deaths()));
         } else {
             DatabaseManager.PlayerLastState lastState = plugin.getSoftBanDatabaseManager()
                     .getPlayerLastState(target.getUniqueId());
@@ -931,6 +959,19 @@ public class MainConfigManager {
         return text;
     }
 
+    /** The target's snapshot for the current tick, captured on first use; off the main thread always a fresh capture. */
+    private PlayerSnapshot getTickSnapshot(Player target) {
+        if (!Bukkit.isPrimaryThread()) {
+            return PlayerSnapshot.capture(target);
+        }
+        int tick = Bukkit.getCurrentTick();
+        if (tick != tickSnapshotsTick) {
+            tickSnapshots.clear();
+            tickSnapshotsTick = tick;
+        }
+        return tickSnapshots.computeIfAbsent(target.getUniqueId(), uuid -> PlayerSnapshot.capture(target));
+    }
+
     public String getPunishmentDisplayForm(String punishmentType, boolean isVerb) {
         if (punishmentType == null || punishmentType.isEmpty()) {
             return "unknown";
@@ -1220,6 +1261,17 @@ public class MainConfigManager {
         return pluginConfig.getConfig().getString("database.type", "sqlite");
     }
 
+    /** This server's name on a shared database, or '' on a single server. */
+    public String getServerId() {
+        return pluginConfig.getConfig().getString("database.server-id", "").trim();
+    }
+
+    /** True when punishments of this type only apply on the server that issued them. */
+    public boolean isPunishmentServerScoped(String punishmentType) {
+        return "server".equalsIgnoreCase(pluginConfig.getConfig().getString(
+                "database.punishment-scope." + punishmentType.toLowerCase(), "global"));
+    }
+
     public String getDatabaseName() {
         return pluginConfig.getConfig().getString("database.name", "crown");
     }
@@ -1240,6 +1292,128 @@ public class MainConfigManager {
         return pluginConfig.getConfig().getString("database.password", "password");
     }
 
+    /** 'off', 'count', 'warn' or 'strict'. */
+    public String getMainThreadAccessMode() {
+        return pluginConfig.getConfig().getString("database.main-thread-access", "warn");
+    }
+
+    public boolean isDatabaseMetricsEnabled() {
+        return pluginConfig.getConfig().getBoolean("database.metrics.enabled", false);
+    }
+
+    /** 'none', 'file' or 'http'. */
+    public String getDatabaseMetricsExport() {
+        return pluginConfig.getConfig().getString("database.metrics.export", "none");
+    }
+
+    public int getDatabaseMetricsFileInterval() {
+        return pluginConfig.getConfig().getInt("database.metrics.file-interval-seconds", 60);
+    }
+
+    public int getDatabaseMetricsHttpPort() {
+        return pluginConfig.getConfig().getInt("database.metrics.http-port", 9464);
+    }
+
+    public boolean isChangeFeedEnabled() {
+        return pluginConfig.getConfig().getBoolean("database.change-feed.enabled", false);
+    }
+
+    public long getChangeFeedPollTicks() {
+        return pluginConfig.getConfig().getLong("database.change-feed.poll-interval-ticks", 20L);
+    }
+
+    public int getChangeFeedRetentionHours() {
+        return pluginConfig.getConfig().getInt("database.change-feed.retention-hours", 24);
+    }
+
+    public boolean isWriteJournalEnabled() {
+        return pluginConfig.getConfig().getBoolean("database.journal.enabled", true);
+    }
+
+    public int getWriteJournalFailureThreshold() {
+        return pluginConfig.getConfig().getInt("database.journal.failure-threshold", 3);
+    }
+
+    public long getWriteJournalRetrySeconds() {
+        return pluginConfig.getConfig().getLong("database.journal.retry-interval-seconds", 5L);
+    }
+
+    /** JDBC URL of the other plugin's database for /crown db migrate, or an empty string. */
+    public String getImportJdbcUrl() {
+        return pluginConfig.getConfig().getString("database.import.jdbc-url", "").trim();
+    }
+
+    public String getImportUsername() {
+        return pluginConfig.getConfig().getString("database.import.username", "");
+    }
+
+    public String getImportPassword() {
+        return pluginConfig.getConfig().getString("database.import.password", "");
+    }
+
+    public String getImportTablePrefix() {
+        return pluginConfig.getConfig().getString("database.import.table-prefix", "litebans_");
+    }
+
+    public int getImportThreads() {
+        return pluginConfig.getConfig().getInt("database.import.threads", 4);
+    }
+
+    public int getImportBatchSize() {
+        return pluginConfig.getConfig().getInt("database.import.batch-size", 5000);
+    }
+
+    public boolean isArchiveEnabled() {
+        return pluginConfig.getConfig().getBoolean("database.archive.enabled", false);
+    }
+
+    public int getArchivePunishmentsAfterDays() {
+        return pluginConfig.getConfig().getInt("database.archive.punishments-after-days", 365);
+    }
+
+    public int getArchiveReportsAfterDays() {
+        return pluginConfig.getConfig().getInt("database.archive.reports-after-days", 180);
+    }
+
+    public int getArchiveChatAfterDays() {
+        return pluginConfig.getConfig().getInt("database.archive.chat-after-days", 90);
+    }
+
+    public int getArchiveAuditAfterDays() {
+        return pluginConfig.getConfig().getInt("database.archive.audit-after-days", 365);
+    }
+
+    public int getArchiveBatchSize() {
+        return pluginConfig.getConfig().getInt("database.archive.batch-size", 500);
+    }
+
+    public long getArchiveBatchPauseMillis() {
+        return pluginConfig.getConfig().getLong("database.archive.batch-pause-ms", 250L);
+    }
+
+    /** Hour of the day (0-23, server time) archiving runs in. */
+    public int getArchiveRunHour() {
+        return Math.floorMod(pluginConfig.getConfig().getInt("database.archive.run-at-hour", 4), 24);
+    }
+
+    /** server-id of the one server that archives when several share the database. */
+    public String getArchiveServerId() {
+        return pluginConfig.getConfig().getString("database.archive.server-id", "").trim();
+    }
+
+    public boolean isHandlerTimingsEnabled() {
+        return pluginConfig.getConfig().getBoolean("logging.timings", true);
+    }
+
+    public long getSlowPunishmentMillis() {
+        return pluginConfig.getConfig().getLong("logging.slow-punishment-ms", 1000L);
+    }
+
+    /** Full JDBC URL overriding address/port/name for the 'mysql' type, or an empty string. */
+    public String getDatabaseJdbcUrl() {
+        return pluginConfig.getConfig().getString("database.jdbc-url", "").trim();
+    }
+
     public CustomConfig getPluginConfig() {
         return pluginConfig;
     }
@@ -6,6 +6,13 @@ import cp.corona.config.MainConfigManager;
 import cp.corona.database.DatabaseManager;
 import cp.corona.moderator.ModeratorStateUpdateTask;
 import cp.corona.report.ReportBookManager;
+import cp.corona.utils.CompletionIndex;
+import cp.corona.utils.HandlerTimings;
+import cp.corona.utils.PunishmentTracer;
+import cp.corona.utils.RateLimiter;
+import cp.corona.utils.SessionIndex;
+import cp.corona.utils.StaffRegistry;
+import cp.corona.utils.TimingWheel;
 import cp.corona.listeners.*;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -37,23 +44,46 @@ public final class Crown extends JavaPlugin {
     private ModeratorModeManager moderatorModeManager;
     private BukkitTask moderatorStateUpdateTask;
     private ReportBookManager reportBookManager;
+    private TimingWheel timingWheel;
+    private StaffRegistry staffRegistry;
+    private SessionIndex sessionIndex;
+    private CompletionIndex completionIndex;
+    private HandlerTimings handlerTimings;
+    private PunishmentTracer punishmentTracer;
     private final Map<UUID, Boolean> pluginFrozenPlayers = new ConcurrentHashMap<>();
     private final Map<UUID, Long> mutedPlayersCache = new ConcurrentHashMap<>();
     private final Map<UUID, Long> softBannedPlayersCache = new ConcurrentHashMap<>();
     private final Map<UUID, java.util.List<String>> softbannedCommandsCache = new ConcurrentHashMap<>();
-    private final Map<UUID, java.util.List<Long>> playerReportTimestamps = new ConcurrentHashMap<>();
+    private RateLimiter<UUID> reportRateLimiter;
+    private RateLimiter<String> ipReportRateLimiter;
 
 
     private MenuListener menuListener;
     private FreezeListener freezeListener;
     private PunishmentListener punishmentListener;
     private final Set<String> registeredCommands = new HashSet<>();
+    // Label or alias to command, for TabCompleteListener; read from async tab complete threads.
+    private final Map<String, PluginCommand> asyncCompletedCommands = new ConcurrentHashMap<>();
 
     @Override
     public void onEnable() {
         this.configManager = new MainConfigManager(this);
         this.databaseManager = new DatabaseManager(this);
         this.reportBookManager = new ReportBookManager(this);
+        this.timingWheel = new TimingWheel(this);
+        this.timingWheel.start();
+        this.staffRegistry = new StaffRegistry(this);
+        this.staffRegistry.start();
+        this.sessionIndex = new SessionIndex();
+        this.sessionIndex.start();
+        this.completionIndex = new CompletionIndex(this);
+        this.completionIndex.start();
+        this.handlerTimings = new HandlerTimings(this, configManager.isHandlerTimingsEnabled());
+        this.punishmentTracer = new PunishmentTracer(this, configManager.getSlowPunishmentMillis());
+        this.reportRateLimiter = new RateLimiter<>(this);
+        this.reportRateLimiter.start();
+        this.ipReportRateLimiter = new RateLimiter<>(this);
+        this.ipReportRateLimiter.start();
         this.placeholderAPIEnabled = configManager.isPlaceholderAPIEnabled();
 
         if (placeholderAPIEnabled) {
@@ -97,6 +127,29 @@ public final class Crown extends JavaPlugin {
             moderatorModeManager.disableAllModerators();
         }
 
+        if (timingWheel != null) {
+            timingWheel.shutdown();
+        }
+
+        if (staffRegistry != null) {
+            staffRegistry.shutdown();
+        }
+
+        if (sessionIndex != null) {
+            sessionIndex.shutdown();
+        }
+
+        if (completionIndex != null) {
+            completionIndex.shutdown();
+        }
+
+        if (reportRateLimiter != null) {
+            reportRateLimiter.shutdown();
+        }
+        if (ipReportRateLimiter != null) {
+            ipReportRateLimiter.shutdown();
+        }
+
         if (databaseManager != null) {
             databaseManager.close();
         }
@@ -193,22 +246,29 @@ public final class Crown extends JavaPlugin {
             command.setExecutor(executor);
             command.setTabCompleter(executor);
             registeredCommands.add(commandName.toLowerCase());
+            asyncCompletedCommands.put(commandName.toLowerCase(), command);
             if (command.getAliases() != null) {
                 for (String alias : command.getAliases()) {
                     registeredCommands.add(alias.toLowerCase());
+                    asyncCompletedCommands.put(alias.toLowerCase(), command);
                 }
             }
         }
     }
 
     public void registerEvents() {
-        getServer().getPluginManager().registerEvents(this.menuListener, this);
-        getServer().getPluginManager().registerEvents(new CommandBlockerListener(this), this);
-        getServer().getPluginManager().registerEvents(this.freezeListener, this);
-        getServer().getPluginManager().registerEvents(new MuteListener(this), this);
-        getServer().getPluginManager().registerEvents(new PlayerChatListener(this), this);
-        getServer().getPluginManager().registerEvents(this.punishmentListener, this);
-        getServer().getPluginManager().registerEvents(new ModeratorModeListener(this), this);
+        handlerTimings.registerEvents(this.menuListener);
+        handlerTimings.registerEvents(new CommandBlockerListener(this));
+        handlerTimings.registerEvents(this.freezeListener);
+        handlerTimings.registerEvents(new MuteListener(this));
+        handlerTimings.registerEvents(new PlayerChatListener(this));
+        handlerTimings.registerEvents(this.punishmentListener);
+        handlerTimings.registerEvents(new ModeratorModeListener(this));
+        handlerTimings.registerEvents(this.timingWheel);
+        handlerTimings.registerEvents(this.staffRegistry);
+        handlerTimings.registerEvents(this.sessionIndex);
+        handlerTimings.registerEvents(this.completionIndex);
+        handlerTimings.registerEvents(new TabCompleteListener(this));
     }
 
     public void playSound(Player player, String soundKey) {
@@ -235,6 +295,14 @@ public final class Crown extends JavaPlugin {
     public Map<UUID, Long> getSoftBannedPlayersCache() { return softBannedPlayersCache; }
     public Map<UUID, java.util.List<String>> getSoftbannedCommandsCache() { return softbannedCommandsCache; }
     public ReportBookManager getReportBookManager() { return reportBookManager; }
+    public TimingWheel getTimingWheel() { return timingWheel; }
+    public StaffRegistry getStaffRegistry() { return staffRegistry; }
+    public SessionIndex getSessionIndex() { return sessionIndex; }
+    public CompletionIndex getCompletionIndex() { return completionIndex; }
+    public PluginCommand getAsyncCompletedCommand(String label) { return asyncCompletedCommands.get(label); }
+    public HandlerTimings getHandlerTimings() { return handlerTimings; }
+    public PunishmentTracer getPunishmentTracer() { return punishmentTracer; }
     public Set<String> getRegisteredCommands() { return registeredCommands; }
-    public Map<UUID, java.util.List<Long>> getPlayerReportTimestamps() { return playerReportTimestamps; }
+    public RateLimiter<UUID> getReportRateLimiter() { return reportRateLimiter; }
+    public RateLimiter<String> getIpReportRateLimiter() { return ipReportRateLimiter; }
 }
@@ -0,0 +1,82 @@
+package cp.corona.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * AdvancedBan: every punishment ever issued is in {@code PunishmentHistory}, the ones still in force
+ * are also in {@code Punishments}. Lifting one only deletes it from the latter, so the removal
+ * details are unknown. IP punishments store the address in place of the UUID and are skipped.
+ */
+public class AdvancedBanSource implements ImportSource {
+
+    @Override
+    public String getName() {
+        return "advancedban";
+    }
+
+    @Override
+    public List<Partition> getPartitions(Connection connection) throws SQLException {
+        if (!ImportSource.tableExists(connection, "PunishmentHistory")) return List.of();
+        Set<String> inForce = loadInForce(connection);
+        String query = "SELECT h.id, h.uuid, h.reason, h.operator, h.punishmentType, h.start, h.end "
+                + "FROM PunishmentHistory h WHERE h.id > ? ORDER BY h.id";
+        return List.of(new Partition("history", query, rs -> map(rs, inForce)));
+    }
+
+    /**
+     * Keys of the punishments still in force, read once: Punishments only holds those, so it is small,
+     * and has no index to look history rows up by. Empty when the table is missing.
+     */
+    private static Set<String> loadInForce(Connection connection) throws SQLException {
+        Set<String> keys = new HashSet<>();
+        if (!ImportSource.tableExists(connection, "Punishments")) return keys;
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT uuid, start, punishmentType FROM Punishments")) {
+            while (rs.next()) {
+                keys.add(key(rs.getString("uuid"), rs.getLong("start"), rs.getString("punishmentType")));
+            }
+        }
+        return keys;
+    }
+
+    private static String key(String uuid, long start, String type) {
+        return uuid + '|' + start + '|' + type;
+    }
+
+    private static Punishment map(ResultSet rs, Set<String> inForce) throws SQLException {
+        String rawUuid = rs.getString("uuid");
+        String rawType = rs.getString("punishmentType");
+        long start = rs.getLong("start");
+
+        UUID uuid = ImportSource.parseUUID(rawUuid);
+        if (uuid == null) return null;
+
+        String type = switch (rawType.toUpperCase(Locale.ROOT)) {
+            case "BAN", "TEMP_BAN" -> "ban";
+            case "MUTE", "TEMP_MUTE" -> "mute";
+            case "WARNING", "TEMP_WARNING" -> "warn";
+            case "KICK" -> "kick";
+            default -> null; // Notes, and IP bans that somehow carry a UUID.
+        };
+        if (type == null) return null;
+
+        long end = rs.getLong("end");
+        if (type.equals("kick")) {
+            end = start;
+        } else if (end <= 0) {
+            end = Long.MAX_VALUE;
+        }
+        boolean active = !type.equals("kick") && inForce.contains(key(rawUuid, start, rawType))
+                && (end == Long.MAX_VALUE || end > System.currentTimeMillis());
+        return new Punishment(type, uuid, null, rs.getString("reason"), rs.getString("operator"), start, end, active,
+                false, null, null, null);
+    }
+}
@@ -0,0 +1,326 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Moves cold rows out of the hot tables into {@code <table>_archive} tables with the same columns:
+ * inactive punishments (with their player_info rows), resolved or rejected reports, old chat lines
+ * and old audit log entries. Keeps the indexes, counts and backups of the hot tables small.
+ * <p>
+ * Runs once a day during the configured off-peak hour, in small batches with a pause between them,
+ * on one server only when several share the database.
+ * Each batch copies and deletes in one transaction, so a row is always in exactly one of the two.
+ * Lookups of a single punishment or report by ID fall through to the archive; lists and counts
+ * only cover the hot tables.
+ */
+public class ArchiveManager {
+
+    private static final long CHECK_INTERVAL_TICKS = 20L * 60 * 10;
+
+    /**
+     * One archived table.
+     *
+     * @param key column identifying rows, also used to move the child rows
+     * @param order column batches are read in, ideally the primary key
+     * @param condition extra filter besides age, or null
+     * @param child table whose rows with the same key move along, or null
+     */
+    private record Rule(String table, String key, String order, String condition, String child, int days) {}
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final boolean enabled;
+    private final boolean sqlite;
+    private final List<Rule> rules = new ArrayList<>();
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int runHour;
+    // Only one server of a network sharing the database runs the scheduled pass.
+    private final boolean designated;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+    // Archive tables known to exist, so lookups only fall through when there can be something to find.
+    private final Set<String> archives = ConcurrentHashMap.newKeySet();
+    private volatile LocalDate lastRun;
+    // Set while an import replaces the tables; a running pass stops after its batch.
+    private volatile boolean paused;
+    private BukkitTask checkTask;
+
+    public ArchiveManager(Crown plugin, DatabaseManager database, boolean sqlite) {
+        this.plugin = plugin;
+        this.database = database;
+        this.sqlite = sqlite;
+        var config = plugin.getConfigManager();
+        this.enabled = config.isArchiveEnabled();
+        this.batchSize = Math.max(1, config.getArchiveBatchSize());
+        this.pauseMillis = Math.max(0L, config.getArchiveBatchPauseMillis());
+        this.runHour = config.getArchiveRunHour();
+        String serverId = config.getServerId();
+        this.designated = serverId.isEmpty() || serverId.equalsIgnoreCase(config.getArchiveServerId());
+
+        // Warnings still tracked in active_warnings stay, as that table references them.
+        addRule(new Rule("punishment_history", "punishment_id", "id",
+                "active = 0 AND punishment_id NOT IN (SELECT punishment_id FROM active_warnings)",
+                "player_info", config.getArchivePunishmentsAfterDays()));
+        addRule(new Rule("reports", "report_id", "report_id", "status IN ('RESOLVED', 'REJECTED')", null,
+                config.getArchiveReportsAfterDays()));
+        addRule(new Rule("player_chat_history", "id", "id", null, null, config.getArchiveChatAfterDays()));
+        addRule(new Rule("operator_audit_log", "id", "id", null, null, config.getArchiveAuditAfterDays()));
+    }
+
+    private void addRule(Rule rule) {
+        if (rule.days() > 0) {
+            rules.add(rule);
+        }
+    }
+
+    /** Notes which archive tables exist (for lookups, even with archiving off) and starts the daily check. */
+    public void start() {
+        try (Connection connection = database.getConnection()) {
+            for (String table : List.of("punishment_history", "player_info", "reports")) {
+                if (tableExists(connection, table + "_archive")) {
+                    archives.add(table);
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not look up archive tables, archived IDs will not be found.", e);
+        }
+
+        if (!enabled || rules.isEmpty() || checkTask != null) return;
+        if (!designated) {
+            plugin.getLogger().info("Archiving is left to the server named in database.archive.server-id.");
+            return;
+        }
+        checkTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                LocalDate today = LocalDate.now();
+                // A pass that failed or was cut short is retried at the next check within the hour.
+                if (LocalTime.now().getHour() == runHour && !today.equals(lastRun) && run(true, null)) {
+                    lastRun = today;
+                }
+            }
+        }.runTaskTimerAsynchronously(plugin, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
+    }
+
+    public void shutdown() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+    }
+
+    /**
+     * Stops archiving until {@link #resume()}, waiting for a running pass to finish its batch; both
+     * must be called from the same thread.
+     */
+    void pause() {
+        paused = true;
+        runLock.lock();
+    }
+
+    void resume() {
+        runLock.unlock();
+        paused = false;
+    }
+
+    /** True when {@code <table>_archive} exists, i.e. a lookup by ID should fall through to it. */
+    public boolean hasArchive(String table) {
+        return archives.contains(table);
+    }
+
+    /**
+     * Runs one archival pass on the calling (async) thread, regardless of the off-peak hour.
+     *
+     * @return rows archived per table, empty when a pass is already running
+     */
+    public Map<String, Integer> runNow() {
+        Map<String, Integer> moved = new ConcurrentHashMap<>();
+        run(false, moved);
+        return moved;
+    }
+
+    /**
+     * One pass over every rule. Stops early when the server shuts down, the database becomes
+     * unreachable or, for scheduled passes, the off-peak hour is over; the rest moves on the next run.
+     *
+     * @param moved receives the rows archived per table, may be null
+     * @return true when every rule ran to the end without an error
+     */
+    private boolean run(boolean offPeakOnly, Map<String, Integer> moved) {
+        if (!runLock.tryLock()) return false;
+        boolean complete = true;
+        try {
+            for (Rule rule : rules) {
+                int total = 0;
+                try (Connection connection = database.getConnection()) {
+                    List<String> columns = prepareArchive(connection, rule.table());
+                    List<String> childColumns = rule.child() != null ? prepareArchive(connection, rule.child()) : null;
+                    Object cutoff = SqlTimestamps.bindable(
+                            System.currentTimeMillis() - TimeUnit.DAYS.toMillis(rule.days()), sqlite);
+                    boolean drained = false;
+                    while (shouldContinue(offPeakOnly)) {
+                        int count = archiveBatch(connection, rule, columns, childColumns, cutoff);
+                        total += count;
+                        if (count < batchSize) {
+                            drained = true;
+                            break;
+                        }
+                        sleep();
+                    }
+                    complete &= drained;
+                } catch (SQLException e) {
+                    complete = false;
+                    plugin.getLogger().log(Level.SEVERE, "Archiving " + rule.table() + " failed after "
+                            + total + " rows, the rest is retried on the next run.", e);
+                }
+                if (moved != null) {
+                    moved.put(rule.table(), total);
+                }
+                if (total > 0) {
+                    plugin.getLogger().info("Archived " + total + " rows of " + rule.table() + " older than "
+                            + rule.days() + " days.");
+                }
+            }
+        } finally {
+            runLock.unlock();
+        }
+        return complete;
+    }
+
+    private boolean shouldContinue(boolean offPeakOnly) {
+        return plugin.isEnabled() && !paused && !database.isDegraded()
+                && (!offPeakOnly || LocalTime.now().getHour() == runHour);
+    }
+
+    private int archiveBatch(Connection connection, Rule rule, List<String> columns, List<String> childColumns,
+            Object cutoff) throws SQLException {
+        List<String> keys = new ArrayList<>(batchSize);
+        String select = "SELECT " + rule.key() + " FROM " + rule.table() + " WHERE timestamp < ?"
+                + (rule.condition() != null ? " AND " + rule.condition() : "")
+                + " ORDER BY " + rule.order() + " LIMIT ?";
+        try (PreparedStatement ps = connection.prepareStatement(select)) {
+            ps.setObject(1, cutoff);
+            ps.setInt(2, batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getString(1));
+                }
+            }
+        }
+        if (keys.isEmpty()) return 0;
+
+        String in = " WHERE " + rule.key() + " IN (" + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            if (rule.child() != null) {
+                move(connection, rule.child(), childColumns, in, keys);
+            }
+            move(connection, rule.table(), columns, in, keys);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return keys.size();
+    }
+
+    private static void move(Connection connection, String table, List<String> columns, String where,
+            List<String> keys) throws SQLException {
+        String columnList = String.join(", ", columns);
+        try (PreparedStatement copy = connection.prepareStatement("INSERT INTO " + table + "_archive ("
+                + columnList + ") SELECT " + columnList + " FROM " + table + where);
+                PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + where)) {
+            for (int i = 0; i < keys.size(); i++) {
+                copy.setString(i + 1, keys.get(i));
+                delete.setString(i + 1, keys.get(i));
+            }
+            copy.executeUpdate();
+            delete.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates the archive table on first use and returns the columns both tables share. MySQL copies
+     * the full definition; SQLite copies the columns and gets an index on the lookup key.
+     */
+    List<String> prepareArchive(Connection connection, String table) throws SQLException {
+        String archive = table + "_archive";
+        if (!tableExists(connection, archive)) {
+            try (Statement statement = connection.createStatement()) {
+                if (sqlite) {
+                    statement.execute("CREATE TABLE IF NOT EXISTS " + archive + " AS SELECT * FROM " + table + " WHERE 0");
+                    String key = switch (table) {
+                        case "punishment_history", "player_info" -> "punishment_id";
+                        case "reports" -> "report_id";
+                        default -> "id";
+                    };
+                    statement.execute("CREATE INDEX IF NOT EXISTS idx_" + archive + "_key ON " + archive + " (" + key + ")");
+                } else {
+                    statement.execute("CREATE TABLE IF NOT EXISTS " + archive + " LIKE " + table);
+                }
+            }
+        }
+        archives.add(table);
+
+        // Columns added to the hot table after the archive was created are not archived.
+        Set<String> archiveColumns = new LinkedHashSet<>(columnNames(connection, archive));
+        List<String> shared = new ArrayList<>();
+        for (String column : columnNames(connection, table)) {
+            if (archiveColumns.contains(column)) {
+                shared.add(column);
+            }
+        }
+        return shared;
+    }
+
+    private static List<String> columnNames(Connection connection, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, null)) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME"));
+            }
+        }
+        return columns;
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData md = connection.getMetaData();
+        try (ResultSet rs = md.getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private void sleep() {
+        if (pauseMillis <= 0) return;
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Queues fire-and-forget inserts and writes them periodically from an async task,
+ * grouping identical statements into JDBC batches inside a single transaction.
+ * Statements carry plain parameter values, so they can go to the {@link WriteJournal}
+ * instead while the database is unreachable.
+ */
+public class BatchedWriter {
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final Crown plugin;
+    private final DatabaseManager databaseManager;
+    private final ConcurrentLinkedQueue<WriteJournal.Record> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private BukkitTask flushTask;
+    // While set, the timer leaves queued statements alone; see hold().
+    private volatile boolean held;
+
+    public BatchedWriter(Crown plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+    }
+
+    public void start(long periodTicks) {
+        if (flushTask != null) return;
+        flushTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                flush(false);
+            }
+        }.runTaskTimerAsynchronously(plugin, periodTicks, periodTicks);
+    }
+
+    /**
+     * Queues a statement. Parameters are Strings, boxed primitives or null, captured beforehand
+     * (never live Bukkit state).
+     */
+    public void enqueue(String sql, String description, Object... params) {
+        queue.add(new WriteJournal.Record(sql, params, description));
+    }
+
+    /** Binds plain parameter values in order. */
+    static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                ps.setNull(i + 1, Types.NULL);
+            } else {
+                ps.setObject(i + 1, params[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes what is queued, waiting for an in-flight flush, then keeps later statements queued until
+     * {@link #release()}. Used while an import replaces the tables underneath.
+     */
+    public void hold() {
+        held = true;
+        flush(true);
+    }
+
+    public void release() {
+        held = false;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /** Stops the timer and writes everything still queued, waiting for an in-flight flush. */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush(true);
+    }
+
+    private void flush(boolean wait) {
+        if (wait) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            return; // Previous flush still running, it will pick up the new entries.
+        }
+        try {
+            if (held && !wait) return;
+            while (!queue.isEmpty()) {
+                List<WriteJournal.Record> batch = new ArrayList<>(Math.min(queue.size(), MAX_BATCH_SIZE));
+                WriteJournal.Record write;
+                while (batch.size() < MAX_BATCH_SIZE && (write = queue.poll()) != null) {
+                    batch.add(write);
+                }
+                writeBatch(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<WriteJournal.Record> batch) {
+        WriteJournal journal = databaseManager.getWriteJournal();
+        if (journal.offer(batch)) {
+            return; // Database down, queued behind the journaled writes.
+        }
+
+        Map<String, List<WriteJournal.Record>> bySql = new LinkedHashMap<>();
+        for (WriteJournal.Record write : batch) {
+            bySql.computeIfAbsent(write.sql(), k -> new ArrayList<>()).add(write);
+        }
+
+        Connection connection;
+        try {
+            connection = databaseManager.getConnection();
+        } catch (SQLException e) {
+            journal.spill(batch, e);
+            return;
+        }
+        try (connection) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, List<WriteJournal.Record>> entry : bySql.entrySet()) {
+                    try (PreparedStatement ps = connection.prepareStatement(entry.getKey())) {
+                        for (WriteJournal.Record write : entry.getValue()) {
+                            bind(ps, write.params());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                if (WriteJournal.isConnectionFailure(e)) {
+                    // Nothing was committed, so the whole batch goes to the journal.
+                    journal.spill(batch, e);
+                    return;
+                }
+                connection.rollback();
+                // Retry one by one so a single bad row doesn't drop the whole batch.
+                connection.setAutoCommit(true);
+                for (WriteJournal.Record write : batch) {
+                    writeSingle(connection, write);
+                }
+            } finally {
+                try {
+                    connection.setAutoCommit(autoCommit);
+                } catch (SQLException ignored) {
+                    // The connection is gone; the pool discards it.
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not write batch of " + batch.size() + " queued statements!", e);
+        }
+    }
+
+    private void writeSingle(Connection connection, WriteJournal.Record write) {
+        try (PreparedStatement ps = connection.prepareStatement(write.sql())) {
+            bind(ps, write.params());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Database error while " + write.description(), e);
+        }
+    }
+}
@@ -8,7 +8,10 @@ import cp.corona.crown.Crown;
 import cp.corona.listeners.MenuListener;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.report.ReportStatus;
+import cp.corona.utils.CrownEvents;
+import cp.corona.utils.InventorySnapshotCodec;
 import cp.corona.utils.MessageUtils;
+import cp.corona.utils.PunishmentTracer;
 import cp.corona.utils.TimeUtils;
 import org.bukkit.BanList;
 import org.bukkit.Bukkit;
@@ -22,7 +25,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.logging.Level;
 
 public class DatabaseManager {
@@ -31,12 +35,72 @@ public class DatabaseManager {
     private final String dbPassword;
     private final String dbType;
     private HikariDataSource dataSource;
+    private final BatchedWriter batchedWriter;
+    private final QueryMetrics queryMetrics;
+    private final MetricsExporter metricsExporter;
+    private final MainThreadGuard mainThreadGuard;
+    private final IdAllocator punishmentIdAllocator;
+    private final IdAllocator reportIdAllocator;
+    private final PunishmentEventFeed eventFeed;
+    private final WriteJournal writeJournal;
+    private final ArchiveManager archiveManager;
+    private final DatabaseTransfer transfer;
+    private final PunishmentImporter importer;
+    // database.server-id, or '' on a single server.
+    private final String serverId;
+    // Set once the SQLite trigram index over report target names exists; see setUpReportNameSearch.
+    private volatile boolean reportNameFtsAvailable;
+    // Set once player_chat_history has a full-text index (FTS5 on SQLite, FULLTEXT on MySQL).
+    private volatile boolean chatFtsAvailable;
     private static final String COMMAND_DELIMITER = ";;";
     private static final String FAVORITE_TOOLS_DELIMITER = ",";
+    private static final String INSERT_PUNISHMENT_SQL = "INSERT INTO punishment_history (punishment_id, player_uuid, punishment_type, reason, punisher_name, punishment_time, duration_string, active, by_ip, warn_level, server_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PLAYER_INFO_SQL = "INSERT INTO player_info (punishment_id, ip, location, gamemode, health, hunger, exp_level, playtime, ping, first_joined, last_joined, potion_effects) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Rows of this server plus unscoped ones ('': global punishment types, or written before server-id was set).
+    private static final String SCOPE_FILTER = "server_id IN (?, '')";
+    // Tables keyed per server; kept as constants because SQLite rebuilds them when adding server_id.
+    private static final String CREATE_SOFTBANS_SQL = "CREATE TABLE IF NOT EXISTS softbans (" +
+            "server_id VARCHAR(64) NOT NULL DEFAULT ''," +
+            "uuid VARCHAR(36) NOT NULL," +
+            "endTime BIGINT NOT NULL," +
+            "reason TEXT," +
+            "custom_commands TEXT," +
+            "PRIMARY KEY (server_id, uuid))";
+    private static final String CREATE_MUTES_SQL = "CREATE TABLE IF NOT EXISTS mutes (" +
+            "server_id VARCHAR(64) NOT NULL DEFAULT ''," +
+            "uuid VARCHAR(36) NOT NULL," +
+            "endTime BIGINT NOT NULL," +
+            "reason TEXT," +
+            "PRIMARY KEY (server_id, uuid))";
+    private static final String CREATE_PLAYER_LAST_STATE_SQL = "CREATE TABLE IF NOT EXISTS player_last_state (" +
+            "server_id VARCHAR(64) NOT NULL DEFAULT ''," +
+            "uuid VARCHAR(36) NOT NULL," +
+            "last_seen BIGINT NOT NULL," +
+            "ip VARCHAR(45)," +
+            "location VARCHAR(255)," +
+            "world VARCHAR(255)," +
+            "PRIMARY KEY (server_id, uuid))";
+    private static final String CREATE_MOD_PREFS_SQL = "CREATE TABLE IF NOT EXISTS moderator_preferences (" +
+            "server_id VARCHAR(64) NOT NULL DEFAULT ''," +
+            "uuid VARCHAR(36) NOT NULL," +
+            "interactions BOOLEAN DEFAULT 0," +
+            "container_spy BOOLEAN DEFAULT 1," +
+            "fly_enabled BOOLEAN DEFAULT 1," +
+            "mod_on_join BOOLEAN DEFAULT 0," +
+            "silent BOOLEAN DEFAULT 0," +
+            "favorite_tools TEXT," +
+            "walk_speed FLOAT DEFAULT 1.0," +
+            "fly_speed FLOAT DEFAULT 1.0," +
+            "jump_multiplier FLOAT DEFAULT 1.0," +
+            "night_vision BOOLEAN DEFAULT 0," +
+            "glowing_enabled BOOLEAN DEFAULT 0," +
+            "PRIMARY KEY (server_id, uuid))";
+    private static final String REMOVE_PUNISHMENT_SQL = "UPDATE punishment_history SET active = 0, removed_by_name = ?, removed_reason = ?, removed_at = ? WHERE punishment_id = ?";
 
     public DatabaseManager(Crown plugin) {
         this.plugin = plugin;
         this.dbType = plugin.getConfigManager().getDatabaseType();
+        this.serverId = plugin.getConfigManager().getServerId();
 
         // Manually load the SQLite driver to prevent "No suitable driver found" errors.
         if ("sqlite".equalsIgnoreCase(dbType)) {
@@ -57,8 +121,11 @@ public class DatabaseManager {
         HikariConfig config = new HikariConfig();
 
         if ("mysql".equalsIgnoreCase(dbType)) {
-            config.setJdbcUrl(
-                    String.format("jdbc:mysql://%s:%s/%s?autoReconnect=true&useSSL=false", dbAddress, dbPort, dbName));
+            String jdbcUrl = plugin.getConfigManager().getDatabaseJdbcUrl();
+            if (jdbcUrl.isEmpty()) {
+                jdbcUrl = String.format("jdbc:mysql://%s:%s/%s?autoReconnect=true&useSSL=false", dbAddress, dbPort, dbName);
+            }
+            config.setJdbcUrl(jdbcUrl);
             config.setUsername(this.dbUsername);
             config.setPassword(this.dbPassword);
             config.addDataSourceProperty("cachePrepStmts", "true");
@@ -78,10 +145,37 @@ public class DatabaseManager {
         config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30)); // 30 segundos
         config.setLeakDetectionThreshold(TimeUnit.SECONDS.toMillis(60)); // Detección de fugas
 
+        this.queryMetrics = new QueryMetrics(plugin.getConfigManager().isDatabaseMetricsEnabled());
+        this.mainThreadGuard = new MainThreadGuard(plugin,
+                MainThreadGuard.Mode.parse(plugin.getConfigManager().getMainThreadAccessMode()));
+        if (queryMetrics.isEnabled()) {
+            config.setMetricsTrackerFactory(queryMetrics.metricsTrackerFactory());
+        }
+
         this.dataSource = new HikariDataSource(config);
+        this.punishmentIdAllocator = new IdAllocator(plugin, this, "punishment", 64);
+        this.reportIdAllocator = new IdAllocator(plugin, this, "report", 16);
+        this.batchedWriter = new BatchedWriter(plugin, this);
+        this.eventFeed = new PunishmentEventFeed(plugin, this, plugin.getConfigManager().isChangeFeedEnabled(),
+                plugin.getConfigManager().getChangeFeedPollTicks(), plugin.getConfigManager().getChangeFeedRetentionHours());
+        this.metricsExporter = new MetricsExporter(plugin, queryMetrics);
+        metricsExporter.start();
+        // Started before the schema setup so segments left by an outage at the last shutdown are picked up.
+        this.writeJournal = new WriteJournal(plugin, this, plugin.getConfigManager().isWriteJournalEnabled(),
+                plugin.getConfigManager().getWriteJournalFailureThreshold(),
+                plugin.getConfigManager().getWriteJournalRetrySeconds());
+        writeJournal.start();
+        this.archiveManager = new ArchiveManager(plugin, this, "sqlite".equalsIgnoreCase(dbType));
+        this.transfer = new DatabaseTransfer(plugin, this, "sqlite".equalsIgnoreCase(dbType));
+        this.importer = new PunishmentImporter(plugin, this, "sqlite".equalsIgnoreCase(dbType));
 
         CompletableFuture.runAsync(this::initializeDatabase)
                 .thenRun(() -> {
+                    batchedWriter.start(20L);
+                    eventFeed.start();
+                    archiveManager.start();
+                    // On the main thread: the index is created after this manager, in the same onEnable.
+                    Bukkit.getScheduler().runTask(plugin, () -> plugin.getCompletionIndex().loadPunishmentIds());
                     startExpiryCheckTask();
                     startMuteExpiryCheckTask();
                     startWarningExpiryCheckTask();
@@ -93,10 +187,95 @@ public class DatabaseManager {
     }
 
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        // Throws IllegalStateException in strict mode before anything is borrowed.
+        LongConsumer onClose = mainThreadGuard.shouldGuard() ? mainThreadGuard.enter() : null;
+        if (writeJournal.isCircuitOpen()) {
+            // Fail fast instead of tying up a thread for the pool timeout; callers fall back to caches.
+            throw new SQLTransientConnectionException("Database unavailable, writes are being journaled locally");
+        }
+        return borrowConnection(onClose);
+    }
+
+    /** Borrows a connection even while the circuit is open; used by the journal to probe and replay. */
+    Connection connectBypassingCircuit() throws SQLException {
+        return borrowConnection(null);
+    }
+
+    private Connection borrowConnection(LongConsumer onClose) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            writeJournal.recordConnectionFailure(e);
+            throw e;
+        }
+        writeJournal.recordConnectionSuccess();
+        return queryMetrics.wrap(connection, System.nanoTime() - start, onClose);
+    }
+
+    public BatchedWriter getBatchedWriter() {
+        return batchedWriter;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public MainThreadGuard getMainThreadGuard() {
+        return mainThreadGuard;
+    }
+
+    public PunishmentEventFeed getEventFeed() {
+        return eventFeed;
+    }
+
+    public WriteJournal getWriteJournal() {
+        return writeJournal;
+    }
+
+    public ArchiveManager getArchiveManager() {
+        return archiveManager;
+    }
+
+    public DatabaseTransfer getTransfer() {
+        return transfer;
+    }
+
+    public PunishmentImporter getImporter() {
+        return importer;
+    }
+
+    IdAllocator getPunishmentIdAllocator() {
+        return punishmentIdAllocator;
+    }
+
+    /** Makes both ID allocators reserve fresh blocks, after id_blocks was raised by an import. */
+    void discardReservedIds() {
+        punishmentIdAllocator.discardBlocks();
+        reportIdAllocator.discardBlocks();
+    }
+
+    /** True while the database is unreachable; reads fail fast and enforcement relies on the caches. */
+    public boolean isDegraded() {
+        return writeJournal.isCircuitOpen();
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    /** The server_id stored with a punishment of this type: this server's ID if the type is server scoped, else ''. */
+    private String scopeOf(String punishmentType) {
+        return plugin.getConfigManager().isPunishmentServerScoped(punishmentType) ? serverId : "";
     }
 
     public void close() {
+        metricsExporter.shutdown();
+        eventFeed.shutdown();
+        archiveManager.shutdown();
+        batchedWriter.shutdown();
+        writeJournal.shutdown();
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
@@ -106,18 +285,8 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 Statement statement = connection.createStatement()) {
 
-            String createSoftbansTableSQL = "CREATE TABLE IF NOT EXISTS softbans (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "endTime BIGINT NOT NULL," +
-                    "reason TEXT," +
-                    "custom_commands TEXT)";
-            statement.execute(createSoftbansTableSQL);
-
-            String createMutesTableSQL = "CREATE TABLE IF NOT EXISTS mutes (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "endTime BIGINT NOT NULL," +
-                    "reason TEXT)";
-            statement.execute(createMutesTableSQL);
+            statement.execute(CREATE_SOFTBANS_SQL);
+            statement.execute(CREATE_MUTES_SQL);
 
             String createHistoryTableSQL = "CREATE TABLE IF NOT EXISTS punishment_history (" +
                     "id INT AUTO_INCREMENT PRIMARY KEY," +
@@ -134,7 +303,8 @@ public class DatabaseManager {
                     "removed_at DATETIME," +
                     "removed_reason TEXT," +
                     "by_ip BOOLEAN DEFAULT 0," +
-                    "warn_level INT DEFAULT 0)";
+                    "warn_level INT DEFAULT 0," +
+                    "server_id VARCHAR(64) NOT NULL DEFAULT '')";
 
             if ("sqlite".equalsIgnoreCase(dbType)) {
                 createHistoryTableSQL = "CREATE TABLE IF NOT EXISTS punishment_history (" +
@@ -152,7 +322,8 @@ public class DatabaseManager {
                         "removed_at DATETIME," +
                         "removed_reason TEXT," +
                         "by_ip BOOLEAN DEFAULT 0," +
-                        "warn_level INT DEFAULT 0)";
+                        "warn_level INT DEFAULT 0," +
+                        "server_id VARCHAR(64) NOT NULL DEFAULT '')";
             }
             statement.execute(createHistoryTableSQL);
 
@@ -232,13 +403,7 @@ public class DatabaseManager {
             }
             statement.execute(createActiveWarningsTableSQL);
 
-            String createPlayerLastStateTableSQL = "CREATE TABLE IF NOT EXISTS player_last_state (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "last_seen BIGINT NOT NULL," +
-                    "ip VARCHAR(45)," +
-                    "location VARCHAR(255)," +
-                    "world VARCHAR(255))";
-            statement.execute(createPlayerLastStateTableSQL);
+            statement.execute(CREATE_PLAYER_LAST_STATE_SQL);
 
             String createAuditLogTableSQL = "CREATE TABLE IF NOT EXISTS operator_audit_log (" +
                     "id INT AUTO_INCREMENT PRIMARY KEY," +
@@ -246,7 +411,8 @@ public class DatabaseManager {
                     "executor_uuid VARCHAR(36) NOT NULL," +
                     "timestamp DATETIME DEFAULT CURRENT_TIMESTAMP," +
                     "action_type VARCHAR(255) NOT NULL," +
-                    "details TEXT)";
+                    "details TEXT," +
+                    "server_id VARCHAR(64) NOT NULL DEFAULT '')";
             if ("sqlite".equalsIgnoreCase(dbType)) {
                 createAuditLogTableSQL = "CREATE TABLE IF NOT EXISTS operator_audit_log (" +
                         "id INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -254,7 +420,8 @@ public class DatabaseManager {
                         "executor_uuid VARCHAR(36) NOT NULL," +
                         "timestamp DATETIME DEFAULT CURRENT_TIMESTAMP," +
                         "action_type VARCHAR(255) NOT NULL," +
-                        "details TEXT)";
+                        "details TEXT," +
+                        "server_id VARCHAR(64) NOT NULL DEFAULT '')";
             }
             statement.execute(createAuditLogTableSQL);
 
@@ -263,6 +430,7 @@ public class DatabaseManager {
                     "requester_uuid VARCHAR(36) NOT NULL," +
                     "target_uuid VARCHAR(36)," +
                     "target_name VARCHAR(255) NOT NULL," +
+                    "target_name_lower VARCHAR(255)," +
                     "report_type VARCHAR(50) NOT NULL," +
                     "category VARCHAR(255) NOT NULL," +
                     "reason VARCHAR(255) NOT NULL," +
@@ -279,6 +447,7 @@ public class DatabaseManager {
                         "requester_uuid VARCHAR(36) NOT NULL," +
                         "target_uuid VARCHAR(36)," +
                         "target_name VARCHAR(255) NOT NULL," +
+                        "target_name_lower VARCHAR(255)," +
                         "report_type VARCHAR(50) NOT NULL," +
                         "category VARCHAR(255) NOT NULL," +
                         "reason VARCHAR(255) NOT NULL," +
@@ -293,20 +462,7 @@ public class DatabaseManager {
             statement.execute(createReportsTableSQL);
 
             // Added 'silent' and 'favorite_tools' column
-            String createModPrefsTableSQL = "CREATE TABLE IF NOT EXISTS moderator_preferences (" +
-                    "uuid VARCHAR(36) PRIMARY KEY," +
-                    "interactions BOOLEAN DEFAULT 0," +
-                    "container_spy BOOLEAN DEFAULT 1," +
-                    "fly_enabled BOOLEAN DEFAULT 1," +
-                    "mod_on_join BOOLEAN DEFAULT 0," +
-                    "silent BOOLEAN DEFAULT 0," +
-                    "favorite_tools TEXT," +
-                    "walk_speed FLOAT DEFAULT 1.0," +
-                    "fly_speed FLOAT DEFAULT 1.0," +
-                    "jump_multiplier FLOAT DEFAULT 1.0," +
-                    "night_vision BOOLEAN DEFAULT 0," +
-                    "glowing_enabled BOOLEAN DEFAULT 0)";
-            statement.execute(createModPrefsTableSQL);
+            statement.execute(CREATE_MOD_PREFS_SQL);
 
             // NEW: Confiscated Items Table
             String createConfiscatedItemsSQL = "CREATE TABLE IF NOT EXISTS confiscated_items (" +
@@ -314,7 +470,8 @@ public class DatabaseManager {
                     "item_data TEXT NOT NULL," +
                     "confiscated_at BIGINT NOT NULL," +
                     "confiscated_by VARCHAR(36)," +
-                    "original_type VARCHAR(50))";
+                    "original_type VARCHAR(50)," +
+                    "server_id VARCHAR(64) NOT NULL DEFAULT '')";
 
             if ("sqlite".equalsIgnoreCase(dbType)) {
                 createConfiscatedItemsSQL = "CREATE TABLE IF NOT EXISTS confiscated_items (" +
@@ -322,11 +479,87 @@ public class DatabaseManager {
                         "item_data TEXT NOT NULL," +
                         "confiscated_at BIGINT NOT NULL," +
                         "confiscated_by VARCHAR(36)," +
-                        "original_type VARCHAR(50))";
+                        "original_type VARCHAR(50)," +
+                        "server_id VARCHAR(64) NOT NULL DEFAULT '')";
             }
             statement.execute(createConfiscatedItemsSQL);
 
+            // Inventory / ender chest evidence captured at punishment time
+            String createInventorySnapshotsSQL = "CREATE TABLE IF NOT EXISTS inventory_snapshots (" +
+                    "punishment_id VARCHAR(8) PRIMARY KEY," +
+                    "player_uuid VARCHAR(36) NOT NULL," +
+                    "created_at BIGINT NOT NULL," +
+                    "base_punishment_id VARCHAR(8)," +
+                    "chain_depth INT DEFAULT 0," +
+                    "data MEDIUMBLOB NOT NULL," +
+                    "INDEX idx_inventory_snapshots_player (player_uuid, created_at))";
+
+            if ("sqlite".equalsIgnoreCase(dbType)) {
+                createInventorySnapshotsSQL = "CREATE TABLE IF NOT EXISTS inventory_snapshots (" +
+                        "punishment_id VARCHAR(8) PRIMARY KEY," +
+                        "player_uuid VARCHAR(36) NOT NULL," +
+                        "created_at BIGINT NOT NULL," +
+                        "base_punishment_id VARCHAR(8)," +
+                        "chain_depth INT DEFAULT 0," +
+                        "data BLOB NOT NULL)";
+            }
+            statement.execute(createInventorySnapshotsSQL);
+            if ("sqlite".equalsIgnoreCase(dbType)) {
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_inventory_snapshots_player ON inventory_snapshots (player_uuid, created_at)");
+            }
+
+            // Shared counters for IdAllocator; each server reserves blocks of IDs from here.
+            statement.execute("CREATE TABLE IF NOT EXISTS id_blocks (" +
+                    "name VARCHAR(32) PRIMARY KEY," +
+                    "next_value BIGINT NOT NULL)");
+
+            // Replay position of each server's local WriteJournal, updated with the replayed rows.
+            statement.execute("CREATE TABLE IF NOT EXISTS journal_checkpoints (" +
+                    "journal_id VARCHAR(36) PRIMARY KEY," +
+                    "segment_no BIGINT NOT NULL," +
+                    "record_no INT NOT NULL)");
+
+            // Last key written per partition of a PunishmentImporter source, so an import resumes after it.
+            statement.execute("CREATE TABLE IF NOT EXISTS import_checkpoints (" +
+                    "source VARCHAR(32) NOT NULL," +
+                    "partition_name VARCHAR(64) NOT NULL," +
+                    "last_key BIGINT NOT NULL," +
+                    "imported BIGINT NOT NULL," +
+                    "PRIMARY KEY (source, partition_name))");
+
+            // Append-only change feed tailed by every server sharing this database, see PunishmentEventFeed.
+            String createPunishmentEventsSQL = "CREATE TABLE IF NOT EXISTS punishment_events (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+                    "origin VARCHAR(36) NOT NULL," +
+                    "action VARCHAR(16) NOT NULL," +
+                    "punishment_type VARCHAR(50) NOT NULL," +
+                    "target_uuid VARCHAR(36) NOT NULL," +
+                    "punishment_id VARCHAR(12)," +
+                    "by_ip BOOLEAN DEFAULT 0," +
+                    "created_at BIGINT NOT NULL," +
+                    "server_id VARCHAR(64) NOT NULL DEFAULT ''," +
+                    "INDEX idx_punishment_events_created (created_at))";
+            if ("sqlite".equalsIgnoreCase(dbType)) {
+                createPunishmentEventsSQL = "CREATE TABLE IF NOT EXISTS punishment_events (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                        "origin VARCHAR(36) NOT NULL," +
+                        "action VARCHAR(16) NOT NULL," +
+                        "punishment_type VARCHAR(50) NOT NULL," +
+                        "target_uuid VARCHAR(36) NOT NULL," +
+                        "punishment_id VARCHAR(12)," +
+                        "by_ip BOOLEAN DEFAULT 0," +
+                        "created_at BIGINT NOT NULL," +
+                        "server_id VARCHAR(64) NOT NULL DEFAULT '')";
+            }
+            statement.execute(createPunishmentEventsSQL);
+            if ("sqlite".equalsIgnoreCase(dbType)) {
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_punishment_events_created ON punishment_events (created_at)");
+            }
+
             updateTableStructure(connection);
+            addServerScope(connection);
+            setUpReportNameSearch(connection);
+            setUpChatSearch(connection);
 
         } catch (SQLException e) {
             throw new RuntimeException("Could not initialize database!", e);
@@ -368,6 +601,10 @@ public class DatabaseManager {
             if (!columnExists(connection, "reports", "resolver_uuid")) {
                 statement.execute("ALTER TABLE reports ADD COLUMN resolver_uuid VARCHAR(36)");
             }
+            if (!columnExists(connection, "reports", "target_name_lower")) {
+                statement.execute("ALTER TABLE reports ADD COLUMN target_name_lower VARCHAR(255)");
+                statement.execute("UPDATE reports SET target_name_lower = LOWER(target_name)");
+            }
 
             if (!columnExists(connection, "moderator_preferences", "fly_enabled")) {
                 statement.execute("ALTER TABLE moderator_preferences ADD COLUMN fly_enabled BOOLEAN DEFAULT 1");
@@ -399,6 +636,87 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Adds the server_id dimension to tables created before it existed, and the indexes that keep
+     * per-server lookups fast. Existing rows keep server_id '' and stay visible on every server.
+     */
+    private void addServerScope(Connection connection) throws SQLException {
+        rekeyByServer(connection, "softbans", CREATE_SOFTBANS_SQL);
+        rekeyByServer(connection, "mutes", CREATE_MUTES_SQL);
+        rekeyByServer(connection, "player_last_state", CREATE_PLAYER_LAST_STATE_SQL);
+        rekeyByServer(connection, "moderator_preferences", CREATE_MOD_PREFS_SQL);
+
+        try (Statement statement = connection.createStatement()) {
+            for (String table : List.of("punishment_history", "operator_audit_log", "confiscated_items", "punishment_events")) {
+                if (!columnExists(connection, table, "server_id")) {
+                    statement.execute("ALTER TABLE " + table + " ADD COLUMN server_id VARCHAR(64) NOT NULL DEFAULT ''");
+                }
+            }
+
+            // The primary keys lead with server_id, so lookups across servers get their own indexes.
+            if (!indexExists(connection, "player_last_state", "idx_player_last_state_uuid")) {
+                statement.execute("CREATE INDEX idx_player_last_state_uuid ON player_last_state (uuid, last_seen)");
+            }
+            if (!indexExists(connection, "player_last_state", "idx_player_last_state_ip")) {
+                statement.execute("CREATE INDEX idx_player_last_state_ip ON player_last_state (ip)");
+            }
+            if (!indexExists(connection, "punishment_history", "idx_punishment_history_player")) {
+                statement.execute("CREATE INDEX idx_punishment_history_player ON punishment_history (player_uuid, punishment_type, server_id)");
+            }
+            // Every login without a ban-list entry looks its address up here, see PunishmentListener.
+            if (!indexExists(connection, "player_info", "idx_player_info_ip")) {
+                statement.execute("CREATE INDEX idx_player_info_ip ON player_info (ip)");
+            }
+            if (!indexExists(connection, "operator_audit_log", "idx_audit_log_target")) {
+                statement.execute("CREATE INDEX idx_audit_log_target ON operator_audit_log (target_uuid, server_id, timestamp)");
+            }
+            if (!indexExists(connection, "confiscated_items", "idx_confiscated_items_owner")) {
+                statement.execute("CREATE INDEX idx_confiscated_items_owner ON confiscated_items (server_id, confiscated_by, confiscated_at)");
+            }
+            if (!indexExists(connection, "confiscated_items", "idx_confiscated_items_time")) {
+                statement.execute("CREATE INDEX idx_confiscated_items_time ON confiscated_items (server_id, confiscated_at)");
+            }
+        }
+    }
+
+    /**
+     * Makes (server_id, uuid) the primary key of a table keyed by uuid alone. SQLite cannot change a
+     * primary key in place, so there the table is recreated from its current definition and copied.
+     */
+    private void rekeyByServer(Connection connection, String table, String createSql) throws SQLException {
+        if (columnExists(connection, table, "server_id")) return;
+        try (Statement statement = connection.createStatement()) {
+            if (!"sqlite".equalsIgnoreCase(dbType)) {
+                statement.execute("ALTER TABLE " + table + " ADD COLUMN server_id VARCHAR(64) NOT NULL DEFAULT ''");
+                statement.execute("ALTER TABLE " + table + " DROP PRIMARY KEY, ADD PRIMARY KEY (server_id, uuid)");
+                return;
+            }
+
+            List<String> columns = new ArrayList<>();
+            try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            String columnList = String.join(", ", columns);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                statement.execute("ALTER TABLE " + table + " RENAME TO " + table + "_unscoped");
+                statement.execute(createSql);
+                statement.execute("INSERT INTO " + table + " (" + columnList + ") SELECT " + columnList
+                        + " FROM " + table + "_unscoped");
+                statement.execute("DROP TABLE " + table + "_unscoped");
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
     private boolean columnExists(Connection connection, String tableName, String columnName) throws SQLException {
         DatabaseMetaData md = connection.getMetaData();
         try (ResultSet rs = md.getColumns(null, null, tableName, columnName)) {
@@ -406,16 +724,109 @@ public class DatabaseManager {
         }
     }
 
+    private boolean indexExists(Connection connection, String tableName, String indexName) throws SQLException {
+        DatabaseMetaData md = connection.getMetaData();
+        try (ResultSet rs = md.getIndexInfo(null, null, tableName, false, false)) {
+            while (rs.next()) {
+                if (indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indexes report target names for the reports menu filter. Every database gets an index on the
+     * lowercased name, which answers the default prefix filter with a range scan; SQLite builds with
+     * FTS5 also get a trigram table kept in sync by triggers, which answers "*name" (anywhere in the
+     * name) filters of three or more characters without a scan.
+     */
+    private void setUpReportNameSearch(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!indexExists(connection, "reports", "idx_reports_target_name")) {
+                statement.execute("CREATE INDEX idx_reports_target_name ON reports (target_name_lower, timestamp)");
+            }
+            if (!"sqlite".equalsIgnoreCase(dbType)) {
+                return;
+            }
+
+            boolean created;
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'reports_name_fts'")) {
+                created = !rs.next();
+            }
+            try {
+                statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS reports_name_fts USING fts5("
+                        + "report_id UNINDEXED, target_name, tokenize = 'trigram')");
+            } catch (SQLException e) {
+                plugin.getLogger().info("SQLite build has no FTS5 trigram tokenizer, report name search will scan the name index.");
+                return;
+            }
+            statement.execute("CREATE TRIGGER IF NOT EXISTS reports_name_fts_insert AFTER INSERT ON reports BEGIN "
+                    + "INSERT INTO reports_name_fts (report_id, target_name) VALUES (new.report_id, new.target_name); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS reports_name_fts_delete AFTER DELETE ON reports BEGIN "
+                    + "DELETE FROM reports_name_fts WHERE report_id = old.report_id; END");
+            if (created) {
+                statement.execute("INSERT INTO reports_name_fts (report_id, target_name) SELECT report_id, target_name FROM reports");
+            }
+            reportNameFtsAvailable = true;
+        }
+    }
+
+    /**
+     * Indexes chat history for /crown chatsearch. SQLite gets an external-content FTS5 table fed
+     * by a trigger; MySQL a FULLTEXT index. Without either, searches fall back to LIKE.
+     */
+    private void setUpChatSearch(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!indexExists(connection, "player_chat_history", "idx_chat_history_player")) {
+                statement.execute("CREATE INDEX idx_chat_history_player ON player_chat_history (player_uuid, id)");
+            }
+
+            if ("sqlite".equalsIgnoreCase(dbType)) {
+                boolean created;
+                try (ResultSet rs = statement.executeQuery(
+                        "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'chat_history_fts'")) {
+                    created = !rs.next();
+                }
+                try {
+                    statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS chat_history_fts USING fts5("
+                            + "message, content = 'player_chat_history', content_rowid = 'id')");
+                } catch (SQLException e) {
+                    plugin.getLogger().info("SQLite build has no FTS5, chat search will scan the chat history.");
+                    return;
+                }
+                statement.execute("CREATE TRIGGER IF NOT EXISTS chat_history_fts_insert AFTER INSERT ON player_chat_history BEGIN "
+                        + "INSERT INTO chat_history_fts (rowid, message) VALUES (new.id, new.message); END");
+                statement.execute("CREATE TRIGGER IF NOT EXISTS chat_history_fts_delete AFTER DELETE ON player_chat_history BEGIN "
+                        + "INSERT INTO chat_history_fts (chat_history_fts, rowid, message) VALUES ('delete', old.id, old.message); END");
+                if (created) {
+                    statement.execute("INSERT INTO chat_history_fts (chat_history_fts) VALUES ('rebuild')");
+                }
+            } else if (!indexExists(connection, "player_chat_history", "ft_chat_history_message")) {
+                try {
+                    statement.execute("ALTER TABLE player_chat_history ADD FULLTEXT INDEX ft_chat_history_message (message)");
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not add a FULLTEXT index to chat history, chat search will scan it.", e);
+                    return;
+                }
+            }
+            chatFtsAvailable = true;
+        }
+    }
+
     // --- NEW: Confiscated Items Methods ---
 
     public CompletableFuture<Void> addConfiscatedItem(String itemData, UUID confiscator, String containerType) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO confiscated_items (item_data, confiscated_at, confiscated_by, original_type) VALUES (?, ?, ?, ?)";
+            String sql = "INSERT INTO confiscated_items (item_data, confiscated_at, confiscated_by, original_type, server_id) VALUES (?, ?, ?, ?, ?)";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setString(1, itemData);
                 ps.setLong(2, System.currentTimeMillis());
                 ps.setString(3, confiscator != null ? confiscator.toString() : "Console");
                 ps.setString(4, containerType);
+                ps.setString(5, serverId);
                 ps.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Error adding confiscated item", e);
@@ -425,9 +836,10 @@ public class DatabaseManager {
 
     public CompletableFuture<Boolean> removeConfiscatedItem(int id) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "DELETE FROM confiscated_items WHERE id = ?";
+            String sql = "DELETE FROM confiscated_items WHERE id = ? AND " + SCOPE_FILTER;
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setInt(1, id);
+                ps.setString(2, serverId);
                 return ps.executeUpdate() > 0;
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Error removing confiscated item " + id, e);
@@ -438,9 +850,10 @@ public class DatabaseManager {
 
     public CompletableFuture<Void> clearConfiscatedItems(UUID ownerUUID) {
         return CompletableFuture.runAsync(() -> {
-            String sql = "DELETE FROM confiscated_items WHERE confiscated_by = ?";
+            String sql = "DELETE FROM confiscated_items WHERE " + SCOPE_FILTER + " AND confiscated_by = ?";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, ownerUUID.toString());
+                ps.setString(1, serverId);
+                ps.setString(2, ownerUUID.toString());
                 ps.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Error clearing confiscated items for " + ownerUUID, e);
@@ -454,11 +867,12 @@ public class DatabaseManager {
             List<ConfiscatedItemEntry> items = new ArrayList<>();
             int offset = (page - 1) * itemsPerPage;
             // Filter by confiscated_by (which acts as the locker owner)
-            String sql = "SELECT * FROM confiscated_items WHERE confiscated_by = ? ORDER BY confiscated_at DESC LIMIT ? OFFSET ?";
+            String sql = "SELECT * FROM confiscated_items WHERE " + SCOPE_FILTER + " AND confiscated_by = ? ORDER BY confiscated_at DESC LIMIT ? OFFSET ?";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, ownerUUID.toString());
-                ps.setInt(2, itemsPerPage);
-                ps.setInt(3, offset);
+                ps.setString(1, serverId);
+                ps.setString(2, ownerUUID.toString());
+                ps.setInt(3, itemsPerPage);
+                ps.setInt(4, offset);
                 ResultSet rs = ps.executeQuery();
                 while (rs.next()) {
                     items.add(new ConfiscatedItemEntry(
@@ -477,9 +891,10 @@ public class DatabaseManager {
 
     public CompletableFuture<Integer> countConfiscatedItems(UUID ownerUUID) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT COUNT(*) FROM confiscated_items WHERE confiscated_by = ?";
+            String sql = "SELECT COUNT(*) FROM confiscated_items WHERE " + SCOPE_FILTER + " AND confiscated_by = ?";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, ownerUUID.toString());
+                ps.setString(1, serverId);
+                ps.setString(2, ownerUUID.toString());
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next())
                         return rs.getInt(1);
@@ -496,10 +911,11 @@ public class DatabaseManager {
         return CompletableFuture.supplyAsync(() -> {
             List<ConfiscatedItemEntry> items = new ArrayList<>();
             int offset = (page - 1) * itemsPerPage;
-            String sql = "SELECT * FROM confiscated_items ORDER BY confiscated_at DESC LIMIT ? OFFSET ?";
+            String sql = "SELECT * FROM confiscated_items WHERE " + SCOPE_FILTER + " ORDER BY confiscated_at DESC LIMIT ? OFFSET ?";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setInt(1, itemsPerPage);
-                ps.setInt(2, offset);
+                ps.setString(1, serverId);
+                ps.setInt(2, itemsPerPage);
+                ps.setInt(3, offset);
                 ResultSet rs = ps.executeQuery();
                 while (rs.next()) {
                     items.add(new ConfiscatedItemEntry(
@@ -519,8 +935,9 @@ public class DatabaseManager {
     // NEW: Count all items (Global Locker)
     public CompletableFuture<Integer> countAllConfiscatedItems() {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT COUNT(*) FROM confiscated_items";
+            String sql = "SELECT COUNT(*) FROM confiscated_items WHERE " + SCOPE_FILTER;
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, serverId);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next())
                         return rs.getInt(1);
@@ -534,9 +951,10 @@ public class DatabaseManager {
 
     public CompletableFuture<Boolean> hasConfiscatedItems(UUID ownerUUID) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT 1 FROM confiscated_items WHERE confiscated_by = ? LIMIT 1";
+            String sql = "SELECT 1 FROM confiscated_items WHERE " + SCOPE_FILTER + " AND confiscated_by = ? LIMIT 1";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, ownerUUID.toString());
+                ps.setString(1, serverId);
+                ps.setString(2, ownerUUID.toString());
                 try (ResultSet rs = ps.executeQuery()) {
                     return rs.next();
                 }
@@ -592,9 +1010,9 @@ public class DatabaseManager {
             float flySpeed, float jumpMultiplier, boolean nightVision, boolean glowingEnabled) {
         return CompletableFuture.runAsync(() -> {
             String sql = "mysql".equalsIgnoreCase(
-                    dbType) ? "INSERT INTO moderator_preferences (uuid, interactions, container_spy, fly_enabled, mod_on_join, silent, favorite_tools, walk_speed, fly_speed, jump_multiplier, night_vision, glowing_enabled) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    dbType) ? "INSERT INTO moderator_preferences (uuid, interactions, container_spy, fly_enabled, mod_on_join, silent, favorite_tools, walk_speed, fly_speed, jump_multiplier, night_vision, glowing_enabled, server_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
                             "ON DUPLICATE KEY UPDATE interactions = VALUES(interactions), container_spy = VALUES(container_spy), fly_enabled = VALUES(fly_enabled), mod_on_join = VALUES(mod_on_join), silent = VALUES(silent), favorite_tools = VALUES(favorite_tools), walk_speed = VALUES(walk_speed), fly_speed = VALUES(fly_speed), jump_multiplier = VALUES(jump_multiplier), night_vision = VALUES(night_vision), glowing_enabled = VALUES(glowing_enabled)"
-                            : "INSERT OR REPLACE INTO moderator_preferences (uuid, interactions, container_spy, fly_enabled, mod_on_join, silent, favorite_tools, walk_speed, fly_speed, jump_multiplier, night_vision, glowing_enabled) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                            : "INSERT OR REPLACE INTO moderator_preferences (uuid, interactions, container_spy, fly_enabled, mod_on_join, silent, favorite_tools, walk_speed, fly_speed, jump_multiplier, night_vision, glowing_enabled, server_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setString(1, uuid.toString());
@@ -609,6 +1027,7 @@ public class DatabaseManager {
                 ps.setFloat(10, jumpMultiplier);
                 ps.setBoolean(11, nightVision);
                 ps.setBoolean(12, glowingEnabled);
+                ps.setString(13, serverId);
                 ps.executeUpdate();
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Could not save moderator preferences for " + uuid, e);
@@ -626,9 +1045,12 @@ public class DatabaseManager {
 
     public CompletableFuture<ModPreferences> getModPreferences(UUID uuid) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT * FROM moderator_preferences WHERE uuid = ?";
+            // This server's row first, then the unscoped one from before server-id was set.
+            String sql = "SELECT * FROM moderator_preferences WHERE uuid = ? AND " + SCOPE_FILTER
+                    + " ORDER BY server_id DESC LIMIT 1";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setString(1, uuid.toString());
+                ps.setString(2, serverId);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
                         String favToolsRaw = rs.getString("favorite_tools");
@@ -771,26 +1193,19 @@ public class DatabaseManager {
     // kept)
     // NEW: Methods for Operator Audit Log
     public void logOperatorAction(UUID targetUUID, UUID executorUUID, String actionType, String details) {
-        CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO operator_audit_log (target_uuid, executor_uuid, action_type, details) VALUES (?, ?, ?, ?)";
-            try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, targetUUID.toString());
-                ps.setString(2, executorUUID.toString());
-                ps.setString(3, actionType);
-                ps.setString(4, details);
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not log operator action for target " + targetUUID, e);
-            }
-        });
+        // Batched so the entry is journaled instead of lost while the database is down.
+        batchedWriter.enqueue("INSERT INTO operator_audit_log (target_uuid, executor_uuid, action_type, details, server_id) VALUES (?, ?, ?, ?, ?)",
+                "logging operator action for target " + targetUUID,
+                targetUUID.toString(), executorUUID.toString(), actionType, details, serverId);
     }
 
     public CompletableFuture<List<AuditLogEntry>> getOperatorActions(UUID targetUUID) {
         return CompletableFuture.supplyAsync(() -> {
             List<AuditLogEntry> logEntries = new ArrayList<>();
-            String sql = "SELECT * FROM operator_audit_log WHERE target_uuid = ? ORDER BY timestamp DESC";
+            String sql = "SELECT * FROM operator_audit_log WHERE target_uuid = ? AND " + SCOPE_FILTER + " ORDER BY timestamp DESC";
             try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
                 ps.setString(1, targetUUID.toString());
+                ps.setString(2, serverId);
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
                         logEntries.add(new AuditLogEntry(
@@ -819,21 +1234,32 @@ public class DatabaseManager {
     public CompletableFuture<String> executePunishmentAsync(UUID targetUUID, String punishmentType, String reason,
             String punisherName, long punishmentEndTime, String durationString, boolean byIp,
             List<String> customCommands, int warnLevel) {
+        return executePunishmentAsync(targetUUID, punishmentType, reason, punisherName, punishmentEndTime,
+                durationString, byIp, customCommands, warnLevel, null);
+    }
+
+    /**
+     * @param trace optional trace stamped with the database stages; failed if the write fails
+     */
+    public CompletableFuture<String> executePunishmentAsync(UUID targetUUID, String punishmentType, String reason,
+            String punisherName, long punishmentEndTime, String durationString, boolean byIp,
+            List<String> customCommands, int warnLevel, PunishmentTracer.Trace trace) {
         return CompletableFuture.supplyAsync(() -> {
+            CrownEvents.PunishmentEvent event = new CrownEvents.PunishmentEvent();
+            event.begin();
+            if (trace != null) trace.mark("db_queue");
+            String punishmentId = null;
             try (Connection connection = getConnection()) {
+                if (trace != null) trace.mark("connection");
                 boolean isInternal = plugin.getConfigManager().isPunishmentInternal(punishmentType);
                 if (isInternal && !"warn".equalsIgnoreCase(punishmentType)) {
-                    PunishmentEntry activePunishment = getLatestActivePunishment(connection, targetUUID,
-                            punishmentType);
-                    if (activePunishment != null && (activePunishment.getEndTime() > System.currentTimeMillis()
-                            || activePunishment.getEndTime() == Long.MAX_VALUE)) {
-                        updatePunishmentAsRemoved(connection, activePunishment.getPunishmentId(), "System",
-                                "Superseded by new punishment.");
-                    }
+                    supersedeActivePunishments(connection, List.of(targetUUID), punishmentType);
+                    if (trace != null) trace.mark("supersede");
                 }
 
-                String punishmentId = logPunishment(connection, targetUUID, punishmentType, reason, punisherName,
+                punishmentId = logPunishment(connection, targetUUID, punishmentType, reason, punisherName,
                         punishmentEndTime, durationString, byIp, warnLevel);
+                if (trace != null) trace.mark("insert");
 
                 if (isInternal) {
                     switch (punishmentType.toLowerCase()) {
@@ -846,18 +1272,219 @@ public class DatabaseManager {
                             scheduleExpiryNotification(targetUUID, punishmentEndTime, "mute", punishmentId);
                             break;
                     }
+                    if (trace != null) trace.mark("state_write");
                 }
+                eventFeed.append(connection, PunishmentEventFeed.ACTION_PUNISH, punishmentType,
+                        Map.of(targetUUID, punishmentId), byIp, scopeOf(punishmentType));
+                indexPunishmentIds(punishmentType, List.of(punishmentId));
                 return punishmentId;
             } catch (SQLException e) {
+                punishmentId = null;
+                if (trace != null) trace.fail("db_error");
                 plugin.getLogger().log(Level.SEVERE, "Async punishment execution failed!", e);
                 throw new RuntimeException(e);
+            } finally {
+                commitPunishmentEvent(event, "punish", punishmentType, targetUUID.toString(), byIp, punishmentId);
+            }
+        });
+    }
+
+    /**
+     * Punishes many targets at once: IDs are generated up front, and the history and player_info
+     * rows are written as JDBC batches in a single transaction, so either every target is recorded
+     * or none is. Warns are not supported here because their levels depend on each target's history.
+     *
+     * @param targets snapshots captured on the main thread; duplicates are ignored
+     * @return punishment ID per target UUID, in the order given
+     */
+    public CompletableFuture<Map<UUID, String>> executeBulkPunishmentAsync(List<PlayerSnapshot> targets,
+            String punishmentType, String reason, String punisherName, long punishmentEndTime, String durationString,
+            boolean byIp) {
+        return CompletableFuture.supplyAsync(() -> {
+            CrownEvents.PunishmentEvent event = new CrownEvents.PunishmentEvent();
+            event.begin();
+            Map<UUID, PlayerSnapshot> unique = new LinkedHashMap<>();
+            for (PlayerSnapshot target : targets) {
+                unique.putIfAbsent(target.uuid(), target);
+            }
+            Map<UUID, String> punishmentIds = new LinkedHashMap<>();
+            boolean isInternal = plugin.getConfigManager().isPunishmentInternal(punishmentType);
+
+            try (Connection connection = getConnection()) {
+                for (UUID uuid : unique.keySet()) {
+                    punishmentIds.put(uuid, generatePunishmentId(connection));
+                }
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    if (isInternal) {
+                        supersedeActivePunishments(connection, unique.keySet(), punishmentType);
+                    }
+
+                    try (PreparedStatement ps = connection.prepareStatement(INSERT_PUNISHMENT_SQL)) {
+                        for (Map.Entry<UUID, String> entry : punishmentIds.entrySet()) {
+                            bindPunishment(ps, entry.getValue(), entry.getKey(), punishmentType, reason, punisherName,
+                                    punishmentEndTime, durationString, byIp, 0, scopeOf(punishmentType));
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                    try (PreparedStatement ps = connection.prepareStatement(INSERT_PLAYER_INFO_SQL)) {
+                        for (PlayerSnapshot snapshot : unique.values()) {
+                            bindPlayerInfo(ps, punishmentIds.get(snapshot.uuid()), snapshot);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+
+                    if (isInternal) {
+                        for (UUID uuid : unique.keySet()) {
+                            switch (punishmentType.toLowerCase()) {
+                                case "softban" -> softBanPlayer(connection, uuid, punishmentEndTime, reason, null);
+                                case "mute" -> mutePlayer(connection, uuid, punishmentEndTime, reason);
+                            }
+                        }
+                    }
+                    eventFeed.append(connection, PunishmentEventFeed.ACTION_PUNISH, punishmentType, punishmentIds, byIp,
+                            scopeOf(punishmentType));
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Bulk punishment of " + unique.size()
+                        + " targets failed, nothing was written.", e);
+                commitPunishmentEvent(event, "bulk_punish", punishmentType, unique.size() + " targets", byIp, null);
+                throw new RuntimeException(e);
             }
+
+            if (isInternal && ("softban".equalsIgnoreCase(punishmentType) || "mute".equalsIgnoreCase(punishmentType))) {
+                punishmentIds.forEach((uuid, punishmentId) ->
+                        scheduleExpiryNotification(uuid, punishmentEndTime, punishmentType.toLowerCase(), punishmentId));
+            }
+            indexPunishmentIds(punishmentType, punishmentIds.values());
+            commitPunishmentEvent(event, "bulk_punish", punishmentType, unique.size() + " targets", byIp,
+                    String.join(",", punishmentIds.values()));
+            return punishmentIds;
         });
     }
 
+    /**
+     * A punishment lifted by {@link #executeBulkUnpunishmentAsync}, with what the server thread needs
+     * to update the ban lists without querying again.
+     *
+     * @param ip address an IP punishment was issued on, null otherwise
+     */
+    public record RemovedPunishment(String punishmentId, boolean byIp, String ip) {}
+
+    /**
+     * Removes the latest active punishment of a type from many targets in a single transaction.
+     *
+     * @return removed punishment per target UUID; targets with nothing active are left out
+     */
+    public CompletableFuture<Map<UUID, RemovedPunishment>> executeBulkUnpunishmentAsync(List<UUID> targets,
+            String punishmentType, String punisherName, String reason) {
+        return CompletableFuture.supplyAsync(() -> {
+            CrownEvents.PunishmentEvent event = new CrownEvents.PunishmentEvent();
+            event.begin();
+            Map<UUID, String> removedIds = new LinkedHashMap<>();
+            Map<UUID, RemovedPunishment> removed = new LinkedHashMap<>();
+            boolean isInternal = plugin.getConfigManager().isPunishmentInternal(punishmentType);
+
+            try (Connection connection = getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    for (UUID uuid : new LinkedHashSet<>(targets)) {
+                        PunishmentEntry entry = getLatestActivePunishment(connection, uuid, punishmentType);
+                        if (entry == null) continue;
+                        String ip = null;
+                        if (entry.wasByIp()) {
+                            PlayerInfo info = getPlayerInfo(connection, "player_info", entry.getPunishmentId());
+                            ip = info != null ? info.getIp() : null;
+                        }
+                        removedIds.put(uuid, entry.getPunishmentId());
+                        removed.put(uuid, new RemovedPunishment(entry.getPunishmentId(), entry.wasByIp(), ip));
+                    }
+
+                    try (PreparedStatement ps = connection.prepareStatement(REMOVE_PUNISHMENT_SQL)) {
+                        Timestamp now = new Timestamp(System.currentTimeMillis());
+                        for (String punishmentId : removedIds.values()) {
+                            ps.setString(1, punisherName);
+                            ps.setString(2, reason);
+                            ps.setTimestamp(3, now);
+                            ps.setString(4, punishmentId);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+
+                    String stateTable = "softban".equalsIgnoreCase(punishmentType) ? "softbans"
+                            : "mute".equalsIgnoreCase(punishmentType) ? "mutes" : null;
+                    if (isInternal && stateTable != null && !removedIds.isEmpty()) {
+                        try (PreparedStatement ps = connection.prepareStatement(
+                                "DELETE FROM " + stateTable + " WHERE uuid = ? AND " + SCOPE_FILTER)) {
+                            for (UUID uuid : removedIds.keySet()) {
+                                ps.setString(1, uuid.toString());
+                                ps.setString(2, serverId);
+                                ps.addBatch();
+                            }
+                            ps.executeBatch();
+                        }
+                    }
+                    eventFeed.append(connection, PunishmentEventFeed.ACTION_UNPUNISH, punishmentType, removedIds, false,
+                            scopeOf(punishmentType));
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Bulk unpunishment of " + targets.size()
+                        + " targets failed, nothing was changed.", e);
+                commitPunishmentEvent(event, "bulk_unpunish", punishmentType, targets.size() + " targets", false, null);
+                throw new RuntimeException(e);
+            }
+            removedIds.values().forEach(plugin.getCompletionIndex()::deactivatePunishment);
+            commitPunishmentEvent(event, "bulk_unpunish", punishmentType, targets.size() + " targets", false,
+                    String.join(",", removedIds.values()));
+            return removed;
+        });
+    }
+
+    /** Makes new punishment IDs tab-completable right away; kicks are recent but never active. */
+    private void indexPunishmentIds(String punishmentType, Collection<String> punishmentIds) {
+        boolean active = !"kick".equalsIgnoreCase(punishmentType);
+        for (String punishmentId : punishmentIds) {
+            plugin.getCompletionIndex().addPunishment(punishmentId, active);
+        }
+    }
+
+    private void supersedeActivePunishments(Connection connection, Collection<UUID> targets, String punishmentType)
+            throws SQLException {
+        if ("warn".equalsIgnoreCase(punishmentType)) return;
+        long now = System.currentTimeMillis();
+        for (UUID uuid : targets) {
+            PunishmentEntry activePunishment = getLatestActivePunishment(connection, uuid, punishmentType);
+            if (activePunishment != null
+                    && (activePunishment.getEndTime() > now || activePunishment.getEndTime() == Long.MAX_VALUE)) {
+                updatePunishmentAsRemoved(connection, activePunishment.getPunishmentId(), "System",
+                        "Superseded by new punishment.");
+            }
+        }
+    }
+
     public CompletableFuture<String> executeUnpunishmentAsync(UUID targetUUID, String punishmentType,
             String punisherName, String reason, String punishmentIdToUpdate) {
         return CompletableFuture.supplyAsync(() -> {
+            CrownEvents.PunishmentEvent event = new CrownEvents.PunishmentEvent();
+            event.begin();
+            String removedId = null;
             try (Connection connection = getConnection()) {
                 String punishmentId = punishmentIdToUpdate;
                 if (punishmentId == null) {
@@ -888,14 +1515,34 @@ public class DatabaseManager {
                             break;
                     }
                 }
+                eventFeed.append(connection, PunishmentEventFeed.ACTION_UNPUNISH, punishmentType,
+                        Map.of(targetUUID, punishmentId), false, scopeOf(punishmentType));
+                plugin.getCompletionIndex().deactivatePunishment(punishmentId);
+                removedId = punishmentId;
                 return punishmentId;
             } catch (SQLException e) {
                 plugin.getLogger().log(Level.SEVERE, "Async unpunishment execution failed!", e);
                 throw new RuntimeException(e);
+            } finally {
+                commitPunishmentEvent(event, "unpunish", punishmentType, targetUUID.toString(), false, removedId);
             }
         });
     }
 
+    private static void commitPunishmentEvent(CrownEvents.PunishmentEvent event, String action, String punishmentType,
+            String target, boolean byIp, String punishmentId) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.punishmentType = punishmentType;
+            event.target = target;
+            event.byIp = byIp;
+            event.punishmentId = punishmentId;
+            event.success = punishmentId != null;
+            event.commit();
+        }
+    }
+
     private void startWarningExpiryCheckTask() {
         new BukkitRunnable() {
             @Override
@@ -1441,6 +2088,7 @@ public class DatabaseManager {
                 } catch (SQLException e) {
                     if (isSqliteBusy(e) && attempts < maxAttempts - 1) {
                         attempts++;
+                        queryMetrics.recordBusyRetry(sqlUpdate);
                         try {
                             Thread.sleep(50L * attempts);
                         } catch (InterruptedException interruptedException) {
@@ -1469,15 +2117,68 @@ public class DatabaseManager {
                 && (message.contains("SQLITE_BUSY") || message.toLowerCase(Locale.ROOT).contains("database is locked"));
     }
 
+    /**
+     * Re-reads one player's active punishments and sets their mute and softban cache entries to match.
+     * Blocks; call it off the main thread. Returns the punishments read, for callers that need more.
+     */
+    public List<PunishmentEntry> refreshPunishmentCaches(UUID playerUUID, String playerIP) {
+        List<PunishmentEntry> activePunishments = getAllActivePunishments(playerUUID, playerIP);
+        boolean hasMute = false;
+        boolean hasSoftban = false;
+        for (PunishmentEntry punishment : activePunishments) {
+            if (punishment.getType().equalsIgnoreCase("mute")) {
+                plugin.getMutedPlayersCache().put(playerUUID, punishment.getEndTime());
+                hasMute = true;
+            } else if (punishment.getType().equalsIgnoreCase("softban")) {
+                plugin.getSoftBannedPlayersCache().put(playerUUID, punishment.getEndTime());
+                List<String> commands = getActiveSoftbanCustomCommands(playerUUID);
+                if (commands != null && !commands.isEmpty()) {
+                    plugin.getSoftbannedCommandsCache().put(playerUUID, commands);
+                } else {
+                    plugin.getSoftbannedCommandsCache().put(playerUUID, plugin.getConfigManager().getBlockedCommands());
+                }
+                hasSoftban = true;
+            }
+        }
+        // If no active punishments of these types were found, ensure they are not in the cache
+        if (!hasMute) plugin.getMutedPlayersCache().remove(playerUUID);
+        if (!hasSoftban) {
+            plugin.getSoftBannedPlayersCache().remove(playerUUID);
+            plugin.getSoftbannedCommandsCache().remove(playerUUID);
+        }
+        return activePunishments;
+    }
+
+    /**
+     * Rebuilds every punishment cache from the database, after its rows were replaced underneath them
+     * (an import). Call on the main thread; the reads run async. Active warnings are not cached, the
+     * warning task reads them from the database on its next pass.
+     */
+    public void reloadPunishmentCaches() {
+        Map<UUID, String> online = new HashMap<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            online.put(player.getUniqueId(), player.getAddress() != null ? player.getAddress().getAddress().getHostAddress() : null);
+        }
+        plugin.getCompletionIndex().reloadPunishmentIds();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            // Entries of players who left are only read again on their next join.
+            plugin.getMutedPlayersCache().keySet().retainAll(online.keySet());
+            plugin.getSoftBannedPlayersCache().keySet().retainAll(online.keySet());
+            plugin.getSoftbannedCommandsCache().keySet().retainAll(online.keySet());
+            online.forEach(this::refreshPunishmentCaches);
+        });
+    }
+
     public List<PunishmentEntry> getAllActivePunishments(UUID playerUUID, String playerIP) {
         List<PunishmentEntry> activePunishments = new ArrayList<>();
-        String sql = "SELECT * FROM punishment_history WHERE (player_uuid = ? OR (by_ip = 1 AND punishment_id IN (SELECT punishment_id FROM player_info WHERE ip = ?))) AND active = 1 AND (punishment_time > ? OR punishment_time = ?)";
+        String sql = "SELECT * FROM punishment_history WHERE (player_uuid = ? OR (by_ip = 1 AND punishment_id IN (SELECT punishment_id FROM player_info WHERE ip = ?))) AND active = 1 AND (punishment_time > ? OR punishment_time = ?) AND " + SCOPE_FILTER;
 
         try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, playerUUID.toString());
             ps.setString(2, playerIP);
             ps.setLong(3, System.currentTimeMillis());
             ps.setLong(4, Long.MAX_VALUE);
+            ps.setString(5, serverId);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -1505,17 +2206,22 @@ public class DatabaseManager {
     }
 
     private void runExpiryTask(String tableName, String cacheName) {
+        CrownEvents.ExpiryBatchEvent event = new CrownEvents.ExpiryBatchEvent();
+        event.begin();
         List<UUID> expiredUuids = new ArrayList<>();
-        String selectSql = "SELECT uuid FROM " + tableName + " WHERE endTime <= ? AND endTime != ?";
+        List<String> expiredScopes = new ArrayList<>();
+        String selectSql = "SELECT uuid, server_id FROM " + tableName + " WHERE endTime <= ? AND endTime != ? AND " + SCOPE_FILTER;
 
         try (Connection connection = getConnection();
                 PreparedStatement psSelect = connection.prepareStatement(selectSql)) {
             long currentTime = System.currentTimeMillis();
             psSelect.setLong(1, currentTime);
             psSelect.setLong(2, Long.MAX_VALUE);
+            psSelect.setString(3, serverId);
             ResultSet rs = psSelect.executeQuery();
             while (rs.next()) {
                 expiredUuids.add(UUID.fromString(rs.getString("uuid")));
+                expiredScopes.add(rs.getString("server_id"));
             }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Error selecting expired entries from " + tableName, e);
@@ -1523,11 +2229,12 @@ public class DatabaseManager {
         }
 
         if (!expiredUuids.isEmpty()) {
-            String deleteSql = "DELETE FROM " + tableName + " WHERE uuid = ?";
+            String deleteSql = "DELETE FROM " + tableName + " WHERE server_id = ? AND uuid = ?";
             try (Connection connection = getConnection();
                     PreparedStatement psDelete = connection.prepareStatement(deleteSql)) {
-                for (UUID uuid : expiredUuids) {
-                    psDelete.setString(1, uuid.toString());
+                for (int i = 0; i < expiredUuids.size(); i++) {
+                    psDelete.setString(1, expiredScopes.get(i));
+                    psDelete.setString(2, expiredUuids.get(i).toString());
                     psDelete.addBatch();
                 }
                 psDelete.executeBatch();
@@ -1547,6 +2254,16 @@ public class DatabaseManager {
                 }
             });
         }
+        commitExpiryEvent(event, tableName, expiredUuids.size());
+    }
+
+    private static void commitExpiryEvent(CrownEvents.ExpiryBatchEvent event, String table, int expired) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.expired = expired;
+            event.commit();
+        }
     }
 
     private void startExpiryCheckTask() {
@@ -1561,33 +2278,52 @@ public class DatabaseManager {
         new BukkitRunnable() {
             @Override
             public void run() {
-                String sql = "UPDATE punishment_history SET active = 0, removed_by_name = 'System', removed_reason = 'Expired', removed_at = ? WHERE active = 1 AND punishment_type = 'ban' AND punishment_time <= ? AND punishment_time != ?";
-                try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                    long currentTime = System.currentTimeMillis();
-                    ps.setTimestamp(1, new Timestamp(currentTime));
-                    ps.setLong(2, currentTime);
-                    ps.setLong(3, Long.MAX_VALUE);
-
-                    int updatedRows = ps.executeUpdate();
-                    if (updatedRows > 0 && plugin.getConfigManager().isDebugEnabled()) {
-                        plugin.getLogger()
-                                .info("[DatabaseManager] Marked " + updatedRows + " expired ban(s) as inactive.");
-                    }
-                } catch (SQLException e) {
-                    plugin.getLogger().log(Level.SEVERE, "Error checking for expired internal bans", e);
-                }
+                expireInternalBans();
             }
         }.runTaskTimerAsynchronously(plugin, 20L * 60 * 5, 20L * 60 * 5);
     }
 
+    /**
+     * Runs one pass of every expiry sweep on the calling thread. The scheduled tasks do the same
+     * work on their own timers; this is for tooling such as the database load harness.
+     */
+    public void runExpirySweep() {
+        runExpiryTask("softbans", "softban");
+        runExpiryTask("mutes", "mute");
+        expireInternalBans();
+    }
+
+    private int expireInternalBans() {
+        CrownEvents.ExpiryBatchEvent event = new CrownEvents.ExpiryBatchEvent();
+        event.begin();
+        String sql = "UPDATE punishment_history SET active = 0, removed_by_name = 'System', removed_reason = 'Expired', removed_at = ? WHERE active = 1 AND punishment_type = 'ban' AND punishment_time <= ? AND punishment_time != ?";
+        try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            long currentTime = System.currentTimeMillis();
+            ps.setTimestamp(1, new Timestamp(currentTime));
+            ps.setLong(2, currentTime);
+            ps.setLong(3, Long.MAX_VALUE);
+
+            int updatedRows = ps.executeUpdate();
+            if (updatedRows > 0 && plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger()
+                        .info("[DatabaseManager] Marked " + updatedRows + " expired ban(s) as inactive.");
+            }
+            commitExpiryEvent(event, "punishment_history", updatedRows);
+            return updatedRows;
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Error checking for expired internal bans", e);
+            return 0;
+        }
+    }
+
     public String softBanPlayer(UUID uuid, long endTime, String reason, String punisherName, boolean byIp) {
-        return executePunishmentAsync(uuid, "softban", reason, punisherName, endTime, "...", byIp, null).join();
+        return mainThreadGuard.join(executePunishmentAsync(uuid, "softban", reason, punisherName, endTime, "...", byIp, null));
     }
 
     public String softBanPlayer(UUID uuid, long endTime, String reason, String punisherName, boolean byIp,
             List<String> customCommands) {
-        return executePunishmentAsync(uuid, "softban", reason, punisherName, endTime, "...", byIp, customCommands)
-                .join();
+        return mainThreadGuard.join(
+                executePunishmentAsync(uuid, "softban", reason, punisherName, endTime, "...", byIp, customCommands));
     }
 
     private void softBanPlayer(Connection connection, UUID uuid, long endTime, String reason,
@@ -1599,8 +2335,8 @@ public class DatabaseManager {
                         : currentEndTime + (endTime - System.currentTimeMillis());
 
         String sql = "mysql".equalsIgnoreCase(dbType)
-                ? "REPLACE INTO softbans (uuid, endTime, reason, custom_commands) VALUES (?, ?, ?, ?)"
-                : "INSERT OR REPLACE INTO softbans (uuid, endTime, reason, custom_commands) VALUES (?, ?, ?, ?)";
+                ? "REPLACE INTO softbans (uuid, endTime, reason, custom_commands, server_id) VALUES (?, ?, ?, ?, ?)"
+                : "INSERT OR REPLACE INTO softbans (uuid, endTime, reason, custom_commands, server_id) VALUES (?, ?, ?, ?, ?)";
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, uuid.toString());
@@ -1611,17 +2347,19 @@ public class DatabaseManager {
             } else {
                 ps.setNull(4, Types.VARCHAR);
             }
+            ps.setString(5, scopeOf("softban"));
             ps.executeUpdate();
         }
     }
 
     public String unSoftBanPlayer(UUID uuid, String punisherName, String reason) {
-        return executeUnpunishmentAsync(uuid, "softban", punisherName, reason, null).join();
+        return mainThreadGuard.join(executeUnpunishmentAsync(uuid, "softban", punisherName, reason, null));
     }
 
     private void unSoftBanPlayer(Connection connection, UUID uuid) throws SQLException {
-        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM softbans WHERE uuid = ?")) {
+        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM softbans WHERE uuid = ? AND " + SCOPE_FILTER)) {
             ps.setString(1, uuid.toString());
+            ps.setString(2, serverId);
             if (ps.executeUpdate() > 0) {
                 sendRemovalNotification(uuid, "softban");
             }
@@ -1636,10 +2374,12 @@ public class DatabaseManager {
     }
 
     public List<String> getActiveSoftbanCustomCommands(UUID uuid) {
-        String sql = "SELECT custom_commands FROM softbans WHERE uuid = ? AND endTime > ?";
+        String sql = "SELECT custom_commands FROM softbans WHERE uuid = ? AND " + SCOPE_FILTER
+                + " AND endTime > ? ORDER BY endTime DESC";
         try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, uuid.toString());
-            ps.setLong(2, System.currentTimeMillis());
+            ps.setString(2, serverId);
+            ps.setLong(3, System.currentTimeMillis());
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     String commands = rs.getString("custom_commands");
@@ -1677,7 +2417,7 @@ public class DatabaseManager {
     }
 
     public String mutePlayer(UUID uuid, long endTime, String reason, String punisherName, boolean byIp) {
-        return executePunishmentAsync(uuid, "mute", reason, punisherName, endTime, "...", byIp, null).join();
+        return mainThreadGuard.join(executePunishmentAsync(uuid, "mute", reason, punisherName, endTime, "...", byIp, null));
     }
 
     private void mutePlayer(Connection connection, UUID uuid, long endTime, String reason) throws SQLException {
@@ -1687,24 +2427,26 @@ public class DatabaseManager {
                         ? endTime
                         : currentEndTime + (endTime - System.currentTimeMillis());
 
-        String sql = "mysql".equalsIgnoreCase(dbType) ? "REPLACE INTO mutes (uuid, endTime, reason) VALUES (?, ?, ?)"
-                : "INSERT OR REPLACE INTO mutes (uuid, endTime, reason) VALUES (?, ?, ?)";
+        String sql = "mysql".equalsIgnoreCase(dbType) ? "REPLACE INTO mutes (uuid, endTime, reason, server_id) VALUES (?, ?, ?, ?)"
+                : "INSERT OR REPLACE INTO mutes (uuid, endTime, reason, server_id) VALUES (?, ?, ?, ?)";
 
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, uuid.toString());
             ps.setLong(2, finalEndTime);
             ps.setString(3, reason);
+            ps.setString(4, scopeOf("mute"));
             ps.executeUpdate();
         }
     }
 
     public String unmutePlayer(UUID uuid, String punisherName, String reason) {
-        return executeUnpunishmentAsync(uuid, "mute", punisherName, reason, null).join();
+        return mainThreadGuard.join(executeUnpunishmentAsync(uuid, "mute", punisherName, reason, null));
     }
 
     private void unmutePlayer(Connection connection, UUID uuid) throws SQLException {
-        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM mutes WHERE uuid = ?")) {
+        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM mutes WHERE uuid = ? AND " + SCOPE_FILTER)) {
             ps.setString(1, uuid.toString());
+            ps.setString(2, serverId);
             if (ps.executeUpdate() > 0) {
                 sendRemovalNotification(uuid, "mute");
             }
@@ -1724,8 +2466,10 @@ public class DatabaseManager {
 
     private String getPunishmentReason(String table, UUID uuid) {
         try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement("SELECT reason FROM " + table + " WHERE uuid = ?")) {
+                PreparedStatement ps = connection.prepareStatement("SELECT reason FROM " + table
+                        + " WHERE uuid = ? AND " + SCOPE_FILTER + " ORDER BY endTime DESC")) {
             ps.setString(1, uuid.toString());
+            ps.setString(2, serverId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getString("reason");
@@ -1747,8 +2491,10 @@ public class DatabaseManager {
     }
 
     private long getPunishmentEndTime(Connection connection, String table, UUID uuid) throws SQLException {
-        try (PreparedStatement ps = connection.prepareStatement("SELECT endTime FROM " + table + " WHERE uuid = ?")) {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT endTime FROM " + table
+                + " WHERE uuid = ? AND " + SCOPE_FILTER + " ORDER BY endTime DESC")) {
             ps.setString(1, uuid.toString());
+            ps.setString(2, serverId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getLong("endTime");
@@ -1778,118 +2524,162 @@ public class DatabaseManager {
     private String logPunishment(Connection connection, UUID playerUUID, String punishmentType, String reason,
             String punisherName, long punishmentEndTime, String durationString, boolean byIp, int warnLevel)
             throws SQLException {
-        String punishmentId = generatePunishmentId();
-        String sql = "INSERT INTO punishment_history (punishment_id, player_uuid, punishment_type, reason, punisher_name, punishment_time, duration_string, active, by_ip, warn_level) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, punishmentId);
-            ps.setString(2, playerUUID.toString());
-            ps.setString(3, punishmentType);
-            ps.setString(4, reason);
-            ps.setString(5, punisherName);
-            ps.setLong(6, punishmentEndTime);
-            ps.setString(7, durationString);
-            ps.setBoolean(8, true);
-            ps.setBoolean(9, byIp);
-            ps.setInt(10, warnLevel);
+        String punishmentId = generatePunishmentId(connection);
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_PUNISHMENT_SQL)) {
+            bindPunishment(ps, punishmentId, playerUUID, punishmentType, reason, punisherName, punishmentEndTime,
+                    durationString, byIp, warnLevel, scopeOf(punishmentType));
             ps.executeUpdate();
 
             return punishmentId;
         }
     }
 
+    private static void bindPunishment(PreparedStatement ps, String punishmentId, UUID playerUUID,
+            String punishmentType, String reason, String punisherName, long punishmentEndTime, String durationString,
+            boolean byIp, int warnLevel, String scope) throws SQLException {
+        ps.setString(1, punishmentId);
+        ps.setString(2, playerUUID.toString());
+        ps.setString(3, punishmentType);
+        ps.setString(4, reason);
+        ps.setString(5, punisherName);
+        ps.setLong(6, punishmentEndTime);
+        ps.setString(7, durationString);
+        ps.setBoolean(8, true);
+        ps.setBoolean(9, byIp);
+        ps.setInt(10, warnLevel);
+        ps.setString(11, scope);
+    }
+
     public void logPlayerInfo(String punishmentId, Player player) {
-        String ipAddress = (player != null && player.getAddress() != null)
-                ? player.getAddress().getAddress().getHostAddress()
-                : null;
-        logPlayerInfoAsync(punishmentId, player, ipAddress);
+        logPlayerInfoAsync(punishmentId, PlayerSnapshot.capture(player));
+    }
+
+    /**
+     * Queues the player_info row for a punishment. The snapshot must be captured on the
+     * main thread before the punishment is applied (a kick would otherwise erase the live state).
+     */
+    public void logPlayerInfoAsync(String punishmentId, PlayerSnapshot snapshot) {
+        batchedWriter.enqueue(INSERT_PLAYER_INFO_SQL, "logging player info for punishment ID: " + punishmentId,
+                playerInfoParams(punishmentId, snapshot));
     }
 
-    public void logPlayerInfoAsync(String punishmentId, OfflinePlayer target, String ipAddress) {
+    private static void bindPlayerInfo(PreparedStatement ps, String punishmentId, PlayerSnapshot snapshot)
+            throws SQLException {
+        BatchedWriter.bind(ps, playerInfoParams(punishmentId, snapshot));
+    }
+
+    /** Values for INSERT_PLAYER_INFO_SQL; the live-state columns stay null for offline players. */
+    private static Object[] playerInfoParams(String punishmentId, PlayerSnapshot snapshot) {
+        boolean online = snapshot.isOnline();
+        return new Object[]{
+                punishmentId,
+                snapshot.ip(),
+                online ? snapshot.locationString() : null,
+                online ? snapshot.gameMode() : null,
+                online ? (Object) snapshot.health() : null,
+                online ? (Object) snapshot.foodLevel() : null,
+                online ? (Object) snapshot.expLevel() : null,
+                online ? (Object) snapshot.playTimeTicks() : null,
+                online ? (Object) snapshot.ping() : null,
+                snapshot.firstPlayed(),
+                snapshot.lastPlayed(),
+                online ? snapshot.potionEffects() : null
+        };
+    }
+
+    /**
+     * Encodes and stores inventory evidence for a punishment. The contents must be copied on the
+     * main thread; encoding happens here, off-thread, delta-encoded against the player's previous snapshot.
+     */
+    public void saveInventorySnapshotAsync(String punishmentId, UUID playerUUID, InventorySnapshotCodec.Contents contents) {
         CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO player_info (punishment_id, ip, location, gamemode, health, hunger, exp_level, playtime, ping, first_joined, last_joined, potion_effects) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            byte[][] slots = contents.toSlotBytes();
+            String latestSql = "SELECT punishment_id, chain_depth FROM inventory_snapshots WHERE player_uuid = ? ORDER BY created_at DESC LIMIT 1";
+            String insertSql = "INSERT INTO inventory_snapshots (punishment_id, player_uuid, created_at, base_punishment_id, chain_depth, data) VALUES (?, ?, ?, ?, ?, ?)";
 
-                Player onlineTarget = target.isOnline() ? target.getPlayer() : null;
+            try (Connection connection = getConnection()) {
+                String baseId = null;
+                int depth = 0;
+                byte[][] baseSlots = null;
 
-                // Always try to get IP from online player if not provided
-                String finalIp = ipAddress;
-                if (finalIp == null && onlineTarget != null) {
-                    java.net.InetSocketAddress address = onlineTarget.getAddress();
-                    if (address != null && address.getAddress() != null) {
-                        finalIp = address.getAddress().getHostAddress();
+                try (PreparedStatement ps = connection.prepareStatement(latestSql)) {
+                    ps.setString(1, playerUUID.toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next() && rs.getInt("chain_depth") + 1 < InventorySnapshotCodec.MAX_CHAIN_DEPTH) {
+                            String latestId = rs.getString("punishment_id");
+                            InventorySnapshotCodec.Decoded base = null;
+                            try {
+                                base = loadInventorySnapshot(connection, latestId);
+                            } catch (IllegalStateException e) {
+                                // A broken chain must not block every later snapshot: store this one in full.
+                                plugin.getLogger().warning("Inventory snapshot " + latestId + " could not be decoded ("
+                                        + e.getMessage() + "), saving the next one for this player in full.");
+                            }
+                            if (base != null && base.slots().length == slots.length) {
+                                baseId = latestId;
+                                depth = rs.getInt("chain_depth") + 1;
+                                baseSlots = base.slots();
+                            }
+                        }
                     }
                 }
 
-                ps.setString(1, punishmentId);
-                ps.setString(2, finalIp);
-
-                if (onlineTarget != null) {
-                    ps.setString(3, onlineTarget.getWorld().getName() + "," + onlineTarget.getLocation().getX() + ","
-                            + onlineTarget.getLocation().getY() + "," + onlineTarget.getLocation().getZ());
-                    ps.setString(4, onlineTarget.getGameMode().toString());
-                    ps.setDouble(5, onlineTarget.getHealth());
-                    ps.setInt(6, onlineTarget.getFoodLevel());
-                    ps.setInt(7, onlineTarget.getLevel());
-                    ps.setLong(8, onlineTarget.getStatistic(org.bukkit.Statistic.PLAY_ONE_MINUTE));
-                    ps.setInt(9, onlineTarget.getPing());
-
-                    // Serialize potion effects to JSON
-                    String potionEffectsJson = serializePotionEffects(onlineTarget);
-                    ps.setString(12, potionEffectsJson);
-                } else {
-                    ps.setNull(3, Types.VARCHAR);
-                    ps.setNull(4, Types.VARCHAR);
-                    ps.setNull(5, Types.DOUBLE);
-                    ps.setNull(6, Types.INTEGER);
-                    ps.setNull(7, Types.INTEGER);
-                    ps.setNull(8, Types.BIGINT);
-                    ps.setNull(9, Types.INTEGER);
-                    ps.setNull(12, Types.VARCHAR);
+                byte[] data = InventorySnapshotCodec.encode(contents.inventory().length, contents.enderChest().length, slots, baseSlots);
+                try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
+                    ps.setString(1, punishmentId);
+                    ps.setString(2, playerUUID.toString());
+                    ps.setLong(3, System.currentTimeMillis());
+                    ps.setString(4, baseId);
+                    ps.setInt(5, depth);
+                    ps.setBytes(6, data);
+                    ps.executeUpdate();
                 }
-
-                ps.setLong(10, target.getFirstPlayed());
-                ps.setLong(11, target.getLastPlayed());
-
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE,
-                        "Database error logging player info for punishment ID: " + punishmentId, e);
+            } catch (SQLException | IllegalStateException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save inventory snapshot for punishment ID: " + punishmentId, e);
             }
         });
     }
 
-    /**
-     * Serializes a player's active potion effects to JSON format.
-     * Format: [{"name":"speed","amplifier":1,"duration":120},...]
-     */
-    private String serializePotionEffects(Player player) {
-        if (player == null)
-            return null;
-        Collection<org.bukkit.potion.PotionEffect> effects = player.getActivePotionEffects();
-        if (effects.isEmpty())
+    public InventorySnapshotCodec.Decoded getInventorySnapshot(String punishmentId) {
+        try (Connection connection = getConnection()) {
+            return loadInventorySnapshot(connection, punishmentId);
+        } catch (SQLException | IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not load inventory snapshot for punishment ID: " + punishmentId, e);
             return null;
+        }
+    }
 
-        StringBuilder json = new StringBuilder("[");
-        boolean first = true;
-        for (org.bukkit.potion.PotionEffect effect : effects) {
-            if (!first)
-                json.append(",");
-            first = false;
-            json.append(String.format(
-                    "{\"name\":\"%s\",\"amplifier\":%d,\"duration\":%d}",
-                    effect.getType().getName(),
-                    effect.getAmplifier(),
-                    effect.getDuration() / 20 // Convert ticks to seconds
-            ));
+    private InventorySnapshotCodec.Decoded loadInventorySnapshot(Connection connection, String punishmentId) throws SQLException {
+        String sql = "SELECT base_punishment_id, data FROM inventory_snapshots WHERE punishment_id = ?";
+        String baseId;
+        byte[] data;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, punishmentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                baseId = rs.getString("base_punishment_id");
+                data = rs.getBytes("data");
+            }
         }
-        json.append("]");
-        return json.toString();
+        // Chains are capped at MAX_CHAIN_DEPTH, so this recursion stays shallow.
+        InventorySnapshotCodec.Decoded base = baseId != null ? loadInventorySnapshot(connection, baseId) : null;
+        return InventorySnapshotCodec.decode(data, base != null ? base.slots() : null);
     }
 
     public PlayerInfo getPlayerInfo(String punishmentId) {
-        String sql = "SELECT * FROM player_info WHERE punishment_id = ?";
-        try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection()) {
+            for (String table : lookupTables("player_info")) {
+                PlayerInfo info = getPlayerInfo(connection, table, punishmentId);
+                if (info != null) return info;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Database error retrieving player info!", e);
+        }
+        return null;
+    }
+
+    private PlayerInfo getPlayerInfo(Connection connection, String table, String punishmentId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + table + " WHERE punishment_id = ?")) {
             ps.setString(1, punishmentId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -1908,12 +2698,15 @@ public class DatabaseManager {
                             rs.getString("potion_effects"));
                 }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Database error retrieving player info!", e);
         }
         return null;
     }
 
+    /** The table, followed by its archive once that exists; single-row lookups by ID try them in order. */
+    private List<String> lookupTables(String table) {
+        return archiveManager.hasArchive(table) ? List.of(table, table + "_archive") : List.of(table);
+    }
+
     public List<PunishmentEntry> getPunishmentHistory(UUID playerUUID, int page, int entriesPerPage) {
         List<PunishmentEntry> history = new ArrayList<>();
         int offset = (page - 1) * entriesPerPage;
@@ -1948,9 +2741,19 @@ public class DatabaseManager {
     }
 
     public PunishmentEntry getPunishmentById(String punishmentId) {
-        String sql = "SELECT * FROM punishment_history WHERE punishment_id = ?";
-        try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (Connection connection = getConnection()) {
+            for (String table : lookupTables("punishment_history")) {
+                PunishmentEntry entry = getPunishmentById(connection, table, punishmentId);
+                if (entry != null) return entry;
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "Database error retrieving punishment by ID!", e);
+        }
+        return null;
+    }
+
+    private PunishmentEntry getPunishmentById(Connection connection, String table, String punishmentId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + table + " WHERE punishment_id = ?")) {
             ps.setString(1, punishmentId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -1971,8 +2774,6 @@ public class DatabaseManager {
                             rs.getInt("warn_level"));
                 }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Database error retrieving punishment by ID!", e);
         }
         return null;
     }
@@ -2029,13 +2830,8 @@ public class DatabaseManager {
         return counts;
     }
 
-    private String generatePunishmentId() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder idBuilder = new StringBuilder();
-        for (int i = 0; i < 6; i++) {
-            idBuilder.append(chars.charAt(ThreadLocalRandom.current().nextInt(chars.length())));
-        }
-        return idBuilder.toString();
+    private String generatePunishmentId(Connection connection) throws SQLException {
+        return punishmentIdAllocator.next(connection);
     }
 
     public String getLatestActivePunishmentId(UUID playerUUID, String punishmentType) {
@@ -2049,10 +2845,11 @@ public class DatabaseManager {
 
     private String getLatestActivePunishmentId(Connection connection, UUID playerUUID, String punishmentType)
             throws SQLException {
-        String sql = "SELECT punishment_id FROM punishment_history WHERE player_uuid = ? AND punishment_type = ? AND active = 1 ORDER BY timestamp DESC LIMIT 1";
+        String sql = "SELECT punishment_id FROM punishment_history WHERE player_uuid = ? AND punishment_type = ? AND " + SCOPE_FILTER + " AND active = 1 ORDER BY timestamp DESC LIMIT 1";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, playerUUID.toString());
             ps.setString(2, punishmentType);
+            ps.setString(3, serverId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getString("punishment_id");
@@ -2073,10 +2870,11 @@ public class DatabaseManager {
 
     private PunishmentEntry getLatestActivePunishment(Connection connection, UUID playerUUID, String punishmentType)
             throws SQLException {
-        String sql = "SELECT * FROM punishment_history WHERE player_uuid = ? AND punishment_type = ? AND active = 1 ORDER BY timestamp DESC LIMIT 1";
+        String sql = "SELECT * FROM punishment_history WHERE player_uuid = ? AND punishment_type = ? AND " + SCOPE_FILTER + " AND active = 1 ORDER BY timestamp DESC LIMIT 1";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, playerUUID.toString());
             ps.setString(2, punishmentType);
+            ps.setString(3, serverId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return new PunishmentEntry(
@@ -2101,7 +2899,8 @@ public class DatabaseManager {
     }
 
     public String getLastKnownIp(UUID playerUUID) {
-        String sql = "SELECT ip FROM player_last_state WHERE uuid = ?";
+        // The IP is network wide, so the latest visit on any server counts.
+        String sql = "SELECT ip FROM player_last_state WHERE uuid = ? ORDER BY last_seen DESC LIMIT 1";
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, playerUUID.toString());
@@ -2119,12 +2918,13 @@ public class DatabaseManager {
     public PunishmentEntry getLatestActivePunishmentByIp(String ip, String punishmentType) {
         String sql = "SELECT ph.* FROM punishment_history ph " +
                 "JOIN player_info pi ON ph.punishment_id = pi.punishment_id " +
-                "WHERE pi.ip = ? AND ph.punishment_type = ? AND ph.active = 1 " +
+                "WHERE pi.ip = ? AND ph.punishment_type = ? AND ph.active = 1 AND ph.server_id IN (?, '') " +
                 "ORDER BY ph.timestamp DESC LIMIT 1";
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, ip);
             ps.setString(2, punishmentType);
+            ps.setString(3, serverId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return new PunishmentEntry(
@@ -2161,8 +2961,7 @@ public class DatabaseManager {
 
     private boolean updatePunishmentAsRemoved(Connection connection, String punishmentId, String removedByName,
             String removedReason) throws SQLException {
-        String sql = "UPDATE punishment_history SET active = 0, removed_by_name = ?, removed_reason = ?, removed_at = ? WHERE punishment_id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (PreparedStatement ps = connection.prepareStatement(REMOVE_PUNISHMENT_SQL)) {
             ps.setString(1, removedByName);
             ps.setString(2, removedReason);
             ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
@@ -2194,8 +2993,9 @@ public class DatabaseManager {
                 boolean removed = false;
                 try (Connection connection = getConnection();
                         PreparedStatement ps = connection
-                                .prepareStatement("DELETE FROM " + table + " WHERE uuid = ?")) {
+                                .prepareStatement("DELETE FROM " + table + " WHERE uuid = ? AND " + SCOPE_FILTER)) {
                     ps.setString(1, uuid.toString());
+                    ps.setString(2, serverId);
                     if (ps.executeUpdate() > 0) {
                         removed = true;
                     }
@@ -2255,6 +3055,85 @@ public class DatabaseManager {
         });
     }
 
+    /**
+     * Queues a chat line for the batched writer, so chat never waits on the database. The row's
+     * timestamp is the time of the flush, at most a second after the message.
+     */
+    public void logChatMessage(UUID playerUUID, String message) {
+        batchedWriter.enqueue("INSERT INTO player_chat_history (player_uuid, message) VALUES (?, ?)",
+                "logging chat message for " + playerUUID, playerUUID.toString(), message);
+    }
+
+    /**
+     * Searches chat history newest first, passing each match to {@code consumer} on the database
+     * thread as it is read. Pages are keyset-based: pass the returned cursor as {@code beforeId}
+     * to continue where the previous page stopped.
+     *
+     * @param playerUUID only this player's messages, or null for everyone
+     * @param sinceMillis only messages at or after this time, or 0 for no limit
+     * @param phrase words that must appear together, or null/empty for any message
+     * @param beforeId only messages older than this ID, or 0 to start from the newest
+     * @return the cursor for the next page, or 0 when there are no more matches
+     */
+    public CompletableFuture<Long> searchChatAsync(UUID playerUUID, long sinceMillis, String phrase, long beforeId,
+            int limit, Consumer<ChatMessageEntry> consumer) {
+        return CompletableFuture.supplyAsync(() -> {
+            boolean sqlite = "sqlite".equalsIgnoreCase(dbType);
+            boolean hasPhrase = phrase != null && !phrase.isBlank();
+            StringBuilder sql = new StringBuilder("SELECT c.id, c.player_uuid, c.message, c.timestamp FROM ");
+            List<Object> params = new ArrayList<>();
+
+            if (hasPhrase && chatFtsAvailable && sqlite) {
+                sql.append("chat_history_fts f JOIN player_chat_history c ON c.id = f.rowid WHERE chat_history_fts MATCH ? ");
+                params.add("\"" + phrase.replace("\"", "\"\"") + "\"");
+            } else if (hasPhrase && chatFtsAvailable) {
+                sql.append("player_chat_history c WHERE MATCH (c.message) AGAINST (? IN BOOLEAN MODE) ");
+                params.add("\"" + phrase.replace("\"", "") + "\"");
+            } else if (hasPhrase) {
+                sql.append("player_chat_history c WHERE c.message LIKE ? ESCAPE '!' ");
+                params.add("%" + phrase.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+            } else {
+                sql.append("player_chat_history c WHERE 1 = 1 ");
+            }
+
+            if (playerUUID != null) {
+                sql.append("AND c.player_uuid = ? ");
+                params.add(playerUUID.toString());
+            }
+            if (sinceMillis > 0) {
+                sql.append("AND c.timestamp >= ? ");
+                params.add(SqlTimestamps.bindable(sinceMillis, sqlite));
+            }
+            if (beforeId > 0) {
+                sql.append("AND c.id < ? ");
+                params.add(beforeId);
+            }
+            sql.append("ORDER BY c.id DESC LIMIT ?");
+            params.add(limit);
+
+            long lastId = 0L;
+            int rows = 0;
+            try (Connection connection = getConnection();
+                    PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getLong("id");
+                        rows++;
+                        consumer.accept(new ChatMessageEntry(lastId, UUID.fromString(rs.getString("player_uuid")),
+                                rs.getString("message"), rs.getTimestamp("timestamp")));
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Database error searching chat history!", e);
+                throw new RuntimeException(e);
+            }
+            return rows == limit ? lastId : 0L;
+        });
+    }
+
     public List<String> getChatHistory(UUID playerUUID, int limit) {
         List<String> chatHistory = new ArrayList<>();
         String sql = "SELECT message, timestamp FROM player_chat_history WHERE player_uuid = ? ORDER BY timestamp DESC LIMIT ?";
@@ -2277,19 +3156,15 @@ public class DatabaseManager {
     public List<String> getPlayersByIp(String ip) {
         List<String> players = new ArrayList<>();
 
-        if (Bukkit.isPrimaryThread()) {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                if (player.getAddress() != null && player.getAddress().getAddress() != null &&
-                        player.getAddress().getAddress().getHostAddress().equals(ip)) {
-                    if (!players.contains(player.getName())) {
-                        players.add(player.getName());
-                    }
-                }
+        // The session index is thread-safe, so online accounts are included from any thread.
+        for (Player player : plugin.getSessionIndex().getPlayers(ip)) {
+            if (!players.contains(player.getName())) {
+                players.add(player.getName());
             }
         }
 
         String sqlHistory = "SELECT DISTINCT ph.player_uuid FROM punishment_history ph JOIN player_info pi ON ph.punishment_id = pi.punishment_id WHERE pi.ip = ?";
-        String sqlLastState = "SELECT uuid FROM player_last_state WHERE ip = ?";
+        String sqlLastState = "SELECT DISTINCT uuid FROM player_last_state WHERE ip = ?";
 
         try (Connection connection = getConnection()) {
             try (PreparedStatement ps = connection.prepareStatement(sqlHistory)) {
@@ -2362,29 +3237,26 @@ public class DatabaseManager {
     }
 
     public void updatePlayerLastState(Player player) {
-        CompletableFuture.runAsync(() -> {
-            String sql = "mysql".equalsIgnoreCase(dbType)
-                    ? "INSERT INTO player_last_state (uuid, last_seen, ip, location, world) VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE last_seen = VALUES(last_seen), ip = VALUES(ip), location = VALUES(location), world = VALUES(world)"
-                    : "INSERT OR REPLACE INTO player_last_state (uuid, last_seen, ip, location, world) VALUES (?, ?, ?, ?, ?)";
+        updatePlayerLastState(PlayerSnapshot.capture(player));
+    }
 
-            try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, player.getUniqueId().toString());
-                ps.setLong(2, System.currentTimeMillis());
-                ps.setString(3, player.getAddress().getAddress().getHostAddress());
-                ps.setString(4, String.format("%d, %d, %d", player.getLocation().getBlockX(),
-                        player.getLocation().getBlockY(), player.getLocation().getBlockZ()));
-                ps.setString(5, player.getLocation().getWorld().getName());
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not update player last state for " + player.getName(), e);
-            }
-        });
+    public void updatePlayerLastState(PlayerSnapshot snapshot) {
+        String sql = "mysql".equalsIgnoreCase(dbType)
+                ? "INSERT INTO player_last_state (uuid, last_seen, ip, location, world, server_id) VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE last_seen = VALUES(last_seen), ip = VALUES(ip), location = VALUES(location), world = VALUES(world)"
+                : "INSERT OR REPLACE INTO player_last_state (uuid, last_seen, ip, location, world, server_id) VALUES (?, ?, ?, ?, ?, ?)";
+        long lastSeen = System.currentTimeMillis();
+
+        batchedWriter.enqueue(sql, "updating player last state for " + snapshot.name(),
+                snapshot.uuid().toString(), lastSeen, snapshot.ip(), snapshot.blockLocationString(),
+                snapshot.world(), serverId);
     }
 
     public PlayerLastState getPlayerLastState(UUID uuid) {
-        String sql = "SELECT * FROM player_last_state WHERE uuid = ?";
+        // Locations only make sense on the server they were recorded on; fall back to the unscoped row.
+        String sql = "SELECT * FROM player_last_state WHERE uuid = ? AND " + SCOPE_FILTER + " ORDER BY server_id DESC LIMIT 1";
         try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, uuid.toString());
+            ps.setString(2, serverId);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 return new PlayerLastState(
@@ -2400,49 +3272,24 @@ public class DatabaseManager {
         return null;
     }
 
-    private String generateReportId() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder idBuilder;
-        do {
-            idBuilder = new StringBuilder();
-            for (int i = 0; i < 8; i++) {
-                idBuilder.append(chars.charAt(ThreadLocalRandom.current().nextInt(chars.length())));
-            }
-        } while (reportIdExists(idBuilder.toString()));
-        return idBuilder.toString();
-    }
-
-    private boolean reportIdExists(String reportId) {
-        String sql = "SELECT 1 FROM reports WHERE report_id = ?";
-        try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, reportId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Could not check for report ID existence.", e);
-            return true;
-        }
-    }
-
     public CompletableFuture<String> createReport(UUID requesterUUID, UUID targetUUID, String targetName,
             String reportType, String category, String reason, String details, String collectedData) {
         return CompletableFuture.supplyAsync(() -> {
-            String reportId = generateReportId();
-            String sql = "INSERT INTO reports (report_id, requester_uuid, target_uuid, target_name, report_type, category, reason, details, status, collected_data) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            String sql = "INSERT INTO reports (report_id, requester_uuid, target_uuid, target_name, target_name_lower, report_type, category, reason, details, status, collected_data) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
             try (Connection connection = getConnection();
                     PreparedStatement ps = connection.prepareStatement(sql)) {
+                String reportId = reportIdAllocator.next(connection);
                 ps.setString(1, reportId);
                 ps.setString(2, requesterUUID.toString());
                 ps.setString(3, targetUUID != null ? targetUUID.toString() : null);
                 ps.setString(4, targetName);
-                ps.setString(5, reportType);
-                ps.setString(6, category);
-                ps.setString(7, reason);
-                ps.setString(8, details);
-                ps.setString(9, ReportStatus.PENDING.name());
-                ps.setString(10, collectedData);
+                ps.setString(5, targetName != null ? targetName.toLowerCase(Locale.ROOT) : null);
+                ps.setString(6, reportType);
+                ps.setString(7, category);
+                ps.setString(8, reason);
+                ps.setString(9, details);
+                ps.setString(10, ReportStatus.PENDING.name());
+                ps.setString(11, collectedData);
                 ps.executeUpdate();
                 return reportId;
             } catch (SQLException e) {
@@ -2454,16 +3301,19 @@ public class DatabaseManager {
 
     public CompletableFuture<ReportEntry> getReportById(String reportId) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT * FROM reports WHERE report_id = ?";
-            try (Connection connection = getConnection();
-                    PreparedStatement ps = connection.prepareStatement(sql)) {
-                ps.setString(1, reportId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        try {
-                            return new ReportEntry(rs);
-                        } catch (SQLException e) {
-                            plugin.getLogger().log(Level.SEVERE, "Error constructing ReportEntry from ResultSet.", e);
+            try (Connection connection = getConnection()) {
+                for (String table : lookupTables("reports")) {
+                    try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + table + " WHERE report_id = ?")) {
+                        ps.setString(1, reportId);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            if (rs.next()) {
+                                try {
+                                    return new ReportEntry(rs);
+                                } catch (SQLException e) {
+                                    plugin.getLogger().log(Level.SEVERE, "Error constructing ReportEntry from ResultSet.", e);
+                                    return null;
+                                }
+                            }
                         }
                     }
                 }
@@ -2482,39 +3332,7 @@ public class DatabaseManager {
 
             StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM reports ");
             List<Object> params = new ArrayList<>();
-            boolean whereAdded = false;
-
-            if (assignedTo != null) {
-                sqlBuilder.append("WHERE moderator_uuid = ? ");
-                params.add(assignedTo.toString());
-                whereAdded = true;
-            }
-
-            if (reportType != null) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                sqlBuilder.append("report_type = ? ");
-                params.add(reportType);
-                whereAdded = true;
-            }
-
-            if (filterStatus != null) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                sqlBuilder.append("status = ? ");
-                params.add(filterStatus.name());
-                whereAdded = true;
-            }
-            if (filterName != null && !filterName.isEmpty()) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                String nameToFilter = filterName;
-                if (filterAsRequester) {
-                    sqlBuilder.append("requester_uuid = ? ");
-                    OfflinePlayer p = Bukkit.getOfflinePlayer(nameToFilter);
-                    params.add(p.getUniqueId().toString());
-                } else {
-                    sqlBuilder.append("target_name LIKE ? ");
-                    params.add("%" + nameToFilter + "%");
-                }
-            }
+            appendReportFilters(sqlBuilder, params, filterStatus, filterName, filterAsRequester, assignedTo, reportType);
 
             sqlBuilder.append("ORDER BY timestamp DESC LIMIT ? OFFSET ?");
             params.add(entriesPerPage);
@@ -2542,39 +3360,7 @@ public class DatabaseManager {
         return CompletableFuture.supplyAsync(() -> {
             StringBuilder sqlBuilder = new StringBuilder("SELECT COUNT(*) FROM reports ");
             List<Object> params = new ArrayList<>();
-            boolean whereAdded = false;
-
-            if (assignedTo != null) {
-                sqlBuilder.append("WHERE moderator_uuid = ? ");
-                params.add(assignedTo.toString());
-                whereAdded = true;
-            }
-
-            if (reportType != null) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                sqlBuilder.append("report_type = ? ");
-                params.add(reportType);
-                whereAdded = true;
-            }
-
-            if (filterStatus != null) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                sqlBuilder.append("status = ? ");
-                params.add(filterStatus.name());
-                whereAdded = true;
-            }
-            if (filterName != null && !filterName.isEmpty()) {
-                sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
-                String nameToFilter = filterName;
-                if (filterAsRequester) {
-                    sqlBuilder.append("requester_uuid = ? ");
-                    OfflinePlayer p = Bukkit.getOfflinePlayer(nameToFilter);
-                    params.add(p.getUniqueId().toString());
-                } else {
-                    sqlBuilder.append("target_name LIKE ? ");
-                    params.add("%" + nameToFilter + "%");
-                }
-            }
+            appendReportFilters(sqlBuilder, params, filterStatus, filterName, filterAsRequester, assignedTo, reportType);
 
             try (Connection connection = getConnection();
                     PreparedStatement ps = connection.prepareStatement(sqlBuilder.toString())) {
@@ -2593,6 +3379,71 @@ public class DatabaseManager {
         });
     }
 
+    /**
+     * Shared WHERE clause of getReports and countReports. Target names match at the start of the name,
+     * a range over the name index. A leading '*' matches anywhere in the name instead: through the
+     * trigram table when available, otherwise with a substring LIKE that scans the name index.
+     */
+    private void appendReportFilters(StringBuilder sqlBuilder, List<Object> params, ReportStatus filterStatus,
+            String filterName, boolean filterAsRequester, UUID assignedTo, String reportType) {
+        boolean whereAdded = false;
+
+        if (assignedTo != null) {
+            sqlBuilder.append("WHERE moderator_uuid = ? ");
+            params.add(assignedTo.toString());
+            whereAdded = true;
+        }
+
+        if (reportType != null) {
+            sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
+            sqlBuilder.append("report_type = ? ");
+            params.add(reportType);
+            whereAdded = true;
+        }
+
+        if (filterStatus != null) {
+            sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
+            sqlBuilder.append("status = ? ");
+            params.add(filterStatus.name());
+            whereAdded = true;
+        }
+        boolean anywhere = !filterAsRequester && filterName != null && filterName.startsWith("*");
+        String name = anywhere ? filterName.substring(1) : filterName;
+        if (name != null && !name.isEmpty()) {
+            sqlBuilder.append(whereAdded ? "AND " : "WHERE ");
+            String lower = name.toLowerCase(Locale.ROOT);
+            // Underscores are common in player names, so LIKE wildcards in the filter are escaped.
+            String pattern = lower.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            String upperBound = prefixUpperBound(lower);
+            if (filterAsRequester) {
+                sqlBuilder.append("requester_uuid = ? ");
+                OfflinePlayer p = Bukkit.getOfflinePlayer(name);
+                params.add(p.getUniqueId().toString());
+            } else if (anywhere && reportNameFtsAvailable && name.length() >= 3) {
+                sqlBuilder.append("report_id IN (SELECT report_id FROM reports_name_fts WHERE reports_name_fts MATCH ?) ");
+                params.add("\"" + name.replace("\"", "\"\"") + "\"");
+            } else if (anywhere) {
+                sqlBuilder.append("target_name_lower LIKE ? ESCAPE '!' ");
+                params.add("%" + pattern + "%");
+            } else if ("sqlite".equalsIgnoreCase(dbType) && upperBound != null) {
+                // SQLite's LIKE is case-insensitive and so cannot use the index on a BINARY column; a range can.
+                sqlBuilder.append("target_name_lower >= ? AND target_name_lower < ? ");
+                params.add(lower);
+                params.add(upperBound);
+            } else {
+                sqlBuilder.append("target_name_lower LIKE ? ESCAPE '!' ");
+                params.add(pattern + "%");
+            }
+        }
+    }
+
+    /** The smallest string greater than every string starting with {@code prefix}, or null if there is none to build. */
+    private static String prefixUpperBound(String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        if (last == Character.MAX_VALUE || Character.isSurrogate(last)) return null;
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+
     public CompletableFuture<Boolean> updateReportStatus(String reportId, ReportStatus status, UUID moderatorUUID) {
         return CompletableFuture.supplyAsync(() -> {
             boolean isResolution = (status == ReportStatus.RESOLVED || status == ReportStatus.REJECTED);
@@ -2912,6 +3763,36 @@ public class DatabaseManager {
         }
     }
 
+    public static class ChatMessageEntry {
+        private final long id;
+        private final UUID playerUUID;
+        private final String message;
+        private final Timestamp timestamp;
+
+        public ChatMessageEntry(long id, UUID playerUUID, String message, Timestamp timestamp) {
+            this.id = id;
+            this.playerUUID = playerUUID;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Timestamp getTimestamp() {
+            return timestamp;
+        }
+    }
+
     public static class ReportEntry {
         private final String reportId;
         private final UUID requesterUUID;
@@ -0,0 +1,788 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import org.bukkit.Bukkit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports every Crown table into one compressed file and imports such a file back, for backups and
+ * for moving between database types: export on SQLite, switch database.type to mysql, restart and
+ * import.
+ * <p>
+ * Both directions stream with constant memory. SQLite is read in rowid-ordered pages, so the server
+ * can keep writing between pages; MySQL through one forward-only streaming cursor per table inside a
+ * single transaction, so every table comes from the same snapshot. Imports go through multi-row
+ * INSERTs, all in one transaction.
+ * <p>
+ * File layout (gzip): a header, then per table its columns, its rows and its row count, with values
+ * tagged by type as in the {@link WriteJournal}. Timestamps are stored as epoch milliseconds, so they
+ * convert between SQLite's UTC text and MySQL's DATETIME.
+ */
+public class DatabaseTransfer {
+
+    public static final String EXTENSION = ".crowndb.gz";
+    private static final String MAGIC = "CROWN-EXPORT";
+    private static final int FORMAT_VERSION = 1;
+
+    // Parents before the tables referencing them. journal_checkpoints and import_checkpoints track
+    // this installation's own progress and stay behind.
+    private static final List<String> TABLES = List.of(
+            "punishment_history", "player_info", "active_warnings", "softbans", "mutes",
+            "player_last_state", "moderator_preferences", "player_chat_history", "operator_audit_log",
+            "reports", "confiscated_items", "inventory_snapshots", "punishment_events", "id_blocks");
+    private static final List<String> ARCHIVED_TABLES = List.of(
+            "punishment_history", "player_info", "reports", "player_chat_history", "operator_audit_log");
+
+    private static final byte SECTION_END = 0;
+    private static final byte SECTION_TABLE = 1;
+    private static final byte SECTION_ROW = 2;
+    private static final byte SECTION_TABLE_END = 3;
+
+    private static final byte KIND_VALUE = 0;
+    private static final byte KIND_TIMESTAMP = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_BYTES = 5;
+    private static final byte TAG_TIMESTAMP = 6;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PAGE_SIZE = 1000;
+    private static final int MAX_ROWS_PER_INSERT = 500;
+    // SQLite before 3.32 allows at most 999 parameters per statement.
+    private static final int MAX_PARAMS_PER_INSERT = 999;
+    private static final long PROGRESS_INTERVAL_MILLIS = 5_000L;
+
+    /** Called from the transfer thread every few seconds and once per finished table. */
+    public interface ProgressListener {
+        void onProgress(String table, long rows, long expectedRows);
+    }
+
+    /** @param backup for an import that replaced existing data, the export written first; otherwise null */
+    public record Result(File file, int tables, long rows, long millis, File backup) {}
+
+    private record Column(String name, byte kind) {}
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final boolean sqlite;
+    private final File directory;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DatabaseTransfer(Crown plugin, DatabaseManager database, boolean sqlite) {
+        this.plugin = plugin;
+        this.database = database;
+        this.sqlite = sqlite;
+        this.directory = new File(plugin.getDataFolder(), "exports");
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /** Export files in the exports folder, newest first. */
+    public List<String> listExports() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) return Collections.emptyList();
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        List<String> names = new ArrayList<>(files.length);
+        for (File file : files) {
+            names.add(file.getName());
+        }
+        return names;
+    }
+
+    /** The export with this name in the exports folder, with or without the extension, or null. */
+    public File resolveExport(String name) {
+        if (name.contains("/") || name.contains("\\") || name.contains("..")) return null;
+        File file = new File(directory, name);
+        if (!file.isFile()) {
+            file = new File(directory, name + EXTENSION);
+        }
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Writes every Crown table (and archive table) to a new file in the exports folder. Blocks; call
+     * it from an async task.
+     *
+     * @throws IllegalStateException if another export or import is running
+     */
+    public Result export(ProgressListener listener) throws IOException, SQLException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A database export or import is already running");
+        }
+        try {
+            return writeExport("crown-", listener);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Result writeExport(String namePrefix, ProgressListener listener) throws IOException, SQLException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        long start = System.currentTimeMillis();
+        File file = new File(directory, namePrefix + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(start)) + EXTENSION);
+        File partial = new File(directory, file.getName() + ".part");
+        int tables = 0;
+        long rows = 0;
+        try (Connection connection = database.getConnection();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new GZIPOutputStream(new FileOutputStream(partial), BUFFER_SIZE), BUFFER_SIZE))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(sqlite ? "sqlite" : "mysql");
+            out.writeLong(start);
+
+            boolean autoCommit = connection.getAutoCommit();
+            // On MySQL one transaction gives every table the same snapshot without blocking writers.
+            // A long read on SQLite would hold off every write, so it pages instead, see exportTable.
+            if (!sqlite) {
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                connection.setAutoCommit(false);
+            }
+            try {
+                for (String table : exportedTables(connection)) {
+                    rows += exportTable(connection, table, out, listener);
+                    tables++;
+                }
+                if (!sqlite) {
+                    connection.commit();
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            out.writeByte(SECTION_END);
+        } catch (IOException | SQLException e) {
+            partial.delete();
+            throw e;
+        }
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        long millis = System.currentTimeMillis() - start;
+        plugin.getLogger().info("Exported " + rows + " rows from " + tables + " tables to " + file.getName()
+                + " in " + millis + " ms.");
+        return new Result(file, tables, rows, millis, null);
+    }
+
+    private List<String> exportedTables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        for (String table : TABLES) {
+            if (tableExists(connection, table)) {
+                tables.add(table);
+            }
+        }
+        for (String table : ARCHIVED_TABLES) {
+            if (tableExists(connection, table + "_archive")) {
+                tables.add(table + "_archive");
+            }
+        }
+        return tables;
+    }
+
+    private long exportTable(Connection connection, String table, DataOutputStream out, ProgressListener listener)
+            throws IOException, SQLException {
+        List<Column> columns = columns(connection, table);
+        long expected = count(connection, table);
+        out.writeByte(SECTION_TABLE);
+        out.writeUTF(table);
+        out.writeLong(expected);
+        out.writeShort(columns.size());
+        for (Column column : columns) {
+            out.writeUTF(column.name());
+            out.writeByte(column.kind());
+        }
+
+        String columnList = columnList(columns);
+        long rows = 0;
+        long lastProgress = System.currentTimeMillis();
+        if (sqlite) {
+            // Keyset pages over the rowid: each page is a short read, so writers only wait for one page.
+            long lastRowId = Long.MIN_VALUE;
+            String sql = "SELECT rowid, " + columnList + " FROM " + table + " WHERE rowid > ? ORDER BY rowid LIMIT " + PAGE_SIZE;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int pageRows;
+                do {
+                    pageRows = 0;
+                    ps.setLong(1, lastRowId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            lastRowId = rs.getLong(1);
+                            writeRow(out, rs, columns, 2);
+                            pageRows++;
+                        }
+                    }
+                    rows += pageRows;
+                    if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                        lastProgress = System.currentTimeMillis();
+                        listener.onProgress(table, rows, expected);
+                    }
+                } while (pageRows == PAGE_SIZE);
+            }
+        } else {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT " + columnList + " FROM " + table,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Tells Connector/J to stream row by row instead of buffering the whole result.
+                ps.setFetchSize(Integer.MIN_VALUE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        writeRow(out, rs, columns, 1);
+                        rows++;
+                        if (rows % PAGE_SIZE == 0 && System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                            lastProgress = System.currentTimeMillis();
+                            listener.onProgress(table, rows, expected);
+                        }
+                    }
+                }
+            }
+        }
+        out.writeByte(SECTION_TABLE_END);
+        out.writeLong(rows);
+        listener.onProgress(table, rows, expected);
+        return rows;
+    }
+
+    private void writeRow(DataOutputStream out, ResultSet rs, List<Column> columns, int firstIndex)
+            throws IOException, SQLException {
+        out.writeByte(SECTION_ROW);
+        for (int i = 0; i < columns.size(); i++) {
+            int index = firstIndex + i;
+            if (columns.get(i).kind() == KIND_TIMESTAMP) {
+                Long millis = timestampMillis(sqlite ? rs.getObject(index) : rs.getTimestamp(index));
+                if (millis != null) {
+                    out.writeByte(TAG_TIMESTAMP);
+                    out.writeLong(millis);
+                    continue;
+                }
+            }
+            writeValue(out, rs.getObject(index));
+        }
+    }
+
+    /**
+     * Reads an export file into the current database. Blocks; call it from an async task. Unless
+     * {@code replace} is set, every Crown table must be empty; with it, they are emptied first.
+     * id_blocks is merged instead, keeping the higher counter, so no ID is handed out twice.
+     * <p>
+     * The whole file is read and checked before any table is touched, then emptied tables and every
+     * imported row are written in one transaction: an import that fails changes nothing. Data it
+     * replaces is exported first anyway, see {@link Result#backup()}. Meanwhile the batched writer,
+     * the change feed and the archiver of this server are paused; other writes wait for the import
+     * on MySQL and fail on SQLite, so run it when no moderation is going on.
+     *
+     * @throws IllegalStateException if another export or import is running
+     */
+    public Result importFrom(File file, boolean replace, ProgressListener listener) throws IOException, SQLException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A database export or import is already running");
+        }
+        try {
+            List<String> fileTables = validate(file);
+            long start = System.currentTimeMillis();
+            File backup = null;
+            int tables = 0;
+            long rows = 0;
+            boolean committed = false;
+            // Same thread as the resume calls below, the pauses are held through locks.
+            database.getBatchedWriter().hold();
+            database.getEventFeed().pause();
+            database.getArchiveManager().pause();
+            try (Connection connection = database.getConnection();
+                    DataInputStream in = open(file)) {
+                String source = readHeader(in, file);
+
+                String populated = findPopulatedTable(connection);
+                if (populated != null) {
+                    if (!replace) {
+                        throw new SQLException("Table " + populated + " already has rows, import with replace to empty it first");
+                    }
+                    backup = writeExport("crown-before-import-", (table, tableRows, expected) -> {
+                    }).file();
+                    plugin.getLogger().warning("Saved the current data to " + backup.getName() + " before replacing it.");
+                }
+                // Creating a table commits on MySQL, so missing archive tables are created before the transaction.
+                for (String table : fileTables) {
+                    targetColumns(connection, table);
+                }
+                // Punishments issued from here on reserve a new block, which waits for the merged counters.
+                database.discardReservedIds();
+
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    // Locks the counters first (row locks on MySQL, the write lock on SQLite), so no block
+                    // is reserved from them until the merged values are committed.
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("UPDATE id_blocks SET next_value = next_value");
+                    }
+                    if (populated != null) {
+                        clearTables(connection);
+                    }
+                    byte section;
+                    while ((section = in.readByte()) != SECTION_END) {
+                        if (section != SECTION_TABLE) {
+                            throw new IOException("Corrupt export, expected a table at section " + section);
+                        }
+                        rows += importTable(connection, in, listener);
+                        tables++;
+                    }
+                    connection.commit();
+                    committed = true;
+                } catch (IOException | SQLException e) {
+                    connection.rollback();
+                    plugin.getLogger().severe("Import of " + file.getName() + " failed and was rolled back, no data was changed.");
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                plugin.getLogger().info("Imported " + rows + " rows into " + tables + " tables from " + file.getName()
+                        + " (exported from " + source + ") in " + (System.currentTimeMillis() - start) + " ms.");
+            } finally {
+                database.getArchiveManager().resume();
+                database.getEventFeed().resume();
+                database.getBatchedWriter().release();
+                if (committed) {
+                    // The allocators may hold blocks reserved before id_blocks was raised, and the caches
+                    // still describe the rows from before.
+                    database.discardReservedIds();
+                    Bukkit.getScheduler().runTask(plugin, database::reloadPunishmentCaches);
+                }
+            }
+            return new Result(file, tables, rows, System.currentTimeMillis() - start, backup);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Reads the whole file without writing anything: header, section structure, every value, the row
+     * count each table's trailer records and the gzip checksum. A truncated or damaged file fails here.
+     * Returns the tables in the file.
+     */
+    private List<String> validate(File file) throws IOException {
+        List<String> tables = new ArrayList<>();
+        try (DataInputStream in = open(file)) {
+            readHeader(in, file);
+            byte section;
+            while ((section = in.readByte()) != SECTION_END) {
+                if (section != SECTION_TABLE) {
+                    throw new IOException("Corrupt export, expected a table at section " + section);
+                }
+                String table = in.readUTF();
+                tables.add(table);
+                in.readLong();
+                int columns = in.readShort();
+                for (int i = 0; i < columns; i++) {
+                    in.readUTF();
+                    in.readByte();
+                }
+                long rows = 0;
+                while ((section = in.readByte()) == SECTION_ROW) {
+                    for (int i = 0; i < columns; i++) {
+                        readValue(in);
+                    }
+                    rows++;
+                }
+                if (section != SECTION_TABLE_END) {
+                    throw new IOException("Corrupt export, unexpected section " + section + " in " + table);
+                }
+                long written = in.readLong();
+                if (rows != written) {
+                    throw new IOException("Corrupt export, " + table + " holds " + rows + " rows but " + written + " were written");
+                }
+            }
+            // Reading to the end makes the gzip stream check its CRC and length trailer.
+            if (in.read() != -1) {
+                throw new IOException("Corrupt export, data after the end of " + file.getName());
+            }
+        } catch (EOFException e) {
+            throw new IOException(file.getName() + " is truncated", e);
+        }
+        return tables;
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+    }
+
+    /** Checks the header and returns the database type the file was exported from. */
+    private static String readHeader(DataInputStream in, File file) throws IOException {
+        if (!MAGIC.equals(in.readUTF())) {
+            throw new IOException(file.getName() + " is not a Crown export");
+        }
+        int version = in.readInt();
+        if (version > FORMAT_VERSION) {
+            throw new IOException(file.getName() + " was written by a newer version of Crown (format " + version + ")");
+        }
+        String source = in.readUTF();
+        in.readLong();
+        return source;
+    }
+
+    /** The first Crown table (besides id_blocks) that already has rows, or null when the database is empty. */
+    public String findPopulatedTable() throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            return findPopulatedTable(connection);
+        }
+    }
+
+    private String findPopulatedTable(Connection connection) throws SQLException {
+        for (String table : exportedTables(connection)) {
+            if (table.equals("id_blocks")) continue;
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                if (rs.next()) return table;
+            }
+        }
+        return null;
+    }
+
+    /** Empties every Crown table but id_blocks, inside the caller's transaction. */
+    private void clearTables(Connection connection) throws SQLException {
+        List<String> tables = exportedTables(connection);
+        Collections.reverse(tables); // Children before parents.
+        tables.remove("id_blocks");
+        try (Statement statement = connection.createStatement()) {
+            for (String table : tables) {
+                statement.executeUpdate("DELETE FROM " + table);
+            }
+        }
+        plugin.getLogger().warning("Emptying " + tables.size() + " Crown tables before importing.");
+    }
+
+    private long importTable(Connection connection, DataInputStream in, ProgressListener listener)
+            throws IOException, SQLException {
+        String table = in.readUTF();
+        long expected = in.readLong();
+        Column[] fileColumns = new Column[in.readShort()];
+        for (int i = 0; i < fileColumns.length; i++) {
+            fileColumns[i] = new Column(in.readUTF(), in.readByte());
+        }
+
+        // Only columns the target table also has; a file from an older or newer version still imports.
+        List<Column> targetColumns = targetColumns(connection, table);
+        List<Integer> kept = new ArrayList<>();
+        List<Column> keptColumns = new ArrayList<>();
+        if (targetColumns != null) {
+            Map<String, Column> byName = new HashMap<>();
+            for (Column column : targetColumns) {
+                byName.put(column.name().toLowerCase(Locale.ROOT), column);
+            }
+            for (int i = 0; i < fileColumns.length; i++) {
+                if (byName.containsKey(fileColumns[i].name().toLowerCase(Locale.ROOT))) {
+                    kept.add(i);
+                    keptColumns.add(fileColumns[i]);
+                }
+            }
+            if (kept.size() < fileColumns.length) {
+                plugin.getLogger().warning("Import: " + (fileColumns.length - kept.size()) + " column(s) of " + table
+                        + " do not exist in this database and are skipped.");
+            }
+        } else {
+            plugin.getLogger().warning("Import: table " + table + " does not exist in this database and is skipped.");
+        }
+
+        boolean mergeCounters = table.equals("id_blocks");
+        RowInserter inserter = targetColumns != null && !keptColumns.isEmpty() && !mergeCounters
+                ? new RowInserter(connection, table, keptColumns) : null;
+        Object[] row = new Object[fileColumns.length];
+        long rows = 0;
+        long lastProgress = System.currentTimeMillis();
+        try {
+            byte section;
+            while ((section = in.readByte()) == SECTION_ROW) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = readValue(in);
+                }
+                if (inserter != null) {
+                    inserter.add(row, kept);
+                } else if (mergeCounters && targetColumns != null) {
+                    mergeIdBlock(connection, fileColumns, row);
+                }
+                rows++;
+                if (rows % PAGE_SIZE == 0 && System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                    lastProgress = System.currentTimeMillis();
+                    listener.onProgress(table, rows, expected);
+                }
+            }
+            if (section != SECTION_TABLE_END) {
+                throw new IOException("Corrupt export, unexpected section " + section + " in " + table);
+            }
+            in.readLong();
+            if (inserter != null) {
+                inserter.flush();
+            }
+        } finally {
+            if (inserter != null) {
+                inserter.close();
+            }
+        }
+        listener.onProgress(table, rows, expected);
+        return inserter != null || mergeCounters ? rows : 0;
+    }
+
+    /** Columns of the target table, creating a missing archive table first; null when it does not exist. */
+    private List<Column> targetColumns(Connection connection, String table) throws SQLException {
+        if (!tableExists(connection, table)) {
+            String base = table.endsWith("_archive") ? table.substring(0, table.length() - "_archive".length()) : null;
+            if (base == null || !ARCHIVED_TABLES.contains(base) || !tableExists(connection, base)) return null;
+            database.getArchiveManager().prepareArchive(connection, base);
+        }
+        return columns(connection, table);
+    }
+
+    private static void mergeIdBlock(Connection connection, Column[] columns, Object[] row) throws SQLException {
+        String name = null;
+        Long nextValue = null;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].name().equalsIgnoreCase("name") && row[i] != null) {
+                name = row[i].toString();
+            } else if (columns[i].name().equalsIgnoreCase("next_value") && row[i] instanceof Long value) {
+                nextValue = value;
+            }
+        }
+        if (name == null || nextValue == null) return;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_blocks SET next_value = ? WHERE name = ? AND next_value < ?")) {
+            update.setLong(1, nextValue);
+            update.setString(2, name);
+            update.setLong(3, nextValue);
+            if (update.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM id_blocks WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) return; // Already at or past the imported counter.
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO id_blocks (name, next_value) VALUES (?, ?)")) {
+            insert.setString(1, name);
+            insert.setLong(2, nextValue);
+            insert.executeUpdate();
+        }
+    }
+
+    /** Buffers rows into one multi-row INSERT; memory is bounded by a single statement's parameters. */
+    private final class RowInserter {
+        private final Connection connection;
+        private final String table;
+        private final List<Column> columns;
+        private final int rowsPerInsert;
+        private final Object[] buffer;
+        private PreparedStatement fullInsert;
+        private int buffered;
+
+        private RowInserter(Connection connection, String table, List<Column> columns) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.rowsPerInsert = Math.max(1, Math.min(MAX_ROWS_PER_INSERT, MAX_PARAMS_PER_INSERT / columns.size()));
+            this.buffer = new Object[rowsPerInsert * columns.size()];
+        }
+
+        private void add(Object[] row, List<Integer> kept) throws SQLException {
+            int offset = buffered * columns.size();
+            for (int i = 0; i < kept.size(); i++) {
+                buffer[offset + i] = row[kept.get(i)];
+            }
+            if (++buffered == rowsPerInsert) {
+                if (fullInsert == null) {
+                    fullInsert = connection.prepareStatement(insertSql(rowsPerInsert));
+                }
+                execute(fullInsert);
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffered == 0) return;
+            try (PreparedStatement partial = connection.prepareStatement(insertSql(buffered))) {
+                execute(partial);
+            }
+        }
+
+        private void execute(PreparedStatement ps) throws SQLException {
+            int params = buffered * columns.size();
+            for (int i = 0; i < params; i++) {
+                bind(ps, i + 1, buffer[i]);
+            }
+            ps.executeUpdate();
+            Arrays.fill(buffer, 0, params, null);
+            buffered = 0;
+        }
+
+        private String insertSql(int rows) {
+            String placeholders = "(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+            return "INSERT INTO " + table + " (" + columnList(columns) + ") VALUES "
+                    + String.join(", ", Collections.nCopies(rows, placeholders));
+        }
+
+        private void close() throws SQLException {
+            if (fullInsert != null) {
+                fullInsert.close();
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.NULL);
+        } else if (value instanceof Timestamp timestamp) {
+            ps.setObject(index, SqlTimestamps.bindable(timestamp.getTime(), sqlite));
+        } else if (value instanceof byte[] bytes) {
+            ps.setBytes(index, bytes);
+        } else {
+            ps.setObject(index, value);
+        }
+    }
+
+    private static List<Column> columns(Connection connection, String table) throws SQLException {
+        List<Column> columns = new ArrayList<>();
+        try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, null)) {
+            while (rs.next()) {
+                String type = String.valueOf(rs.getString("TYPE_NAME")).toUpperCase(Locale.ROOT);
+                int sqlType = rs.getInt("DATA_TYPE");
+                boolean timestamp = sqlType == Types.TIMESTAMP || type.contains("DATE") || type.contains("TIMESTAMP");
+                columns.add(new Column(rs.getString("COLUMN_NAME"), timestamp ? KIND_TIMESTAMP : KIND_VALUE));
+            }
+        }
+        return columns;
+    }
+
+    private static String columnList(List<Column> columns) {
+        List<String> names = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            names.add(column.name());
+        }
+        return String.join(", ", names);
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * SQLite keeps CURRENT_TIMESTAMP columns as UTC text and setTimestamp values as epoch millis;
+     * MySQL returns a Timestamp. Null when the value is not recognizably a point in time.
+     */
+    private static Long timestampMillis(Object value) {
+        if (value instanceof Date date) return date.getTime();
+        if (value instanceof LocalDateTime dateTime) return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (value instanceof Number number) return number.longValue();
+        if (value instanceof String text) return SqlTimestamps.parseUtcText(text);
+        return null;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String text) {
+            out.writeByte(TAG_STRING);
+            writeString(out, text);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            out.writeByte(TAG_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(TAG_STRING);
+            writeString(out, decimal.toPlainString());
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TAG_BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            Long millis = timestampMillis(value);
+            if (millis != null && !(value instanceof Number)) {
+                out.writeByte(TAG_TIMESTAMP);
+                out.writeLong(millis);
+            } else {
+                out.writeByte(TAG_STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_STRING -> readString(in);
+            case TAG_LONG -> in.readLong();
+            case TAG_DOUBLE -> in.readDouble();
+            case TAG_BOOLEAN -> in.readBoolean();
+            case TAG_BYTES -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                yield bytes;
+            }
+            case TAG_TIMESTAMP -> new Timestamp(in.readLong());
+            default -> throw new IOException("Corrupt export, unknown value tag " + tag);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
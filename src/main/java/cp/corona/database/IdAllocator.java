@@ -0,0 +1,216 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Hands out short, typeable IDs from blocks of a shared sequence reserved in the {@code id_blocks}
+ * table, so no ID needs its own existence check and servers sharing a database never overlap.
+ * <p>
+ * An ID is six base36 characters plus a check character (Luhn mod 36), e.g. {@code K3Q0ZB7}. The
+ * sequence value is scrambled by a bijection over the six-character space first, so consecutive IDs
+ * look unrelated. Older random IDs are six (punishments) or eight (reports) characters long, so the
+ * seven-character IDs made here cannot collide with them.
+ */
+public class IdAllocator {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int RADIX = ALPHABET.length();
+    private static final int DATA_LENGTH = 6;
+    public static final int ID_LENGTH = DATA_LENGTH + 1;
+    private static final long SPACE = 2_176_782_336L; // 36^6
+    // Coprime with 36, so value -> value * MULTIPLIER + OFFSET (mod 36^6) is a permutation.
+    private static final long MULTIPLIER = 1_580_030_173L;
+    private static final long OFFSET = 912_673_417L;
+    private static final int MAX_RESERVE_ATTEMPTS = 16;
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final String name;
+    private final int blockSize;
+
+    private long next;
+    private long end;
+    private long prefetchedStart = -1L;
+    private boolean prefetching;
+    // Bumped by discardBlocks, so a prefetch reserved before it is not used after it.
+    private int generation;
+
+    public IdAllocator(Crown plugin, DatabaseManager database, String name, int blockSize) {
+        this.plugin = plugin;
+        this.database = database;
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next ID. Only reaches the database when both the current and the prefetched block
+     * are used up; the next block is otherwise reserved in the background once half is handed out.
+     *
+     * @param connection the caller's connection, used for an on-demand reservation so the caller does
+     *                   not borrow a second one
+     */
+    public String next(Connection connection) throws SQLException {
+        long value;
+        boolean prefetch;
+        synchronized (this) {
+            if (next >= end) {
+                // The block outlives the caller's transaction, so it is only reserved on the caller's
+                // connection when that commits right away; a rollback would otherwise hand it out twice.
+                long start = prefetchedStart >= 0 ? prefetchedStart
+                        : connection.getAutoCommit() ? reserveBlock(connection, blockSize) : reserveBlock(blockSize);
+                prefetchedStart = -1L;
+                next = start;
+                end = start + blockSize;
+            }
+            value = next++;
+            prefetch = !prefetching && prefetchedStart < 0 && end - next <= blockSize / 2;
+            if (prefetch) {
+                prefetching = true;
+            }
+        }
+        if (prefetch) {
+            CompletableFuture.runAsync(this::prefetch);
+        }
+        return format(value);
+    }
+
+    /**
+     * Drops the current and prefetched block; the next ID comes from a freshly reserved one. Used after
+     * id_blocks was overwritten by an import, as the held blocks may overlap imported IDs.
+     */
+    synchronized void discardBlocks() {
+        next = end;
+        prefetchedStart = -1L;
+        generation++;
+    }
+
+    private void prefetch() {
+        int startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        long start = -1L;
+        try {
+            start = reserveBlock(blockSize);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not prefetch an ID block for " + name
+                    + ", the next one will be reserved on demand.", e);
+        }
+        synchronized (this) {
+            if (generation == startGeneration) {
+                prefetchedStart = start;
+            }
+            prefetching = false;
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive IDs in one step, outside the blocks used by {@link #next};
+     * for imports that need many IDs at once. The reservation is part of the caller's transaction:
+     * if that rolls back, the counter does too and the IDs were never used.
+     */
+    public List<String> reserve(Connection connection, int count) throws SQLException {
+        long start = reserveBlock(connection, count);
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(format(start + i));
+        }
+        return ids;
+    }
+
+    private long reserveBlock(int size) throws SQLException {
+        try (Connection connection = database.getConnection()) {
+            return reserveBlock(connection, size);
+        }
+    }
+
+    /**
+     * Moves the shared counter forward by {@code size}, compare-and-set style so it works on every
+     * dialect. Runs on the given connection: on SQLite a second connection would wait on the write
+     * lock its own caller may hold.
+     */
+    private long reserveBlock(Connection connection, int size) throws SQLException {
+        for (int attempt = 0; attempt < MAX_RESERVE_ATTEMPTS; attempt++) {
+            Long current = null;
+            try (PreparedStatement ps = connection.prepareStatement("SELECT next_value FROM id_blocks WHERE name = ?")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        current = rs.getLong(1);
+                    }
+                }
+            }
+
+            if (current == null) {
+                try (PreparedStatement ps = connection.prepareStatement("INSERT INTO id_blocks (name, next_value) VALUES (?, ?)")) {
+                    ps.setString(1, name);
+                    ps.setLong(2, size);
+                    ps.executeUpdate();
+                    return 0L;
+                } catch (SQLException e) {
+                    continue; // Another server created the row first.
+                }
+            }
+
+            if (current + size > SPACE) {
+                throw new SQLException("ID space for " + name + " is exhausted");
+            }
+            try (PreparedStatement ps = connection.prepareStatement("UPDATE id_blocks SET next_value = ? WHERE name = ? AND next_value = ?")) {
+                ps.setLong(1, current + size);
+                ps.setString(2, name);
+                ps.setLong(3, current);
+                if (ps.executeUpdate() == 1) {
+                    return current;
+                }
+            }
+        }
+        throw new SQLException("Could not reserve an ID block for " + name + " after "
+                + MAX_RESERVE_ATTEMPTS + " attempts");
+    }
+
+    static String format(long sequenceValue) {
+        long value = (sequenceValue % SPACE * MULTIPLIER + OFFSET) % SPACE;
+        char[] id = new char[ID_LENGTH];
+        for (int i = DATA_LENGTH - 1; i >= 0; i--) {
+            id[i] = ALPHABET.charAt((int) (value % RADIX));
+            value /= RADIX;
+        }
+        id[DATA_LENGTH] = ALPHABET.charAt(checkValue(id, DATA_LENGTH));
+        return new String(id);
+    }
+
+    /**
+     * True when the input has the length of an allocated ID but its check character does not match,
+     * i.e. it was almost certainly mistyped. Older IDs have other lengths and are never rejected.
+     */
+    public static boolean isMistyped(String id) {
+        if (id == null || id.length() != ID_LENGTH) return false;
+        char[] chars = id.toUpperCase(Locale.ROOT).toCharArray();
+        for (char c : chars) {
+            if (ALPHABET.indexOf(c) < 0) return true;
+        }
+        return ALPHABET.charAt(checkValue(chars, DATA_LENGTH)) != chars[DATA_LENGTH];
+    }
+
+    /** Luhn mod N check value: catches any single wrong character and most swapped neighbours. */
+    private static int checkValue(char[] chars, int length) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int addend = factor * ALPHABET.indexOf(chars[i]);
+            factor = factor == 2 ? 1 : 2;
+            sum += addend / RADIX + addend % RADIX;
+        }
+        return (RADIX - sum % RADIX) % RADIX;
+    }
+}
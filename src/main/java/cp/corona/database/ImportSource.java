@@ -0,0 +1,72 @@
+package cp.corona.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The schema of another punishment plugin, read by {@link PunishmentImporter}. A source is split
+ * into partitions, usually one per foreign table, which are read in parallel. Each partition is
+ * read in pages ordered by a numeric key; the last key of every written page is checkpointed, so
+ * an interrupted import resumes where it stopped.
+ */
+public interface ImportSource {
+
+    /** Name used on the command line and for checkpoints, e.g. {@code litebans}. */
+    String getName();
+
+    /** The partitions to read; tables missing from this installation of the plugin are left out. */
+    List<Partition> getPartitions(Connection connection) throws SQLException;
+
+    /**
+     * @param query select whose first column is the key, with one parameter for the last key read and
+     *              ending in {@code ORDER BY} the key; the importer appends the page limit
+     */
+    record Partition(String name, String query, RowMapper mapper) {}
+
+    @FunctionalInterface
+    interface RowMapper {
+        /** Maps the current row, or returns null to skip it (e.g. no player UUID, or a type Crown lacks). */
+        Punishment map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * One punishment in Crown's terms.
+     *
+     * @param type ban, mute, softban, kick or warn
+     * @param ip address the punishment was issued on, or null
+     * @param endTime epoch millis, {@link Long#MAX_VALUE} when permanent
+     * @param active not lifted in the foreign plugin; expired ones are imported as inactive
+     * @param removedAt epoch millis, or null
+     */
+    record Punishment(String type, UUID playerUUID, String ip, String reason, String punisherName, long startTime,
+            long endTime, boolean active, boolean byIp, String removedByName, Long removedAt, String removedReason) {}
+
+    /** Parses a UUID with or without dashes; null for anything else, like LiteBans' {@code #offline#}. */
+    static UUID parseUUID(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        if (trimmed.length() == 32) {
+            trimmed = trimmed.substring(0, 8) + "-" + trimmed.substring(8, 12) + "-" + trimmed.substring(12, 16)
+                    + "-" + trimmed.substring(16, 20) + "-" + trimmed.substring(20);
+        }
+        if (trimmed.length() != 36) return null;
+        try {
+            return UUID.fromString(trimmed);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            if (rs.next()) return true;
+        }
+        // Some drivers keep unquoted names upper-case (H2, HSQLDB).
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table.toUpperCase(), null)) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cp.corona.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * LiteBans: one table per type ({@code bans}, {@code mutes}, {@code warnings}, {@code kicks}) with
+ * an auto-increment id, millisecond {@code time}/{@code until} and its own removal columns.
+ */
+public class LiteBansSource implements ImportSource {
+
+    private final String tablePrefix;
+
+    public LiteBansSource(String tablePrefix) {
+        this.tablePrefix = tablePrefix;
+    }
+
+    @Override
+    public String getName() {
+        return "litebans";
+    }
+
+    @Override
+    public List<Partition> getPartitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        addPartition(connection, partitions, "bans", "ban", true);
+        addPartition(connection, partitions, "mutes", "mute", true);
+        addPartition(connection, partitions, "warnings", "warn", true);
+        addPartition(connection, partitions, "kicks", "kick", false);
+        return partitions;
+    }
+
+    private void addPartition(Connection connection, List<Partition> partitions, String table, String type,
+            boolean lasting) throws SQLException {
+        String name = tablePrefix + table;
+        if (!ImportSource.tableExists(connection, name)) return;
+        // Kicks have no duration and are never lifted.
+        String query = "SELECT id, uuid, ip, reason, banned_by_name, time"
+                + (lasting ? ", until, active, ipban, removed_by_name, removed_by_reason, removed_by_date" : "")
+                + " FROM " + name + " WHERE id > ? ORDER BY id";
+        partitions.add(new Partition(table, query, rs -> map(rs, type, lasting)));
+    }
+
+    private static Punishment map(ResultSet rs, String type, boolean lasting) throws SQLException {
+        UUID uuid = ImportSource.parseUUID(rs.getString("uuid"));
+        if (uuid == null) return null; // IP-only entries; Crown keeps every punishment on a player.
+
+        long start = rs.getLong("time");
+        if (!lasting) {
+            return new Punishment(type, uuid, rs.getString("ip"), rs.getString("reason"),
+                    rs.getString("banned_by_name"), start, start, false, false, null, null, null);
+        }
+        long until = rs.getLong("until");
+        long end = until <= 0 ? Long.MAX_VALUE : until;
+        Timestamp removedAt = rs.getTimestamp("removed_by_date");
+        boolean active = rs.getBoolean("active") && (end == Long.MAX_VALUE || end > System.currentTimeMillis());
+        return new Punishment(type, uuid, rs.getString("ip"), rs.getString("reason"), rs.getString("banned_by_name"),
+                start, end, active, rs.getBoolean("ipban"), rs.getString("removed_by_name"),
+                removedAt != null ? removedAt.getTime() : null, rs.getString("removed_by_reason"));
+    }
+}
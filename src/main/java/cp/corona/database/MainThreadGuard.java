@@ -0,0 +1,181 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Detects database work done on the server thread: connections taken in
+ * {@link DatabaseManager#getConnection()} and futures joined by the synchronous wrappers.
+ * <p>
+ * Every offending call path is recorded with its stack and the time the server thread was held
+ * (connection acquired until closed, or the whole join). Depending on the mode the plugin only
+ * counts them, also logs them, or refuses the access outright (for development servers).
+ */
+public class MainThreadGuard {
+
+    public enum Mode {
+        OFF, COUNT, WARN, STRICT;
+
+        public static Mode parse(String value) {
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return WARN;
+            }
+        }
+    }
+
+    /** Access from one call path, keyed by the innermost plugin frames. */
+    public static final class CallSite {
+        private final String key;
+        private final String stack;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private CallSite(String key, String stack) {
+            this.key = key;
+            this.stack = stack;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getStack() {
+            return stack;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+
+    private static final int KEY_FRAMES = 4;
+    private static final int STACK_FRAMES = 12;
+    // Past this, a repeated call path is logged again in WARN mode.
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Crown plugin;
+    private final Mode mode;
+    private final Map<String, CallSite> callSites = new ConcurrentHashMap<>();
+
+    public MainThreadGuard(Crown plugin, Mode mode) {
+        this.plugin = plugin;
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** True when the caller is on the server thread and the guard is on. */
+    public boolean shouldGuard() {
+        return mode != Mode.OFF && Bukkit.isPrimaryThread();
+    }
+
+    /**
+     * Registers a connection borrowed by a server-thread caller. The returned callback takes the time
+     * the connection was held and is run by the {@link QueryMetrics} wrapper when it is closed, so no
+     * second proxy is needed. In strict mode the access is refused with an IllegalStateException, which
+     * the callers' SQLException handlers do not swallow.
+     */
+    public LongConsumer enter() {
+        CallSite site = callSite();
+        if (mode == Mode.STRICT) {
+            site.count.increment();
+            throw new IllegalStateException("Database access on the server thread is not allowed: " + site.key);
+        }
+        return nanos -> record(site, nanos);
+    }
+
+    /** Joins a future, recording the wait when the caller is the server thread. */
+    public <T> T join(CompletableFuture<T> future) {
+        if (!shouldGuard()) {
+            return future.join();
+        }
+        CallSite site = callSite();
+        if (mode == Mode.STRICT) {
+            site.count.increment();
+            throw new IllegalStateException("Blocking on a database future from the server thread: " + site.key);
+        }
+        long start = System.nanoTime();
+        try {
+            return future.join();
+        } finally {
+            record(site, System.nanoTime() - start);
+        }
+    }
+
+    /** Call paths sorted by total time held on the server thread. */
+    public List<CallSite> getCallSites() {
+        List<CallSite> sites = new ArrayList<>(callSites.values());
+        sites.sort(Comparator.comparingLong(CallSite::getTotalNanos).reversed());
+        return sites;
+    }
+
+    public void reset() {
+        callSites.clear();
+    }
+
+    private void record(CallSite site, long nanos) {
+        site.count.increment();
+        site.totalNanos.add(nanos);
+        long previousMax = site.maxNanos.getAndAccumulate(nanos, Math::max);
+        if (mode != Mode.WARN) return;
+
+        if (site.count.sum() == 1) {
+            plugin.getLogger().warning(String.format(Locale.ROOT,
+                    "Database access on the server thread held it for %.2f ms:%n%s",
+                    nanos / 1_000_000.0, site.stack));
+        } else if (nanos >= SLOW_NANOS && nanos > previousMax) {
+            plugin.getLogger().warning(String.format(Locale.ROOT,
+                    "Database access on the server thread held it for %.2f ms (new worst for %s)",
+                    nanos / 1_000_000.0, site.key));
+        }
+    }
+
+    private CallSite callSite() {
+        List<StackWalker.StackFrame> frames = StackWalker.getInstance().walk(stream -> stream
+                .filter(frame -> frame.getClassName().startsWith("cp.corona.")
+                        && !frame.getClassName().equals(MainThreadGuard.class.getName())
+                        && !frame.getClassName().startsWith(MainThreadGuard.class.getName() + "$")
+                        && !frame.getClassName().startsWith(QueryMetrics.class.getName())
+                        && !(frame.getClassName().equals(DatabaseManager.class.getName())
+                        && frame.getMethodName().equals("getConnection")))
+                .limit(STACK_FRAMES)
+                .collect(Collectors.toList()));
+        String key = frames.stream().limit(KEY_FRAMES)
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+                .collect(Collectors.joining(" < "));
+        return callSites.computeIfAbsent(key.isEmpty() ? "unknown" : key, k -> new CallSite(k, frames.stream()
+                .map(frame -> "    at " + frame.getClassName() + "." + frame.getMethodName()
+                        + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")")
+                .collect(Collectors.joining("\n"))));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
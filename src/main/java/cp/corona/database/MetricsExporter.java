@@ -0,0 +1,102 @@
+package cp.corona.database;
+
+import com.sun.net.httpserver.HttpServer;
+import cp.corona.crown.Crown;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.logging.Level;
+
+/**
+ * Publishes {@link QueryMetrics} in the Prometheus text format, either as a file rewritten
+ * periodically or from an HTTP endpoint bound to the loopback interface only.
+ */
+public class MetricsExporter {
+
+    private final Crown plugin;
+    private final QueryMetrics queryMetrics;
+    private BukkitTask fileTask;
+    private HttpServer httpServer;
+
+    public MetricsExporter(Crown plugin, QueryMetrics queryMetrics) {
+        this.plugin = plugin;
+        this.queryMetrics = queryMetrics;
+    }
+
+    public void start() {
+        if (!queryMetrics.isEnabled()) return;
+        String mode = plugin.getConfigManager().getDatabaseMetricsExport().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "file" -> startFileExport(plugin.getConfigManager().getDatabaseMetricsFileInterval());
+            case "http" -> startHttpExport(plugin.getConfigManager().getDatabaseMetricsHttpPort());
+            case "none" -> {
+            }
+            default -> plugin.getLogger().warning("Unknown database.metrics.export mode '" + mode + "', metrics will not be exported.");
+        }
+    }
+
+    public void shutdown() {
+        if (fileTask != null) {
+            fileTask.cancel();
+            fileTask = null;
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    private void startFileExport(int intervalSeconds) {
+        File target = new File(plugin.getDataFolder(), "metrics/crown-db.prom");
+        long periodTicks = Math.max(1, intervalSeconds) * 20L;
+        fileTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                writeFile(target);
+            }
+        }.runTaskTimerAsynchronously(plugin, periodTicks, periodTicks);
+    }
+
+    private void writeFile(File target) {
+        try {
+            File directory = target.getParentFile();
+            if (!directory.exists()) {
+                directory.mkdirs();
+            }
+            // Write next to the target and move it in place, so scrapers never read half a file.
+            File temp = new File(directory, target.getName() + ".tmp");
+            Files.writeString(temp.toPath(), queryMetrics.toPrometheus(), StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write database metrics to " + target.getPath(), e);
+        }
+    }
+
+    private void startHttpExport(int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            httpServer.createContext("/metrics", exchange -> {
+                byte[] body = queryMetrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            httpServer.start();
+            plugin.getLogger().info("Serving database metrics on http://127.0.0.1:" + port + "/metrics");
+        } catch (IOException e) {
+            httpServer = null;
+            plugin.getLogger().log(Level.WARNING, "Could not start the database metrics endpoint on port " + port, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cp.corona.database;
+
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
+import org.bukkit.entity.Player;
+import org.bukkit.potion.PotionEffect;
+
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the player state that punishments, reports and profile placeholders record.
+ * Must be captured on the main thread; afterwards it can be handed to any thread safely.
+ * For offline players only the UUID, name, IP and join dates are filled in.
+ */
+public record PlayerSnapshot(UUID uuid, String name, String ip, String world, double x, double y, double z,
+                             String gameMode, double health, double maxHealth, int foodLevel, int expLevel,
+                             long playTimeTicks, int ping, int kills, int deaths, long firstPlayed,
+                             long lastPlayed, String potionEffects) {
+
+    public static PlayerSnapshot capture(OfflinePlayer target) {
+        return capture(target, null);
+    }
+
+    /**
+     * @param target     the player to copy
+     * @param ipOverride IP to record instead of the live connection address, may be null
+     */
+    public static PlayerSnapshot capture(OfflinePlayer target, String ipOverride) {
+        Player online = target.getPlayer();
+        if (online == null) {
+            return new PlayerSnapshot(target.getUniqueId(), target.getName(), ipOverride, null, 0, 0, 0,
+                    null, 0, 0, 0, 0, 0, 0, 0, 0, target.getFirstPlayed(), target.getLastPlayed(), null);
+        }
+
+        String ip = ipOverride;
+        if (ip == null) {
+            InetSocketAddress address = online.getAddress();
+            if (address != null && address.getAddress() != null) {
+                ip = address.getAddress().getHostAddress();
+            }
+        }
+
+        Location location = online.getLocation();
+        return new PlayerSnapshot(
+                online.getUniqueId(),
+                online.getName(),
+                ip,
+                location.getWorld() != null ? location.getWorld().getName() : null,
+                location.getX(), location.getY(), location.getZ(),
+                online.getGameMode().toString(),
+                online.getHealth(),
+                online.getMaxHealth(),
+                online.getFoodLevel(),
+                online.getLevel(),
+                online.getStatistic(Statistic.PLAY_ONE_MINUTE),
+                online.getPing(),
+                online.getStatistic(Statistic.PLAYER_KILLS),
+                online.getStatistic(Statistic.DEATHS),
+                online.getFirstPlayed(),
+                online.getLastPlayed(),
+                serializePotionEffects(online.getActivePotionEffects()));
+    }
+
+    public boolean isOnline() {
+        return gameMode != null;
+    }
+
+    public int blockX() {
+        return (int) Math.floor(x);
+    }
+
+    public int blockY() {
+        return (int) Math.floor(y);
+    }
+
+    public int blockZ() {
+        return (int) Math.floor(z);
+    }
+
+    /** Format stored in player_info.location: "world,x,y,z". */
+    public String locationString() {
+        if (!isOnline()) return null;
+        return new StringBuilder(48).append(world).append(',').append(x).append(',').append(y).append(',')
+                .append(z).toString();
+    }
+
+    /** Format stored in player_last_state.location: "x, y, z" block coordinates. */
+    public String blockLocationString() {
+        return new StringBuilder(24).append(blockX()).append(", ").append(blockY()).append(", ").append(blockZ())
+                .toString();
+    }
+
+    /** Summary stored in reports.collected_data. */
+    public String toCollectedData() {
+        if (!isOnline()) return "";
+        return new StringBuilder(128)
+                .append("HP:").append(oneDecimal(health))
+                .append(", HUNGER:").append(foodLevel)
+                .append(", XP:").append(expLevel)
+                .append(", LOC:").append(world).append(' ')
+                .append(blockX()).append(',').append(blockY()).append(',').append(blockZ())
+                .append(", IP:").append(ip != null ? ip : "N/A")
+                .append(", PING:").append(ping)
+                .append(", GM:").append(gameMode)
+                .append(", KILLS:").append(kills)
+                .append(", DEATHS:").append(deaths)
+                .toString();
+    }
+
+    public static String oneDecimal(double value) {
+        return Double.toString(Math.round(value * 10.0) / 10.0);
+    }
+
+    /**
+     * Serializes potion effects to the JSON array read back by /check.
+     * Format: [{"name":"speed","amplifier":1,"duration":120},...] with duration in seconds.
+     */
+    public static String serializePotionEffects(Collection<PotionEffect> effects) {
+        if (effects == null || effects.isEmpty()) return null;
+
+        StringBuilder json = new StringBuilder(effects.size() * 48).append('[');
+        for (PotionEffect effect : effects) {
+            if (json.length() > 1) json.append(',');
+            json.append("{\"name\":\"").append(effect.getType().getName())
+                    .append("\",\"amplifier\":").append(effect.getAmplifier())
+                    .append(",\"duration\":").append(effect.getDuration() / 20)
+                    .append('}');
+        }
+        return json.append(']').toString();
+    }
+}
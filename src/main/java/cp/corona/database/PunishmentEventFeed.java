@@ -0,0 +1,402 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import cp.corona.utils.MessageUtils;
+import io.papermc.paper.ban.BanListType;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Change feed of punishments over the shared database, for networks where several servers use the
+ * same Crown database. Every punish and unpunish appends a row to the append-only
+ * {@code punishment_events} table; each server tails it with an indexed {@code WHERE id > ?} poll
+ * and applies what other servers wrote: cache updates for mutes and softbans, kicks, local ban list
+ * entries and freezes.
+ * <p>
+ * Auto-increment IDs can become visible out of order when transactions commit out of order, so the
+ * cursor only moves past a missing ID once it appears or has stayed missing for a few seconds
+ * (a rolled back insert). Rows seen above the cursor are remembered so they are applied once.
+ * <p>
+ * Rows of server-scoped punishment types carry the writing server's {@code server_id} and are
+ * ignored by the other servers.
+ */
+public class PunishmentEventFeed {
+
+    public static final String ACTION_PUNISH = "punish";
+    public static final String ACTION_UNPUNISH = "unpunish";
+
+    private static final String INSERT_SQL = "INSERT INTO punishment_events "
+            + "(origin, action, punishment_type, target_uuid, punishment_id, by_ip, created_at, server_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int POLL_LIMIT = 500;
+    private static final long GAP_TIMEOUT_MILLIS = 5_000L;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private record Event(long id, String action, String punishmentType, UUID targetUUID, String punishmentId,
+            boolean byIp) {}
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final boolean enabled;
+    private final long pollTicks;
+    private final long retentionMillis;
+    // Identifies this server's own rows, which are already applied locally.
+    private final String origin = UUID.randomUUID().toString();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final TreeSet<Long> appliedAboveCursor = new TreeSet<>();
+    private long cursor = -1L;
+    private long gapSince;
+    private long lastPrune;
+    private BukkitTask pollTask;
+
+    public PunishmentEventFeed(Crown plugin, DatabaseManager database, boolean enabled, long pollTicks,
+            int retentionHours) {
+        this.plugin = plugin;
+        this.database = database;
+        this.enabled = enabled;
+        this.pollTicks = Math.max(1L, pollTicks);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(Math.max(1, retentionHours));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void start() {
+        if (!enabled || pollTask != null) return;
+        pollTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }.runTaskTimerAsynchronously(plugin, pollTicks, pollTicks);
+    }
+
+    public void shutdown() {
+        if (pollTask != null) {
+            pollTask.cancel();
+            pollTask = null;
+        }
+    }
+
+    /**
+     * Appends one event per target on the caller's connection, so it joins the caller's transaction
+     * when there is one. A failed append is logged and does not fail the punishment: other servers
+     * then only see it when the player rejoins, as before the feed existed.
+     *
+     * @param punishmentIds punishment ID per target
+     * @param scope the server_id of the punishment, '' when it applies network wide
+     */
+    void append(Connection connection, String action, String punishmentType, Map<UUID, String> punishmentIds,
+            boolean byIp, String scope) {
+        if (!enabled || punishmentIds.isEmpty()) return;
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<UUID, String> entry : punishmentIds.entrySet()) {
+                ps.setString(1, origin);
+                ps.setString(2, action);
+                ps.setString(3, punishmentType.toLowerCase());
+                ps.setString(4, entry.getKey().toString());
+                ps.setString(5, entry.getValue());
+                ps.setBoolean(6, byIp);
+                ps.setLong(7, now);
+                ps.setString(8, scope);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not append " + action + " " + punishmentType
+                    + " to the punishment feed, other servers will not see it until the player rejoins.", e);
+        }
+    }
+
+    /**
+     * Stops polling until {@link #resume()}, waiting for a poll in progress; both must be called from
+     * the same thread. Used while an import replaces punishment_events.
+     */
+    void pause() {
+        pollLock.lock();
+    }
+
+    /** Resumes polling from the current end of the feed: the rows read before the pause may be gone. */
+    void resume() {
+        cursor = -1L;
+        appliedAboveCursor.clear();
+        gapSince = 0L;
+        pollLock.unlock();
+    }
+
+    private void poll() {
+        if (!pollLock.tryLock()) return; // Previous poll still running.
+        try {
+            if (database.isDegraded()) {
+                // Nothing can be read while the circuit is open. A gap seen before the outage gets a
+                // fresh wait afterwards, as its row may only become visible once the database is back.
+                gapSince = 0L;
+                return;
+            }
+            for (Event event : readNewEvents()) {
+                resolveAndApply(event);
+            }
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private List<Event> readNewEvents() {
+        List<Event> events = new ArrayList<>();
+        try (Connection connection = database.getConnection()) {
+            if (cursor < 0) {
+                // Start from the end: everything older is already in the database state read on join.
+                try (PreparedStatement ps = connection.prepareStatement("SELECT MAX(id) FROM punishment_events");
+                        ResultSet rs = ps.executeQuery()) {
+                    cursor = rs.next() ? rs.getLong(1) : 0L;
+                }
+                return events;
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement("SELECT id, origin, action, punishment_type, "
+                    + "target_uuid, punishment_id, by_ip, server_id FROM punishment_events WHERE id > ? ORDER BY id LIMIT " + POLL_LIMIT)) {
+                ps.setLong(1, cursor);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long id = rs.getLong("id");
+                        if (!appliedAboveCursor.add(id)) continue;
+                        if (origin.equals(rs.getString("origin"))) continue;
+                        String scope = rs.getString("server_id");
+                        if (scope != null && !scope.isEmpty() && !scope.equals(database.getServerId())) continue;
+                        events.add(new Event(id, rs.getString("action"), rs.getString("punishment_type"),
+                                UUID.fromString(rs.getString("target_uuid")), rs.getString("punishment_id"),
+                                rs.getBoolean("by_ip")));
+                    }
+                }
+            }
+            advanceCursor();
+            pruneIfDue(connection);
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not poll the punishment feed", e);
+        }
+        return events;
+    }
+
+    private void advanceCursor() {
+        while (!appliedAboveCursor.isEmpty() && appliedAboveCursor.first() == cursor + 1) {
+            cursor = appliedAboveCursor.pollFirst();
+        }
+        if (appliedAboveCursor.isEmpty()) {
+            gapSince = 0L;
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (gapSince == 0L) {
+            gapSince = now;
+        } else if (now - gapSince >= GAP_TIMEOUT_MILLIS) {
+            // The missing IDs were rolled back or skipped by the auto-increment, stop waiting for them.
+            cursor = appliedAboveCursor.first() - 1;
+            gapSince = 0L;
+            advanceCursor();
+        }
+    }
+
+    private void pruneIfDue(Connection connection) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune < PRUNE_INTERVAL_MILLIS) return;
+        lastPrune = now;
+        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM punishment_events WHERE created_at < ?")) {
+            ps.setLong(1, now - retentionMillis);
+            ps.executeUpdate();
+        }
+    }
+
+    /** Loads what the event needs from the database on this async thread, then applies it on the main thread. */
+    private void resolveAndApply(Event event) {
+        DatabaseManager.PunishmentEntry entry = event.punishmentId() != null
+                ? database.getPunishmentById(event.punishmentId()) : null;
+        if (entry == null) return;
+
+        if (ACTION_PUNISH.equals(event.action())) {
+            plugin.getCompletionIndex().addPunishment(event.punishmentId(), entry.isActive()
+                    && !"kick".equals(event.punishmentType()));
+        } else {
+            plugin.getCompletionIndex().deactivatePunishment(event.punishmentId());
+        }
+
+        // Unpunish rows do not carry by_ip, the removed punishment does.
+        boolean byIp = event.byIp() || entry.wasByIp();
+        boolean targetOnline = Bukkit.getPlayer(event.targetUUID()) != null;
+        if (!targetOnline && !byIp && !"ban".equals(event.punishmentType())) {
+            return; // Nothing cached for offline players; their state is read from the database on join.
+        }
+
+        String ip = null;
+        if (byIp) {
+            DatabaseManager.PlayerInfo playerInfo = database.getPlayerInfo(event.punishmentId());
+            ip = playerInfo != null && playerInfo.getIp() != null ? playerInfo.getIp()
+                    : database.getLastKnownIp(event.targetUUID());
+        }
+
+        List<String> softbanCommands = null;
+        if (ACTION_PUNISH.equals(event.action()) && "softban".equals(event.punishmentType())) {
+            softbanCommands = database.getActiveSoftbanCustomCommands(event.targetUUID());
+            if (softbanCommands == null || softbanCommands.isEmpty()) {
+                softbanCommands = plugin.getConfigManager().getBlockedCommands();
+            }
+        }
+
+        final String targetIp = ip;
+        final List<String> commands = softbanCommands;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("[PunishmentEventFeed] Applying " + event.action() + " "
+                        + event.punishmentType() + " " + event.punishmentId() + " from another server.");
+            }
+            if (ACTION_PUNISH.equals(event.action())) {
+                applyPunishment(event, entry, targetIp, commands);
+            } else if (ACTION_UNPUNISH.equals(event.action())) {
+                applyUnpunishment(event, targetIp);
+            }
+        });
+    }
+
+    private void applyPunishment(Event event, DatabaseManager.PunishmentEntry entry, String ip, List<String> commands) {
+        if (!entry.isActive() && !"kick".equals(event.punishmentType())) {
+            return; // Already lifted again by the time this server saw it.
+        }
+        long endTime = entry.getEndTime();
+        Date expiration = endTime == Long.MAX_VALUE || endTime <= 0 ? null : new Date(endTime);
+
+        if ("ban".equals(event.punishmentType())) {
+            addToBanList(event.targetUUID(), ip, entry, expiration);
+        }
+
+        for (Player player : affectedPlayers(event.targetUUID(), ip)) {
+            switch (event.punishmentType()) {
+                case "ban" -> player.kick(MessageUtils.getColorComponent(MessageUtils.getKickMessage(
+                        plugin.getConfigManager().getBanScreen(), entry.getReason(), entry.getDurationString(),
+                        entry.getPunishmentId(), expiration, plugin.getConfigManager())));
+                case "kick" -> player.kick(MessageUtils.getColorComponent(MessageUtils.getKickMessage(
+                        plugin.getConfigManager().getKickScreen(), entry.getReason(), "N/A",
+                        entry.getPunishmentId(), null, plugin.getConfigManager())));
+                case "mute" -> {
+                    plugin.getMutedPlayersCache().put(player.getUniqueId(), endTime);
+                    MessageUtils.sendConfigMessage(plugin, player, "messages.you_are_muted", "{time}",
+                            entry.getDurationString(), "{reason}", entry.getReason(), "{punishment_id}",
+                            entry.getPunishmentId());
+                }
+                case "softban" -> {
+                    plugin.getSoftBannedPlayersCache().put(player.getUniqueId(), endTime);
+                    plugin.getSoftbannedCommandsCache().put(player.getUniqueId(), commands);
+                    MessageUtils.sendConfigMessage(plugin, player, "messages.you_are_softbanned", "{time}",
+                            entry.getDurationString(), "{reason}", entry.getReason(), "{punishment_id}",
+                            entry.getPunishmentId());
+                }
+                case "freeze" -> {
+                    if (player.hasPermission("crown.bypass.freeze")) continue;
+                    if (plugin.getPluginFrozenPlayers().put(player.getUniqueId(), true) == null) {
+                        plugin.getFreezeListener().startFreezeActionsTask(player);
+                        MessageUtils.sendConfigMessage(plugin, player, "messages.you_are_frozen");
+                    }
+                }
+                default -> {
+                    // Warnings have no per-server state; they are read from the database when needed.
+                }
+            }
+        }
+    }
+
+    private void applyUnpunishment(Event event, String ip) {
+        if ("ban".equals(event.punishmentType())) {
+            removeFromBanList(event.targetUUID(), ip);
+            return;
+        }
+
+        for (Player player : affectedPlayers(event.targetUUID(), ip)) {
+            switch (event.punishmentType()) {
+                case "mute" -> {
+                    if (plugin.getMutedPlayersCache().remove(player.getUniqueId()) != null) {
+                        MessageUtils.sendConfigMessage(plugin, player, "messages.unmute_notification");
+                    }
+                }
+                case "softban" -> {
+                    plugin.getSoftbannedCommandsCache().remove(player.getUniqueId());
+                    if (plugin.getSoftBannedPlayersCache().remove(player.getUniqueId()) != null) {
+                        MessageUtils.sendConfigMessage(plugin, player, "messages.unsoftban_notification");
+                    }
+                }
+                case "freeze" -> {
+                    if (plugin.getPluginFrozenPlayers().remove(player.getUniqueId()) != null) {
+                        plugin.getFreezeListener().stopFreezeActionsTask(player.getUniqueId());
+                        plugin.getFreezeListener().endFreezeChatSession(player.getUniqueId());
+                        MessageUtils.sendConfigMessage(plugin, player, "messages.you_are_unfrozen");
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /** The target if online here, plus everyone online from the IP when the punishment was by IP. */
+    private Set<Player> affectedPlayers(UUID targetUUID, String ip) {
+        Set<Player> players = new LinkedHashSet<>();
+        Player target = Bukkit.getPlayer(targetUUID);
+        if (target != null) {
+            players.add(target);
+        }
+        if (ip != null) {
+            players.addAll(plugin.getSessionIndex().getPlayers(ip));
+        }
+        return players;
+    }
+
+    private void addToBanList(UUID targetUUID, String ip, DatabaseManager.PunishmentEntry entry, Date expiration) {
+        if (ip != null) {
+            try {
+                Bukkit.getBanList(BanListType.IP).addBan(InetAddress.getByName(ip), entry.getReason(), expiration,
+                        entry.getPunisherName());
+            } catch (UnknownHostException e) {
+                plugin.getLogger().warning("Invalid IP address for ban: " + ip);
+            }
+        } else {
+            OfflinePlayer target = Bukkit.getOfflinePlayer(targetUUID);
+            Bukkit.getBanList(BanListType.PROFILE).addBan(target.getPlayerProfile(), entry.getReason(), expiration,
+                    entry.getPunisherName());
+        }
+    }
+
+    private void removeFromBanList(UUID targetUUID, String ip) {
+        if (ip != null) {
+            try {
+                Bukkit.getBanList(BanListType.IP).pardon(InetAddress.getByName(ip));
+            } catch (UnknownHostException e) {
+                // Never banned here with an invalid address.
+            }
+        }
+        OfflinePlayer target = Bukkit.getOfflinePlayer(targetUUID);
+        if (Bukkit.getBanList(BanListType.PROFILE).isBanned(target.getPlayerProfile())) {
+            Bukkit.getBanList(BanListType.PROFILE).pardon(target.getPlayerProfile());
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import cp.corona.utils.TimeUtils;
+import org.bukkit.Bukkit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Imports the punishments of another plugin ({@link ImportSource}) into punishment_history, with
+ * player_info rows for their addresses, active mutes and softbans into their tables, active warnings
+ * into active_warnings. Active bans are not copied into the server's ban list: the login check finds
+ * them in punishment_history and adds the ban list entry when a banned player first tries to join.
+ * <p>
+ * The source is read over JDBC, one thread per partition up to database.import.threads, in pages
+ * of database.import.batch-size rows. Every page is written in one transaction: multi-row INSERTs
+ * plus the partition's checkpoint, so an interrupted import resumes after the last written page and
+ * never writes a row twice. A dry run reads and maps everything without writing, to check the
+ * mapping and measure throughput.
+ */
+public class PunishmentImporter {
+
+    public static final List<String> SOURCES = List.of("litebans", "advancedban");
+
+    // SQLite before 3.32 allows at most 999 parameters per statement.
+    private static final int MAX_PARAMS_PER_INSERT = 999;
+    private static final long PROGRESS_INTERVAL_MILLIS = 5_000L;
+
+    private static final String HISTORY_COLUMNS = "punishment_id, player_uuid, punishment_type, reason, punisher_name, "
+            + "punishment_time, duration_string, active, by_ip, warn_level, server_id, timestamp, removed_by_name, "
+            + "removed_at, removed_reason";
+    private static final int HISTORY_COLUMN_COUNT = 15;
+
+    // Types other servers keep per-player state for. Bans are left out: applying them would copy every
+    // one into each server's ban list, while the login check already finds them in the database.
+    private static final List<String> FEED_TYPES = List.of("mute", "softban");
+
+    /** Called from reader threads every few seconds per partition, and once when a partition is done. */
+    public interface ProgressListener {
+        void onProgress(String partition, long rows);
+    }
+
+    /**
+     * @param read rows read from the source
+     * @param imported punishments written (or, in a dry run, that would be)
+     * @param skipped rows without a player UUID or of a type Crown does not have
+     */
+    public record Report(String source, boolean dryRun, long read, long imported, long skipped,
+            Map<String, Long> byType, long millis) {
+        public long rowsPerSecond() {
+            return millis > 0 ? read * 1000L / millis : read;
+        }
+    }
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final boolean sqlite;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PunishmentImporter(Crown plugin, DatabaseManager database, boolean sqlite) {
+        this.plugin = plugin;
+        this.database = database;
+        this.sqlite = sqlite;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /** The source for a name in {@link #SOURCES}, configured from database.import, or null. */
+    public ImportSource getSource(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "litebans" -> new LiteBansSource(plugin.getConfigManager().getImportTablePrefix());
+            case "advancedban" -> new AdvancedBanSource();
+            default -> null;
+        };
+    }
+
+    /**
+     * Runs the import, blocking until every partition is done; call it from an async task.
+     *
+     * @throws IllegalStateException if an import is already running
+     */
+    public Report run(ImportSource source, boolean dryRun, ProgressListener listener) throws SQLException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An import is already running");
+        }
+        try {
+            List<ImportSource.Partition> partitions;
+            try (Connection connection = openSource()) {
+                partitions = source.getPartitions(connection);
+            }
+            if (partitions.isEmpty()) {
+                throw new SQLException("None of the " + source.getName() + " tables were found in the configured database");
+            }
+            Map<String, Long> checkpoints = loadCheckpoints(source.getName());
+
+            long start = System.currentTimeMillis();
+            LongAdder read = new LongAdder();
+            LongAdder imported = new LongAdder();
+            LongAdder skipped = new LongAdder();
+            Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+            AtomicBoolean failed = new AtomicBoolean();
+
+            int threads = Math.max(1, Math.min(plugin.getConfigManager().getImportThreads(), partitions.size()));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (ImportSource.Partition partition : partitions) {
+                long after = checkpoints.getOrDefault(partition.name(), Long.MIN_VALUE);
+                futures.add(executor.submit(() -> {
+                    importPartition(source, partition, after, dryRun, listener, read, imported, skipped, byType, failed);
+                    return null;
+                }));
+            }
+            executor.shutdown();
+            SQLException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.set(true);
+                    failure = new SQLException("Import interrupted", e);
+                    break;
+                } catch (ExecutionException e) {
+                    failed.set(true); // Stops the other readers after their current page.
+                    if (failure == null) {
+                        failure = e.getCause() instanceof SQLException sql ? sql : new SQLException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) throw failure;
+
+            Map<String, Long> types = new HashMap<>();
+            byType.forEach((type, count) -> types.put(type, count.sum()));
+            Report report = new Report(source.getName(), dryRun, read.sum(), imported.sum(), skipped.sum(), types,
+                    System.currentTimeMillis() - start);
+            plugin.getLogger().info((dryRun ? "Dry run of the " : "Imported from ") + source.getName() + ": "
+                    + report.read() + " rows read, " + report.imported() + " punishments " + types + ", "
+                    + report.skipped() + " skipped, " + report.rowsPerSecond() + " rows/s.");
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void importPartition(ImportSource source, ImportSource.Partition partition, long after, boolean dryRun,
+            ProgressListener listener, LongAdder read, LongAdder imported, LongAdder skipped,
+            Map<String, LongAdder> byType, AtomicBoolean failed) throws SQLException {
+        int pageSize = Math.max(1, plugin.getConfigManager().getImportBatchSize());
+        long lastKey = after;
+        long rows = 0;
+        long lastProgress = System.currentTimeMillis();
+        try (Connection sourceConnection = openSource();
+                PreparedStatement ps = sourceConnection.prepareStatement(partition.query() + " LIMIT " + pageSize);
+                Connection connection = dryRun ? null : database.getConnection()) {
+            boolean autoCommit = connection != null && connection.getAutoCommit();
+            if (connection != null) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                int pageRows;
+                do {
+                    if (failed.get()) return;
+                    List<ImportSource.Punishment> page = new ArrayList<>(pageSize);
+                    pageRows = 0;
+                    ps.setLong(1, lastKey);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            lastKey = rs.getLong(1);
+                            pageRows++;
+                            ImportSource.Punishment punishment = partition.mapper().map(rs);
+                            if (punishment != null) {
+                                page.add(punishment);
+                            }
+                        }
+                    }
+                    if (pageRows == 0) break;
+
+                    if (connection != null) {
+                        writePage(connection, page);
+                        saveCheckpoint(connection, source.getName(), partition.name(), lastKey, pageRows);
+                        connection.commit();
+                        updateOnlineCaches(page);
+                    }
+                    rows += pageRows;
+                    read.add(pageRows);
+                    imported.add(page.size());
+                    skipped.add(pageRows - page.size());
+                    for (ImportSource.Punishment punishment : page) {
+                        byType.computeIfAbsent(punishment.type(), type -> new LongAdder()).increment();
+                    }
+                    if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                        lastProgress = System.currentTimeMillis();
+                        listener.onProgress(partition.name(), rows);
+                    }
+                } while (pageRows == pageSize);
+            } catch (SQLException e) {
+                if (connection != null) {
+                    connection.rollback();
+                }
+                plugin.getLogger().log(Level.SEVERE, "Import of " + source.getName() + " " + partition.name()
+                        + " failed after key " + lastKey + ", it resumes there on the next run.", e);
+                throw e;
+            } finally {
+                if (connection != null) {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        }
+        listener.onProgress(partition.name(), rows);
+    }
+
+    private void writePage(Connection connection, List<ImportSource.Punishment> page) throws SQLException {
+        if (page.isEmpty()) return;
+        List<String> ids = database.getPunishmentIdAllocator().reserve(connection, page.size());
+        long now = System.currentTimeMillis();
+
+        List<Object[]> history = new ArrayList<>(page.size());
+        List<Object[]> info = new ArrayList<>();
+        List<Object[]> warnings = new ArrayList<>();
+        Map<FeedKey, Map<UUID, String>> events = new HashMap<>();
+        List<ImportSource.Punishment> mutes = new ArrayList<>();
+        List<ImportSource.Punishment> softbans = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            ImportSource.Punishment p = page.get(i);
+            String id = ids.get(i);
+            history.add(new Object[]{id, p.playerUUID().toString(), p.type(), p.reason(), p.punisherName(),
+                    p.endTime(), durationString(p), p.active(), p.byIp(), 0, "",
+                    SqlTimestamps.bindable(p.startTime(), sqlite), p.removedByName(),
+                    p.removedAt() != null ? SqlTimestamps.bindable(p.removedAt(), sqlite) : null, p.removedReason()});
+            if (p.ip() != null && !p.ip().isEmpty()) {
+                info.add(new Object[]{id, p.ip()});
+            }
+            if (!p.active()) continue;
+            if (FEED_TYPES.contains(p.type())) {
+                events.computeIfAbsent(new FeedKey(p.type(), p.byIp()), key -> new HashMap<>()).put(p.playerUUID(), id);
+            }
+            switch (p.type()) {
+                case "mute" -> mutes.add(p);
+                case "softban" -> softbans.add(p);
+                // Level 0 matches no configured warn level, so expiring an imported warning runs no actions.
+                case "warn" -> warnings.add(new Object[]{p.playerUUID().toString(), id, 0, p.startTime(),
+                        p.endTime() == Long.MAX_VALUE ? -1L : p.endTime()});
+                default -> {
+                }
+            }
+        }
+
+        insertRows(connection, "punishment_history", HISTORY_COLUMNS, HISTORY_COLUMN_COUNT, history);
+        insertRows(connection, "player_info", "punishment_id, ip", 2, info);
+        insertRows(connection, "active_warnings", "player_uuid, punishment_id, warn_level, start_time, end_time", 5,
+                warnings);
+        // Later rows win, like a newer mute replacing an older one in the foreign plugin.
+        writeState(connection, "mutes", mutes, now);
+        writeState(connection, "softbans", softbans, now);
+        // Other servers sharing the database pick the active ones up from the change feed, with the page.
+        events.forEach((key, ids) -> database.getEventFeed().append(connection, PunishmentEventFeed.ACTION_PUNISH,
+                key.type(), ids, key.byIp(), ""));
+    }
+
+    /**
+     * Puts the page's active mutes and softbans of online players into the caches that enforce them;
+     * offline players get theirs from the database when they join, as do players matched by IP.
+     */
+    private void updateOnlineCaches(List<ImportSource.Punishment> page) {
+        long now = System.currentTimeMillis();
+        for (ImportSource.Punishment p : page) {
+            if (!p.active() || p.byIp() || (p.endTime() != Long.MAX_VALUE && p.endTime() <= now)) continue;
+            if (!p.type().equals("mute") && !p.type().equals("softban")) continue;
+            if (Bukkit.getPlayer(p.playerUUID()) == null) continue;
+            if (p.type().equals("mute")) {
+                plugin.getMutedPlayersCache().put(p.playerUUID(), p.endTime());
+            } else {
+                plugin.getSoftBannedPlayersCache().put(p.playerUUID(), p.endTime());
+                plugin.getSoftbannedCommandsCache().put(p.playerUUID(), plugin.getConfigManager().getBlockedCommands());
+            }
+        }
+    }
+
+    private void writeState(Connection connection, String table, List<ImportSource.Punishment> punishments, long now)
+            throws SQLException {
+        if (punishments.isEmpty()) return;
+        String sql = (sqlite ? "INSERT OR REPLACE INTO " : "REPLACE INTO ") + table
+                + " (uuid, endTime, reason, server_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (ImportSource.Punishment p : punishments) {
+                if (p.endTime() != Long.MAX_VALUE && p.endTime() <= now) continue;
+                ps.setString(1, p.playerUUID().toString());
+                ps.setLong(2, p.endTime());
+                ps.setString(3, p.reason());
+                ps.setString(4, "");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /** Multi-row INSERTs of as many rows as fit in one statement's parameter limit. */
+    private static void insertRows(Connection connection, String table, String columns, int columnCount,
+            List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) return;
+        int rowsPerInsert = Math.max(1, MAX_PARAMS_PER_INSERT / columnCount);
+        String placeholders = "(" + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        PreparedStatement full = null;
+        try {
+            for (int offset = 0; offset < rows.size(); offset += rowsPerInsert) {
+                int count = Math.min(rowsPerInsert, rows.size() - offset);
+                String sql = "INSERT INTO " + table + " (" + columns + ") VALUES "
+                        + String.join(", ", Collections.nCopies(count, placeholders));
+                PreparedStatement ps;
+                if (count == rowsPerInsert) {
+                    if (full == null) {
+                        full = connection.prepareStatement(sql);
+                    }
+                    ps = full;
+                } else {
+                    ps = connection.prepareStatement(sql);
+                }
+                try {
+                    int index = 1;
+                    for (int row = offset; row < offset + count; row++) {
+                        for (Object value : rows.get(row)) {
+                            if (value == null) {
+                                ps.setNull(index++, Types.NULL);
+                            } else {
+                                ps.setObject(index++, value);
+                            }
+                        }
+                    }
+                    ps.executeUpdate();
+                } finally {
+                    if (ps != full) {
+                        ps.close();
+                    }
+                }
+            }
+        } finally {
+            if (full != null) {
+                full.close();
+            }
+        }
+    }
+
+    private String durationString(ImportSource.Punishment p) {
+        if (p.endTime() == Long.MAX_VALUE) {
+            return plugin.getConfigManager().getMessage("placeholders.permanent_time_display");
+        }
+        long seconds = Math.max(0L, (p.endTime() - p.startTime()) / 1000L);
+        return TimeUtils.formatTime((int) Math.min(Integer.MAX_VALUE, seconds), plugin.getConfigManager());
+    }
+
+    private Map<String, Long> loadCheckpoints(String source) throws SQLException {
+        Map<String, Long> checkpoints = new HashMap<>();
+        try (Connection connection = database.getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                        "SELECT partition_name, last_key FROM import_checkpoints WHERE source = ?")) {
+            ps.setString(1, source);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    checkpoints.put(rs.getString("partition_name"), rs.getLong("last_key"));
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    private static void saveCheckpoint(Connection connection, String source, String partition, long lastKey, int rows)
+            throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE import_checkpoints SET last_key = ?, imported = imported + ? WHERE source = ? AND partition_name = ?")) {
+            update.setLong(1, lastKey);
+            update.setLong(2, rows);
+            update.setString(3, source);
+            update.setString(4, partition);
+            if (update.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO import_checkpoints (source, partition_name, last_key, imported) VALUES (?, ?, ?, ?)")) {
+            insert.setString(1, source);
+            insert.setString(2, partition);
+            insert.setLong(3, lastKey);
+            insert.setLong(4, rows);
+            insert.executeUpdate();
+        }
+    }
+
+    private Connection openSource() throws SQLException {
+        var config = plugin.getConfigManager();
+        String url = config.getImportJdbcUrl();
+        if (url.isEmpty()) {
+            throw new SQLException("database.import.jdbc-url is not set");
+        }
+        return DriverManager.getConnection(url, config.getImportUsername(), config.getImportPassword());
+    }
+}
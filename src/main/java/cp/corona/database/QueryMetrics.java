@@ -0,0 +1,476 @@
+package cp.corona.database;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.IMetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import cp.corona.utils.CrownEvents;
+import jdk.jfr.EventType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-query latency, row and error statistics for every statement run through
+ * {@link DatabaseManager#getConnection()}, plus Hikari pool metrics.
+ * <p>
+ * Queries get a stable name from the plugin method that prepared them and the table they touch,
+ * e.g. {@code getPunishmentHistory (select punishment_history)}, so no call site has to be tagged
+ * by hand; SQL shared by several methods is reported under the first one to prepare it. Only
+ * connections and statements are wrapped, and only the execute calls are timed; result sets are
+ * handed out as is. The SQL text is resolved to a name once. The same proxies emit
+ * {@link CrownEvents.QueryEvent} for flight recordings, whether or not metrics are enabled: while a
+ * recording has the event on, connections borrowed during it are wrapped for the event alone.
+ */
+public class QueryMetrics {
+
+    /** Histogram bucket upper bounds, shared by queries, pool wait and connection usage. */
+    private static final long[] BUCKET_BOUNDS_NANOS = {
+            micros(100), micros(250), micros(500), millis(1), millis(2), millis(5), millis(10), millis(25),
+            millis(50), millis(100), millis(250), millis(500), millis(1000), millis(2500), millis(5000)};
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Pattern TABLE_PATTERN = Pattern.compile("(?i)\\b(?:from|into|update|table)\\s+(?:if\\s+not\\s+exists\\s+)?([A-Za-z_][A-Za-z0-9_]*)");
+    private static final int MAX_CACHED_NAMES = 1024;
+    private static final EventType QUERY_EVENT = EventType.getEventType(CrownEvents.QueryEvent.class);
+
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    // Least recently used SQL is evicted, so generated statements (IN lists, multi-row inserts) cannot
+    // push the static ones out and make every prepare walk the stack again.
+    private final Map<String, String> namesBySql = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_CACHED_NAMES;
+                }
+            });
+    private final QueryStats poolWait = new QueryStats("pool_wait");
+    private final QueryStats connectionUsage = new QueryStats("connection_usage");
+    private final LongAdder connectionTimeouts = new LongAdder();
+    private final boolean enabled;
+    private volatile PoolStats poolStats;
+
+    public QueryMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Statistics for one named query. All counters are updated without locking. */
+    public static final class QueryStats {
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_NANOS.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder busy = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private QueryStats(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getBusy() {
+            return busy.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getAverageNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0L : totalNanos.sum() / calls;
+        }
+
+        /** Upper bound of the bucket holding the quantile, capped at the largest value seen. */
+        public long getPercentileNanos(double quantile) {
+            long calls = count.sum();
+            if (calls == 0) return 0L;
+            long rank = (long) Math.ceil(quantile * calls);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_NANOS[i], maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+    }
+
+    // --- Recording ---
+
+    /**
+     * Wraps a pooled connection so its statements are timed and, for a {@link MainThreadGuard} call
+     * site, the time it was held is reported on close. One proxy serves both; the connection is
+     * returned as is when metrics are off, no recording takes query events and nothing waits for the close.
+     *
+     * @param poolWaitNanos how long the caller waited for the connection, reported with each query event
+     * @param onClose       receives the nanoseconds from borrowing to closing, or null
+     */
+    public Connection wrap(Connection connection, long poolWaitNanos, LongConsumer onClose) {
+        if (!enabled && onClose == null && !QUERY_EVENT.isEnabled()) return connection;
+        return (Connection) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, poolWaitNanos, onClose));
+    }
+
+    /** Called by retry loops each time a statement is retried after SQLITE_BUSY. */
+    public void recordBusyRetry(String sql) {
+        if (!enabled) return;
+        stats(nameFor(sql)).retries.increment();
+    }
+
+    public IMetricsTrackerFactory metricsTrackerFactory() {
+        return (poolName, stats) -> {
+            this.poolStats = stats;
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    poolWait.record(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    connectionUsage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    connectionTimeouts.increment();
+                }
+            };
+        };
+    }
+
+    // --- Reading ---
+
+    /** The {@code limit} queries with the highest p99, slowest first. */
+    public List<QueryStats> getSlowest(int limit) {
+        List<QueryStats> sorted = new ArrayList<>(queries.values());
+        sorted.sort(Comparator.comparingLong((QueryStats stats) -> stats.getPercentileNanos(0.99))
+                .thenComparingLong(QueryStats::getAverageNanos).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    public int getQueryCount() {
+        return queries.size();
+    }
+
+    public QueryStats getPoolWait() {
+        return poolWait;
+    }
+
+    public long getConnectionTimeouts() {
+        return connectionTimeouts.sum();
+    }
+
+    /** Pool statistics reported by Hikari, or null before the pool has started. */
+    public PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    /** Everything above in the Prometheus text exposition format. */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(8192);
+        Map<String, QueryStats> sorted = new TreeMap<>(queries);
+
+        out.append("# HELP crown_db_query_duration_seconds Statement execution time by query.\n");
+        out.append("# TYPE crown_db_query_duration_seconds histogram\n");
+        sorted.values().forEach(stats -> appendHistogram(out, "crown_db_query_duration_seconds", "query=\"" + escape(stats.name) + "\",", stats));
+        appendCounter(out, sorted, "crown_db_query_rows_total", "Rows affected by query (result set rows are not counted).", QueryStats::getRows);
+        appendCounter(out, sorted, "crown_db_query_errors_total", "Failed executions by query.", QueryStats::getErrors);
+        appendCounter(out, sorted, "crown_db_query_busy_total", "SQLITE_BUSY failures by query.", QueryStats::getBusy);
+        appendCounter(out, sorted, "crown_db_query_retries_total", "Retries after SQLITE_BUSY by query.", QueryStats::getRetries);
+
+        out.append("# HELP crown_db_pool_wait_seconds Time spent waiting for a pooled connection.\n");
+        out.append("# TYPE crown_db_pool_wait_seconds histogram\n");
+        appendHistogram(out, "crown_db_pool_wait_seconds", "", poolWait);
+        out.append("# HELP crown_db_pool_usage_seconds Time connections were held before being returned.\n");
+        out.append("# TYPE crown_db_pool_usage_seconds histogram\n");
+        appendHistogram(out, "crown_db_pool_usage_seconds", "", connectionUsage);
+        out.append("# TYPE crown_db_pool_timeouts_total counter\n");
+        out.append("crown_db_pool_timeouts_total ").append(connectionTimeouts.sum()).append('\n');
+
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            out.append("# TYPE crown_db_pool_connections gauge\n");
+            out.append("crown_db_pool_connections{state=\"active\"} ").append(stats.getActiveConnections()).append('\n');
+            out.append("crown_db_pool_connections{state=\"idle\"} ").append(stats.getIdleConnections()).append('\n');
+            out.append("crown_db_pool_connections{state=\"total\"} ").append(stats.getTotalConnections()).append('\n');
+            out.append("# TYPE crown_db_pool_max_connections gauge\n");
+            out.append("crown_db_pool_max_connections ").append(stats.getMaxConnections()).append('\n');
+            out.append("# TYPE crown_db_pool_pending_threads gauge\n");
+            out.append("crown_db_pool_pending_threads ").append(stats.getPendingThreads()).append('\n');
+        }
+        return out.toString();
+    }
+
+    // --- Internals ---
+
+    private QueryStats stats(String name) {
+        return queries.computeIfAbsent(name, QueryStats::new);
+    }
+
+    private String nameFor(String sql) {
+        if (sql == null) return callerName() + " (batch)";
+        String name = namesBySql.get(sql);
+        if (name != null) return name;
+        name = callerName() + " (" + describe(sql) + ")";
+        namesBySql.put(sql, name);
+        return name;
+    }
+
+    /** "select punishment_history", "insert reports", ... */
+    static String describe(String sql) {
+        String trimmed = sql.stripLeading();
+        int space = trimmed.indexOf(' ');
+        String verb = (space > 0 ? trimmed.substring(0, space) : trimmed).toLowerCase(Locale.ROOT);
+        Matcher matcher = TABLE_PATTERN.matcher(trimmed);
+        return matcher.find() ? verb + " " + matcher.group(1).toLowerCase(Locale.ROOT) : verb;
+    }
+
+    /** First plugin frame outside this class; DatabaseManager methods are named without the class. */
+    private static String callerName() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("cp.corona.")
+                        && !frame.getClassName().startsWith(QueryMetrics.class.getName()))
+                .findFirst()
+                .map(frame -> {
+                    String method = frame.getMethodName();
+                    if (method.startsWith("lambda$")) {
+                        int end = method.indexOf('$', 7);
+                        method = end > 7 ? method.substring(7, end) : method;
+                    }
+                    String className = frame.getClassName();
+                    if (className.equals(DatabaseManager.class.getName())) {
+                        return method;
+                    }
+                    String simpleName = className.substring(className.lastIndexOf('.') + 1);
+                    int nested = simpleName.indexOf('$');
+                    return (nested > 0 ? simpleName.substring(0, nested) : simpleName) + "." + method;
+                })
+                .orElse("unknown"));
+    }
+
+    private static boolean isBusy(SQLException e) {
+        String message = e.getMessage();
+        return e.getErrorCode() == 5 || (message != null
+                && (message.contains("SQLITE_BUSY") || message.toLowerCase(Locale.ROOT).contains("database is locked")));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final long poolWaitNanos;
+        private final LongConsumer onClose;
+        private final long borrowedAt = System.nanoTime();
+        private boolean closed;
+
+        private ConnectionHandler(Connection connection, long poolWaitNanos, LongConsumer onClose) {
+            this.connection = connection;
+            this.poolWaitNanos = poolWaitNanos;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (onClose != null && !closed && "close".equals(method.getName())) {
+                closed = true;
+                onClose.accept(System.nanoTime() - borrowedAt + poolWaitNanos);
+            }
+            Object result = QueryMetrics.invoke(connection, method, args);
+            if (!enabled && !QUERY_EVENT.isEnabled()) return result;
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statementProxy(PreparedStatement.class, result, nameFor((String) args[0]), poolWaitNanos);
+                case "prepareCall":
+                    return statementProxy(CallableStatement.class, result, nameFor((String) args[0]), poolWaitNanos);
+                case "createStatement":
+                    return statementProxy(Statement.class, result, null, poolWaitNanos);
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private Object statementProxy(Class<?> type, Object statement, String name, long poolWaitNanos) {
+        return Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, name, poolWaitNanos));
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Object statement;
+        private final String preparedName;
+        private final long poolWaitNanos;
+
+        private StatementHandler(Object statement, String preparedName, long poolWaitNanos) {
+            this.statement = statement;
+            this.preparedName = preparedName;
+            this.poolWaitNanos = poolWaitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!EXECUTE_METHODS.contains(method.getName())) {
+                return QueryMetrics.invoke(statement, method, args);
+            }
+            // Plain statements carry their SQL in the execute call.
+            String name = preparedName != null ? preparedName
+                    : nameFor(args != null && args.length > 0 && args[0] instanceof String sql ? sql : null);
+            QueryStats stats = enabled ? stats(name) : null;
+            CrownEvents.QueryEvent event = new CrownEvents.QueryEvent();
+            event.begin();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryMetrics.invoke(statement, method, args);
+            } catch (SQLException e) {
+                if (stats != null) {
+                    stats.record(System.nanoTime() - start);
+                    stats.errors.increment();
+                    if (isBusy(e)) stats.busy.increment();
+                }
+                commit(event, name, 0L, true);
+                throw e;
+            }
+            if (stats != null) {
+                stats.record(System.nanoTime() - start);
+            }
+
+            // Result sets are returned unwrapped, so reading rows costs nothing extra; only
+            // affected rows are counted.
+            long rows = 0L;
+            if (result instanceof Integer updated && updated > 0) {
+                rows = updated;
+            } else if (result instanceof Long updated && updated > 0) {
+                rows = updated;
+            } else if (result instanceof int[] batch) {
+                for (int updated : batch) {
+                    if (updated > 0) rows += updated;
+                }
+            }
+            if (stats != null) {
+                stats.rows.add(rows);
+            }
+            commit(event, name, rows, false);
+            return result;
+        }
+
+        private void commit(CrownEvents.QueryEvent event, String name, long rows, boolean failed) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.query = name;
+                event.rows = rows;
+                event.poolWait = poolWaitNanos;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static void appendHistogram(StringBuilder out, String metric, String labels, QueryStats stats) {
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++) {
+            cumulative += stats.buckets.get(i);
+            out.append(metric).append("_bucket{").append(labels).append("le=\"")
+                    .append(seconds(BUCKET_BOUNDS_NANOS[i])).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += stats.buckets.get(BUCKET_BOUNDS_NANOS.length);
+        out.append(metric).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        String plainLabels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(metric).append("_sum").append(plainLabels).append(' ').append(seconds(stats.totalNanos.sum())).append('\n');
+        out.append(metric).append("_count").append(plainLabels).append(' ').append(stats.count.sum()).append('\n');
+    }
+
+    private static void appendCounter(StringBuilder out, Map<String, QueryStats> sorted, String metric, String help,
+            ToLongFunction<QueryStats> value) {
+        out.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(metric).append(" counter\n");
+        sorted.values().forEach(stats -> out.append(metric).append("{query=\"").append(escape(stats.name))
+                .append("\"} ").append(value.applyAsLong(stats)).append('\n'));
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static long micros(long value) {
+        return TimeUnit.MICROSECONDS.toNanos(value);
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+}
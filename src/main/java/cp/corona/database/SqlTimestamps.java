@@ -0,0 +1,41 @@
+package cp.corona.database;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Timestamps in the form the timestamp columns hold them. SQLite stores CURRENT_TIMESTAMP defaults as
+ * UTC text, so values written next to them or compared against them must be the same text; MySQL
+ * takes a {@link Timestamp}.
+ */
+final class SqlTimestamps {
+
+    private static final DateTimeFormatter UTC_TEXT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private SqlTimestamps() {
+    }
+
+    /** The value to bind for {@code millis}: UTC text on SQLite, a Timestamp otherwise. */
+    static Object bindable(long millis, boolean sqlite) {
+        return sqlite ? utcText(millis) : new Timestamp(millis);
+    }
+
+    static String utcText(long millis) {
+        return UTC_TEXT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+    }
+
+    /** Epoch millis of UTC text as SQLite stores it (fractions ignored), or null if it is not such text. */
+    static Long parseUtcText(String text) {
+        if (text.length() < 19) return null;
+        try {
+            return LocalDateTime.parse(text.substring(0, 19).replace('T', ' '), UTC_TEXT)
+                    .toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package cp.corona.database;
+
+import cp.corona.crown.Crown;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal for fire-and-forget writes while the database is unreachable, plus the
+ * circuit breaker that decides when that is.
+ * <p>
+ * After {@code failure-threshold} consecutive failed connection attempts the circuit opens:
+ * connections are refused immediately instead of waiting out the pool timeout, and the batched
+ * writer appends its statements here. Records are framed as {@code length, crc32, payload} in
+ * numbered segment files; appends are fsynced in groups by a short timer rather than one by one.
+ * <p>
+ * A retry task probes the database and replays the segments in order. Progress is stored in
+ * {@code journal_checkpoints} in the same transaction as the replayed rows, so a crash mid-replay
+ * never applies a record twice. The circuit closes once every record is replayed; later writes go
+ * straight to the database again.
+ */
+public class WriteJournal {
+
+    private static final long SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final long SYNC_INTERVAL_TICKS = 2L;
+    private static final int REPLAY_CHUNK = 256;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_BOOLEAN = 5;
+
+    /** One journaled statement. Parameters are Strings, boxed primitives or null. */
+    public record Record(String sql, Object[] params, String description) {}
+
+    private final Crown plugin;
+    private final DatabaseManager database;
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long retryTicks;
+    private final File directory;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean circuitOpen;
+    private volatile boolean unsynced;
+
+    // Guarded by appendLock.
+    private final List<File> sealed = new ArrayList<>();
+    private FileChannel activeChannel;
+    private File activeFile;
+    private long activeBytes;
+    private long nextSegment;
+    private long journaledRecords;
+
+    private String journalId;
+    private BukkitTask syncTask;
+    private BukkitTask replayTask;
+
+    public WriteJournal(Crown plugin, DatabaseManager database, boolean enabled, int failureThreshold, long retrySeconds) {
+        this.plugin = plugin;
+        this.database = database;
+        this.enabled = enabled;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.retryTicks = Math.max(1L, retrySeconds) * 20L;
+        this.directory = new File(plugin.getDataFolder(), "journal");
+    }
+
+    /**
+     * Picks up segments left by a previous run (the database was still down at shutdown, or the
+     * server crashed) and starts the timers. Leftover segments keep the circuit open until replayed.
+     */
+    public void start() {
+        if (!enabled || syncTask != null) return;
+        try {
+            Files.createDirectories(directory.toPath());
+            journalId = loadJournalId();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not prepare the write journal in " + directory
+                    + ", writes made while the database is down will be lost.", e);
+            return;
+        }
+
+        appendLock.lock();
+        try {
+            // Segment numbers must keep growing across restarts, or the stored checkpoint would skip
+            // new segments; the clock covers the case where every old segment was already deleted.
+            nextSegment = System.currentTimeMillis();
+            File[] existing = directory.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".log"));
+            if (existing != null && existing.length > 0) {
+                Arrays.sort(existing, (a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+                sealed.addAll(Arrays.asList(existing));
+                nextSegment = Math.max(nextSegment, segmentNumber(existing[existing.length - 1]) + 1);
+                circuitOpen = true;
+                plugin.getLogger().warning("Found " + existing.length + " write journal segment(s) from a previous run, "
+                        + "they will be replayed once the database is reachable.");
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        syncTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                sync();
+            }
+        }.runTaskTimerAsynchronously(plugin, SYNC_INTERVAL_TICKS, SYNC_INTERVAL_TICKS);
+        replayTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        }.runTaskTimerAsynchronously(plugin, retryTicks, retryTicks);
+    }
+
+    /** Stops the timers and syncs the active segment. Unreplayed segments stay on disk for the next start. */
+    public void shutdown() {
+        if (syncTask != null) {
+            syncTask.cancel();
+            syncTask = null;
+        }
+        if (replayTask != null) {
+            replayTask.cancel();
+            replayTask = null;
+        }
+        appendLock.lock();
+        try {
+            sealActiveSegment();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True while the database is considered down; connections are refused and writes journaled. */
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    public long getJournaledRecords() {
+        return journaledRecords;
+    }
+
+    /** Called for every failed attempt to borrow a connection. */
+    void recordConnectionFailure(SQLException cause) {
+        if (journalId == null) return; // Disabled or unusable: keep the old behaviour of waiting on the pool.
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && !circuitOpen) {
+            circuitOpen = true;
+            plugin.getLogger().log(Level.WARNING, "Database unreachable after " + failureThreshold
+                    + " attempts, journaling writes locally until it recovers.", cause);
+        }
+    }
+
+    /** Called for every borrowed connection; cheap when nothing failed. */
+    void recordConnectionSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /** True when the failure means the connection or server is gone, rather than a bad statement. */
+    static boolean isConnectionFailure(SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLRecoverableException) return true;
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    /**
+     * Journals the records if the circuit is open, so they queue up behind what is already
+     * journaled. Returns false when the circuit is closed and the caller should write them itself.
+     */
+    public boolean offer(List<Record> records) {
+        if (!circuitOpen) return false;
+        appendLock.lock();
+        try {
+            if (!circuitOpen) return false; // Closed by a replay that finished in the meantime.
+            write(records);
+            return true;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Journals records whose write just failed because the connection was lost, and opens the
+     * circuit so that later writes line up behind them. Without a journal they are dropped, as before.
+     */
+    public void spill(List<Record> records, SQLException cause) {
+        if (journalId == null) {
+            plugin.getLogger().log(Level.SEVERE, "Could not write " + records.size() + " queued statements!", cause);
+            return;
+        }
+        appendLock.lock();
+        try {
+            if (!circuitOpen) {
+                circuitOpen = true;
+                plugin.getLogger().log(Level.WARNING, "Lost the database connection while writing, "
+                        + "journaling writes locally until it recovers.", cause);
+            }
+            write(records);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void write(List<Record> records) {
+        try {
+            for (Record record : records) {
+                byte[] payload = encode(record);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+                frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+                if (activeChannel == null || activeBytes >= SEGMENT_BYTES) {
+                    sealActiveSegment();
+                    activeFile = new File(directory, String.format("segment-%016d.log", nextSegment++));
+                    activeChannel = FileChannel.open(activeFile.toPath(), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    activeBytes = 0L;
+                }
+                while (frame.hasRemaining()) {
+                    activeBytes += activeChannel.write(frame);
+                }
+                journaledRecords++;
+            }
+            unsynced = true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not append " + records.size() + " statements to the write journal!", e);
+        }
+    }
+
+    /** Group commit: one fsync for everything appended since the last tick. */
+    private void sync() {
+        if (!unsynced) return;
+        appendLock.lock();
+        try {
+            unsynced = false;
+            if (activeChannel != null) {
+                activeChannel.force(false);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not sync the write journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void sealActiveSegment() {
+        if (activeChannel == null) return;
+        try {
+            activeChannel.force(false);
+            activeChannel.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not close write journal segment " + activeFile.getName(), e);
+        }
+        sealed.add(activeFile);
+        activeChannel = null;
+        activeFile = null;
+        unsynced = false;
+    }
+
+    /**
+     * Replays every segment in order once a connection can be made, then closes the circuit. The
+     * active segment is sealed first so replay only ever reads files nobody appends to.
+     */
+    private void replay() {
+        if (!circuitOpen || !replayLock.tryLock()) return;
+        try (Connection connection = database.connectBypassingCircuit()) {
+            while (true) {
+                List<File> segments;
+                appendLock.lock();
+                try {
+                    sealActiveSegment();
+                    if (sealed.isEmpty()) {
+                        circuitOpen = false;
+                        consecutiveFailures.set(0);
+                        if (journaledRecords > 0) {
+                            plugin.getLogger().info("Database reachable again, replayed " + journaledRecords
+                                    + " journaled writes.");
+                        }
+                        journaledRecords = 0;
+                        return;
+                    }
+                    segments = new ArrayList<>(sealed);
+                } finally {
+                    appendLock.unlock();
+                }
+
+                for (File segment : segments) {
+                    replaySegment(connection, segment);
+                    appendLock.lock();
+                    try {
+                        sealed.remove(segment);
+                    } finally {
+                        appendLock.unlock();
+                    }
+                    Files.deleteIfExists(segment.toPath());
+                }
+            }
+        } catch (SQLException e) {
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().log(Level.INFO, "[WriteJournal] Database still unreachable, replay postponed.", e);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not read the write journal, replay postponed.", e);
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    private void replaySegment(Connection connection, File segment) throws SQLException, IOException {
+        long number = segmentNumber(segment);
+        long[] checkpoint = readCheckpoint(connection);
+        if (number < checkpoint[0]) return; // Replayed by an earlier run that crashed before deleting it.
+        int skip = number == checkpoint[0] ? (int) checkpoint[1] : 0;
+
+        List<Record> records = readSegment(segment);
+        for (int start = skip; start < records.size(); start += REPLAY_CHUNK) {
+            int end = Math.min(records.size(), start + REPLAY_CHUNK);
+            applyChunk(connection, number, records, start, end);
+        }
+    }
+
+    /** Applies records [start, end) together with the checkpoint; a bad record is retried alone and skipped. */
+    private void applyChunk(Connection connection, long segment, List<Record> records, int start, int end)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try {
+                for (int i = start; i < end; i++) {
+                    execute(connection, records.get(i));
+                }
+                writeCheckpoint(connection, segment, end);
+                connection.commit();
+                return;
+            } catch (SQLException e) {
+                connection.rollback();
+                if (isConnectionFailure(e)) throw e;
+            }
+
+            for (int i = start; i < end; i++) {
+                Record record = records.get(i);
+                try {
+                    execute(connection, record);
+                } catch (SQLException e) {
+                    connection.rollback();
+                    if (isConnectionFailure(e)) throw e;
+                    plugin.getLogger().log(Level.SEVERE, "Dropping journaled write that failed on replay ("
+                            + record.description() + ")", e);
+                }
+                writeCheckpoint(connection, segment, i + 1);
+                connection.commit();
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void execute(Connection connection, Record record) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(record.sql())) {
+            BatchedWriter.bind(ps, record.params());
+            ps.executeUpdate();
+        }
+    }
+
+    /** The last replayed position as {segment, records done}, or {-1, 0} before the first replay. */
+    private long[] readCheckpoint(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT segment_no, record_no FROM journal_checkpoints WHERE journal_id = ?")) {
+            ps.setString(1, journalId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new long[]{rs.getLong("segment_no"), rs.getLong("record_no")};
+                }
+            }
+        }
+        return new long[]{-1L, 0L};
+    }
+
+    private void writeCheckpoint(Connection connection, long segment, int record) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE journal_checkpoints SET segment_no = ?, record_no = ? WHERE journal_id = ?")) {
+            ps.setLong(1, segment);
+            ps.setInt(2, record);
+            ps.setString(3, journalId);
+            if (ps.executeUpdate() > 0) return;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO journal_checkpoints (journal_id, segment_no, record_no) VALUES (?, ?, ?)")) {
+            ps.setString(1, journalId);
+            ps.setLong(2, segment);
+            ps.setInt(3, record);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads the intact records of a segment. A short or corrupt frame ends the segment: that is the
+     * tail of a write interrupted by a crash, which was never acknowledged as synced.
+     */
+    private List<Record> readSegment(File segment) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (InputStream file = Files.newInputStream(segment.toPath());
+                DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int expectedCrc = in.readInt();
+                if (length < 0 || length > SEGMENT_BYTES) {
+                    warnTornTail(segment, records.size());
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    warnTornTail(segment, records.size());
+                    break;
+                }
+                records.add(decode(payload));
+            }
+        } catch (EOFException e) {
+            warnTornTail(segment, records.size());
+        }
+        return records;
+    }
+
+    private void warnTornTail(File segment, int intact) {
+        plugin.getLogger().warning("Write journal segment " + segment.getName() + " ends in an incomplete record, "
+                + "replaying the " + intact + " intact record(s) before it.");
+    }
+
+    private static byte[] encode(Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, record.sql());
+        writeString(out, record.description());
+        out.writeShort(record.params().length);
+        for (Object param : record.params()) {
+            if (param == null) {
+                out.writeByte(TAG_NULL);
+            } else if (param instanceof String value) {
+                out.writeByte(TAG_STRING);
+                writeString(out, value);
+            } else if (param instanceof Long value) {
+                out.writeByte(TAG_LONG);
+                out.writeLong(value);
+            } else if (param instanceof Integer value) {
+                out.writeByte(TAG_INT);
+                out.writeInt(value);
+            } else if (param instanceof Double value) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble(value);
+            } else if (param instanceof Boolean value) {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeBoolean(value);
+            } else {
+                throw new IOException("Unsupported journal parameter type " + param.getClass().getName());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Record decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String sql = readString(in);
+        String description = readString(in);
+        Object[] params = new Object[in.readShort()];
+        for (int i = 0; i < params.length; i++) {
+            byte tag = in.readByte();
+            params[i] = switch (tag) {
+                case TAG_NULL -> null;
+                case TAG_STRING -> readString(in);
+                case TAG_LONG -> in.readLong();
+                case TAG_INT -> in.readInt();
+                case TAG_DOUBLE -> in.readDouble();
+                case TAG_BOOLEAN -> in.readBoolean();
+                default -> throw new IOException("Unknown journal parameter tag " + tag);
+            };
+        }
+        return new Record(sql, params, description);
+    }
+
+    // Length-prefixed UTF-8; writeUTF would cap chat lines and item data at 64 KiB.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Stable per installation, so checkpoints of servers sharing a database stay apart. */
+    private String loadJournalId() throws IOException {
+        File idFile = new File(directory, "journal.id");
+        if (idFile.exists()) {
+            String id = Files.readString(idFile.toPath(), StandardCharsets.UTF_8).trim();
+            if (!id.isEmpty()) return id;
+        }
+        String id = UUID.randomUUID().toString();
+        Files.writeString(idFile.toPath(), id, StandardCharsets.UTF_8);
+        return id;
+    }
+
+    private static long segmentNumber(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
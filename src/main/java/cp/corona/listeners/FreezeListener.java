@@ -4,6 +4,7 @@ import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.utils.ColorUtils;
 import cp.corona.utils.MessageUtils;
+import cp.corona.utils.StaffRegistry;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
@@ -20,12 +21,10 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.player.*;
 import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,11 +41,11 @@ import java.util.logging.Level;
 public class FreezeListener implements Listener {
 
     private final Crown plugin;
-    private final HashMap<UUID, BukkitTask> freezeActionTasks = new HashMap<>();
+    private static final String FREEZE_ACTIONS_TIMER = "freeze_actions";
     private final Map<UUID, FreezeChatSession> freezeChatSessions = new ConcurrentHashMap<>();
     private final Map<String, Set<UUID>> freezeChatIds = new ConcurrentHashMap<>();
     private final Map<UUID, UUID> moderatorChatTargets = new ConcurrentHashMap<>();
-    private static final String FREEZE_CHAT_PERMISSION = "crown.fchat";
+    private static final String FREEZE_CHAT_PERMISSION = StaffRegistry.FREEZE_CHAT_PERMISSION;
 
     private static class FreezeChatSession {
         private final UUID frozenId;
@@ -231,7 +230,7 @@ public class FreezeListener implements Listener {
             sendFreezeChatToModerators(session, chatComponent);
             player.sendMessage(MessageUtils.getColorComponent(formattedAdminMessage));
         } else {
-            if (player.hasPermission(FREEZE_CHAT_PERMISSION)) {
+            if (plugin.getStaffRegistry().has(player, FREEZE_CHAT_PERMISSION)) {
                 UUID targetId = moderatorChatTargets.get(player.getUniqueId());
                 if (targetId != null) {
                     FreezeChatSession session = freezeChatSessions.get(targetId);
@@ -354,7 +353,7 @@ public class FreezeListener implements Listener {
      */
     public void startFreezeActionsTask(Player player) {
         UUID playerId = player.getUniqueId();
-        if (freezeActionTasks.containsKey(playerId)) {
+        if (plugin.getTimingWheel().isScheduled(playerId, FREEZE_ACTIONS_TIMER)) {
             if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Freeze actions task already running for player: " + player.getName());
             return;
         }
@@ -371,41 +370,36 @@ public class FreezeListener implements Listener {
 
         if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Starting freeze actions task for player: " + player.getName() + ", interval: " + intervalTicks + " ticks, actions: " + actions.size());
 
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!plugin.getPluginFrozenPlayers().containsKey(playerId)) {
-                    if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Player is no longer frozen, stopping freeze actions task: " + player.getName());
-                    this.cancel();
-                    stopFreezeActionsTask(playerId);
-                    return;
-                }
-                Player onlinePlayer = Bukkit.getPlayer(playerId);
-                if (onlinePlayer == null || !onlinePlayer.isOnline()) {
-                    if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Frozen player " + playerId + " is offline, skipping freeze actions execution.");
-                    return;
-                }
+        plugin.getTimingWheel().scheduleRepeating(playerId, FREEZE_ACTIONS_TIMER, 0L, intervalTicks, () -> {
+            if (!plugin.getPluginFrozenPlayers().containsKey(playerId)) {
+                if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Player is no longer frozen, stopping freeze actions task: " + player.getName());
+                stopFreezeActionsTask(playerId);
+                return;
+            }
+            Player onlinePlayer = Bukkit.getPlayer(playerId);
+            if (onlinePlayer == null || !onlinePlayer.isOnline()) {
+                if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Frozen player " + playerId + " is offline, skipping freeze actions execution.");
+                return;
+            }
 
-                if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Executing freeze actions for player: " + onlinePlayer.getName());
-                for (MenuItem.ClickActionData actionData : actions) {
-                    if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Executing action: " + actionData.getAction() + ", data: " + Arrays.toString(actionData.getActionData()));
-                    if (menuListener != null) {
-                        menuListener.executeMenuItemAction(onlinePlayer, actionData.getAction(), actionData.getActionData(), null);
-                    } else {
-                        plugin.getLogger().warning("[FreezeListener] MenuListener is null, cannot execute freeze action: " + actionData.getAction());
-                    }
+            if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Executing freeze actions for player: " + onlinePlayer.getName());
+            for (MenuItem.ClickActionData actionData : actions) {
+                if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Executing action: " + actionData.getAction() + ", data: " + Arrays.toString(actionData.getActionData()));
+                if (menuListener != null) {
+                    menuListener.executeMenuItemAction(onlinePlayer, actionData.getAction(), actionData.getActionData(), null);
+                } else {
+                    plugin.getLogger().warning("[FreezeListener] MenuListener is null, cannot execute freeze action: " + actionData.getAction());
                 }
             }
-        }.runTaskTimer(plugin, 0L, intervalTicks);
+        });
 
-        freezeActionTasks.put(playerId, task);
         applyFreezingEffect(player);
         if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Freeze actions task started and stored for player: " + player.getName());
     }
 
     /**
      * Stops the repeating actions task for a player.
-     * Cancels the BukkitTask if it is running and removes it from tracking.
+     * Cancels the freeze actions timer if it is scheduled.
      * Removes freezing visual effect and invulnerability when stopping the task.
      *
      * @param playerId The UUID of the player to stop freeze actions for.
@@ -413,12 +407,11 @@ public class FreezeListener implements Listener {
     public void stopFreezeActionsTask(UUID playerId) {
         if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] stopFreezeActionsTask CALLED for playerId: " + playerId);
 
-        BukkitTask task = freezeActionTasks.remove(playerId);
-        if (task != null && !task.isCancelled()) {
-            task.cancel();
+        if (plugin.getTimingWheel().isScheduled(playerId, FREEZE_ACTIONS_TIMER)) {
+            plugin.getTimingWheel().cancel(playerId, FREEZE_ACTIONS_TIMER);
             if (plugin.getConfigManager().isDebugEnabled()) plugin.getLogger().info("[DEBUG] Freeze actions task cancelled for playerId: " + playerId);
         } else {
-            if (task == null && plugin.getConfigManager().isDebugEnabled()) {
+            if (plugin.getConfigManager().isDebugEnabled()) {
                 plugin.getLogger().warning("[WARNING] No freeze actions task found to stop for playerId: " + playerId);
             }
         }
@@ -467,7 +460,7 @@ public class FreezeListener implements Listener {
         String punisherName = sender != null ? sender.getName() : "Unknown";
         FreezeChatSession session = new FreezeChatSession(frozenId, frozenPlayer.getName(), punishmentId, punisherName);
 
-        if (sender instanceof Player moderator && moderator.hasPermission(FREEZE_CHAT_PERMISSION)) {
+        if (sender instanceof Player moderator && plugin.getStaffRegistry().has(moderator, FREEZE_CHAT_PERMISSION)) {
             removeModeratorFromSessions(moderator.getUniqueId());
             session.participants.add(moderator.getUniqueId());
             moderatorChatTargets.put(moderator.getUniqueId(), frozenId);
@@ -574,8 +567,7 @@ public class FreezeListener implements Listener {
 
     private void sendFreezeChatToModerators(FreezeChatSession session, Component formattedMessage) {
         boolean privateChat = plugin.getConfigManager().isFreezeChatPrivate();
-        for (Player admin : Bukkit.getOnlinePlayers()) {
-            if (!admin.hasPermission(FREEZE_CHAT_PERMISSION)) continue;
+        for (Player admin : plugin.getStaffRegistry().getOnline(FREEZE_CHAT_PERMISSION)) {
             if (privateChat && session != null && !session.participants.contains(admin.getUniqueId())) continue;
             admin.sendMessage(formattedMessage);
         }
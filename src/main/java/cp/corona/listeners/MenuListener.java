@@ -5,11 +5,13 @@ import cp.corona.config.WarnLevel;
 import cp.corona.crown.Crown;
 import cp.corona.database.ActiveWarningEntry;
 import cp.corona.database.DatabaseManager;
+import cp.corona.database.PlayerSnapshot;
 import cp.corona.menus.actions.ClickAction;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.menus.items.MenuItem.ClickActionData;
 import cp.corona.menus.mod.LockerMenu;
 import cp.corona.menus.profile.*;
+import cp.corona.menus.punish.EvidenceInventoryMenu;
 import cp.corona.menus.punish.HistoryMenu;
 import cp.corona.menus.punish.PunishDetailsMenu;
 import cp.corona.menus.punish.PunishMenu;
@@ -18,6 +20,10 @@ import cp.corona.menus.report.ReportDetailsMenu;
 import cp.corona.menus.report.ReportsMenu;
 import cp.corona.report.ReportStatus;
 import cp.corona.utils.ColorUtils;
+import cp.corona.utils.InventorySnapshotCodec;
+import cp.corona.utils.PunishmentTracer;
+import cp.corona.utils.StaffRegistry;
+import cp.corona.utils.TimingWheel;
 import cp.corona.utils.MessageUtils;
 import cp.corona.utils.TimeUtils;
 import me.clip.placeholderapi.PlaceholderAPI;
@@ -61,13 +67,11 @@ import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 
 @SuppressWarnings("deprecation")
 public class MenuListener implements Listener {
     private final Crown plugin;
-    private final HashMap<UUID, BukkitTask> inputTimeouts = new HashMap<>();
     private final HashMap<UUID, PunishDetailsMenu> pendingDetailsMenus = new HashMap<>();
     private final HashMap<UUID, String> inputTypes = new HashMap<>();
     private final HashMap<UUID, String> inputOrigin = new HashMap<>();
@@ -87,6 +91,9 @@ public class MenuListener implements Listener {
     private static final Set<Integer> PROFILE_ARMOR_SLOTS = Set.of(10, 19, 28, 37);
     private static final Set<Integer> PROFILE_HAND_SLOTS = Set.of(21, 30);
 
+    private static final String INPUT_TIMEOUT_TIMER = "chat_input_timeout";
+    private static final String CONFIRMATION_TIMER = "menu_confirmation";
+
     private static final String BAN_PUNISHMENT_TYPE = "ban";
     private static final String MUTE_PUNISHMENT_TYPE = "mute";
     private static final String SOFTBAN_PUNISHMENT_TYPE = "softban";
@@ -126,7 +133,7 @@ public class MenuListener implements Listener {
      * Holds the context of a pending confirmation action to allow for proper cancellation and state reversion.
      */
     private record ConfirmationContext(Inventory inventory, int slot, ItemStack originalItem,
-                                       BukkitTask timeoutTask, String confirmationKey) {
+                                       TimingWheel.Timer timeoutTask, String confirmationKey) {
     }
 
     /**
@@ -209,12 +216,8 @@ public class MenuListener implements Listener {
         clickedInv.setItem(slot, confirmStack);
         playSound(player, "confirm_again");
 
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                cancelExistingConfirmation(player);
-            }
-        }.runTaskLater(plugin, 40L); // 2 seconds
+        TimingWheel.Timer task = plugin.getTimingWheel().schedule(player.getUniqueId(), CONFIRMATION_TIMER, 40L,
+                () -> cancelExistingConfirmation(player)); // 2 seconds
 
         pendingConfirmations.put(player.getUniqueId(), new ConfirmationContext(clickedInv, slot, original, task, "GENERIC"));
         return true;
@@ -229,6 +232,11 @@ public class MenuListener implements Listener {
 
         InventoryHolder topHolder = event.getView().getTopInventory().getHolder();
 
+        if (topHolder instanceof EvidenceInventoryMenu) {
+            event.setCancelled(true); // Evidence is read-only
+            return;
+        }
+
         boolean isPluginMenu = topHolder instanceof PunishMenu || topHolder instanceof PunishDetailsMenu ||
                 topHolder instanceof TimeSelectorMenu || topHolder instanceof HistoryMenu ||
                 topHolder instanceof ProfileMenu || topHolder instanceof FullInventoryMenu ||
@@ -664,7 +672,9 @@ public class MenuListener implements Listener {
 
             if (!actionsToExecute.isEmpty()) {
                 for (MenuItem.ClickActionData actionData : actionsToExecute) {
+                    long start = System.nanoTime();
                     handleMenuItemClick(player, holder, actionData.getAction(), actionData.getActionData(), event, clickedMenuItem);
+                    plugin.getHandlerTimings().recordAction(holder, actionData.getAction(), System.nanoTime() - start);
                 }
             }
         } else {
@@ -675,6 +685,10 @@ public class MenuListener implements Listener {
     @EventHandler
     public void onInventoryDrag(InventoryDragEvent event) {
         InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof EvidenceInventoryMenu) {
+            event.setCancelled(true);
+            return;
+        }
         if (!(holder instanceof ProfileMenu) && !(holder instanceof FullInventoryMenu) && !(holder instanceof EnderChestMenu)) {
             return;
         }
@@ -722,7 +736,7 @@ public class MenuListener implements Listener {
         }
 
         // Clear any pending chat inputs for this player
-        if (pendingReportInputs.containsKey(player.getUniqueId()) || inputTimeouts.containsKey(player.getUniqueId())) {
+        if (pendingReportInputs.containsKey(player.getUniqueId()) || plugin.getTimingWheel().isScheduled(player.getUniqueId(), INPUT_TIMEOUT_TIMER)) {
             clearPlayerInputData(player);
         }
     }
@@ -858,11 +872,11 @@ public class MenuListener implements Listener {
             return;
         }
 
-        if (!inputTimeouts.containsKey(playerUUID)) {
+        if (!plugin.getTimingWheel().isScheduled(playerUUID, INPUT_TIMEOUT_TIMER)) {
             return;
         }
 
-        if (plugin.getPluginFrozenPlayers().containsKey(playerUUID) && !player.hasPermission(MOD_PERMISSION)) {
+        if (plugin.getPluginFrozenPlayers().containsKey(playerUUID) && !plugin.getStaffRegistry().has(player, MOD_PERMISSION)) {
             event.setCancelled(true);
             sendConfigMessage(player, "messages.freeze_command_blocked");
             return;
@@ -1785,26 +1799,16 @@ public class MenuListener implements Listener {
         }
     }
 
-    private BukkitTask setupChatInputTimeout(Player player, String inputType) {
-        cancelExistingTimeout(player);
-
-        return new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (inputTypes.getOrDefault(player.getUniqueId(), "").equals(inputType) || pendingReportInputs.containsKey(player.getUniqueId())) {
-                    handleInputTimeout(player);
-                }
+    private TimingWheel.Timer setupChatInputTimeout(Player player, String inputType) {
+        // Scheduling under the same key replaces any previous timeout for this player.
+        return plugin.getTimingWheel().schedule(player.getUniqueId(), INPUT_TIMEOUT_TIMER, 400L, () -> {
+            if (inputTypes.getOrDefault(player.getUniqueId(), "").equals(inputType) || pendingReportInputs.containsKey(player.getUniqueId())) {
+                handleInputTimeout(player);
             }
-        }.runTaskLater(plugin, 400L);
+        });
     }
 
-    private void storeInputData(Player player, BukkitTask task, PunishDetailsMenu menu, String inputType, String origin) {
-        if (task != null) {
-            inputTimeouts.put(player.getUniqueId(), task);
-        } else {
-            plugin.getLogger().warning("Attempted to store a null timeout task for " + player.getName() + ", inputType: " + inputType);
-        }
-
+    private void storeInputData(Player player, TimingWheel.Timer task, PunishDetailsMenu menu, String inputType, String origin) {
         if (menu != null) {
             pendingDetailsMenus.put(player.getUniqueId(), menu);
         } else {
@@ -1816,15 +1820,12 @@ public class MenuListener implements Listener {
         }
 
         if (plugin.getConfigManager().isDebugEnabled() && task != null) {
-            plugin.getLogger().info("[DEBUG] Stored input data for " + player.getName() + ": inputType=" + inputType + ", menuContext=" + (menu != null) + ", taskID=" + task.getTaskId());
+            plugin.getLogger().info("[DEBUG] Stored input data for " + player.getName() + ": inputType=" + inputType + ", menuContext=" + (menu != null) + ", timer=" + task.getKey());
         }
     }
 
     private void cancelExistingTimeout(Player player) {
-        BukkitTask existingTask = inputTimeouts.remove(player.getUniqueId());
-        if (existingTask != null && !existingTask.isCancelled()) {
-            existingTask.cancel();
-        }
+        plugin.getTimingWheel().cancel(player.getUniqueId(), INPUT_TIMEOUT_TIMER);
     }
 
     private void handleInputTimeout(Player player) {
@@ -2052,15 +2053,29 @@ public class MenuListener implements Listener {
         }
 
         final String finalDurationForLog = durationForLog;
+        PunishmentTracer.Trace trace = plugin.getPunishmentTracer().start("menu", punishmentType, target.getName());
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target, finalIpAddress);
+        InventorySnapshotCodec.Contents inventoryCopy = plugin.getConfigManager().isInventorySnapshotEnabled(punishmentType)
+                ? InventorySnapshotCodec.Contents.copyOf(target) : null;
+        trace.mark("snapshot");
         CompletableFuture<String> future = plugin.getSoftBanDatabaseManager()
-                .executePunishmentAsync(targetUUID, punishmentType, reason, player.getName(), endTime, durationForLog, byIp, null);
+                .executePunishmentAsync(targetUUID, punishmentType, reason, player.getName(), endTime, durationForLog, byIp, null, 0, trace);
 
         future.thenAccept(punishmentId -> {
-            if (punishmentId == null) return;
+            if (punishmentId == null) {
+                trace.fail("no_id");
+                return;
+            }
+            trace.mark("callback");
 
-            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, finalIpAddress);
+            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
+            if (inventoryCopy != null) {
+                plugin.getSoftBanDatabaseManager().saveInventorySnapshotAsync(punishmentId, targetUUID, inventoryCopy);
+            }
+            trace.mark("evidence_queued");
 
             Bukkit.getScheduler().runTask(plugin, () -> {
+                trace.mark("main_thread");
                 if(useInternal) {
                     if (punishmentType.equalsIgnoreCase(BAN_PUNISHMENT_TYPE)) {
                         Date expiration = (endTime == Long.MAX_VALUE) ? null : new Date(endTime);
@@ -2069,12 +2084,14 @@ public class MenuListener implements Listener {
                         } else {
                             if (target.getName() != null) Bukkit.getBanList(org.bukkit.BanList.Type.NAME).addBan(target.getName(), reason, expiration, player.getName());
                         }
+                        trace.mark("ban_list");
 
                         if (target.isOnline()) {
                             Player onlineTarget = target.getPlayer();
                             if (onlineTarget != null) {
                                 String kickMessage = MessageUtils.getKickMessage(plugin.getConfigManager().getBanScreen(), reason, finalDurationForLog, punishmentId, expiration, plugin.getConfigManager());
                                 onlineTarget.kickPlayer(kickMessage);
+                                trace.mark("kick");
                             }
                         }
                     } else if (punishmentType.equalsIgnoreCase(MUTE_PUNISHMENT_TYPE)) {
@@ -2093,16 +2110,20 @@ public class MenuListener implements Listener {
                             .replace("{time}", timeInput)
                             .replace("{reason}", reason);
                     Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
+                    trace.mark("dispatch");
                 }
 
                 if (byIp) {
                     applyIpPunishmentToOnlinePlayers(punishmentType, finalIpAddress, endTime, reason, finalDurationForLog, punishmentId, targetUUID);
+                    trace.mark("ip_targets");
                 }
 
                 playSound(player, "punish_confirm");
                 sendPunishmentConfirmation(player, target, finalDurationForLog, reason, punishmentType, punishmentId);
                 executeHookActions(player, target, punishmentType, finalDurationForLog, reason, false, Collections.emptyList());
+                trace.mark("hooks");
                 player.closeInventory();
+                trace.finish();
             });
         });
     }
@@ -2138,13 +2159,14 @@ public class MenuListener implements Listener {
         long endTime = calculateEndTime(timeInput);
         String durationString = (endTime == Long.MAX_VALUE) ? plugin.getConfigManager().getMessage("placeholders.permanent_time_display") : timeInput;
 
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target, finalIpAddress);
         CompletableFuture<String> future = plugin.getSoftBanDatabaseManager()
                 .executePunishmentAsync(targetUUID, SOFTBAN_PUNISHMENT_TYPE, reason, player.getName(), endTime, durationString, byIp, null);
 
         future.thenAccept(punishmentId -> {
             if (punishmentId == null) return;
 
-            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, finalIpAddress);
+            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
 
             Bukkit.getScheduler().runTask(plugin, () -> {
                 if (useInternal) {
@@ -2210,13 +2232,14 @@ public class MenuListener implements Listener {
             return;
         }
 
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target, finalIpAddress);
         CompletableFuture<String> future = plugin.getSoftBanDatabaseManager()
                 .executePunishmentAsync(targetUUID, FREEZE_PUNISHMENT_TYPE, reason, player.getName(), Long.MAX_VALUE, permanentDisplay, byIp, null);
 
         future.thenAccept(punishmentId -> {
             if (punishmentId == null) return;
 
-            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, finalIpAddress);
+            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
 
             Bukkit.getScheduler().runTask(plugin, () -> {
 
@@ -2284,13 +2307,14 @@ public class MenuListener implements Listener {
         }
 
         final String ipForLog = finalIpAddress;
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target, ipForLog);
         CompletableFuture<String> future = plugin.getSoftBanDatabaseManager()
                 .executePunishmentAsync(targetUUID, KICK_PUNISHMENT_TYPE, reason, player.getName(), 0L, "N/A", byIp, null);
 
         future.thenAccept(punishmentId -> {
             if (punishmentId == null) return;
 
-            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, ipForLog);
+            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
 
             Bukkit.getScheduler().runTask(plugin, () -> {
                 if (useInternal) {
@@ -2324,6 +2348,7 @@ public class MenuListener implements Listener {
         OfflinePlayer target = Bukkit.getOfflinePlayer(targetUUID);
         String reason = punishDetailsMenu.getBanReason();
         boolean useInternal = plugin.getConfigManager().isPunishmentInternal(WARN_PUNISHMENT_TYPE);
+        PlayerSnapshot snapshot = PlayerSnapshot.capture(target); // Warns are not by IP
 
         player.closeInventory();
 
@@ -2350,7 +2375,7 @@ public class MenuListener implements Listener {
                 String punishmentId = dbManager.logPunishment(targetUUID, "warn", reason, player.getName(), endTime, durationString, false, nextWarnLevel);
 
                 if (punishmentId != null) {
-                    dbManager.logPlayerInfoAsync(punishmentId, target, null); // Warns are not by IP
+                    dbManager.logPlayerInfoAsync(punishmentId, snapshot);
                 }
 
                 dbManager.addActiveWarning(targetUUID, punishmentId, nextWarnLevel, endTime).thenRun(() -> {
@@ -2368,7 +2393,7 @@ public class MenuListener implements Listener {
                         .thenAccept(punishmentId -> {
                             if (punishmentId == null) return;
 
-                            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, target, null);
+                            plugin.getSoftBanDatabaseManager().logPlayerInfoAsync(punishmentId, snapshot);
 
                             Bukkit.getScheduler().runTask(plugin, () -> {
                                 String processedCommand = commandTemplate
@@ -2744,7 +2769,7 @@ public class MenuListener implements Listener {
     }
 
     private List<Player> getMods() {
-        return Bukkit.getOnlinePlayers().stream().filter(p -> p.hasPermission(USE_PERMISSION)).collect(Collectors.toList());
+        return new ArrayList<>(plugin.getStaffRegistry().getOnline(StaffRegistry.USE_PERMISSION));
     }
 
     private void playSound(Player player, String soundKey) {
@@ -3019,11 +3044,17 @@ public class MenuListener implements Listener {
                 final String finalIpAddress = ipAddress;
                 final String finalDurationForLog = durationForLog;
                 final long finalEndTime = endTime;
+                PlayerSnapshot snapshot = PlayerSnapshot.capture(target, finalByIp ? finalIpAddress : null);
+                InventorySnapshotCodec.Contents inventoryCopy = plugin.getConfigManager().isInventorySnapshotEnabled(finalType)
+                        ? InventorySnapshotCodec.Contents.copyOf(target) : null;
                 dbManager.executePunishmentAsync(target.getUniqueId(), finalType, punishmentReason, executorName, endTime, durationForLog, byIp, finalCustomCommands, warningContext.getWarnLevel())
                         .thenAccept(punishmentId -> {
                             if (punishmentId != null) {
                                 dbManager.addAssociatedPunishmentId(warningContext.getPunishmentId(), finalType, punishmentId);
-                                dbManager.logPlayerInfoAsync(punishmentId, target, finalByIp ? finalIpAddress : null);
+                                dbManager.logPlayerInfoAsync(punishmentId, snapshot);
+                                if (inventoryCopy != null) {
+                                    dbManager.saveInventorySnapshotAsync(punishmentId, target.getUniqueId(), inventoryCopy);
+                                }
 
                                 Bukkit.getScheduler().runTask(plugin, () -> {
                                     switch (finalType) {
@@ -3199,37 +3230,33 @@ public class MenuListener implements Listener {
     public void applyIpPunishmentToOnlinePlayers(String punishmentType, String ipAddress, long endTime, String reason, String durationForLog, String punishmentId, UUID originalTargetUUID) {
         String lowerCasePunishType = punishmentType.toLowerCase();
 
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
+        for (Player onlinePlayer : plugin.getSessionIndex().getPlayers(ipAddress)) {
             if (onlinePlayer.getUniqueId().equals(originalTargetUUID)) {
                 continue;
             }
 
-            InetSocketAddress playerAddress = onlinePlayer.getAddress();
-            if (playerAddress != null && playerAddress.getAddress() != null && playerAddress.getAddress().getHostAddress().equals(ipAddress)) {
-
-                switch(lowerCasePunishType) {
-                    case "ban", "kick" -> {
-                        Date expiration = (endTime == Long.MAX_VALUE || lowerCasePunishType.equals("kick")) ? null : new Date(endTime);
-                        List<String> screenLines = lowerCasePunishType.equals("ban") ? plugin.getConfigManager().getBanScreen() : plugin.getConfigManager().getKickScreen();
-                        String kickMessage = MessageUtils.getKickMessage(screenLines, reason, durationForLog, punishmentId, expiration, plugin.getConfigManager());
-                        onlinePlayer.kickPlayer(kickMessage);
-                    }
-                    case "mute" -> {
-                        plugin.getMutedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
-                        String muteMessage = plugin.getConfigManager().getMessage("messages.you_are_muted", "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
-                        onlinePlayer.sendMessage(MessageUtils.getColorMessage(muteMessage));
-                    }
-                    case "softban" -> {
-                        plugin.getSoftBannedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
-                        plugin.getSoftbannedCommandsCache().put(onlinePlayer.getUniqueId(), plugin.getConfigManager().getBlockedCommands());
-                        String softbanMessage = plugin.getConfigManager().getMessage("messages.you_are_softbanned", "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
-                        onlinePlayer.sendMessage(MessageUtils.getColorMessage(softbanMessage));
-                    }
-                    case "freeze" -> {
-                        plugin.getPluginFrozenPlayers().put(onlinePlayer.getUniqueId(), true);
-                        plugin.getFreezeListener().startFreezeActionsTask(onlinePlayer);
-                        onlinePlayer.sendMessage(MessageUtils.getColorMessage(plugin.getConfigManager().getMessage("messages.you_are_frozen")));
-                    }
+            switch(lowerCasePunishType) {
+                case "ban", "kick" -> {
+                    Date expiration = (endTime == Long.MAX_VALUE || lowerCasePunishType.equals("kick")) ? null : new Date(endTime);
+                    List<String> screenLines = lowerCasePunishType.equals("ban") ? plugin.getConfigManager().getBanScreen() : plugin.getConfigManager().getKickScreen();
+                    String kickMessage = MessageUtils.getKickMessage(screenLines, reason, durationForLog, punishmentId, expiration, plugin.getConfigManager());
+                    onlinePlayer.kickPlayer(kickMessage);
+                }
+                case "mute" -> {
+                    plugin.getMutedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
+                    String muteMessage = plugin.getConfigManager().getMessage("messages.you_are_muted", "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
+                    onlinePlayer.sendMessage(MessageUtils.getColorMessage(muteMessage));
+                }
+                case "softban" -> {
+                    plugin.getSoftBannedPlayersCache().put(onlinePlayer.getUniqueId(), endTime);
+                    plugin.getSoftbannedCommandsCache().put(onlinePlayer.getUniqueId(), plugin.getConfigManager().getBlockedCommands());
+                    String softbanMessage = plugin.getConfigManager().getMessage("messages.you_are_softbanned", "{time}", durationForLog, "{reason}", reason, "{punishment_id}", punishmentId);
+                    onlinePlayer.sendMessage(MessageUtils.getColorMessage(softbanMessage));
+                }
+                case "freeze" -> {
+                    plugin.getPluginFrozenPlayers().put(onlinePlayer.getUniqueId(), true);
+                    plugin.getFreezeListener().startFreezeActionsTask(onlinePlayer);
+                    onlinePlayer.sendMessage(MessageUtils.getColorMessage(plugin.getConfigManager().getMessage("messages.you_are_frozen")));
                 }
             }
         }
@@ -3241,28 +3268,25 @@ public class MenuListener implements Listener {
 
     public void applyIpUnpunishmentToOnlinePlayers(String punishmentType, String ipAddress, UUID originalTargetUUID) {
         String lowerCaseType = punishmentType.toLowerCase();
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
+        for (Player onlinePlayer : plugin.getSessionIndex().getPlayers(ipAddress)) {
             if (originalTargetUUID != null && onlinePlayer.getUniqueId().equals(originalTargetUUID)) {
                 continue;
             }
-            InetSocketAddress playerAddress = onlinePlayer.getAddress();
-            if (playerAddress != null && playerAddress.getAddress() != null && playerAddress.getAddress().getHostAddress().equals(ipAddress)) {
-                switch (lowerCaseType) {
-                    case "mute" -> {
-                        plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
-                        sendConfigMessage(onlinePlayer, "messages.unmute_notification");
-                    }
-                    case "softban" -> {
-                        plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
-                        plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
-                        sendConfigMessage(onlinePlayer, "messages.unsoftban_notification");
-                    }
-                    case "freeze" -> {
-                        if (plugin.getPluginFrozenPlayers().remove(onlinePlayer.getUniqueId()) != null) {
-                            plugin.getFreezeListener().stopFreezeActionsTask(onlinePlayer.getUniqueId());
-                            plugin.getFreezeListener().endFreezeChatSession(onlinePlayer.getUniqueId());
-                            sendConfigMessage(onlinePlayer, "messages.you_are_unfrozen");
-                        }
+            switch (lowerCaseType) {
+                case "mute" -> {
+                    plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
+                    sendConfigMessage(onlinePlayer, "messages.unmute_notification");
+                }
+                case "softban" -> {
+                    plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
+                    plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
+                    sendConfigMessage(onlinePlayer, "messages.unsoftban_notification");
+                }
+                case "freeze" -> {
+                    if (plugin.getPluginFrozenPlayers().remove(onlinePlayer.getUniqueId()) != null) {
+                        plugin.getFreezeListener().stopFreezeActionsTask(onlinePlayer.getUniqueId());
+                        plugin.getFreezeListener().endFreezeChatSession(onlinePlayer.getUniqueId());
+                        sendConfigMessage(onlinePlayer, "messages.you_are_unfrozen");
                     }
                 }
             }
@@ -2,18 +2,10 @@
 package cp.corona.listeners;
 
 import cp.corona.crown.Crown;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.util.UUID;
-import java.util.logging.Level;
-
 public class PlayerChatListener implements Listener {
 
     private final Crown plugin;
@@ -24,23 +16,7 @@ public class PlayerChatListener implements Listener {
 
     @EventHandler
     public void onPlayerChat(AsyncPlayerChatEvent event) {
-        final Player player = event.getPlayer();
-        final UUID playerUUID = player.getUniqueId();
-        final String message = event.getMessage();
-
-        // Run the database insertion asynchronously to prevent blocking the main thread.
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            String sql = "INSERT INTO player_chat_history (player_uuid, message) VALUES (?, ?)";
-            try (Connection connection = plugin.getSoftBanDatabaseManager().getConnection();
-                 PreparedStatement ps = connection.prepareStatement(sql)) {
-
-                ps.setString(1, playerUUID.toString());
-                ps.setString(2, message);
-                ps.executeUpdate();
-
-            } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not log chat message for player " + player.getName(), e);
-            }
-        });
+        // Queued for the batched writer; the insert happens off the chat thread, grouped with others.
+        plugin.getSoftBanDatabaseManager().logChatMessage(event.getPlayer().getUniqueId(), event.getMessage());
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import cp.corona.database.ActiveWarningEntry;
 import cp.corona.database.DatabaseManager;
 import cp.corona.utils.MessageUtils;
 import cp.corona.utils.TimeUtils;
+import io.papermc.paper.ban.BanListType;
 import net.md_5.bungee.api.chat.ClickEvent;
 import net.md_5.bungee.api.chat.ComponentBuilder;
 import net.md_5.bungee.api.chat.HoverEvent;
@@ -23,7 +24,8 @@ import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.net.InetSocketAddress;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -37,6 +39,7 @@ import java.util.stream.Collectors;
 public class PunishmentListener implements Listener {
 
     private final Crown plugin;
+    private static final String JOIN_ALERT_TIMER = "join_alert_chat_freeze";
     private final Set<UUID> chatFrozenPlayers = new HashSet<>();
 
     public PunishmentListener(Crown plugin) {
@@ -80,9 +83,58 @@ public class PunishmentListener implements Listener {
 
             String kickMessage = getKickMessage(plugin.getConfigManager().getBanScreen(), reason, timeLeft, punishmentId, expiration);
             event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED, MessageUtils.getColorMessage(kickMessage));
+        } else {
+            enforceDatabaseBan(event, playerIP);
         }
     }
 
+    /**
+     * Bans only in the database, like imported ones: they are not copied into the ban list up front, as
+     * every addBan rewrites the whole ban file on the server thread. The entry is added once the player
+     * tries to join, so later attempts are refused by the ban list again. While the database is down
+     * only the ban list applies.
+     */
+    private void enforceDatabaseBan(AsyncPlayerPreLoginEvent event, String playerIP) {
+        DatabaseManager dbManager = plugin.getSoftBanDatabaseManager();
+        if (dbManager.isDegraded()) return;
+        DatabaseManager.PunishmentEntry ban = dbManager.getLatestActivePunishment(event.getUniqueId(), "ban");
+        boolean byIp = false;
+        if (ban == null) {
+            ban = dbManager.getLatestActivePunishmentByIp(playerIP, "ban");
+            // Other accounts' own bans share the address through player_info; only IP bans apply here.
+            if (ban == null || !ban.wasByIp()) return;
+            byIp = true;
+        }
+
+        long endTime = ban.getEndTime();
+        boolean permanent = endTime == Long.MAX_VALUE || endTime <= 0;
+        long remainingMillis = endTime - System.currentTimeMillis();
+        if (!permanent && remainingMillis <= 0) return; // Expired; the ban expiry task deactivates it.
+        Date expiration = permanent ? null : new Date(endTime);
+        String timeLeft = permanent ? plugin.getConfigManager().getMessage("placeholders.permanent_time_display")
+                : TimeUtils.formatTime((int) Math.min(Integer.MAX_VALUE, remainingMillis / 1000), plugin.getConfigManager());
+        String reason = ban.getReason() != null ? ban.getReason() : plugin.getConfigManager().getDefaultPunishmentReason("ban");
+        String kickMessage = getKickMessage(plugin.getConfigManager().getBanScreen(), reason, timeLeft, ban.getPunishmentId(), expiration);
+        event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_BANNED, MessageUtils.getColorMessage(kickMessage));
+
+        final DatabaseManager.PunishmentEntry entry = ban;
+        final boolean ipBan = byIp;
+        final UUID playerUUID = event.getUniqueId();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (ipBan) {
+                try {
+                    Bukkit.getBanList(BanListType.IP).addBan(InetAddress.getByName(playerIP), reason, expiration,
+                            entry.getPunisherName());
+                } catch (UnknownHostException e) {
+                    plugin.getLogger().warning("Invalid IP address for ban: " + playerIP);
+                }
+            } else {
+                Bukkit.getBanList(BanListType.PROFILE).addBan(Bukkit.getOfflinePlayer(playerUUID).getPlayerProfile(),
+                        reason, expiration, entry.getPunisherName());
+            }
+        });
+    }
+
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
@@ -92,33 +144,10 @@ public class PunishmentListener implements Listener {
         // Asynchronously load punishment data and populate caches
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
             DatabaseManager dbManager = plugin.getSoftBanDatabaseManager();
-            List<DatabaseManager.PunishmentEntry> allActivePunishments = dbManager.getAllActivePunishments(playerUUID, playerIP);
-
-            boolean hasMute = false;
-            boolean hasSoftban = false;
-
-            for (DatabaseManager.PunishmentEntry punishment : allActivePunishments) {
-                if (punishment.getType().equalsIgnoreCase("mute")) {
-                    plugin.getMutedPlayersCache().put(playerUUID, punishment.getEndTime());
-                    hasMute = true;
-                } else if (punishment.getType().equalsIgnoreCase("softban")) {
-                    plugin.getSoftBannedPlayersCache().put(playerUUID, punishment.getEndTime());
-                    List<String> commands = dbManager.getActiveSoftbanCustomCommands(playerUUID);
-                    if (commands != null && !commands.isEmpty()) {
-                        plugin.getSoftbannedCommandsCache().put(playerUUID, commands);
-                    } else {
-                        plugin.getSoftbannedCommandsCache().put(playerUUID, plugin.getConfigManager().getBlockedCommands());
-                    }
-                    hasSoftban = true;
-                }
-            }
-            // If no active punishments of these types were found, ensure they are not in the cache
-            if(!hasMute) plugin.getMutedPlayersCache().remove(playerUUID);
-            if(!hasSoftban) {
-                plugin.getSoftBannedPlayersCache().remove(playerUUID);
-                plugin.getSoftbannedCommandsCache().remove(playerUUID);
+            if (dbManager.isDegraded()) {
+                return; // Database down: keep whatever the caches still hold rather than clearing them.
             }
-
+            List<DatabaseManager.PunishmentEntry> allActivePunishments = dbManager.refreshPunishmentCaches(playerUUID, playerIP);
 
             // The rest of the logic is for the join alert
             if (!plugin.getConfigManager().isJoinAlertEnabled() || allActivePunishments.isEmpty()) {
@@ -157,7 +186,8 @@ public class PunishmentListener implements Listener {
                     }
                 }
 
-                Bukkit.getScheduler().runTaskLater(plugin, () -> chatFrozenPlayers.remove(playerUUID), plugin.getConfigManager().getJoinAlertDuration() * 20L);
+                plugin.getTimingWheel().schedule(playerUUID, JOIN_ALERT_TIMER,
+                        plugin.getConfigManager().getJoinAlertDuration() * 20L, () -> chatFrozenPlayers.remove(playerUUID));
             });
         });
     }
@@ -169,27 +199,27 @@ public class PunishmentListener implements Listener {
 
         plugin.getSoftBanDatabaseManager().updatePlayerLastState(player);
 
-        // Clean up caches on player quit to prevent memory leaks
-        plugin.getMutedPlayersCache().remove(playerUUID);
-        plugin.getSoftBannedPlayersCache().remove(playerUUID);
-        plugin.getSoftbannedCommandsCache().remove(playerUUID);
+        // Clean up caches on player quit to prevent memory leaks. While the database is down they are
+        // the only record of the player's mute or softban, so they stay until the next join.
+        if (!plugin.getSoftBanDatabaseManager().isDegraded()) {
+            plugin.getMutedPlayersCache().remove(playerUUID);
+            plugin.getSoftBannedPlayersCache().remove(playerUUID);
+            plugin.getSoftbannedCommandsCache().remove(playerUUID);
+        }
         plugin.getPluginFrozenPlayers().remove(playerUUID);
         chatFrozenPlayers.remove(playerUUID);
     }
 
     public void applyIpExpiryToOnlinePlayers(String punishmentType, String ipAddress) {
         String lowerCaseType = punishmentType.toLowerCase();
-        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
-            InetSocketAddress playerAddress = onlinePlayer.getAddress();
-            if (playerAddress != null && playerAddress.getAddress() != null && playerAddress.getAddress().getHostAddress().equals(ipAddress)) {
-                if (lowerCaseType.equals("mute")) {
-                    plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
-                    MessageUtils.sendConfigMessage(plugin, onlinePlayer, "messages.mute_expired");
-                } else if (lowerCaseType.equals("softban")) {
-                    plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
-                    plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
-                    MessageUtils.sendConfigMessage(plugin, onlinePlayer, "messages.softban_expired");
-                }
+        for (Player onlinePlayer : plugin.getSessionIndex().getPlayers(ipAddress)) {
+            if (lowerCaseType.equals("mute")) {
+                plugin.getMutedPlayersCache().remove(onlinePlayer.getUniqueId());
+                MessageUtils.sendConfigMessage(plugin, onlinePlayer, "messages.mute_expired");
+            } else if (lowerCaseType.equals("softban")) {
+                plugin.getSoftBannedPlayersCache().remove(onlinePlayer.getUniqueId());
+                plugin.getSoftbannedCommandsCache().remove(onlinePlayer.getUniqueId());
+                MessageUtils.sendConfigMessage(plugin, onlinePlayer, "messages.softban_expired");
             }
         }
     }
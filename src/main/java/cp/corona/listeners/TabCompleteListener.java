@@ -0,0 +1,54 @@
+package cp.corona.listeners;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import cp.corona.crown.Crown;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers tab completion for Crown's commands from Paper's async tab complete event, so typing
+ * never waits on the server thread. The completers only read in-memory state (the
+ * {@link cp.corona.utils.CompletionIndex} and online players), which is safe off the main thread.
+ * Commands with their own completer, like /mod, still complete the regular way.
+ */
+public class TabCompleteListener implements Listener {
+
+    private final Crown plugin;
+
+    public TabCompleteListener(Crown plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(ignoreCancelled = true)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (!event.isCommand() || event.isHandled()) return;
+
+        String buffer = event.getBuffer();
+        int space = buffer.indexOf(' ');
+        if (space < 0) return; // Still typing the command name, the server completes that.
+
+        String label = buffer.substring(buffer.startsWith("/") ? 1 : 0, space).toLowerCase(Locale.ROOT);
+        String namespace = plugin.getName().toLowerCase(Locale.ROOT) + ":";
+        if (label.startsWith(namespace)) {
+            label = label.substring(namespace.length());
+        }
+
+        PluginCommand command = plugin.getAsyncCompletedCommand(label);
+        if (command == null) return;
+        TabCompleter completer = command.getTabCompleter();
+        if (completer == null) return;
+
+        // Same splitting as the server: a trailing space starts a new, empty argument.
+        String[] args = buffer.substring(space + 1).split(" ", -1);
+        List<String> completions = completer.onTabComplete(event.getSender(), command, label, args);
+        if (completions != null) {
+            event.setCompletions(completions);
+            event.setHandled(true);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import cp.corona.crown.Crown;
 import cp.corona.database.DatabaseManager;
 import cp.corona.menus.profile.AuditLogBook;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
@@ -183,7 +184,9 @@ public class LockerMenu implements InventoryHolder {
     }
 
     public void open() {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", viewer);
         viewer.openInventory(inventory);
+        event.commit();
     }
 
     public void nextPage() {
@@ -3,6 +3,7 @@ package cp.corona.menus.mod;
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.moderator.ModeratorModeManager;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -151,7 +152,9 @@ public class ModSettingsMenu implements InventoryHolder {
     }
 
     public void open() {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", viewer);
         viewer.openInventory(inventory);
+        event.commit();
     }
 
     @NotNull
@@ -2,6 +2,7 @@ package cp.corona.menus.mod;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
@@ -115,7 +116,9 @@ public class ToolSelectorMenu implements InventoryHolder {
     }
 
     public void open() {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", viewer);
         viewer.openInventory(inventory);
+        event.commit();
     }
 
     @NotNull
@@ -3,6 +3,7 @@ package cp.corona.menus.profile;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -67,7 +68,9 @@ public class EnderChestMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
     public UUID getTargetUUID() {
@@ -3,6 +3,7 @@ package cp.corona.menus.profile;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.TimeUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -28,7 +29,9 @@ public class ProfileMenu implements InventoryHolder {
         OfflinePlayer target = Bukkit.getOfflinePlayer(targetUUID);
         String title = plugin.getConfigManager().getProfileMenuTitle(target);
         this.inventory = Bukkit.createInventory(this, 54, title);
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "render", null);
         initializeItems();
+        event.commit();
     }
 
     private void initializeItems() {
@@ -95,7 +98,9 @@ public class ProfileMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
     public UUID getTargetUUID() {
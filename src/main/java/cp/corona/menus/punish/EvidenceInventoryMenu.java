@@ -0,0 +1,76 @@
+package cp.corona.menus.punish;
+
+import cp.corona.crown.Crown;
+import cp.corona.utils.CrownEvents;
+import cp.corona.utils.InventorySnapshotCodec;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Read-only view of the inventory or ender chest recorded when a punishment was applied.
+ * Clicks and drags are cancelled by MenuListener.
+ */
+public class EvidenceInventoryMenu implements InventoryHolder {
+
+    // Player inventory indices 36-39 are boots..helmet, 40 is the off hand.
+    private static final int[] ARMOR_SOURCE_SLOTS = {39, 38, 37, 36};
+    private static final int ARMOR_ROW_START = 45;
+    private static final int OFF_HAND_SOURCE_SLOT = 40;
+    private static final int OFF_HAND_DISPLAY_SLOT = 50;
+
+    private final Inventory inventory;
+    private final String punishmentId;
+
+    public EvidenceInventoryMenu(Crown plugin, String punishmentId, InventorySnapshotCodec.Decoded snapshot, boolean enderChest) {
+        this.punishmentId = punishmentId;
+        if (enderChest) {
+            ItemStack[] items = snapshot.enderChestItems();
+            String title = plugin.getConfigManager().getMessage("messages.enderchest_snapshot_title", "{id}", punishmentId);
+            this.inventory = Bukkit.createInventory(this, Math.max(9, (items.length + 8) / 9 * 9), title);
+            for (int i = 0; i < items.length && i < inventory.getSize(); i++) {
+                inventory.setItem(i, items[i]);
+            }
+        } else {
+            String title = plugin.getConfigManager().getMessage("messages.inventory_snapshot_title", "{id}", punishmentId);
+            this.inventory = Bukkit.createInventory(this, 54, title);
+            fillPlayerInventoryLayout(snapshot.inventoryItems());
+        }
+    }
+
+    private void fillPlayerInventoryLayout(ItemStack[] items) {
+        // Storage rows (9-35) on top, hotbar (0-8) below them, like the player's own screen.
+        for (int i = 9; i < 36 && i < items.length; i++) {
+            inventory.setItem(i - 9, items[i]);
+        }
+        for (int i = 0; i < 9 && i < items.length; i++) {
+            inventory.setItem(27 + i, items[i]);
+        }
+        for (int i = 0; i < ARMOR_SOURCE_SLOTS.length; i++) {
+            if (ARMOR_SOURCE_SLOTS[i] < items.length) {
+                inventory.setItem(ARMOR_ROW_START + i, items[ARMOR_SOURCE_SLOTS[i]]);
+            }
+        }
+        if (OFF_HAND_SOURCE_SLOT < items.length) {
+            inventory.setItem(OFF_HAND_DISPLAY_SLOT, items[OFF_HAND_SOURCE_SLOT]);
+        }
+    }
+
+    @Override
+    public @NotNull Inventory getInventory() {
+        return inventory;
+    }
+
+    public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
+        player.openInventory(inventory);
+        event.commit();
+    }
+
+    public String getPunishmentId() {
+        return punishmentId;
+    }
+}
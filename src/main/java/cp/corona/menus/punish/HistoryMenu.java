@@ -4,6 +4,7 @@ import cp.corona.crown.Crown;
 import cp.corona.database.ActiveWarningEntry;
 import cp.corona.database.DatabaseManager;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import cp.corona.utils.TimeUtils;
 import org.bukkit.Bukkit;
@@ -157,6 +158,7 @@ public class HistoryMenu implements InventoryHolder {
                     return;
                 }
 
+                CrownEvents.MenuEvent event = CrownEvents.menu(this, "render", viewer);
                 inventory.clear();
                 placeStaticItems(target);
 
@@ -166,6 +168,7 @@ public class HistoryMenu implements InventoryHolder {
                 updatePageButtons(target, totalCount);
                 fillEmptySlotsWithBackground(target);
                 isLoadingPage = false;
+                event.commit();
             });
         });
     }
@@ -374,7 +377,9 @@ public class HistoryMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
     public UUID getTargetUUID() {
@@ -3,6 +3,7 @@ package cp.corona.menus.punish;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -278,8 +279,10 @@ public class PunishDetailsMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         updateInventory();
         player.openInventory(inventory);
+        event.commit();
     }
 
     public void togglePunishMethod() {
@@ -3,6 +3,7 @@ package cp.corona.menus.punish;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
@@ -53,8 +54,10 @@ public class PunishMenu implements InventoryHolder {
         // Using getMenuText for title to process placeholders and colors
         String title = plugin.getConfigManager().getMenuText("title", target);
         inventory = Bukkit.createInventory(this, 54, title); // Using a fixed size inventory (54 slots = 6 rows)
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "render", null);
         loadMenuItems(); // Load menu items dynamically from config
         initializeItems(target); // Pass target to initializeItems
+        event.commit();
     }
 
     /**
@@ -131,7 +134,9 @@ public class PunishMenu implements InventoryHolder {
      * @param player The player to open the menu for.
      */
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
 
@@ -2,6 +2,7 @@ package cp.corona.menus.punish;
 
 import cp.corona.crown.Crown;
 import cp.corona.menus.items.MenuItem;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.TimeUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -219,7 +220,9 @@ public class TimeSelectorMenu implements InventoryHolder {
      * @param player Player to open the menu for.
      */
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
 
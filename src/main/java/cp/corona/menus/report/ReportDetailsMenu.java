@@ -6,6 +6,7 @@ import cp.corona.crown.Crown;
 import cp.corona.database.DatabaseManager;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.report.ReportStatus;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -262,7 +263,9 @@ public class ReportDetailsMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 
     public DatabaseManager.ReportEntry getReportEntry() {
@@ -4,6 +4,7 @@ import cp.corona.crown.Crown;
 import cp.corona.database.DatabaseManager;
 import cp.corona.menus.items.MenuItem;
 import cp.corona.report.ReportStatus;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
@@ -33,6 +34,10 @@ public class ReportsMenu implements InventoryHolder {
     private boolean filterAsRequester = false;
     private boolean filterAssignedToMe = false;
     private String reportTypeFilter = null; // ADDED
+    // Total for the current filters; page turns reuse it instead of counting again.
+    private int totalCount = -1;
+    private String countedFilters = null;
+    private List<DatabaseManager.ReportEntry> shownReports = null;
 
     private static final List<Integer> REPORT_SLOTS = List.of(
             10, 11, 12, 13, 14, 15, 16,
@@ -91,32 +96,55 @@ public class ReportsMenu implements InventoryHolder {
         }
 
         UUID assignedTo = filterAssignedToMe ? viewer.getUniqueId() : null;
+        String filters = filterStatus + "|" + filterName + "|" + filterAsRequester + "|" + filterAssignedToMe + "|" + reportTypeFilter;
+        int requestedPage = page;
+        shownReports = null;
+
+        // Rows and the count are fetched in parallel; whichever arrives first is shown right away.
+        if (!filters.equals(countedFilters)) {
+            countedFilters = filters;
+            totalCount = -1;
+            plugin.getSoftBanDatabaseManager().countReports(filterStatus, filterName, filterAsRequester, assignedTo, reportTypeFilter)
+                    .thenAccept(count -> Bukkit.getScheduler().runTask(plugin, () -> {
+                        if (!filters.equals(countedFilters)) return;
+                        totalCount = count;
+                        if (shownReports != null) render(shownReports);
+                    }));
+        }
+        plugin.getSoftBanDatabaseManager().getReports(page, entriesPerPage, filterStatus, filterName, filterAsRequester, assignedTo, reportTypeFilter)
+                .thenAccept(reportEntries -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (!filters.equals(countedFilters) || page != requestedPage) return;
+                    shownReports = reportEntries;
+                    render(reportEntries);
+                }));
+    }
 
-        plugin.getSoftBanDatabaseManager().countReports(filterStatus, filterName, filterAsRequester, assignedTo, reportTypeFilter).thenAcceptBothAsync(
-                plugin.getSoftBanDatabaseManager().getReports(page, entriesPerPage, filterStatus, filterName, filterAsRequester, assignedTo, reportTypeFilter),
-                (totalCount, reportEntries) -> Bukkit.getScheduler().runTask(plugin, () -> {
-                    if (viewer == null || !viewer.isOnline() || viewer.getOpenInventory().getTopInventory().getHolder() != this) return;
-
-                    this.totalPages = (int) Math.ceil((double) totalCount / (double) entriesPerPage);
-                    if (this.totalPages == 0) this.totalPages = 1;
-                    if (this.page > this.totalPages) this.page = this.totalPages;
-
-                    String title = plugin.getConfigManager().getReportsMenuConfig().getConfig().getString("menu.title", "&c&lReports Menu ({page}/{max_pages})")
-                            .replace("{page}", String.valueOf(page))
-                            .replace("{max_pages}", String.valueOf(totalPages));
-                    title = MessageUtils.getColorMessage(title);
-
-                    if (!viewer.getOpenInventory().getTitle().equals(title)) {
-                        Inventory newInv = Bukkit.createInventory(this, 54, title);
-                        inventory.setContents(newInv.getContents());
-                        viewer.openInventory(inventory);
-                        initializeItems(reportEntries);
-                    } else {
-                        initializeItems(reportEntries);
-                        viewer.updateInventory();
-                    }
-                })
-        );
+    private void render(List<DatabaseManager.ReportEntry> reportEntries) {
+        if (viewer == null || !viewer.isOnline() || viewer.getOpenInventory().getTopInventory().getHolder() != this) return;
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "render", viewer);
+
+        // Until the count arrives, assume there is a next page when this one is full.
+        int knownCount = totalCount >= 0 ? totalCount
+                : (page - 1) * entriesPerPage + reportEntries.size() + (reportEntries.size() == entriesPerPage ? 1 : 0);
+        this.totalPages = (int) Math.ceil((double) knownCount / (double) entriesPerPage);
+        if (this.totalPages == 0) this.totalPages = 1;
+        if (totalCount >= 0 && this.page > this.totalPages) this.page = this.totalPages;
+
+        String title = plugin.getConfigManager().getReportsMenuConfig().getConfig().getString("menu.title", "&c&lReports Menu ({page}/{max_pages})")
+                .replace("{page}", String.valueOf(page))
+                .replace("{max_pages}", totalCount >= 0 ? String.valueOf(totalPages) : "?");
+        title = MessageUtils.getColorMessage(title);
+
+        if (!viewer.getOpenInventory().getTitle().equals(title)) {
+            Inventory newInv = Bukkit.createInventory(this, 54, title);
+            inventory.setContents(newInv.getContents());
+            viewer.openInventory(inventory);
+            initializeItems(reportEntries);
+        } else {
+            initializeItems(reportEntries);
+            viewer.updateInventory();
+        }
+        event.commit();
     }
 
     private void initializeItems(List<DatabaseManager.ReportEntry> reports) {
@@ -331,6 +359,8 @@ public class ReportsMenu implements InventoryHolder {
     }
 
     public void open(Player player) {
+        CrownEvents.MenuEvent event = CrownEvents.menu(this, "open", player);
         player.openInventory(inventory);
+        event.commit();
     }
 }
\ No newline at end of file
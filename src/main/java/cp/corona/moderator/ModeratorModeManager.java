@@ -1,7 +1,9 @@
 package cp.corona.moderator;
 
 import cp.corona.crown.Crown;
+import cp.corona.utils.CrownEvents;
 import cp.corona.utils.MessageUtils;
+import cp.corona.utils.StaffRegistry;
 import me.clip.placeholderapi.PlaceholderAPI;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -19,7 +21,6 @@ import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.Sound;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -44,7 +45,7 @@ public class ModeratorModeManager {
     private final NamespacedKey toolIdKey;
 
     private final Map<UUID, UUID> selectedPlayers = new ConcurrentHashMap<>();
-    private final Map<UUID, BukkitTask> spectatorTasks = new ConcurrentHashMap<>();
+    private static final String SPECTATOR_TIMER = "mod_spectator";
     private final Map<UUID, String> awaitingInput = new ConcurrentHashMap<>();
 
     private final Map<UUID, Long> lastInteraction = new ConcurrentHashMap<>();
@@ -121,6 +122,8 @@ public class ModeratorModeManager {
     public void enableModeratorMode(Player player, boolean knownSilentState, boolean isAutoJoin) {
         if (savedStates.containsKey(player.getUniqueId())) return; // Already enabled
 
+        CrownEvents.ModeratorModeEvent event = new CrownEvents.ModeratorModeEvent();
+        event.begin();
         PlayerState state = new PlayerState(player);
         savedStates.put(player.getUniqueId(), state);
         saveSessionToDiskAsync(player.getUniqueId(), state);
@@ -255,9 +258,12 @@ public class ModeratorModeManager {
         // Notify player
         String msgKey = (isAutoJoin && knownSilentState) ? "messages.mod_mode_enabled_silent" : "messages.mod_mode_enabled";
         MessageUtils.sendConfigMessage(plugin, player, msgKey);
+        commitToggleEvent(event, player, true, isAutoJoin);
     }
 
     private void disableModeratorMode(Player player, boolean isDisconnecting) {
+        CrownEvents.ModeratorModeEvent event = new CrownEvents.ModeratorModeEvent();
+        event.begin();
         boolean wasSilent = isSilent(player.getUniqueId());
 
         // Save preferences before disabling
@@ -302,6 +308,18 @@ public class ModeratorModeManager {
                 broadcastFakeJoin(player);
             }
         }
+        commitToggleEvent(event, player, false, isDisconnecting);
+    }
+
+    private static void commitToggleEvent(CrownEvents.ModeratorModeEvent event, Player player, boolean enabled,
+            boolean automatic) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.enabled = enabled;
+            event.automatic = automatic;
+            event.commit();
+        }
     }
 
     public void disableAllModerators() {
@@ -920,14 +938,8 @@ public class ModeratorModeManager {
         }
     }
 
-    public boolean isSpectatorTaskActive(UUID uuid) { return spectatorTasks.containsKey(uuid); }
-    public void addSpectatorTask(UUID uuid, BukkitTask task) { spectatorTasks.put(uuid, task); }
-    public void cancelAndRemoveSpectatorTask(UUID uuid) {
-        if (spectatorTasks.containsKey(uuid)) {
-            spectatorTasks.get(uuid).cancel();
-            spectatorTasks.remove(uuid);
-        }
-    }
+    public boolean isSpectatorTaskActive(UUID uuid) { return plugin.getTimingWheel().isScheduled(uuid, SPECTATOR_TIMER); }
+    public void cancelAndRemoveSpectatorTask(UUID uuid) { plugin.getTimingWheel().cancel(uuid, SPECTATOR_TIMER); }
 
     public void setAwaitingInput(Player player, String type) { awaitingInput.put(player.getUniqueId(), type); }
     public String getInputType(Player player) { return awaitingInput.get(player.getUniqueId()); }
@@ -950,10 +962,11 @@ public class ModeratorModeManager {
         player.setCollidable(false);
         player.setGlowing(true); // NEW: Enable glowing for visibility to other staff
 
+        StaffRegistry staff = plugin.getStaffRegistry();
         for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
             // Logic: Hide from everyone who doesn't have permission.
             // Those with permission will see the player (showPlayer) and see the glow.
-            if (!onlinePlayer.hasPermission("crown.mod.seevanish")) onlinePlayer.hidePlayer(plugin, player);
+            if (!staff.has(onlinePlayer, StaffRegistry.SEE_VANISH_PERMISSION)) onlinePlayer.hidePlayer(plugin, player);
         }
     }
 
@@ -970,10 +983,12 @@ public class ModeratorModeManager {
     }
 
     public void updateVanishedPlayerVisibility(Player observer) {
+        if (vanishedPlayers.isEmpty()) return;
+        boolean canSee = plugin.getStaffRegistry().has(observer, StaffRegistry.SEE_VANISH_PERMISSION);
         for (UUID vanishedUUID : vanishedPlayers) {
             Player vanishedPlayer = Bukkit.getPlayer(vanishedUUID);
             if (vanishedPlayer != null && !observer.getUniqueId().equals(vanishedUUID)) {
-                if (!observer.hasPermission("crown.mod.seevanish")) observer.hidePlayer(plugin, vanishedPlayer);
+                if (!canSee) observer.hidePlayer(plugin, vanishedPlayer);
                 else observer.showPlayer(plugin, vanishedPlayer);
             }
         }
@@ -1008,14 +1023,8 @@ public class ModeratorModeManager {
         long endTime = System.currentTimeMillis() + (durationSeconds * 1000L);
         spectatorExpirations.put(player.getUniqueId(), endTime);
 
-        BukkitTask task = new org.bukkit.scheduler.BukkitRunnable() {
-            @Override
-            public void run() {
-                exitSpectatorMode(player);
-            }
-        }.runTaskLater(plugin, durationSeconds * 20L);
-
-        addSpectatorTask(player.getUniqueId(), task);
+        plugin.getTimingWheel().schedule(player.getUniqueId(), SPECTATOR_TIMER, durationSeconds * 20L,
+                () -> exitSpectatorMode(player));
     }
 
     public void exitSpectatorMode(Player player) {
@@ -2,6 +2,7 @@ package cp.corona.report;
 
 import cp.corona.config.MainConfigManager;
 import cp.corona.crown.Crown;
+import cp.corona.database.PlayerSnapshot;
 import cp.corona.utils.MessageUtils;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
@@ -10,13 +11,11 @@ import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.Statistic;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -210,18 +209,15 @@ public class ReportBookManager {
     }
 
     public void createDirectReport(Player player, OfflinePlayer target, String reason) {
-        String collectedData = "";
-        if (target.isOnline()) {
-            Player onlineTarget = target.getPlayer();
-            collectedData = collectPlayerData(onlineTarget);
-        }
+        String address = getAddress(player);
+        String collectedData = PlayerSnapshot.capture(target).toCollectedData();
 
         plugin.getSoftBanDatabaseManager().createReport(
                 player.getUniqueId(), target.getUniqueId(), target.getName(),
                 "PLAYER", "Direct", reason, "N/A", collectedData
         ).thenAccept(reportId -> {
             if (reportId != null) {
-                recordReportTimestamp(player.getUniqueId());
+                recordReportTimestamp(player.getUniqueId(), address);
                 MessageUtils.sendConfigMessage(plugin, player, "messages.report_submitted", "{report_id}", reportId);
                 String notifyMessage = plugin.getConfigManager().getMessage("messages.report_staff_notification",
                         "{requester}", player.getName(), "{target}", target.getName(), "{reason}", reason);
@@ -240,13 +236,10 @@ public class ReportBookManager {
             player.closeInventory();
         }
 
+        String address = getAddress(player);
         String collectedData = "";
         if (builder.targetUUID != null) {
-            OfflinePlayer target = Bukkit.getOfflinePlayer(builder.targetUUID);
-            if (target.isOnline()) {
-                Player onlineTarget = target.getPlayer();
-                collectedData = collectPlayerData(onlineTarget);
-            }
+            collectedData = PlayerSnapshot.capture(Bukkit.getOfflinePlayer(builder.targetUUID)).toCollectedData();
         }
 
         plugin.getSoftBanDatabaseManager().createReport(
@@ -254,7 +247,7 @@ public class ReportBookManager {
                 builder.reportType, builder.category, builder.reason, builder.details, collectedData
         ).thenAccept(reportId -> {
             if (reportId != null) {
-                recordReportTimestamp(player.getUniqueId());
+                recordReportTimestamp(player.getUniqueId(), address);
                 MessageUtils.sendConfigMessage(plugin, player, "messages.report_submitted", "{report_id}", reportId);
                 String notifyMessage = plugin.getConfigManager().getMessage("messages.report_staff_notification",
                         "{requester}", player.getName(), "{target}", builder.targetName, "{reason}", builder.reason);
@@ -267,23 +260,6 @@ public class ReportBookManager {
         });
     }
 
-    private String collectPlayerData(Player player) {
-        return String.format("HP:%.1f, HUNGER:%d, XP:%d, LOC:%s %d,%d,%d, IP:%s, PING:%d, GM:%s, KILLS:%d, DEATHS:%d",
-                player.getHealth(),
-                player.getFoodLevel(),
-                player.getLevel(),
-                player.getWorld().getName(),
-                player.getLocation().getBlockX(),
-                player.getLocation().getBlockY(),
-                player.getLocation().getBlockZ(),
-                player.getAddress() != null ? player.getAddress().getHostString() : "N/A",
-                player.getPing(),
-                player.getGameMode().toString(),
-                player.getStatistic(Statistic.PLAYER_KILLS),
-                player.getStatistic(Statistic.DEATHS)
-        );
-    }
-
     public boolean isAwaitingInput(Player player) {
         ReportBuilder builder = reportSessions.get(player.getUniqueId());
         return builder != null && builder.inputState != null;
@@ -294,47 +270,49 @@ public class ReportBookManager {
             return true;
         }
 
-        UUID playerUUID = player.getUniqueId();
-        long currentTime = System.currentTimeMillis();
-        List<Long> timestamps = plugin.getPlayerReportTimestamps().getOrDefault(playerUUID, new ArrayList<>());
-
-        int cooldownSeconds = plugin.getConfigManager().getReportCooldown();
-        if (cooldownSeconds > 0 && !timestamps.isEmpty()) {
-            long lastReportTime = timestamps.get(timestamps.size() - 1);
-            long timeSinceLast = (currentTime - lastReportTime) / 1000;
-            if (timeSinceLast < cooldownSeconds) {
-                long timeLeft = cooldownSeconds - timeSinceLast;
-                MessageUtils.sendConfigMessage(plugin, player, "messages.report_cooldown", "{time}", String.valueOf(timeLeft));
-                return false;
-            }
+        MainConfigManager config = plugin.getConfigManager();
+        long cooldownMillis = plugin.getReportRateLimiter()
+                .getCooldownMillis(player.getUniqueId(), config.getReportCooldown() * 1000L);
+        if (cooldownMillis > 0) {
+            long timeLeft = (cooldownMillis + 999) / 1000;
+            MessageUtils.sendConfigMessage(plugin, player, "messages.report_cooldown", "{time}", String.valueOf(timeLeft));
+            return false;
         }
 
-        if (plugin.getConfigManager().isReportRateLimitEnabled()) {
-            int limitAmount = plugin.getConfigManager().getReportRateLimitAmount();
-            int limitPeriod = plugin.getConfigManager().getReportRateLimitPeriod();
-            long periodMillis = limitPeriod * 1000L;
-
-            long recentReports = timestamps.stream()
-                    .filter(timestamp -> (currentTime - timestamp) < periodMillis)
-                    .count();
+        if (config.isReportRateLimitEnabled() && plugin.getReportRateLimiter().isLimited(player.getUniqueId(),
+                config.getReportRateLimitAmount(), config.getReportRateLimitPeriod() * 1000L)) {
+            MessageUtils.sendConfigMessage(plugin, player, "messages.report_rate_limit");
+            return false;
+        }
 
-            if (recentReports >= limitAmount) {
-                MessageUtils.sendConfigMessage(plugin, player, "messages.report_rate_limit");
-                return false;
-            }
+        // Alts on one connection share a budget, so switching accounts does not reset the limit.
+        String address = getAddress(player);
+        if (address != null && config.isReportIpRateLimitEnabled() && plugin.getIpReportRateLimiter().isLimited(address,
+                config.getReportIpRateLimitAmount(), config.getReportIpRateLimitPeriod() * 1000L)) {
+            MessageUtils.sendConfigMessage(plugin, player, "messages.report_rate_limit");
+            return false;
         }
 
         return true;
     }
 
-    public void recordReportTimestamp(UUID playerUUID) {
-        long currentTime = System.currentTimeMillis();
-        List<Long> timestamps = plugin.getPlayerReportTimestamps().computeIfAbsent(playerUUID, k -> new ArrayList<>());
+    public void recordReportTimestamp(UUID playerUUID, String address) {
+        MainConfigManager config = plugin.getConfigManager();
+        long cooldownMillis = config.getReportCooldown() * 1000L;
+        int amount = config.isReportRateLimitEnabled() ? config.getReportRateLimitAmount() : 1;
+        plugin.getReportRateLimiter().record(playerUUID, amount,
+                Math.max(cooldownMillis, config.getReportRateLimitPeriod() * 1000L));
 
-        long periodMillis = plugin.getConfigManager().getReportRateLimitPeriod() * 1000L;
-        timestamps.removeIf(timestamp -> (currentTime - timestamp) > periodMillis);
+        if (address != null && config.isReportIpRateLimitEnabled()) {
+            plugin.getIpReportRateLimiter().record(address, config.getReportIpRateLimitAmount(),
+                    config.getReportIpRateLimitPeriod() * 1000L);
+        }
+    }
 
-        timestamps.add(currentTime);
+    private static String getAddress(Player player) {
+        InetSocketAddress socketAddress = player.getAddress();
+        return socketAddress != null && socketAddress.getAddress() != null
+                ? socketAddress.getAddress().getHostAddress() : null;
     }
 
     private static class ReportBuilder {
@@ -0,0 +1,311 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory prefix indexes behind tab completion, so completing never touches the database:
+ * a trie of punishment IDs (every active one plus the most recent ones) and a sorted index of
+ * every player name this server knows, online or not.
+ * <p>
+ * Loaded once on enable, then kept current by the punishment paths, the change feed and joins.
+ * Safe to query from {@code AsyncTabCompleteEvent} threads.
+ */
+public class CompletionIndex implements Listener {
+
+    private static final int RECENT_CAPACITY = 500;
+    private static final long DEGRADED_RETRY_TICKS = 100L;
+
+    /**
+     * Trie over upper-cased IDs. Nodes keep their children in small sorted arrays, as IDs share
+     * few prefixes beyond the first characters and a full 36-slot table per node would waste memory.
+     */
+    private static final class IdTrie {
+        private static final class Node {
+            private char[] keys = new char[0];
+            private Node[] children = new Node[0];
+            private boolean terminal;
+
+            private Node child(char key) {
+                int index = Arrays.binarySearch(keys, key);
+                return index >= 0 ? children[index] : null;
+            }
+
+            private Node childOrCreate(char key) {
+                int index = Arrays.binarySearch(keys, key);
+                if (index >= 0) return children[index];
+                int insert = -index - 1;
+                char[] newKeys = new char[keys.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, insert);
+                System.arraycopy(children, 0, newChildren, 0, insert);
+                newKeys[insert] = key;
+                newChildren[insert] = new Node();
+                System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+                System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+                keys = newKeys;
+                children = newChildren;
+                return newChildren[insert];
+            }
+
+            private void removeChild(char key) {
+                int index = Arrays.binarySearch(keys, key);
+                if (index < 0) return;
+                char[] newKeys = new char[keys.length - 1];
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(keys, 0, newKeys, 0, index);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+                System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+                keys = newKeys;
+                children = newChildren;
+            }
+        }
+
+        private final Node root = new Node();
+        private int size;
+
+        private void add(String id) {
+            Node node = root;
+            for (int i = 0; i < id.length(); i++) {
+                node = node.childOrCreate(id.charAt(i));
+            }
+            if (!node.terminal) {
+                node.terminal = true;
+                size++;
+            }
+        }
+
+        private void remove(String id) {
+            remove(root, id, 0);
+        }
+
+        private void clear() {
+            root.keys = new char[0];
+            root.children = new Node[0];
+            root.terminal = false;
+            size = 0;
+        }
+
+        /** Returns true when the node became empty and was pruned by its parent. */
+        private boolean remove(Node node, String id, int depth) {
+            if (depth == id.length()) {
+                if (!node.terminal) return false;
+                node.terminal = false;
+                size--;
+                return node.keys.length == 0;
+            }
+            Node child = node.child(id.charAt(depth));
+            if (child == null) return false;
+            if (remove(child, id, depth + 1)) {
+                node.removeChild(id.charAt(depth));
+            }
+            return node != root && !node.terminal && node.keys.length == 0;
+        }
+
+        /** Up to {@code limit} IDs starting with the prefix, in lexicographic order. */
+        private void collect(String prefix, int limit, List<String> out) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node != null) {
+                collect(node, new StringBuilder(prefix), limit, out);
+            }
+        }
+
+        private void collect(Node node, StringBuilder path, int limit, List<String> out) {
+            if (out.size() >= limit) return;
+            if (node.terminal) {
+                out.add("#" + path);
+            }
+            for (int i = 0; i < node.keys.length && out.size() < limit; i++) {
+                path.append(node.keys[i]);
+                collect(node.children[i], path, limit, out);
+                path.setLength(path.length() - 1);
+            }
+        }
+    }
+
+    private final Crown plugin;
+
+    // Guarded by this. An ID stays in the trie while it is active or among the recent ones.
+    private final IdTrie ids = new IdTrie();
+    private final Set<String> activeIds = new HashSet<>();
+    private final Set<String> recentIds = new HashSet<>();
+    private final Deque<String> recentOrder = new ArrayDeque<>();
+
+    // Lower-cased name to display name; the UUID map drops a player's old name when they rename.
+    private final NavigableMap<String, String> names = new ConcurrentSkipListMap<>();
+    private final Map<UUID, String> nameByPlayer = new ConcurrentHashMap<>();
+
+    public CompletionIndex(Crown plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Loads known names in the background; completion works, partially, meanwhile. Punishment IDs
+     * follow once the database is set up, see {@link #loadPunishmentIds()}.
+     */
+    public void start() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            addName(player.getUniqueId(), player.getName());
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            for (OfflinePlayer player : Bukkit.getOfflinePlayers()) {
+                if (player.getName() != null) {
+                    addName(player.getUniqueId(), player.getName());
+                }
+            }
+        });
+    }
+
+    /** Reads the punishment IDs in the background; called once the schema is set up and the journal replayed. */
+    public void loadPunishmentIds() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> readPunishmentIds(false));
+    }
+
+    /** Re-reads the punishment IDs in the background, after the punishment table was replaced wholesale. */
+    public void reloadPunishmentIds() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> readPunishmentIds(true));
+    }
+
+    private void readPunishmentIds(boolean replace) {
+        if (plugin.getSoftBanDatabaseManager().isDegraded()) {
+            // Journaled writes are still being replayed; read once they are in the database.
+            Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> readPunishmentIds(replace), DEGRADED_RETRY_TICKS);
+            return;
+        }
+        List<String> recent = plugin.getSoftBanDatabaseManager().getRecentPunishmentIds(RECENT_CAPACITY);
+        List<String> active = plugin.getSoftBanDatabaseManager().getAllActivePunishmentIds();
+        synchronized (this) {
+            if (replace) {
+                // Swapped in one step, so completion never sees a half-loaded set.
+                ids.clear();
+                activeIds.clear();
+                recentIds.clear();
+                recentOrder.clear();
+            }
+            // Oldest first, so the newest end up at the back of the recent queue.
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                addRecent(normalizeId(recent.get(i)));
+            }
+            for (String id : active) {
+                String normalized = normalizeId(id);
+                if (activeIds.add(normalized)) {
+                    ids.add(normalized);
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            ids.clear();
+            activeIds.clear();
+            recentIds.clear();
+            recentOrder.clear();
+        }
+        names.clear();
+        nameByPlayer.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        addName(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+    }
+
+    /** Records a new punishment; {@code active} is false for one-off ones like kicks. */
+    public synchronized void addPunishment(String punishmentId, boolean active) {
+        if (punishmentId == null) return;
+        String id = normalizeId(punishmentId);
+        addRecent(id);
+        if (active && activeIds.add(id)) {
+            ids.add(id);
+        }
+    }
+
+    /** The punishment was lifted; it stays completable while it is among the recent ones. */
+    public synchronized void deactivatePunishment(String punishmentId) {
+        if (punishmentId == null) return;
+        String id = normalizeId(punishmentId);
+        if (activeIds.remove(id) && !recentIds.contains(id)) {
+            ids.remove(id);
+        }
+    }
+
+    /** IDs starting with the typed text, which may include the leading '#'. */
+    public List<String> completeIds(String typed, int limit) {
+        String prefix = normalizeId(typed);
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        synchronized (this) {
+            ids.collect(prefix, limit, out);
+        }
+        return out;
+    }
+
+    /** Known player names starting with the typed text, ignoring case. */
+    public List<String> completeNames(String typed, int limit) {
+        String prefix = typed.toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>(Math.min(limit, 16));
+        for (String name : names.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            if (out.size() >= limit) break;
+            out.add(name);
+        }
+        return out;
+    }
+
+    public synchronized int getIdCount() {
+        return ids.size;
+    }
+
+    public int getNameCount() {
+        return names.size();
+    }
+
+    private void addName(UUID uuid, String name) {
+        String previous = nameByPlayer.put(uuid, name);
+        if (previous != null && !previous.equals(name)) {
+            names.remove(previous.toLowerCase(Locale.ROOT), previous);
+        }
+        names.put(name.toLowerCase(Locale.ROOT), name);
+    }
+
+    private void addRecent(String id) {
+        if (!recentIds.add(id)) return;
+        recentOrder.addLast(id);
+        ids.add(id);
+        if (recentOrder.size() > RECENT_CAPACITY) {
+            String evicted = recentOrder.removeFirst();
+            recentIds.remove(evicted);
+            if (!activeIds.contains(evicted)) {
+                ids.remove(evicted);
+            }
+        }
+    }
+
+    private static String normalizeId(String id) {
+        String trimmed = id.startsWith("#") ? id.substring(1) : id;
+        return trimmed.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,130 @@
+package cp.corona.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+import org.bukkit.entity.Player;
+
+/**
+ * Java Flight Recorder events for Crown's own work, so punishments, menus, queries and chat
+ * handling show up next to GC and tick stalls in the same recording.
+ * <p>
+ * When no recording has the events enabled, {@code begin()} and {@code commit()} are no-ops the
+ * JIT removes, and the fields are only filled in after {@link Event#shouldCommit()} says so.
+ * Events are enabled by default; thresholds can be changed per event name in a .jfc settings file.
+ */
+public final class CrownEvents {
+
+    private static final String CATEGORY = "Crown";
+
+    private CrownEvents() {
+    }
+
+    @Name("cp.corona.Punishment")
+    @Label("Punishment")
+    @Description("A punishment or unpunishment written to the database")
+    @Category({CATEGORY, "Moderation"})
+    public static final class PunishmentEvent extends Event {
+        @Label("Action")
+        public String action;
+        @Label("Type")
+        public String punishmentType;
+        @Label("Target")
+        public String target;
+        @Label("By IP")
+        public boolean byIp;
+        @Label("Punishment ID")
+        public String punishmentId;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("cp.corona.ExpiryBatch")
+    @Label("Expiry Batch")
+    @Description("One pass of an expiry sweep over a punishment table")
+    @Category({CATEGORY, "Moderation"})
+    @StackTrace(false)
+    public static final class ExpiryBatchEvent extends Event {
+        @Label("Table")
+        public String table;
+        @Label("Expired")
+        public int expired;
+    }
+
+    @Name("cp.corona.Menu")
+    @Label("Menu")
+    @Description("A menu being rendered or opened for a player")
+    @Category({CATEGORY, "Menus"})
+    @StackTrace(false)
+    public static final class MenuEvent extends Event {
+        @Label("Menu")
+        public String menu;
+        @Label("Phase")
+        public String phase;
+        @Label("Player")
+        public String player;
+    }
+
+    @Name("cp.corona.DatabaseQuery")
+    @Label("Database Query")
+    @Description("A statement executed through the pool; reading its result set is not included")
+    @Category({CATEGORY, "Database"})
+    @Threshold("1 ms")
+    public static final class QueryEvent extends Event {
+        @Label("Query")
+        public String query;
+        @Label("Rows")
+        public long rows;
+        @Label("Pool Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        public long poolWait;
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("cp.corona.ChatStage")
+    @Label("Chat Stage")
+    @Description("One chat handler or chat logging step")
+    @Category({CATEGORY, "Chat"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class ChatStageEvent extends Event {
+        @Label("Stage")
+        public String stage;
+        @Label("Player")
+        public String player;
+        @Label("Cancelled")
+        public boolean cancelled;
+    }
+
+    @Name("cp.corona.ModeratorMode")
+    @Label("Moderator Mode Toggle")
+    @Description("Moderator mode being enabled or disabled for a player")
+    @Category({CATEGORY, "Moderation"})
+    @StackTrace(false)
+    public static final class ModeratorModeEvent extends Event {
+        @Label("Player")
+        public String player;
+        @Label("Enabled")
+        public boolean enabled;
+        @Label("Automatic")
+        public boolean automatic;
+    }
+
+    /** Starts a menu event; commit it once the phase is done. */
+    public static MenuEvent menu(Object menu, String phase, Player player) {
+        MenuEvent event = new MenuEvent();
+        if (event.isEnabled()) {
+            event.menu = menu.getClass().getSimpleName();
+            event.phase = phase;
+            event.player = player != null ? player.getName() : null;
+        }
+        event.begin();
+        return event;
+    }
+}
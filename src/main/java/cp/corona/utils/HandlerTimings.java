@@ -0,0 +1,253 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+import cp.corona.menus.actions.ClickAction;
+import io.papermc.paper.event.player.AsyncChatEvent;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.PluginManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per event handler and per menu click action execution times, kept in lock-free histograms.
+ * <p>
+ * Listeners registered through {@link #registerEvents(Listener)} get one timed executor per
+ * {@code @EventHandler} method, named {@code Listener.method}. Menu actions are recorded by
+ * MenuListener as {@code Menu:ACTION}. Shown with /crown timings and exportable as CSV.
+ * Chat handlers also emit {@link CrownEvents.ChatStageEvent} for flight recordings.
+ */
+public class HandlerTimings {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /** Log-linear histogram of nanosecond samples, about 12% bucket precision. */
+    public static final class Histogram {
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        public void record(long nanos) {
+            long value = Math.max(0L, nanos);
+            buckets.incrementAndGet(indexOf(value));
+            count.increment();
+            totalNanos.add(value);
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+
+        /** Empties the histogram in place, so executors holding it keep recording into the live entry. */
+        void clear() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0L);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0L);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getAverageNanos() {
+            long samples = count.sum();
+            return samples == 0 ? 0L : totalNanos.sum() / samples;
+        }
+
+        public long getPercentileNanos(double quantile) {
+            long samples = count.sum();
+            if (samples == 0) return 0L;
+            long rank = (long) Math.ceil(quantile * samples);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        private static int indexOf(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+            int subBucket = (int) (value >>> (magnitude - 1)) & (SUB_BUCKETS - 1);
+            return Math.min(magnitude * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+        }
+
+        private static long upperBoundOf(int index) {
+            int magnitude = index / SUB_BUCKETS;
+            int subBucket = index % SUB_BUCKETS;
+            if (magnitude == 0) return subBucket;
+            return ((long) (SUB_BUCKETS + subBucket + 1) << (magnitude - 1)) - 1;
+        }
+    }
+
+    private final Crown plugin;
+    private final boolean enabled;
+    private final Map<String, Histogram> handlers = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> actions = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    public HandlerTimings(Crown plugin, boolean enabled) {
+        this.plugin = plugin;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers the listener like {@link PluginManager#registerEvents}, but with a timed executor
+     * per handler method. Falls back to the plain registration when timings are disabled.
+     */
+    public void registerEvents(Listener listener) {
+        PluginManager pluginManager = plugin.getServer().getPluginManager();
+        if (!enabled) {
+            pluginManager.registerEvents(listener, plugin);
+            return;
+        }
+
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.isBridge() || method.isSynthetic() || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            method.setAccessible(true);
+            EventExecutor delegate = EventExecutor.create(method, eventClass);
+            String name = listener.getClass().getSimpleName() + "." + method.getName();
+            Histogram histogram = handlers.computeIfAbsent(name, Histogram::new);
+            boolean chat = AsyncPlayerChatEvent.class.isAssignableFrom(eventClass)
+                    || AsyncChatEvent.class.isAssignableFrom(eventClass);
+
+            EventExecutor timed = (Listener target, Event event) -> {
+                if (!eventClass.isInstance(event)) return;
+                CrownEvents.ChatStageEvent stage = chat ? new CrownEvents.ChatStageEvent() : null;
+                if (stage != null) stage.begin();
+                long start = System.nanoTime();
+                try {
+                    delegate.execute(target, event);
+                } finally {
+                    histogram.record(System.nanoTime() - start);
+                    if (stage != null) commitChatStage(stage, name, event);
+                }
+            };
+            pluginManager.registerEvent(eventClass, listener, annotation.priority(), timed, plugin,
+                    annotation.ignoreCancelled());
+        }
+    }
+
+    private static void commitChatStage(CrownEvents.ChatStageEvent stage, String name, Event event) {
+        stage.end();
+        if (stage.shouldCommit()) {
+            stage.stage = name;
+            stage.player = event instanceof PlayerEvent playerEvent ? playerEvent.getPlayer().getName() : null;
+            stage.cancelled = event instanceof Cancellable cancellable && cancellable.isCancelled();
+            stage.commit();
+        }
+    }
+
+    /** Records one executed menu click action. */
+    public void recordAction(Object menu, ClickAction action, long nanos) {
+        if (!enabled) return;
+        actions.computeIfAbsent(menu.getClass().getSimpleName() + ":" + action.name(), Histogram::new).record(nanos);
+    }
+
+    /** Handlers sorted by total time, busiest first. */
+    public List<Histogram> getHandlers() {
+        return sorted(handlers);
+    }
+
+    /** Menu actions sorted by total time, busiest first. */
+    public List<Histogram> getActions() {
+        return sorted(actions);
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    /**
+     * Starts a new measurement window. Handler histograms are cleared in place, since the timed
+     * executors hold them from registration; samples racing the reset may land in either window.
+     */
+    public void reset() {
+        handlers.values().forEach(Histogram::clear);
+        actions.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /** Writes every entry as CSV into the plugin's timings folder and returns the file. */
+    public File export() throws IOException {
+        File directory = new File(plugin.getDataFolder(), "timings");
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, "timings-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+        StringBuilder csv = new StringBuilder("kind,name,count,total_ms,avg_us,p50_us,p99_us,p999_us,max_us\n");
+        appendCsv(csv, "handler", getHandlers());
+        appendCsv(csv, "action", getActions());
+        Files.writeString(file.toPath(), csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void appendCsv(StringBuilder csv, String kind, List<Histogram> histograms) {
+        for (Histogram histogram : histograms) {
+            csv.append(String.format(Locale.ROOT, "%s,\"%s\",%d,%.3f,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                    kind, histogram.getName(), histogram.getCount(), histogram.getTotalNanos() / 1_000_000.0,
+                    histogram.getAverageNanos() / 1_000.0, histogram.getPercentileNanos(0.5) / 1_000.0,
+                    histogram.getPercentileNanos(0.99) / 1_000.0, histogram.getPercentileNanos(0.999) / 1_000.0,
+                    histogram.getMaxNanos() / 1_000.0));
+        }
+    }
+
+    private static List<Histogram> sorted(Map<String, Histogram> histograms) {
+        List<Histogram> list = new ArrayList<>(histograms.values());
+        list.removeIf(histogram -> histogram.getCount() == 0);
+        list.sort(Comparator.comparingLong(Histogram::getTotalNanos).reversed());
+        return list;
+    }
+}
@@ -0,0 +1,174 @@
+package cp.corona.utils;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact binary format for inventory evidence. Each slot holds Paper's binary item encoding
+ * and may be stored as "unchanged" relative to the player's previous snapshot.
+ * <p>
+ * Layout: version, inventory size, ender chest size, then per slot a tag byte
+ * (empty / unchanged / item) followed by a var-int length and the item bytes for "item".
+ */
+public final class InventorySnapshotCodec {
+
+    /** Longest chain of delta snapshots before a full snapshot is written again. */
+    public static final int MAX_CHAIN_DEPTH = 16;
+
+    private static final byte VERSION = 1;
+    private static final byte SLOT_EMPTY = 0;
+    private static final byte SLOT_UNCHANGED = 1;
+    private static final byte SLOT_ITEM = 2;
+
+    private InventorySnapshotCodec() {
+    }
+
+    /** Item copies taken on the main thread; safe to encode from any thread afterwards. */
+    public record Contents(ItemStack[] inventory, ItemStack[] enderChest) {
+
+        /** Returns null when the player is offline. */
+        public static Contents copyOf(OfflinePlayer target) {
+            Player player = target.getPlayer();
+            if (player == null) return null;
+            return new Contents(copy(player.getInventory().getContents()), copy(player.getEnderChest().getContents()));
+        }
+
+        private static ItemStack[] copy(ItemStack[] items) {
+            ItemStack[] copy = new ItemStack[items.length];
+            for (int i = 0; i < items.length; i++) {
+                ItemStack item = items[i];
+                copy[i] = (item == null || item.getType().isAir()) ? null : item.clone();
+            }
+            return copy;
+        }
+
+        /** Serializes every slot, inventory first, then ender chest. Empty slots are null. */
+        public byte[][] toSlotBytes() {
+            byte[][] slots = new byte[inventory.length + enderChest.length][];
+            for (int i = 0; i < inventory.length; i++) {
+                slots[i] = inventory[i] != null ? inventory[i].serializeAsBytes() : null;
+            }
+            for (int i = 0; i < enderChest.length; i++) {
+                slots[inventory.length + i] = enderChest[i] != null ? enderChest[i].serializeAsBytes() : null;
+            }
+            return slots;
+        }
+    }
+
+    /** Fully resolved snapshot: one entry per slot, null for empty slots. */
+    public record Decoded(int inventorySize, int enderChestSize, byte[][] slots) {
+
+        public ItemStack[] inventoryItems() {
+            return toItems(0, inventorySize);
+        }
+
+        public ItemStack[] enderChestItems() {
+            return toItems(inventorySize, enderChestSize);
+        }
+
+        private ItemStack[] toItems(int offset, int length) {
+            ItemStack[] items = new ItemStack[length];
+            for (int i = 0; i < length; i++) {
+                byte[] bytes = slots[offset + i];
+                items[i] = bytes != null ? ItemStack.deserializeBytes(bytes) : null;
+            }
+            return items;
+        }
+    }
+
+    /**
+     * @param baseSlots resolved slots of the previous snapshot, or null to write a full snapshot
+     */
+    public static byte[] encode(int inventorySize, int enderChestSize, byte[][] slots, byte[][] baseSlots) {
+        if (baseSlots != null && baseSlots.length != slots.length) {
+            baseSlots = null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeShort(inventorySize);
+            out.writeShort(enderChestSize);
+            for (int i = 0; i < slots.length; i++) {
+                byte[] slot = slots[i];
+                if (slot == null) {
+                    out.writeByte(SLOT_EMPTY);
+                } else if (baseSlots != null && Arrays.equals(slot, baseSlots[i])) {
+                    out.writeByte(SLOT_UNCHANGED);
+                } else {
+                    out.writeByte(SLOT_ITEM);
+                    writeVarInt(out, slot.length);
+                    out.write(slot);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode inventory snapshot.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param baseSlots resolved slots of the snapshot this one was encoded against, or null
+     * @throws IllegalStateException if the data is corrupt or references a missing base
+     */
+    public static Decoded decode(byte[] data, byte[][] baseSlots) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported inventory snapshot version: " + version);
+            }
+            int inventorySize = in.readUnsignedShort();
+            int enderChestSize = in.readUnsignedShort();
+            byte[][] slots = new byte[inventorySize + enderChestSize][];
+            for (int i = 0; i < slots.length; i++) {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case SLOT_EMPTY -> slots[i] = null;
+                    case SLOT_UNCHANGED -> {
+                        if (baseSlots == null || i >= baseSlots.length) {
+                            throw new IllegalStateException("Inventory snapshot references a missing base snapshot.");
+                        }
+                        slots[i] = baseSlots[i];
+                    }
+                    case SLOT_ITEM -> {
+                        byte[] slot = new byte[readVarInt(in)];
+                        in.readFully(slot);
+                        slots[i] = slot;
+                    }
+                    default -> throw new IllegalStateException("Invalid inventory snapshot slot tag: " + tag);
+                }
+            }
+            return new Decoded(inventorySize, enderChestSize, slots);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to decode inventory snapshot.", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 35) throw new IOException("VarInt too long");
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,166 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end traces of punishments, from the moderator's confirm or command through the database
+ * write, the hop back to the server thread, the ban/command dispatch, the kick and hook actions.
+ * <p>
+ * Each stage is stamped as it finishes, so a trace shows where the time went: waiting for the
+ * async pool, the connection pool, the insert, or the scheduler. Traces slower than
+ * {@code logging.slow-punishment-ms} are logged; the most recent ones are kept for /crown stats traces.
+ */
+public class PunishmentTracer {
+
+    private static final int RECENT_CAPACITY = 200;
+
+    /** One punishment passing through the pipeline. Stages are stamped from several threads in turn. */
+    public static final class Trace {
+        private final PunishmentTracer tracer;
+        private final String id;
+        private final String source;
+        private final String punishmentType;
+        private final String target;
+        private final long startNanos = System.nanoTime();
+        private String[] stageNames = new String[12];
+        private long[] stageNanos = new long[12];
+        private int stageCount;
+        private volatile long totalNanos = -1L;
+        private volatile String outcome;
+
+        private Trace(PunishmentTracer tracer, String id, String source, String punishmentType, String target) {
+            this.tracer = tracer;
+            this.id = id;
+            this.source = source;
+            this.punishmentType = punishmentType;
+            this.target = target;
+        }
+
+        /** Marks the end of a stage. */
+        public synchronized void mark(String stage) {
+            if (totalNanos >= 0) return;
+            if (stageCount == stageNames.length) {
+                stageNames = Arrays.copyOf(stageNames, stageCount * 2);
+                stageNanos = Arrays.copyOf(stageNanos, stageCount * 2);
+            }
+            stageNames[stageCount] = stage;
+            stageNanos[stageCount] = System.nanoTime();
+            stageCount++;
+        }
+
+        /** Ends the trace after its last stage. */
+        public void finish() {
+            complete("ok");
+        }
+
+        /** Ends the trace early, e.g. when the database write failed. */
+        public void fail(String reason) {
+            complete(reason);
+        }
+
+        private void complete(String result) {
+            synchronized (this) {
+                if (totalNanos >= 0) return;
+                outcome = result;
+                totalNanos = System.nanoTime() - startNanos;
+            }
+            tracer.complete(this);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getPunishmentType() {
+            return punishmentType;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        /** Stage durations in order, e.g. {@code db_queue 0.4, connection 0.1, insert 12.3}. */
+        public synchronized String describeStages() {
+            StringBuilder out = new StringBuilder();
+            long previous = startNanos;
+            for (int i = 0; i < stageCount; i++) {
+                if (i > 0) out.append(", ");
+                out.append(stageNames[i]).append(' ')
+                        .append(String.format(Locale.ROOT, "%.1f", (stageNanos[i] - previous) / 1_000_000.0));
+                previous = stageNanos[i];
+            }
+            return out.toString();
+        }
+    }
+
+    private final Crown plugin;
+    private final long slowNanos;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Deque<Trace> recent = new ArrayDeque<>();
+
+    public PunishmentTracer(Crown plugin, long slowMillis) {
+        this.plugin = plugin;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, slowMillis));
+    }
+
+    /**
+     * Starts a trace for one punishment.
+     *
+     * @param source where it came from, e.g. {@code menu} or {@code command}
+     */
+    public Trace start(String source, String punishmentType, String target) {
+        String id = Long.toString(sequence.incrementAndGet(), 36);
+        return new Trace(this, id, source, punishmentType, target);
+    }
+
+    public long getSlowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowNanos);
+    }
+
+    /** Recent finished traces, slowest first. */
+    public List<Trace> getRecent() {
+        List<Trace> traces;
+        synchronized (recent) {
+            traces = new ArrayList<>(recent);
+        }
+        traces.sort(Comparator.comparingLong(Trace::getTotalNanos).reversed());
+        return traces;
+    }
+
+    private void complete(Trace trace) {
+        synchronized (recent) {
+            if (recent.size() == RECENT_CAPACITY) {
+                recent.removeFirst();
+            }
+            recent.addLast(trace);
+        }
+        if (slowNanos > 0 && trace.totalNanos >= slowNanos) {
+            plugin.getLogger().warning(String.format(Locale.ROOT,
+                    "Slow punishment trace %s (%s %s via %s, %s): %.1f ms [%s]",
+                    trace.id, trace.punishmentType, trace.target, trace.source, trace.outcome,
+                    trace.totalNanos / 1_000_000.0, trace.describeStages()));
+        }
+    }
+}
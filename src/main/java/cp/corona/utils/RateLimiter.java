@@ -0,0 +1,146 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-key limiter for abusable actions such as reports: a minimum gap between two actions and at
+ * most {@code amount} actions within a sliding period. Keys are player UUIDs or IP addresses.
+ * <p>
+ * Each key keeps a fixed ring of its last {@code amount} action times, so checks and records are
+ * O(1) and allocation-free once the key exists. Limits are passed per call, so a config reload
+ * applies immediately. Keys idle for longer than the period are evicted by a periodic sweep.
+ */
+public class RateLimiter<K> {
+
+    private static final long SWEEP_INTERVAL_TICKS = 20L * 60;
+
+    private static final class Window {
+        private long[] ring = new long[0];
+        private int head;
+        private int size;
+        private long last;
+        private boolean evicted;
+
+        private void add(long time) {
+            if (size < ring.length) {
+                ring[(head + size) % ring.length] = time;
+                size++;
+            } else {
+                ring[head] = time;
+                head = (head + 1) % ring.length;
+            }
+            last = time;
+        }
+
+        /** Keeps the most recent actions that fit. Only happens when the configured amount changes. */
+        private void resize(int capacity) {
+            long[] resized = new long[capacity];
+            int kept = Math.min(size, capacity);
+            for (int i = 0; i < kept; i++) {
+                resized[i] = ring[(head + size - kept + i) % ring.length];
+            }
+            ring = resized;
+            head = 0;
+            size = kept;
+        }
+    }
+
+    private final Crown plugin;
+    private final Map<K, Window> windows = new ConcurrentHashMap<>();
+    private final Function<K, Window> newWindow = key -> new Window();
+    private volatile long idleMillis;
+    private BukkitTask sweepTask;
+
+    public RateLimiter(Crown plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (sweepTask != null) return;
+        sweepTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }.runTaskTimerAsynchronously(plugin, SWEEP_INTERVAL_TICKS, SWEEP_INTERVAL_TICKS);
+    }
+
+    public void shutdown() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+        windows.clear();
+    }
+
+    /** Milliseconds left before the key may act again under the cooldown, or 0. */
+    public long getCooldownMillis(K key, long cooldownMillis) {
+        if (cooldownMillis <= 0) return 0L;
+        Window window = windows.get(key);
+        if (window == null) return 0L;
+        synchronized (window) {
+            if (window.size == 0) return 0L;
+            return Math.max(0L, window.last + cooldownMillis - System.currentTimeMillis());
+        }
+    }
+
+    /** True when the key already acted {@code amount} times within the last {@code periodMillis}. */
+    public boolean isLimited(K key, int amount, long periodMillis) {
+        if (amount <= 0) return false;
+        Window window = windows.get(key);
+        if (window == null) return false;
+        synchronized (window) {
+            if (window.size < amount) return false;
+            long oldest = window.ring[(window.head + window.size - amount) % window.ring.length];
+            return System.currentTimeMillis() - oldest < periodMillis;
+        }
+    }
+
+    /**
+     * Records one action.
+     *
+     * @param amount the window size in actions; the ring is resized when this changes
+     * @param horizonMillis how long the action matters (the longer of period and cooldown), used for eviction
+     */
+    public void record(K key, int amount, long horizonMillis) {
+        idleMillis = Math.max(0L, horizonMillis);
+        int capacity = Math.max(1, amount);
+        long now = System.currentTimeMillis();
+        while (true) {
+            Window window = windows.computeIfAbsent(key, newWindow);
+            synchronized (window) {
+                if (window.evicted) continue; // Swept between lookup and lock, take the fresh one.
+                if (window.ring.length != capacity) {
+                    window.resize(capacity);
+                }
+                window.add(now);
+                return;
+            }
+        }
+    }
+
+    public int getTrackedCount() {
+        return windows.size();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        for (K key : windows.keySet()) {
+            windows.computeIfPresent(key, (k, window) -> {
+                synchronized (window) {
+                    if (window.last < cutoff) {
+                        window.evicted = true;
+                        return null;
+                    }
+                    return window;
+                }
+            });
+        }
+    }
+}
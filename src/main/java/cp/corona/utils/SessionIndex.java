@@ -0,0 +1,134 @@
+package cp.corona.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of online sessions by normalized IP, maintained on join and quit, so IP punishments
+ * only touch the sessions that share the address.
+ */
+public class SessionIndex implements Listener {
+
+    private final Map<String, Map<UUID, Player>> playersByIp = new ConcurrentHashMap<>();
+    private final Map<UUID, String> ipByPlayer = new ConcurrentHashMap<>();
+
+    /** Indexes players that were already online, e.g. after a reload. */
+    public void start() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            add(player);
+        }
+    }
+
+    public void shutdown() {
+        playersByIp.clear();
+        ipByPlayer.clear();
+    }
+
+    /**
+     * Canonical form used for lookups: no leading slash, brackets or IPv6 zone, lower case,
+     * and IPv4-mapped IPv6 addresses reduced to plain IPv4.
+     */
+    public static String normalize(String ip) {
+        if (ip == null) return null;
+        String normalized = ip.trim();
+        if (normalized.startsWith("/")) normalized = normalized.substring(1);
+        if (normalized.startsWith("[") && normalized.endsWith("]")) {
+            normalized = normalized.substring(1, normalized.length() - 1);
+        }
+        int zone = normalized.indexOf('%');
+        if (zone >= 0) normalized = normalized.substring(0, zone);
+        normalized = normalized.toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("::ffff:") && normalized.indexOf('.') > 0) {
+            normalized = normalized.substring("::ffff:".length());
+        }
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    public static String normalize(InetSocketAddress address) {
+        if (address == null) return null;
+        InetAddress inetAddress = address.getAddress();
+        return inetAddress != null ? normalize(inetAddress.getHostAddress()) : null;
+    }
+
+    /** Online players connected from the address. Returns a copy, safe to kick while iterating. */
+    public List<Player> getPlayers(String ip) {
+        String key = normalize(ip);
+        if (key == null) return Collections.emptyList();
+        Map<UUID, Player> sessions = playersByIp.get(key);
+        return sessions != null ? new ArrayList<>(sessions.values()) : Collections.emptyList();
+    }
+
+    public int getConnectionCount(String ip) {
+        String key = normalize(ip);
+        if (key == null) return 0;
+        Map<UUID, Player> sessions = playersByIp.get(key);
+        return sessions != null ? sessions.size() : 0;
+    }
+
+    /** Normalized IP of an online player, or null if the player isn't indexed. */
+    public String getIp(UUID playerUUID) {
+        return ipByPlayer.get(playerUUID);
+    }
+
+    /** Addresses currently shared by at least {@code minimum} sessions. */
+    public Map<String, Integer> getSharedAddresses(int minimum) {
+        Map<String, Integer> shared = new ConcurrentHashMap<>();
+        playersByIp.forEach((ip, sessions) -> {
+            if (sessions.size() >= minimum) shared.put(ip, sessions.size());
+        });
+        return shared;
+    }
+
+    public int getIndexedAddressCount() {
+        return playersByIp.size();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        add(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        remove(event.getPlayer().getUniqueId());
+    }
+
+    private void add(Player player) {
+        String ip = normalize(player.getAddress());
+        if (ip == null) return;
+        String previous = ipByPlayer.put(player.getUniqueId(), ip);
+        if (previous != null && !previous.equals(ip)) {
+            removeFromAddress(previous, player.getUniqueId());
+        }
+        playersByIp.computeIfAbsent(ip, k -> new ConcurrentHashMap<>()).put(player.getUniqueId(), player);
+    }
+
+    private void remove(UUID playerUUID) {
+        String ip = ipByPlayer.remove(playerUUID);
+        if (ip != null) {
+            removeFromAddress(ip, playerUUID);
+        }
+    }
+
+    private void removeFromAddress(String ip, UUID playerUUID) {
+        playersByIp.computeIfPresent(ip, (k, sessions) -> {
+            sessions.remove(playerUUID);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
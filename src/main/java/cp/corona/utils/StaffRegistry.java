@@ -0,0 +1,123 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the set of online players holding each staff permission node, so staff broadcasts and
+ * vanish checks don't resolve permissions for every online player each time.
+ * <p>
+ * Membership is refreshed on join, quit and world change. Bukkit has no event for permission
+ * changes, so every online player is also re-checked periodically.
+ */
+public class StaffRegistry implements Listener {
+
+    public static final String USE_PERMISSION = "crown.use";
+    public static final String FREEZE_CHAT_PERMISSION = "crown.fchat";
+    public static final String SEE_VANISH_PERMISSION = "crown.mod.seevanish";
+
+    private static final String[] TRACKED_NODES = {USE_PERMISSION, FREEZE_CHAT_PERMISSION, SEE_VANISH_PERMISSION};
+    private static final long RESYNC_INTERVAL_TICKS = 100L;
+
+    private final Crown plugin;
+    private final Map<String, Map<UUID, Player>> staffByNode = new ConcurrentHashMap<>();
+    private BukkitTask resyncTask;
+
+    public StaffRegistry(Crown plugin) {
+        this.plugin = plugin;
+        for (String node : TRACKED_NODES) {
+            staffByNode.put(node, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void start() {
+        refreshAll();
+        if (resyncTask != null) return;
+        resyncTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                refreshAll();
+            }
+        }.runTaskTimer(plugin, RESYNC_INTERVAL_TICKS, RESYNC_INTERVAL_TICKS);
+    }
+
+    public void shutdown() {
+        if (resyncTask != null) {
+            resyncTask.cancel();
+            resyncTask = null;
+        }
+        staffByNode.values().forEach(Map::clear);
+    }
+
+    /** Online players holding the node. The view is live; copy it before mutating anything it depends on. */
+    public Collection<Player> getOnline(String node) {
+        Map<UUID, Player> members = staffByNode.get(node);
+        return members != null ? Collections.unmodifiableCollection(members.values()) : Collections.emptyList();
+    }
+
+    /** Cached permission check for tracked nodes, falling back to a live check for anything else. */
+    public boolean has(Player player, String node) {
+        Map<UUID, Player> members = staffByNode.get(node);
+        return members != null ? members.containsKey(player.getUniqueId()) : player.hasPermission(node);
+    }
+
+    public int count(String node) {
+        Map<UUID, Player> members = staffByNode.get(node);
+        return members != null ? members.size() : 0;
+    }
+
+    /** Re-resolves the tracked nodes for one player, e.g. after a permission change. */
+    public void refresh(Player player) {
+        UUID uuid = player.getUniqueId();
+        for (Map.Entry<String, Map<UUID, Player>> entry : staffByNode.entrySet()) {
+            if (player.isOnline() && player.hasPermission(entry.getKey())) {
+                entry.getValue().put(uuid, player);
+            } else {
+                entry.getValue().remove(uuid);
+            }
+        }
+    }
+
+    public void refreshAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            refresh(player);
+        }
+        // Drop anyone who left without a quit event reaching us (e.g. during a reload).
+        for (Map<UUID, Player> members : staffByNode.values()) {
+            members.values().removeIf(player -> !player.isOnline());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        refresh(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        for (Map<UUID, Player> members : staffByNode.values()) {
+            members.remove(uuid);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        refresh(event.getPlayer());
+    }
+}
@@ -0,0 +1,235 @@
+package cp.corona.utils;
+
+import cp.corona.crown.Crown;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+/**
+ * Single tick-driven timer service for per-player deadlines and repeating actions.
+ * <p>
+ * Timers are identified by owner (a player UUID) and a key; scheduling the same owner/key
+ * again replaces the previous timer. Every timer of an owner is cancelled when that player quits.
+ * All callbacks run on the main thread from one repeating task.
+ */
+public class TimingWheel implements Listener {
+
+    private static final int WHEEL_SIZE = 512; // Power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Crown plugin;
+    @SuppressWarnings("unchecked")
+    private final List<Timer>[] buckets = new List[WHEEL_SIZE];
+    private final Map<UUID, Map<String, Timer>> timersByOwner = new ConcurrentHashMap<>();
+    // Timers scheduled from other threads wait here until the next tick.
+    private final ConcurrentLinkedQueue<Timer> incoming = new ConcurrentLinkedQueue<>();
+    private volatile long currentTick;
+    private BukkitTask tickTask;
+
+    public TimingWheel(Crown plugin) {
+        this.plugin = plugin;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    /** Handle for a scheduled timer. */
+    public final class Timer {
+        private final UUID owner;
+        private final String key;
+        private final Runnable action;
+        private final long periodTicks;
+        private long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timer(UUID owner, String key, Runnable action, long deadlineTick, long periodTicks) {
+            this.owner = owner;
+            this.key = key;
+            this.action = action;
+            this.deadlineTick = deadlineTick;
+            this.periodTicks = periodTicks;
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            Map<String, Timer> ownerTimers = timersByOwner.get(owner);
+            if (ownerTimers != null) {
+                ownerTimers.remove(key, this);
+                if (ownerTimers.isEmpty()) {
+                    timersByOwner.remove(owner, ownerTimers);
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    public void start() {
+        if (tickTask != null) return;
+        tickTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /** Stops the wheel and drops every pending timer without running it. */
+    public void shutdown() {
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        for (Map<String, Timer> ownerTimers : timersByOwner.values()) {
+            ownerTimers.values().forEach(timer -> timer.cancelled = true);
+        }
+        timersByOwner.clear();
+        incoming.clear();
+        for (List<Timer> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * Runs the action once after the given delay, replacing any timer with the same owner and key.
+     */
+    public Timer schedule(UUID owner, String key, long delayTicks, Runnable action) {
+        return add(owner, key, action, delayTicks, 0L);
+    }
+
+    /**
+     * Runs the action every {@code periodTicks}, first after {@code initialDelayTicks}, until cancelled.
+     */
+    public Timer scheduleRepeating(UUID owner, String key, long initialDelayTicks, long periodTicks, Runnable action) {
+        return add(owner, key, action, initialDelayTicks, Math.max(1L, periodTicks));
+    }
+
+    public boolean isScheduled(UUID owner, String key) {
+        Map<String, Timer> ownerTimers = timersByOwner.get(owner);
+        return ownerTimers != null && ownerTimers.containsKey(key);
+    }
+
+    public void cancel(UUID owner, String key) {
+        Map<String, Timer> ownerTimers = timersByOwner.get(owner);
+        if (ownerTimers == null) return;
+        Timer timer = ownerTimers.get(key);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    public void cancelAll(UUID owner) {
+        Map<String, Timer> ownerTimers = timersByOwner.remove(owner);
+        if (ownerTimers != null) {
+            ownerTimers.values().forEach(timer -> timer.cancelled = true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        cancelAll(event.getPlayer().getUniqueId());
+    }
+
+    // --- Monitoring ---
+
+    public int getActiveCount() {
+        int count = 0;
+        for (Map<String, Timer> ownerTimers : timersByOwner.values()) {
+            count += ownerTimers.size();
+        }
+        return count;
+    }
+
+    public int getOwnerCount() {
+        return timersByOwner.size();
+    }
+
+    /** Active timers grouped by key, sorted by key. */
+    public Map<String, Integer> getCountsByKey() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map<String, Timer> ownerTimers : timersByOwner.values()) {
+            for (String key : ownerTimers.keySet()) {
+                counts.merge(key, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private Timer add(UUID owner, String key, Runnable action, long delayTicks, long periodTicks) {
+        Timer timer = new Timer(owner, key, action, currentTick + Math.max(1L, delayTicks), periodTicks);
+        Timer previous = timersByOwner.computeIfAbsent(owner, k -> new ConcurrentHashMap<>()).put(key, timer);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        incoming.add(timer);
+        return timer;
+    }
+
+    private void tick() {
+        long tick = ++currentTick;
+
+        Timer added;
+        while ((added = incoming.poll()) != null) {
+            if (!added.cancelled) {
+                if (added.deadlineTick < tick) {
+                    added.deadlineTick = tick; // Scheduled off-thread while the counter was advancing
+                }
+                buckets[(int) (added.deadlineTick & WHEEL_MASK)].add(added);
+            }
+        }
+
+        List<Timer> bucket = buckets[(int) (tick & WHEEL_MASK)];
+        if (bucket.isEmpty()) return;
+
+        List<Timer> due = new ArrayList<>();
+        Iterator<Timer> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timer timer = iterator.next();
+            if (timer.cancelled) {
+                iterator.remove();
+            } else if (timer.deadlineTick <= tick) {
+                iterator.remove();
+                due.add(timer);
+            }
+        }
+
+        for (Timer timer : due) {
+            if (timer.cancelled) continue; // Cancelled by an earlier callback this tick
+            if (timer.periodTicks > 0) {
+                timer.deadlineTick = tick + timer.periodTicks;
+                buckets[(int) (timer.deadlineTick & WHEEL_MASK)].add(timer);
+            } else {
+                timer.cancel();
+            }
+            try {
+                timer.action.run();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Timer '" + timer.key + "' for " + timer.owner + " failed.", e);
+            }
+        }
+    }
+}